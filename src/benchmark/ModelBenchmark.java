@@ -0,0 +1,285 @@
+package benchmark;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+
+import kernel.SystemOptions;
+import kernel.TestingManager;
+import kernel.SystemOptions.ModelType;
+import locales.LocaleBundle;
+import main.BatchKernel;
+import mid.CompiledUnifier;
+import mid.Firing;
+import mid.FiringSequence;
+import mid.MID;
+import mid.Marking;
+import mid.Substitution;
+import mid.Transition;
+import mid.Unifier;
+import testcode.TargetLanguage;
+import testcode.TestCodeGenerator;
+import testgeneration.TransitionTree;
+import testgeneration.TransitionTreeNode;
+import verification.GoalVerifierBFS;
+
+import edit.XMIDEditor;
+
+// Measures the hot paths on the shipped example models: unification, firing, marking copies and keys,
+// test generation for each coverage criterion, goal verification, and code generation for each target language.
+// Each case is run for a number of warmup rounds and then measured; a round repeats the case for at least RoundMillis.
+// Reported: throughput, allocated bytes per operation and per second (of the running thread), and peak heap usage.
+// The footprint of the reachability tree is reported in retained bytes per node, with and without the markings of inner nodes.
+// Usage: java -Djava.awt.headless=true benchmark.ModelBenchmark [-depth n] [-rounds n] [model.xmid ...]
+// Run from the project directory for the default models.
+
+public class ModelBenchmark {
+
+	private static final String[] DefaultModels = {
+		"examples/csharp/Blocks/CSharpBlocksNet.xmid",
+		"examples/java/CruiseControl/CruiseControllerNet.xmid"
+	};
+
+	private static final int WarmupRounds = 3;
+	private static final long RoundMillis = 100;
+
+	private static abstract class Case {
+		// returns the size of the result, e.g., the number of substitutions or tests
+		abstract int run() throws Exception;
+	}
+
+	private int depth = 5;
+	private int rounds = 10;
+
+	public static void main(String[] args) throws Exception {
+		LocaleBundle.setResourceBundle();
+		ModelBenchmark benchmark = new ModelBenchmark();
+		ArrayList<String> models = new ArrayList<String>();
+		for (int index=0; index<args.length; index++)
+			if (args[index].equals("-depth"))
+				benchmark.depth = Integer.parseInt(args[++index]);
+			else if (args[index].equals("-rounds"))
+				benchmark.rounds = Integer.parseInt(args[++index]);
+			else
+				models.add(args[index]);
+		if (models.size()==0)
+			for (String model: DefaultModels)
+				models.add(model);
+		System.out.println("search depth: "+benchmark.depth+", measured rounds: "+benchmark.rounds);
+		for (String model: models)
+			benchmark.benchmarkModel(new File(model));
+	}
+
+	private void benchmarkModel(File file) throws Exception {
+		SystemOptions systemOptions = new SystemOptions();
+		systemOptions.setSearchDepth(depth);
+		final BatchKernel kernel = new BatchKernel(systemOptions);
+		XMIDEditor editor = new XMIDEditor(kernel, false, file);
+		final MID mid = editor.parse();
+		if (mid==null) {
+			System.out.println(file+": "+editor.getConsoleText().trim());
+			return;
+		}
+		final ModelType modelType = editor.getModelType();
+		System.out.println();
+		System.out.println(file.getName()+": "+mid.getTransitions().size()+" transitions, "+mid.getPlaces().size()+" places, "
+				+mid.getInitialMarkings().size()+" initial markings");
+		System.out.println(String.format("%-36s %12s %12s %12s %10s %10s", "case", "ops/s", "alloc KB/op", "alloc MB/s", "peak MB", "results"));
+
+		final ArrayList<Marking> markings = new ArrayList<Marking>();
+		final ArrayList<Firing> firings = new ArrayList<Firing>();
+		final ArrayList<Marking> firingMarkings = new ArrayList<Marking>();
+		for (Marking initialMarking: mid.getInitialMarkings()) {
+			markings.add(initialMarking);
+			for (Transition transition: mid.getTransitions())
+				for (Substitution substitution: new CompiledUnifier(transition, initialMarking).getSubstitutions()) {
+					firings.add(new Firing(transition, substitution));
+					firingMarkings.add(initialMarking);
+					markings.add(mid.fireTransition(initialMarking, transition, substitution));
+				}
+		}
+		measure("unify (Unifier)", new Case() {
+			int run() {
+				int count = 0;
+				for (Marking marking: mid.getInitialMarkings())
+					for (Transition transition: mid.getTransitions())
+						count += new Unifier(transition, marking).getSubstitutions().size();
+				return count;
+			}
+		});
+		measure("unify (CompiledUnifier)", new Case() {
+			int run() {
+				int count = 0;
+				for (Marking marking: mid.getInitialMarkings())
+					for (Transition transition: mid.getTransitions())
+						count += new CompiledUnifier(transition, marking).getSubstitutions().size();
+				return count;
+			}
+		});
+		measure("fire transitions", new Case() {
+			int run() {
+				int count = 0;
+				for (int index=0; index<firings.size(); index++) {
+					Firing firing = firings.get(index);
+					count += mid.fireTransition(firingMarkings.get(index), firing.getTransition(), firing.getSubstitution()).getPlaces().size();
+				}
+				return count;
+			}
+		});
+		measure("clone markings", new Case() {
+			int run() {
+				int count = 0;
+				for (Marking marking: markings)
+					count += marking.clone().getPlaces().size();
+				return count;
+			}
+		});
+		measure("marking key strings", new Case() {
+			int run() {
+				int count = 0;
+				for (Marking marking: markings)
+					count += marking.getKeyString(mid.getPlaces()).length();
+				return count;
+			}
+		});
+
+		for (final String coverage: systemOptions.getCoverageStringList(modelType)) {
+			systemOptions.setCoverageCriterion(coverage);
+			if (TestingManager.createTransitionTree(kernel, mid, modelType)==null) {
+				System.out.println(String.format("%-36s %s", "tree "+systemOptions.getCoverageCriterion().getID(), "not applicable"));
+				continue;
+			}
+			measure("tree "+systemOptions.getCoverageCriterion().getID(), new Case() {
+				int run() throws Exception {
+					TransitionTree tree = TestingManager.createTransitionTree(kernel, mid, modelType);
+					tree.generateTransitionTree();
+					return tree.getAllTests().size();
+				}
+			});
+		}
+
+		if (mid.getGoalProperties().size()>0)
+			measure("goal verification (BFS)", new Case() {
+				int run() throws Exception {
+					int reached = 0;
+					for (FiringSequence[] sequences: new GoalVerifierBFS(mid, depth, false, null, kernel.getSystemOptions()).getFiringSequences())
+						for (FiringSequence sequence: sequences)
+							if (sequence!=null)
+								reached++;
+					return reached;
+				}
+			});
+
+		systemOptions.setCoverageCriterion(SystemOptions.ReachabilityTreeCoverage.getID());
+		measureTreeFootprint(kernel, mid, modelType);
+		final TransitionTree tree = TestingManager.createTransitionTree(kernel, mid, modelType);
+		tree.generateTransitionTree();
+		final File testCodeFile = File.createTempFile("benchmark", ".test");
+		testCodeFile.deleteOnExit();
+		for (TargetLanguage language: SystemOptions.AllLanguages) {
+			systemOptions.setLanguage(language);
+			measure("code "+language.getName(), new Case() {
+				int run() throws Exception {
+					TestCodeGenerator.createCodeGenerator(tree).saveTestSuiteCode(testCodeFile);
+					return (int)testCodeFile.length();
+				}
+			});
+		}
+	}
+
+	private void measure(String name, Case benchmarkCase){
+		try {
+			for (int round=0; round<WarmupRounds; round++)
+				runRound(benchmarkCase);
+			long start = System.nanoTime();
+			benchmarkCase.run();
+			long opsPerRound = Math.max(1, RoundMillis*1000000/Math.max(1, System.nanoTime()-start));
+			System.gc();
+			resetPeakHeapUsage();
+			long allocatedBefore = allocatedBytes();
+			long operations = 0;
+			int results = 0;
+			start = System.nanoTime();
+			for (int round=0; round<rounds; round++)
+				for (long operation=0; operation<opsPerRound; operation++) {
+					results = benchmarkCase.run();
+					operations++;
+				}
+			long time = System.nanoTime()-start;
+			long allocated = allocatedBytes()-allocatedBefore;
+			double seconds = time/1e9;
+			System.out.println(String.format("%-36s %12.1f %12s %12s %10.1f %10d", name, operations/seconds,
+					allocated<0? "n/a": String.format("%.1f", allocated/1024.0/operations),
+					allocated<0? "n/a": String.format("%.1f", allocated/1048576.0/seconds),
+					peakHeapUsage()/1048576.0, results));
+		}
+		catch (Throwable e) {
+			System.out.println(String.format("%-36s %s", name, "failed: "+e));
+		}
+	}
+
+	private void measureTreeFootprint(BatchKernel kernel, MID mid, ModelType modelType){
+		try {
+			long before = usedHeap();
+			TransitionTree tree = TestingManager.createTransitionTree(kernel, mid, modelType);
+			tree.generateTransitionTree();
+			long withMarkings = usedHeap()-before;
+			int dropped = tree.dropIntermediateMarkings();
+			long withoutMarkings = usedHeap()-before;
+			int nodes = countNodes(tree.getRoot());
+			System.out.println(String.format("%-36s %d nodes, %.1f bytes/node, %.1f bytes/node without %d inner markings", "tree footprint",
+					nodes, withMarkings/(double)nodes, withoutMarkings/(double)nodes, dropped));
+		}
+		catch (Throwable e) {
+			System.out.println(String.format("%-36s %s", "tree footprint", "failed: "+e));
+		}
+	}
+
+	private static int countNodes(TransitionTreeNode node){
+		int count = 1;
+		for (TransitionTreeNode child: node.children())
+			count += countNodes(child);
+		return count;
+	}
+
+	private static long usedHeap(){
+		Runtime runtime = Runtime.getRuntime();
+		for (int count=0; count<3; count++)
+			System.gc();
+		return runtime.totalMemory()-runtime.freeMemory();
+	}
+
+	private static void runRound(Case benchmarkCase) throws Exception {
+		long start = System.currentTimeMillis();
+		do {
+			benchmarkCase.run();
+		} while (System.currentTimeMillis()-start<RoundMillis);
+	}
+
+	// bytes allocated by the current thread, or -1 if the JVM does not count them
+	private static long allocatedBytes(){
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)bean;
+			if (threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled())
+				return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	private static void resetPeakHeapUsage(){
+		for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType()==MemoryType.HEAP)
+				pool.resetPeakUsage();
+	}
+
+	private static long peakHeapUsage(){
+		long peak = 0;
+		for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType()==MemoryType.HEAP)
+				peak += pool.getPeakUsage().getUsed();
+		return peak;
+	}
+}
@@ -0,0 +1,118 @@
+package benchmark;
+
+import java.util.ArrayList;
+
+import mid.CompiledUnifier;
+import mid.GeneralUnifier;
+import mid.Marking;
+import mid.Predicate;
+import mid.Transition;
+import mid.TupleFactory;
+import mid.Unifier;
+
+// Compares Unifier with CompiledUnifier on synthetic preconditions.
+// Each case is run for a number of warmup rounds and then measured;
+// the two unifiers must produce the same number of substitutions.
+// Usage: java benchmark.UnifierBenchmark [tokens per place] [measured rounds]
+
+public class UnifierBenchmark {
+
+	private static final int WarmupRounds = 5;
+
+	public static void main(String[] args) {
+		int tokens = args.length>0? Integer.parseInt(args[0]): 64;
+		int rounds = args.length>1? Integer.parseInt(args[1]): 20;
+		System.out.println("tokens per place: "+tokens);
+		System.out.println(String.format("%-24s %14s %14s %8s %8s", "case", "Unifier ns/op", "Compiled ns/op", "speedup", "results"));
+		run("chain join", chainJoin(), chainMarking(tokens), rounds);
+		run("selective last input", selectiveLast(), chainMarking(tokens), rounds);
+		run("constant probe", constantProbe(), chainMarking(tokens), rounds);
+		run("join with negation", joinWithNegation(), chainMarking(tokens), rounds);
+	}
+
+	private static void run(String name, Transition transition, Marking marking, int rounds){
+		for (int round=0; round<WarmupRounds; round++) {
+			measure(transition, marking, false);
+			measure(transition, marking, true);
+		}
+		long original = 0, compiled = 0;
+		int originalResults = 0, compiledResults = 0;
+		for (int round=0; round<rounds; round++) {
+			long start = System.nanoTime();
+			originalResults = measure(transition, marking, false);
+			original += System.nanoTime()-start;
+			start = System.nanoTime();
+			compiledResults = measure(transition, marking, true);
+			compiled += System.nanoTime()-start;
+		}
+		if (originalResults!=compiledResults)
+			System.out.println(name+": different numbers of substitutions "+originalResults+" vs. "+compiledResults);
+		System.out.println(String.format("%-24s %14d %14d %8.2f %8d", name, original/rounds, compiled/rounds, (double)original/compiled, compiledResults));
+	}
+
+	private static int measure(Transition transition, Marking marking, boolean compiled){
+		GeneralUnifier unifier = compiled? new CompiledUnifier(transition, marking): new Unifier(transition, marking);
+		return unifier.getSubstitutions().size();
+	}
+
+	// p(?x, ?y), q(?y, ?z), r(?z)
+	private static Transition chainJoin(){
+		Transition transition = new Transition("chain");
+		transition.getPrecondition().add(predicate("p", "?x", "?y"));
+		transition.getPrecondition().add(predicate("q", "?y", "?z"));
+		transition.getPrecondition().add(predicate("r", "?z"));
+		return transition;
+	}
+
+	// p(?x, ?y), q(?y, ?z), s(?x)
+	private static Transition selectiveLast(){
+		Transition transition = new Transition("selective");
+		transition.getPrecondition().add(predicate("p", "?x", "?y"));
+		transition.getPrecondition().add(predicate("q", "?y", "?z"));
+		transition.getPrecondition().add(predicate("s", "?x"));
+		return transition;
+	}
+
+	// q(?y, ?z), p(?x, ?y), p(?y, V3)
+	private static Transition constantProbe(){
+		Transition transition = new Transition("constant");
+		transition.getPrecondition().add(predicate("q", "?y", "?z"));
+		transition.getPrecondition().add(predicate("p", "?x", "?y"));
+		transition.getPrecondition().add(predicate("p", "?y", "V3"));
+		return transition;
+	}
+
+	// p(?x, ?y), not r(?y), q(?y, ?z)
+	private static Transition joinWithNegation(){
+		Transition transition = new Transition("negation");
+		transition.getPrecondition().add(predicate("p", "?x", "?y"));
+		Predicate negation = predicate("r", "?y");
+		transition.getPrecondition().add(new Predicate(negation.getName(), negation.getArguments(), true));
+		transition.getPrecondition().add(predicate("q", "?y", "?z"));
+		return transition;
+	}
+
+	// p(Vi, Vi+1), q(Vi, V2i), r(Vi) for even i, s(V1)
+	private static Marking chainMarking(int tokens){
+		Marking marking = new Marking();
+		for (int i=0; i<tokens; i++) {
+			marking.addTuple("p", TupleFactory.createTuple(arguments("V"+i, "V"+(i+1))));
+			marking.addTuple("q", TupleFactory.createTuple(arguments("V"+i, "V"+(2*i))));
+			if (i%2==0)
+				marking.addTuple("r", TupleFactory.createTuple(arguments("V"+i)));
+		}
+		marking.addTuple("s", TupleFactory.createTuple(arguments("V1")));
+		return marking;
+	}
+
+	private static Predicate predicate(String name, String... labels){
+		return new Predicate(name, arguments(labels));
+	}
+
+	private static ArrayList<String> arguments(String... values){
+		ArrayList<String> arguments = new ArrayList<String>();
+		for (String value: values)
+			arguments.add(value);
+		return arguments;
+	}
+}
@@ -32,11 +32,16 @@ public class CPNConverter {
 
 	private static final String tmpMIDFile = "ista.tmp";
 
-    static private int rowIndex = 0;
-    static private CellStyle lineWrapStyle; 
+    // each conversion writes its workbook with its own instance
+    private int rowIndex = 0;
+    private CellStyle lineWrapStyle; 
+    
+    private CPNConverter(){
+    }
     
 	public static File convertCPNToMIDFile(File file) throws Exception{
 		CPNNet net = new CPNNet(file);
+		CPNConverter converter = new CPNConverter();
 		Workbook wb = null;
 		Sheet modelSheet = null;
 		File targetMIDFile = new File (file.getParent()+File.separator+FileUtil.getTargetMIDFileName(file));
@@ -53,12 +58,12 @@ public class CPNConverter {
 		else {
 			wb = new HSSFWorkbook();
 	        modelSheet = wb.createSheet("MODEL");
-	        createMIMSheet(wb);
-	        createCodeSheet(wb);
+	        converter.createMIMSheet(wb);
+	        converter.createCodeSheet(wb);
 		}
-	    lineWrapStyle = wb.createCellStyle();
-	    lineWrapStyle.setWrapText(true);
-        writeModelSheet(modelSheet, net);
+	    converter.lineWrapStyle = wb.createCellStyle();
+	    converter.lineWrapStyle.setWrapText(true);
+        converter.writeModelSheet(modelSheet, net);
  		FileOutputStream out = new FileOutputStream(targetMIDFile);
 	    wb.write(out);
 		out.close();
@@ -70,6 +75,7 @@ public class CPNConverter {
 	}
 
 	public static File convertPNMLToMIDFile(File file) throws Exception {
+		CPNConverter converter = new CPNConverter();
 		Workbook wb = null;
 		Sheet modelSheet = null;
 		File targetMIDFile = new File (file.getParent()+File.separator+FileUtil.getTargetMIDFileName(file));
@@ -86,18 +92,18 @@ public class CPNConverter {
 		else {
 			wb = new HSSFWorkbook();
 	        modelSheet = wb.createSheet("MODEL");
-	        createMIMSheet(wb);
-	        createCodeSheet(wb);
+	        converter.createMIMSheet(wb);
+	        converter.createCodeSheet(wb);
 		}
-	    lineWrapStyle = wb.createCellStyle();
-	    lineWrapStyle.setWrapText(true);
+	    converter.lineWrapStyle = wb.createCellStyle();
+	    converter.lineWrapStyle.setWrapText(true);
 	    String modelFileName = file.getName();
 	    if (modelFileName.endsWith(FileUtil.PNMLFileExtension)) {
 	    	modelFileName = modelFileName.replace(".pnml", ".xml");
 	    	File XMLfile = new File(file.getParent()+File.separator+modelFileName);
 	    	convertPNMLFile(file, XMLfile);	   
 	    }
-        writeModelSheetForPNML(modelSheet, modelFileName);
+        converter.writeModelSheetForPNML(modelSheet, modelFileName);
  		FileOutputStream out = new FileOutputStream(targetMIDFile);
 	    wb.write(out);
 		out.close();
@@ -133,7 +139,7 @@ public class CPNConverter {
 		}
 	}
 
-	static private void writeModelSheetForPNML(Sheet sheet, String modelFileName) {
+	private void writeModelSheetForPNML(Sheet sheet, String modelFileName) {
         sheet.autoSizeColumn((short)0); //adjust width of the first column
         sheet.setFitToPage(true);
         sheet.setColumnWidth(0, 16*256);
@@ -161,7 +167,7 @@ public class CPNConverter {
 	}
 
 	
-	static private void writeModelSheet(Sheet sheet, CPNNet net) {
+	private void writeModelSheet(Sheet sheet, CPNNet net) {
         sheet.autoSizeColumn((short)0); //adjust width of the first column
         sheet.setFitToPage(true);
         sheet.setColumnWidth(0, 16*256);
@@ -195,7 +201,7 @@ public class CPNConverter {
         sheet.createRow(rowIndex++);
 	}
 
-	static private void createTransitionTitleRow(Sheet sheet){
+	private void createTransitionTitleRow(Sheet sheet){
     	Row row = sheet.createRow(rowIndex++);
     	Cell keywordCell = row.createCell(0);
     	keywordCell.setCellValue("");
@@ -213,7 +219,7 @@ public class CPNConverter {
  //      	guardCell.setCellValue("GUARD");
 	}
 
-	static private void createTransitionRow(Sheet sheet, CPNTransition transition){
+	private void createTransitionRow(Sheet sheet, CPNTransition transition){
     	Row row = sheet.createRow(rowIndex++);
     	Cell keywordCell = row.createCell(0);
     	keywordCell.setCellValue(XMIDProcessor.MODEL_KEYWORD);
@@ -243,7 +249,7 @@ public class CPNConverter {
     	guardCell.setCellStyle(lineWrapStyle);
 	}
 
-	static private void createMarkingRow(Sheet sheet, String keyword, String marking){
+	private void createMarkingRow(Sheet sheet, String keyword, String marking){
     	Row row = sheet.createRow(rowIndex++);
        	Cell keywordCell = row.createCell(0);
     	keywordCell.setCellValue(keyword);
@@ -251,7 +257,7 @@ public class CPNConverter {
     	initCell.setCellValue(marking);
 	}
 	
-	static private void createMIMSheet(Workbook wb){
+	private void createMIMSheet(Workbook wb){
 	    Sheet sheet = wb.createSheet("MIM");
 	    sheet.setFitToPage(true);
 	    sheet.autoSizeColumn((short)0); //adjust width of the first column
@@ -268,7 +274,7 @@ public class CPNConverter {
 	}
 	
 	
-	static private void createCodeSheet(Workbook wb) {
+	private void createCodeSheet(Workbook wb) {
         Sheet sheet = wb.createSheet("HELPER CODE");
         sheet.setFitToPage(true);
         
@@ -77,7 +77,8 @@ public class AccessControlPanel extends JPanel implements DocumentListener{
 		removeAll();
 		JSplitPane wholePane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, createUpperPane(), createLowerPane());
         wholePane.setOneTouchExpandable(false);
-        wholePane.setDividerLocation((int)(0.3*editor.getKernel().getParentFrame().getHeight()));
+        if (editor.getKernel().getParentFrame()!=null)	// no frame in batch mode
+        	wholePane.setDividerLocation((int)(0.3*editor.getKernel().getParentFrame().getHeight()));
         setLayout(new BorderLayout());
         add(wholePane, BorderLayout.CENTER);
         this.addMouseListener(mouseAdapter);
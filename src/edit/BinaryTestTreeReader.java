@@ -0,0 +1,318 @@
+package edit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import kernel.CancellationException;
+import locales.LocaleBundle;
+import mid.MID;
+import mid.Marking;
+import mid.Substitution;
+import mid.Transition;
+import mid.TupleFactory;
+import testgeneration.ParaRecord;
+import testgeneration.ParaTableModel;
+import testgeneration.TransitionTree;
+import testgeneration.TransitionTreeNode;
+
+// Reads a test tree written by BinaryTestTreeWriter. The file is memory-mapped: the header and the string table
+// are read when the file is opened, and the node records are decoded when the tree is loaded.
+// A node is identified by its position in the file (0 for the root); loadSubtree leaves the children of the deepest nodes
+// in the file until they are first needed, e.g., when the node is expanded in the test tree view.
+
+public class BinaryTestTreeReader {
+
+	private ByteBuffer buffer;
+	private int version;
+	private String systemVersion;
+	private String modelFileName;
+	private String coverage;
+	private String[] strings;
+	private int indexOffset;
+	private int nodeCount;
+
+	// the children of node i are childIds[childStart[i]]..childIds[childStart[i+1]-1], computed when first needed
+	private int[] childStart;
+	private int[] childIds;
+
+	public BinaryTestTreeReader(File file) throws IOException {
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = input.getChannel();
+			if (channel.size()>Integer.MAX_VALUE)
+				throw new IOException(LocaleBundle.bundleString("Incorrect test data format"));
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally {
+			input.close();
+		}
+		readHeader();
+		readTrailer();
+	}
+
+	public static boolean isBinaryTestTreeFile(File file) {
+		byte[] magic = new byte[BinaryTestTreeWriter.MAGIC.length];
+		try {
+			FileInputStream in = new FileInputStream(file);
+			try {
+				if (in.read(magic)!=magic.length)
+					return false;
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException e) {
+			return false;
+		}
+		return Arrays.equals(magic, BinaryTestTreeWriter.MAGIC);
+	}
+
+	public String getSystemVersion() {
+		return systemVersion;
+	}
+
+	public String getModelFileName() {
+		return modelFileName;
+	}
+
+	public String getCoverage() {
+		return coverage;
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	// loads all nodes into the tree
+	public void loadTree(TransitionTree tree, MID mid) throws IOException, CancellationException {
+		if (childStart==null)
+			indexChildren();
+		TransitionTreeNode root = readNode(0, mid);
+		ArrayList<TransitionTreeNode> nodes = new ArrayList<TransitionTreeNode>();
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+		nodes.add(root);
+		ids.add(0);
+		int loaded = 0;
+		for (int next=0; next<nodes.size(); next++) {
+			TransitionTreeNode parent = nodes.get(next);
+			int id = ids.get(next);
+			for (int child=childStart[id]; child<childStart[id+1]; child++) {
+				TransitionTreeNode childNode = readNode(childIds[child], mid);
+				parent.add(childNode);
+				nodes.add(childNode);
+				ids.add(childIds[child]);
+			}
+			if (++loaded%1000==0) {
+				tree.checkForCancellation();
+				if (tree.getProgressDialog()!=null)
+					tree.getProgressDialog().setMessage(LocaleBundle.bundleString("Loading")+" "+nodes.size()+" "+LocaleBundle.bundleString("out of")+" "+nodeCount+"...");
+			}
+			// the loaded nodes are referenced by the tree
+			nodes.set(next, null);
+		}
+		tree.setRoot(root);
+		root.resetChildrenOutlineNumbers(tree.getSystemOptions().getMaxIdDepth());
+	}
+
+	// the node and its descendants down to the given number of levels below it
+	public TransitionTreeNode loadSubtree(int node, MID mid, int levels) throws IOException {
+		TransitionTreeNode subtreeRoot = readNode(node, mid);
+		SubtreeLoader loader = new SubtreeLoader(mid);
+		ArrayList<TransitionTreeNode> nodes = new ArrayList<TransitionTreeNode>();
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+		nodes.add(subtreeRoot);
+		ids.add(node);
+		for (int next=0; next<nodes.size(); next++) {
+			TransitionTreeNode parent = nodes.get(next);
+			int id = ids.get(next);
+			int[] children = getChildren(id);
+			if (children.length>0 && parent.getLevel()-subtreeRoot.getLevel()>=levels)
+				parent.setPendingChildren(loader, id);
+			else
+				for (int child: children) {
+					TransitionTreeNode childNode = readNode(child, mid);
+					parent.add(childNode);
+					nodes.add(childNode);
+					ids.add(child);
+				}
+			nodes.set(next, null);
+		}
+		return subtreeRoot;
+	}
+
+	// the ids of the children of the node
+	public int[] getChildren(int node) {
+		if (childStart==null)
+			indexChildren();
+		return Arrays.copyOfRange(childIds, childStart[node], childStart[node+1]);
+	}
+
+	// reads the children of a node left in the file by loadSubtree, leaving their own children in the file
+	private class SubtreeLoader implements TransitionTreeNode.ChildrenLoader {
+		private MID mid;
+
+		SubtreeLoader(MID mid) {
+			this.mid = mid;
+		}
+
+		public void loadChildren(TransitionTreeNode node, int nodeId) {
+			try {
+				for (int child: getChildren(nodeId)) {
+					TransitionTreeNode childNode = readNode(child, mid);
+					node.add(childNode);
+					if (childStart[child]<childStart[child+1])
+						childNode.setPendingChildren(this, child);
+				}
+			}
+			catch (IOException e) {
+				throw new RuntimeException(e.getMessage(), e);
+			}
+		}
+	}
+
+	private TransitionTreeNode readNode(int node, MID mid) throws IOException {
+		try {
+			ByteBuffer record = buffer.duplicate();
+			record.position((int)buffer.getLong(indexOffset+node*12));
+			readVarint(record);		// parent
+			int flags = readVarint(record);
+			boolean negative = (flags & BinaryTestTreeWriter.NEGATIVE)!=0;
+			Transition transition = null;
+			if ((flags & BinaryTestTreeWriter.HAS_TRANSITION)!=0) {
+				if (negative) {
+					transition = new Transition(readStringId(record));
+					ArrayList<String> arguments = readStringIds(record);
+					transition.setArguments(arguments);
+					transition.setAllVariables(arguments);
+				}
+				else {
+					int index = readVarint(record)-1;
+					transition = index<0? new Transition(MID.ConstructorEvent): mid.getTransitionAtIndex(index);
+					if (transition==null)
+						throw new IOException(LocaleBundle.bundleString("Incorrect test data format"));
+				}
+			}
+			Substitution substitution = null;
+			if ((flags & BinaryTestTreeWriter.HAS_SUBSTITUTION)!=0) {
+				Hashtable<String, String> bindings = new Hashtable<String, String>();
+				for (int count=readVarint(record); count>0; count--) {
+					String variable = readStringId(record);
+					bindings.put(variable, readStringId(record));
+				}
+				substitution = new Substitution(bindings);
+			}
+			Marking marking = null;
+			if ((flags & BinaryTestTreeWriter.HAS_MARKING)!=0) {
+				marking = new Marking();
+				for (int places=readVarint(record); places>0; places--) {
+					String place = readStringId(record);
+					for (int tuples=readVarint(record); tuples>0; tuples--)
+						marking.addTuple(place, TupleFactory.createTuple(readStringIds(record)));
+				}
+			}
+			TransitionTreeNode newNode = new TransitionTreeNode(transition, substitution, marking, negative);
+			if ((flags & BinaryTestTreeWriter.HAS_USER_INPUT)!=0) {
+				Vector<ParaRecord> dataVector = new Vector<ParaRecord>();
+				for (int count=readVarint(record); count>0; count--) {
+					String expression = readStringId(record);
+					dataVector.add(new ParaRecord(expression, readVarint(record)==1));
+				}
+				newNode.setParaTable(new ParaTableModel(dataVector));
+			}
+			return newNode;
+		}
+		catch (RuntimeException e) {
+			throw new IOException(LocaleBundle.bundleString("Incorrect test data format"));
+		}
+	}
+
+	private void readHeader() throws IOException {
+		ByteBuffer header = buffer.duplicate();
+		byte[] magic = new byte[BinaryTestTreeWriter.MAGIC.length];
+		try {
+			header.get(magic);
+			version = readVarint(header);
+			if (!Arrays.equals(magic, BinaryTestTreeWriter.MAGIC) || version>BinaryTestTreeWriter.FORMAT_VERSION)
+				throw new IOException(LocaleBundle.bundleString("Invalid test data format"));
+			systemVersion = readString(header);
+			modelFileName = readString(header);
+			coverage = readString(header);
+		}
+		catch (RuntimeException e) {
+			throw new IOException(LocaleBundle.bundleString("Invalid test data format"));
+		}
+	}
+
+	private void readTrailer() throws IOException {
+		try {
+			int trailer = buffer.limit()-BinaryTestTreeWriter.TRAILER_SIZE;
+			long stringTableOffset = buffer.getLong(trailer);
+			indexOffset = (int)buffer.getLong(trailer+8);
+			nodeCount = buffer.getInt(trailer+16);
+			if (stringTableOffset<0 || stringTableOffset>indexOffset || nodeCount<1 || indexOffset+(long)nodeCount*12!=trailer)
+				throw new IOException(LocaleBundle.bundleString("Incorrect test data format"));
+			ByteBuffer table = buffer.duplicate();
+			table.position((int)stringTableOffset);
+			strings = new String[readVarint(table)];
+			for (int index=0; index<strings.length; index++)
+				strings[index] = readString(table);
+		}
+		catch (RuntimeException e) {
+			throw new IOException(LocaleBundle.bundleString("Incorrect test data format"));
+		}
+	}
+
+	// -1 for the root
+	private int getParent(int node) {
+		return buffer.getInt(indexOffset+node*12+8);
+	}
+
+	private synchronized void indexChildren() {
+		childStart = new int[nodeCount+1];
+		for (int node=1; node<nodeCount; node++)
+			childStart[getParent(node)+1]++;
+		for (int node=0; node<nodeCount; node++)
+			childStart[node+1] += childStart[node];
+		childIds = new int[Math.max(0, nodeCount-1)];
+		int[] next = Arrays.copyOf(childStart, nodeCount);
+		for (int node=1; node<nodeCount; node++)
+			childIds[next[getParent(node)]++] = node;
+	}
+
+	private String readStringId(ByteBuffer in) {
+		return strings[readVarint(in)];
+	}
+
+	private ArrayList<String> readStringIds(ByteBuffer in) {
+		int size = readVarint(in);
+		ArrayList<String> list = new ArrayList<String>(size);
+		for (int index=0; index<size; index++)
+			list.add(readStringId(in));
+		return list;
+	}
+
+	private static String readString(ByteBuffer in) throws IOException {
+		byte[] bytes = new byte[readVarint(in)];
+		in.get(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	private static int readVarint(ByteBuffer in) {
+		int value = 0;
+		for (int shift=0; ; shift+=7) {
+			byte b = in.get();
+			value |= (b & 0x7F)<<shift;
+			if ((b & 0x80)==0)
+				return value;
+		}
+	}
+}
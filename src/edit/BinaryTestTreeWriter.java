@@ -0,0 +1,235 @@
+package edit;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import kernel.CancellationException;
+import kernel.Kernel;
+import mid.MID;
+import mid.Marking;
+import mid.Substitution;
+import mid.Transition;
+import mid.Tuple;
+import testgeneration.ParaRecord;
+import testgeneration.TransitionTree;
+import testgeneration.TransitionTreeNode;
+
+// Writes a test tree in the binary test data format. Nodes are appended one at a time, each after its parent,
+// so a tree can be written while it is generated or traversed; only the string table and the node index are kept in memory.
+//
+//	Header:	magic, format version, system version, model file name, coverage
+//	Nodes:	parent id+1 (0 for the root), flags, transition, substitution, marking, user input
+//			transition: index+1 in the model (0 for the constructor), or event and arguments of a negative node
+//			strings (events, variables, places, tokens, and statements) are ids in the string table
+//	Footer:	string table; node index with the offset (8 bytes) and the parent id (4 bytes) of each node
+//	Trailer: offset of the string table (8 bytes), offset of the node index (8 bytes), number of nodes (4 bytes), magic
+// Numbers in the header, node records, and string table are unsigned varints.
+
+public class BinaryTestTreeWriter {
+
+	static final byte[] MAGIC = {'M', 'I', 'S', 'T', 'A', 'T', 'R', 'E'};
+	static final int FORMAT_VERSION = 1;
+	static final int TRAILER_SIZE = 8+8+4+MAGIC.length;
+
+	static final int NEGATIVE = 1;
+	static final int HAS_SUBSTITUTION = 2;
+	static final int HAS_MARKING = 4;
+	static final int HAS_USER_INPUT = 8;
+	static final int HAS_TRANSITION = 16;
+
+	private MID mid;
+	private OutputStream out;
+	private long position = 0;
+
+	private HashMap<String, Integer> stringIds = new HashMap<String, Integer>();
+	private ArrayList<String> strings = new ArrayList<String>();
+
+	private long[] offsets = new long[1024];
+	private int[] parents = new int[1024];
+	private int nodeCount = 0;
+
+	public BinaryTestTreeWriter(File file, MID mid, String coverage) throws IOException {
+		this.mid = mid;
+		out = new BufferedOutputStream(new FileOutputStream(file), 65536);
+		write(MAGIC);
+		writeVarint(FORMAT_VERSION);
+		writeString(Kernel.SYSTEM_NAME+Kernel.SYSTEM_VERSION);
+		writeString(mid.getFileName()!=null? mid.getFileName(): "");
+		writeString(coverage);
+	}
+
+	public static void saveTestTree(TransitionTree tree, File file) throws IOException, CancellationException {
+		BinaryTestTreeWriter writer = new BinaryTestTreeWriter(file, tree.getMID(), tree.getSystemOptions().getCoverageCriterion().getID());
+		try {
+			// depth-first, so that the pending nodes are at most the siblings on one path
+			ArrayList<TransitionTreeNode> nodes = new ArrayList<TransitionTreeNode>();
+			ArrayList<Integer> parentIds = new ArrayList<Integer>();
+			nodes.add(tree.getRoot());
+			parentIds.add(-1);
+			while (!nodes.isEmpty()) {
+				tree.checkForCancellation();
+				TransitionTreeNode node = nodes.remove(nodes.size()-1);
+				int id = writer.addNode(parentIds.remove(parentIds.size()-1), node);
+				for (int index=node.children().size()-1; index>=0; index--) {
+					nodes.add(node.children().get(index));
+					parentIds.add(id);
+				}
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	// appends the node (without its children) and returns its id; the parent id is -1 for the root
+	public int addNode(int parent, TransitionTreeNode node) throws IOException {
+		if (parent>=nodeCount || (parent<0 && nodeCount>0))
+			throw new IOException("Node "+nodeCount+": the parent must be written first");
+		if (nodeCount==offsets.length) {
+			long[] largerOffsets = new long[nodeCount*2];
+			System.arraycopy(offsets, 0, largerOffsets, 0, nodeCount);
+			offsets = largerOffsets;
+			int[] largerParents = new int[nodeCount*2];
+			System.arraycopy(parents, 0, largerParents, 0, nodeCount);
+			parents = largerParents;
+		}
+		offsets[nodeCount] = position;
+		parents[nodeCount] = parent;
+		writeVarint(parent+1);
+		Transition transition = node.getTransition();
+		Substitution substitution = node.getSubstitution();
+		Marking marking = node.getMarking();
+		ArrayList<ParaRecord> userInput = getUserInput(node);
+		int flags = (node.isNegative()? NEGATIVE: 0) | (transition!=null? HAS_TRANSITION: 0) | (substitution!=null? HAS_SUBSTITUTION: 0)
+				| (marking!=null? HAS_MARKING: 0) | (userInput.size()>0? HAS_USER_INPUT: 0);
+		writeVarint(flags);
+		if (transition!=null) {
+			if (node.isNegative()) {
+				writeVarint(getStringId(transition.getEvent()));
+				ArrayList<String> arguments = transition.getArguments();
+				if (arguments==null)
+					arguments = transition.getAllVariables();
+				writeStringIds(arguments);
+			}
+			else
+				writeVarint(mid.getTransitionIndex(transition)+1);
+		}
+		if (substitution!=null) {
+			writeVarint(substitution.getBindings().size());
+			for (Map.Entry<String, String> binding: substitution.getBindings().entrySet()) {
+				writeVarint(getStringId(binding.getKey()));
+				writeVarint(getStringId(binding.getValue()));
+			}
+		}
+		if (marking!=null) {
+			// in reverse order, so that adding the places back to a marking gives the same order of places
+			ArrayList<String> places = marking.getPlaces();
+			Collections.reverse(places);
+			writeVarint(places.size());
+			for (String place: places) {
+				ArrayList<Tuple> tuples = marking.getTuples(place);
+				writeVarint(getStringId(place));
+				writeVarint(tuples.size());
+				for (Tuple tuple: tuples)
+					writeStringIds(tuple.getArguments());
+			}
+		}
+		if (userInput.size()>0) {
+			writeVarint(userInput.size());
+			for (ParaRecord record: userInput) {
+				writeVarint(getStringId(record.getExpression()));
+				writeVarint(record.isParameter()? 1: 0);
+			}
+		}
+		return nodeCount++;
+	}
+
+	// the non-empty statements and parameters entered by the user
+	private static ArrayList<ParaRecord> getUserInput(TransitionTreeNode node){
+		ArrayList<ParaRecord> records = new ArrayList<ParaRecord>();
+		for (ParaRecord record: node.getUserInput().getDataVector())
+			if (!record.getExpression().trim().equals(""))
+				records.add(record);
+		return records;
+	}
+
+	public void close() throws IOException {
+		try {
+			long stringTableOffset = position;
+			writeVarint(strings.size());
+			for (String string: strings)
+				writeString(string);
+			long indexOffset = position;
+			for (int index=0; index<nodeCount; index++) {
+				writeLong(offsets[index]);
+				writeInt(parents[index]);
+			}
+			writeLong(stringTableOffset);
+			writeLong(indexOffset);
+			writeInt(nodeCount);
+			write(MAGIC);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private int getStringId(String string) {
+		Integer id = stringIds.get(string);
+		if (id==null) {
+			id = strings.size();
+			stringIds.put(string, id);
+			strings.add(string);
+		}
+		return id;
+	}
+
+	private void writeStringIds(ArrayList<String> list) throws IOException {
+		if (list==null) {
+			writeVarint(0);
+			return;
+		}
+		writeVarint(list.size());
+		for (String string: list)
+			writeVarint(getStringId(string));
+	}
+
+	private void writeString(String string) throws IOException {
+		byte[] bytes = string.getBytes("UTF-8");
+		writeVarint(bytes.length);
+		write(bytes);
+	}
+
+	private void writeVarint(int value) throws IOException {
+		while ((value & ~0x7F)!=0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+			position++;
+		}
+		out.write(value);
+		position++;
+	}
+
+	private void writeInt(int value) throws IOException {
+		for (int shift=24; shift>=0; shift-=8)
+			out.write(value>>>shift);
+		position += 4;
+	}
+
+	private void writeLong(long value) throws IOException {
+		writeInt((int)(value>>>32));
+		writeInt((int)value);
+	}
+
+	private void write(byte[] bytes) throws IOException {
+		out.write(bytes);
+		position += bytes.length;
+	}
+}
@@ -105,6 +105,10 @@ abstract public class GeneralEditor implements ActionListener, CaretListener, Ch
 		return kernel;
 	}
 		
+	public String getConsoleText(){
+		return consoleArea.getText();
+	}
+
 	public void clearConsoleArea(){
 		consoleArea.setText("");		
 	}
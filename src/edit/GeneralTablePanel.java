@@ -269,6 +269,8 @@ public class GeneralTablePanel extends JPanel implements ActionListener, ListSel
 	}
 	
 	private void setPreferredColumnWidths(){
+		if (editor.getKernel().getParentFrame()==null)	// no frame in batch mode
+			return;
 		int totalWidth = editor.getKernel().getParentFrame().getWidth()-10;	
 		table.getColumnModel().getColumn(0).setMinWidth(20);
 //		table.getColumnModel().getColumn(0).setPreferredWidth(20);
@@ -6,6 +6,7 @@ package edit;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Vector;
 
 import javax.swing.JMenu;
@@ -57,49 +58,67 @@ public abstract class ModelPanel extends JPanel {
 	    editor.setXMIDSaved(false);
 	}
 	
+	// the texts of the areas, read by the calling thread so that the parsing threads do not access the Swing components
+	private static List<String> getTexts(ArrayList<JTextArea> areas){
+		List<String> texts = new ArrayList<String>(areas.size());
+		for (JTextArea area: areas)
+			texts.add(area.getText().trim());
+		return texts;
+	}
+
+	// the states are parsed (in parallel if there are many, e.g., imported from data files) before they are added to the model in order
 	protected void parseInitialState(MID mid, ArrayList<JTextArea> stateAreas) throws ParseException {
-		for (JTextArea stateArea: stateAreas) {
-			String markingString = stateArea.getText().trim();
-			if (markingString.equals(""))
-				continue;
-			try {
-				Marking marking = MIDParser.parseMarkingString(markingString);
-				mid.addInitialMarking(marking);
+		final List<String> stateStrings = getTexts(stateAreas);
+		ArrayList<Marking> markings = ParallelRowParser.parse(stateStrings.size(), new ParallelRowParser.RowParser<Marking>() {
+			public Marking parseRow(int index) throws ParseException {
+				String markingString = stateStrings.get(index);
+				if (markingString.equals(""))
+					return null;
+				try {
+					return MIDParser.parseMarkingString(markingString);
+				}
+				catch (ParseException e) {
+					String rowInfo = LocaleBundle.bundleString("Initial state")+" ";
+					rowInfo += index+1;
+					throw new ParseException(rowInfo+e.toString());
+				}
+				catch (TokenMgrError e){
+					String rowInfo = LocaleBundle.bundleString("Initial state")+" ";
+					rowInfo += index+1;
+					throw new ParseException(rowInfo+": "+LocaleBundle.bundleString("Lexical error"));				
+				}
 			}
-			catch (ParseException e) {
-				String rowInfo = LocaleBundle.bundleString("Initial state")+" ";
-				rowInfo += stateAreas.indexOf(stateArea)+1;
-				throw new ParseException(rowInfo+e.toString());
-			}
-			catch (TokenMgrError e){
-				String rowInfo = LocaleBundle.bundleString("Initial state")+" ";
-				rowInfo += stateAreas.indexOf(stateArea)+1;
-				throw new ParseException(rowInfo+": "+LocaleBundle.bundleString("Lexical error"));				
-			}
-		}
+		});
+		for (Marking marking: markings)
+			if (marking!=null)
+				mid.addInitialMarking(marking);
 	}
 
 	protected void parseGoalProperty(MID mid, ArrayList<JTextArea> stateAreas)  throws ParseException{
-		for (JTextArea stateArea: stateAreas) {
-			String propertyString = stateArea.getText().trim();
-			if (propertyString.equals(""))
-				continue;
-			try {
-				GoalProperty propertyTransition = MIDParser.parseGoalPropertyString(propertyString);
-				mid.addGoalProperty(propertyTransition);
-			}
-			catch (ParseException e) {
-				String rowInfo =LocaleBundle.bundleString("Goal state")+" ";
-				rowInfo += stateAreas.indexOf(stateArea)+1;
-				throw new ParseException(rowInfo+e.toString());
-			}
-			catch (TokenMgrError e) {
-				String rowInfo =LocaleBundle.bundleString("Goal state")+" ";
-				rowInfo += stateAreas.indexOf(stateArea)+1;
-				throw new ParseException(rowInfo+": "+LocaleBundle.bundleString("Lexical error"));				
+		final List<String> propertyStrings = getTexts(stateAreas);
+		ArrayList<GoalProperty> properties = ParallelRowParser.parse(propertyStrings.size(), new ParallelRowParser.RowParser<GoalProperty>() {
+			public GoalProperty parseRow(int index) throws ParseException {
+				String propertyString = propertyStrings.get(index);
+				if (propertyString.equals(""))
+					return null;
+				try {
+					return MIDParser.parseGoalPropertyString(propertyString);
+				}
+				catch (ParseException e) {
+					String rowInfo =LocaleBundle.bundleString("Goal state")+" ";
+					rowInfo += index+1;
+					throw new ParseException(rowInfo+e.toString());
+				}
+				catch (TokenMgrError e) {
+					String rowInfo =LocaleBundle.bundleString("Goal state")+" ";
+					rowInfo += index+1;
+					throw new ParseException(rowInfo+": "+LocaleBundle.bundleString("Lexical error"));				
+				}
 			}
-		}
-
+		});
+		for (GoalProperty property: properties)
+			if (property!=null)
+				mid.addGoalProperty(property);
 	}
 	
 	protected void removeState(ArrayList<JTextArea> states){
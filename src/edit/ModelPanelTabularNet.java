@@ -12,6 +12,7 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Vector;
 
 import javax.swing.BorderFactory;
@@ -73,6 +74,9 @@ public class ModelPanelTabularNet extends ModelPanel implements ActionListener,
 	
 	private Vector<Vector<Object>> coreModelRows;
 	
+	// the transitions parsed from the rows, by model type and row contents; only changed rows are parsed again
+	private HashMap<String, Transition> parsedRows = new HashMap<String, Transition>();
+	
 	public ModelPanelTabularNet(XMIDEditor editor){
 		super(editor);
 		createModelMenuItems();
@@ -146,7 +150,8 @@ public class ModelPanelTabularNet extends ModelPanel implements ActionListener,
 		removeAll();
 		JSplitPane wholePane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, createUpperPane(), createLowerPane());
         wholePane.setOneTouchExpandable(false);
-        wholePane.setDividerLocation((int)(0.35*editor.getKernel().getParentFrame().getHeight()));
+        if (editor.getKernel().getParentFrame()!=null)	// no frame in batch mode
+        	wholePane.setDividerLocation((int)(0.35*editor.getKernel().getParentFrame().getHeight()));
         setLayout(new BorderLayout());
         add(wholePane, BorderLayout.CENTER);
         this.addMouseListener(mouseAdapter);
@@ -390,58 +395,86 @@ public class ModelPanelTabularNet extends ModelPanel implements ActionListener,
 		parseSequencesFile(mid);
 	}
 	
+	// the rows are parsed (in parallel if there are many) before their transitions are added to the model in row order
 	private void parseCoreModelRows(MID mid) throws ParseException{
-		for (int index=0; index<coreModelRows.size(); index++){
-			Vector<Object> row = coreModelRows.get(index);
-			if (XMIDProcessor.isRecordEmpty(row))
-				continue;
-			String rowInfo = LocaleBundle.bundleString("Model Row")+" "+(index+1)+" - ";
-			if (row.get(1)==null || row.get(1).toString().trim().equals(""))
-				throw new ParseException(rowInfo+LocaleBundle.bundleString("transition-module-event is expected"));				
-			String eventSignature = row.get(1).toString();
-			String precondString = row.get(2)!=null? row.get(2).toString(): "";
-			String postcondString = row.get(3)!=null? row.get(3).toString(): "";
-			String whenString = row.get(4)!=null? row.get(4).toString(): "";
-			String effectString = "";
-			if (row.size()>5 && row.get(5)!=null)
-				effectString = row.get(5).toString();
-			String guardString = "";
-			if (row.size()>6 && row.get(6)!=null)
-				guardString = row.get(6).toString();
-			Transition transition = null; 
-			try {
-				switch (editor.getModelType()) {
-					case CONTRACT:  
-						if (precondString.equals("") && postcondString.equals(""))
-							throw new ParseException(LocaleBundle.bundleString("precondition-postcondition expected"));
-						transition = MIDParser.parseContractTransition(eventSignature, precondString, postcondString, whenString, effectString); 
-						mid.addTransition(transition);
-						break;
-					case THREATNET:	
-					case ABAC: 
-					case FUNCTIONNET: 
-						if (precondString.equals("") && postcondString.equals(""))
-							throw new ParseException(LocaleBundle.bundleString("precondition-postcondition expected"));
-						transition = MIDParser.parseNetTransition(eventSignature, precondString, postcondString, whenString, effectString, guardString); 
-						mid.addTransition(transition);
-						break;
-					case STATEMACHINE: 
-						if (precondString.equals("") || postcondString.equals(""))
-							throw new ParseException(LocaleBundle.bundleString("both start and end states are expected"));						
-						transition = MIDParser.parseStateMachineTransition(precondString, postcondString, eventSignature, whenString, effectString); 
-						mid.addTransition(transition);
-						break;
-					default: transition = MIDParser.parseNetTransition(eventSignature, precondString, postcondString, whenString, effectString, guardString); 
-						break;
-				}
+		ArrayList<ParsedRow> parsedCoreRows = ParallelRowParser.parse(coreModelRows.size(), new ParallelRowParser.RowParser<ParsedRow>() {
+			public ParsedRow parseRow(int row) throws ParseException {
+				return parseCoreModelRow(row);
 			}
-			catch (ParseException e) {
-				throw new ParseException(rowInfo+e.toString());
-			}
-			catch (TokenMgrError e){
-				throw new ParseException(rowInfo+": "+LocaleBundle.bundleString("Lexical error"));				
+		});
+		HashMap<String, Transition> rows = new HashMap<String, Transition>();
+		for (ParsedRow parsedRow: parsedCoreRows) {
+			if (parsedRow==null)
+				continue;
+			// the transitions of a threat tree are not added
+			if (editor.getModelType()==ModelType.THREATTREE)
+				continue;
+			// each model has its own copies, the cached transitions are kept as parsed
+			mid.addTransition(parsedRow.transition.copy());
+			rows.put(parsedRow.rowKey, parsedRow.transition);
+		}
+		parsedRows = rows;
+	}
+
+	private static class ParsedRow {
+		String rowKey;
+		Transition transition;
+	}
+
+	// returns null for an empty row; the model is not changed
+	private ParsedRow parseCoreModelRow(int index) throws ParseException{
+		Vector<Object> row = coreModelRows.get(index);
+		if (XMIDProcessor.isRecordEmpty(row))
+			return null;
+		String rowInfo = LocaleBundle.bundleString("Model Row")+" "+(index+1)+" - ";
+		if (row.get(1)==null || row.get(1).toString().trim().equals(""))
+			throw new ParseException(rowInfo+LocaleBundle.bundleString("transition-module-event is expected"));				
+		String eventSignature = row.get(1).toString();
+		String precondString = row.get(2)!=null? row.get(2).toString(): "";
+		String postcondString = row.get(3)!=null? row.get(3).toString(): "";
+		String whenString = row.get(4)!=null? row.get(4).toString(): "";
+		String effectString = "";
+		if (row.size()>5 && row.get(5)!=null)
+			effectString = row.get(5).toString();
+		String guardString = "";
+		if (row.size()>6 && row.get(6)!=null)
+			guardString = row.get(6).toString();
+		ParsedRow parsedRow = new ParsedRow();
+		parsedRow.rowKey = editor.getModelType()+"\u0000"+eventSignature+"\u0000"+precondString+"\u0000"+postcondString
+				+"\u0000"+whenString+"\u0000"+effectString+"\u0000"+guardString;
+		parsedRow.transition = parsedRows.get(parsedRow.rowKey);
+		if (parsedRow.transition!=null)
+			return parsedRow;
+		try {
+			switch (editor.getModelType()) {
+				case CONTRACT:  
+					if (precondString.equals("") && postcondString.equals(""))
+						throw new ParseException(LocaleBundle.bundleString("precondition-postcondition expected"));
+					parsedRow.transition = MIDParser.parseContractTransition(eventSignature, precondString, postcondString, whenString, effectString); 
+					break;
+				case THREATNET:	
+				case ABAC: 
+				case FUNCTIONNET: 
+					if (precondString.equals("") && postcondString.equals(""))
+						throw new ParseException(LocaleBundle.bundleString("precondition-postcondition expected"));
+					parsedRow.transition = MIDParser.parseNetTransition(eventSignature, precondString, postcondString, whenString, effectString, guardString); 
+					break;
+				case STATEMACHINE: 
+					if (precondString.equals("") || postcondString.equals(""))
+						throw new ParseException(LocaleBundle.bundleString("both start and end states are expected"));						
+					parsedRow.transition = MIDParser.parseStateMachineTransition(precondString, postcondString, eventSignature, whenString, effectString); 
+					break;
+				default: parsedRow.transition = MIDParser.parseNetTransition(eventSignature, precondString, postcondString, whenString, effectString, guardString); 
+					break;
 			}
 		}
+		catch (ParseException e) {
+			throw new ParseException(rowInfo+e.toString());
+		}
+		catch (TokenMgrError e){
+			throw new ParseException(rowInfo+": "+LocaleBundle.bundleString("Lexical error"));				
+		}
+		return parsedRow;
 	}
 	
 	private void parseSinkEvents(MID mid) throws ParseException {
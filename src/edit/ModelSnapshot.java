@@ -0,0 +1,120 @@
+package edit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import kernel.Kernel;
+import mid.MID;
+import utilities.FileUtil;
+
+// A snapshot of a parsed model (MID) stored in the snapshot directory of the user, so that an unchanged model is not parsed again.
+// There is one snapshot for each model file (by path). The key of a snapshot is a SHA-1 hash of the contents of the model file,
+// the target language, and the system version; a snapshot with another key is ignored and replaced when the model has been parsed.
+// A snapshot is only a cache: a snapshot that cannot be read or written is ignored.
+
+public class ModelSnapshot {
+
+	private static final String MAGIC = "MISTA-MID-SNAPSHOT";
+
+	public static String getKey(File modelFile, String language) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			digest.update((Kernel.SYSTEM_VERSION+"\n"+language+"\n").getBytes("UTF-8"));
+			byte[] buffer = new byte[65536];
+			InputStream in = new FileInputStream(modelFile);
+			try {
+				int length;
+				while ((length = in.read(buffer))>0)
+					digest.update(buffer, 0, length);
+			}
+			finally {
+				in.close();
+			}
+			return toHexString(digest.digest());
+		}
+		catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static File getSnapshotFile(File modelFile) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			String id = toHexString(digest.digest(modelFile.getAbsolutePath().getBytes("UTF-8")));
+			return FileUtil.getModelSnapshotFile(modelFile, id.substring(0, 16));
+		}
+		catch (Exception e) {
+			return null;
+		}
+	}
+
+	private static String toHexString(byte[] bytes) {
+		StringBuilder hex = new StringBuilder();
+		for (byte b: bytes)
+			hex.append(String.format("%02x", b & 0xFF));
+		return hex.toString();
+	}
+
+	// returns null if there is no snapshot of the model with the key
+	public static MID read(File modelFile, String key) {
+		File snapshotFile = getSnapshotFile(modelFile);
+		if (snapshotFile==null || !snapshotFile.exists())
+			return null;
+		try {
+			ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(snapshotFile), 65536));
+			try {
+				if (!MAGIC.equals(in.readUTF()) || !key.equals(in.readUTF()))
+					return null;
+				return (MID)in.readObject();
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (Exception e) {
+			// e.g., a snapshot of older classes
+			if (Kernel.IS_DEBUGGING_MODE)
+				e.printStackTrace();
+			return null;
+		}
+	}
+
+	// the snapshot is written to a temporary file first, so that a partial snapshot is never read
+	public static void write(File modelFile, String key, MID mid) {
+		File snapshotFile = getSnapshotFile(modelFile);
+		if (snapshotFile==null || !(snapshotFile.getParentFile().isDirectory() || snapshotFile.getParentFile().mkdirs()))
+			return;
+		File tmpFile = new File(snapshotFile.getPath()+".tmp");
+		try {
+			ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 65536));
+			try {
+				out.writeUTF(MAGIC);
+				out.writeUTF(key);
+				out.writeObject(mid);
+			}
+			finally {
+				out.close();
+			}
+			snapshotFile.delete();
+			if (!tmpFile.renameTo(snapshotFile))
+				tmpFile.delete();
+		}
+		catch (Exception e) {
+			if (Kernel.IS_DEBUGGING_MODE)
+				e.printStackTrace();
+			tmpFile.delete();
+		}
+	}
+}
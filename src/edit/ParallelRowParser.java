@@ -0,0 +1,94 @@
+package edit;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mid.ModelContext;
+import parser.ParseException;
+
+// Rows of a model (e.g., transitions or initial states) that are parsed independently of each other.
+// Large models are parsed on a pool of threads, one row at a time; the results are returned in row order,
+// and the error of the first row that fails is thrown, whatever the number of threads.
+// A row must not change the model (e.g., named constants); the results are added to the MID by the caller.
+
+class ParallelRowParser {
+
+	// models with fewer rows per thread are parsed by one thread
+	static final int PARALLEL_THRESHOLD = 64;
+
+	interface RowParser<T> {
+		// null if the row is skipped
+		T parseRow(int row) throws ParseException;
+	}
+
+	static <T> ArrayList<T> parse(final int size, final RowParser<T> rowParser) throws ParseException {
+		final Object[] results = new Object[size];
+		final Throwable[] errors = new Throwable[size];
+		int numberOfThreads = Math.min(Runtime.getRuntime().availableProcessors(), size/PARALLEL_THRESHOLD);
+		if (numberOfThreads<2) {
+			for (int row=0; row<size; row++)
+				results[row] = rowParser.parseRow(row);
+		}
+		else {
+			final ModelContext context = ModelContext.current();
+			final AtomicInteger nextRow = new AtomicInteger(0);
+			ExecutorService pool = Executors.newFixedThreadPool(numberOfThreads);
+			try {
+				ArrayList<Future<Object>> workers = new ArrayList<Future<Object>>();
+				for (int worker=0; worker<numberOfThreads; worker++)
+					workers.add(pool.submit(new Callable<Object>() {
+						public Object call() {
+							ModelContext.bind(context);
+							try {
+								int row;
+								while ((row = nextRow.getAndIncrement())<size) {
+									try {
+										results[row] = rowParser.parseRow(row);
+									}
+									catch (Throwable e) {
+										errors[row] = e;
+									}
+								}
+							}
+							finally {
+								ModelContext.bind(null);
+							}
+							return null;
+						}
+					}));
+				for (Future<Object> worker: workers)
+					worker.get();
+			}
+			catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+			finally {
+				pool.shutdownNow();
+			}
+			for (int row=0; row<size; row++)
+				if (errors[row]!=null)
+					rethrow(errors[row]);
+		}
+		ArrayList<T> parsedRows = new ArrayList<T>(size);
+		for (int row=0; row<size; row++) {
+			@SuppressWarnings("unchecked")
+			T result = (T)results[row];
+			parsedRows.add(result);
+		}
+		return parsedRows;
+	}
+
+	private static void rethrow(Throwable error) throws ParseException {
+		if (error instanceof ParseException)
+			throw (ParseException)error;
+		if (error instanceof RuntimeException)
+			throw (RuntimeException)error;
+		if (error instanceof Error)
+			throw (Error)error;
+		throw new RuntimeException(error);
+	}
+}
@@ -33,7 +33,8 @@ import testgeneration.ParaTableModel;
 import testgeneration.TransitionTree;
 import testgeneration.TransitionTreeNode;
 
-// Save/load test tree into/from an excel file
+// Save/load test tree into/from an excel file (see BinaryTestTreeWriter for the binary format, which is used
+// unless the system options ask for spreadsheets; either format is recognized when loading)
 //		First row: test generation information	
 //			version for dealing with compatibility of different versions 
 //			model file name used to generate the test tree 
@@ -45,21 +46,34 @@ import testgeneration.TransitionTreeNode;
 
 public class TestTreeFile {
 
-	private static int rowIndex = 0; 
+	// the row being written or read; each file is written or read by its own instance
+	private int rowIndex = 0; 
+	
+	private TestTreeFile(){
+	}
+	
+	static public void saveTestData(TransitionTree tree, File outputFile) throws Exception {
+		// the nodes still in a loaded file are read before the file may be overwritten
+		tree.getRoot().loadSubtree();
+		if (tree.getSystemOptions().saveTestTreesAsSpreadsheets())
+			saveTestDataToExcelFile(tree, outputFile);
+		else
+			BinaryTestTreeWriter.saveTestTree(tree, outputFile);
+	}
 	
 	static public void saveTestDataToExcelFile(TransitionTree tree, File outputFile) throws Exception {
 		// open file stream
-		rowIndex = 0;
+		TestTreeFile writer = new TestTreeFile();
         Workbook wb = new HSSFWorkbook();
         Sheet sheet = wb.createSheet("Test data");
-		writeHeader(tree, sheet);
-		writeAllNodes(tree, sheet);
+		writer.writeHeader(tree, sheet);
+		writer.writeAllNodes(tree, sheet);
 		FileOutputStream out = new FileOutputStream(outputFile);
 	    wb.write(out);
 		out.close();
  	}
 	
-	static private void writeHeader(TransitionTree tree, Sheet sheet){
+	private void writeHeader(TransitionTree tree, Sheet sheet){
         Row headerRow = sheet.createRow(rowIndex++);
         Cell versionCell = headerRow.createCell(0);
         versionCell.setCellValue(Kernel.SYSTEM_NAME+Kernel.SYSTEM_VERSION);
@@ -79,7 +93,7 @@ public class TestTreeFile {
 */
 	}
 	
-	static private void writeAllNodes(TransitionTree tree, Sheet sheet) throws CancellationException{
+	private void writeAllNodes(TransitionTree tree, Sheet sheet) throws CancellationException{
 		MID mid = tree.getMID();
 		TransitionTreeNode root = tree.getRoot();
 		writeRootFiring(root, sheet);		
@@ -97,7 +111,7 @@ public class TestTreeFile {
 	}
 
 	// Separate from writeFiring to make it more efficient
-	static private void writeRootFiring(TransitionTreeNode node, Sheet sheet){
+	private void writeRootFiring(TransitionTreeNode node, Sheet sheet){
 		// one row in excel file
         Row currentRow = sheet.createRow(rowIndex++);
         
@@ -122,7 +136,7 @@ public class TestTreeFile {
 
 	}
 	
-	static private void writeNodeFiring(TransitionTreeNode node, MID mid, Sheet sheet){
+	private void writeNodeFiring(TransitionTreeNode node, MID mid, Sheet sheet){
 		// one row in excel file
         Row currentRow = sheet.createRow(rowIndex++);
         
@@ -158,8 +172,8 @@ public class TestTreeFile {
 		markingCell.setCellValue(marking.toString());
 	}
 	
-	static private void writeUserInput(TransitionTreeNode node, Sheet sheet){
-		ParaTableModel paraTable = node.getParaTable();
+	private void writeUserInput(TransitionTreeNode node, Sheet sheet){
+		ParaTableModel paraTable = node.getUserInput();
 		if (paraTable!=null) {
 			for (ParaRecord record: paraTable.getDataVector())
 				if (!record.getExpression().trim().equals("")) {
@@ -177,27 +191,33 @@ public class TestTreeFile {
 	static public File getMidFileOfTestData(Kernel frame, File testDataFile) {
 		File midFile = null;
 		try {
-			HSSFWorkbook workBook = new HSSFWorkbook (new FileInputStream(testDataFile));
-			Sheet sheet = workBook.getSheetAt(0);
-			Row headerRow = sheet.getRow(0);
-			if (headerRow==null) {
-				frame.printDialogMessage(LocaleBundle.bundleString("Invalid test data format"));
-				return null;
-			}
-			Cell versionCell = headerRow.getCell(0);
-			Cell midCell = headerRow.getCell(1);	        
-			if (versionCell==null || midCell==null){
-				frame.printDialogMessage(LocaleBundle.bundleString("Invalid test data format"));
-				return null;
+			String midFileName;
+			if (BinaryTestTreeReader.isBinaryTestTreeFile(testDataFile))
+				midFileName = new BinaryTestTreeReader(testDataFile).getModelFileName();
+			else {
+				HSSFWorkbook workBook = new HSSFWorkbook (new FileInputStream(testDataFile));
+				Sheet sheet = workBook.getSheetAt(0);
+				Row headerRow = sheet.getRow(0);
+				if (headerRow==null) {
+					frame.printDialogMessage(LocaleBundle.bundleString("Invalid test data format"));
+					return null;
+				}
+				Cell versionCell = headerRow.getCell(0);
+				Cell midCell = headerRow.getCell(1);	        
+				if (versionCell==null || midCell==null){
+					frame.printDialogMessage(LocaleBundle.bundleString("Invalid test data format"));
+					return null;
+				}
+				midFileName = midCell.toString();
 			}
-		    midFile = new File(midCell.toString());
+		    midFile = new File(midFileName);
 		    if (!midFile.exists()){
 		    	String fileName = midFile.getName();
 		    	String dir = testDataFile.getParent();
 		    	midFile = new File(dir+File.separator+fileName);
 		    	if (!midFile.exists()){
 		    		frame.printDialogMessage(LocaleBundle.bundleString("Cannot find model file")
-		    				+" "+midCell.toString() + " "+LocaleBundle.bundleString("or")+" "+fileName+".");
+		    				+" "+midFileName + " "+LocaleBundle.bundleString("or")+" "+fileName+".");
 		    		return null;
 		    	}	
 		    }
@@ -210,19 +230,27 @@ public class TestTreeFile {
 	}
 
 	//////////////////////////////////////////////////////
-	// read test data from excel file	
-	public static void loadTestDataFromExcelFile(Kernel kernel, File testDataFile, File midFile, MID mid, SystemOptions options) {
+	// read test data from a binary or excel file	
+	public static void loadTestData(Kernel kernel, File testDataFile, File midFile, MID mid, SystemOptions options) {
 		try {
-			HSSFWorkbook workBook = new HSSFWorkbook (new FileInputStream(testDataFile));
-			Sheet sheet = workBook.getSheetAt(0);
-			Row headerRow = sheet.getRow(0);
-			if (headerRow==null)
-				throw new Exception(LocaleBundle.bundleString("Invalid test data format"));
-			Cell versionCell = headerRow.getCell(0);
-			Cell midCell = headerRow.getCell(1);	        
-			if (versionCell==null || midCell==null)
-				throw new Exception(LocaleBundle.bundleString("Invalid test data format"));
-			updateSystemOptions(headerRow, options); 
+			Sheet sheet = null;
+			BinaryTestTreeReader binaryReader = null;
+			if (BinaryTestTreeReader.isBinaryTestTreeFile(testDataFile)) {
+				binaryReader = new BinaryTestTreeReader(testDataFile);
+				options.setCoverageCriterion(binaryReader.getCoverage());
+			}
+			else {
+				HSSFWorkbook workBook = new HSSFWorkbook (new FileInputStream(testDataFile));
+				sheet = workBook.getSheetAt(0);
+				Row headerRow = sheet.getRow(0);
+				if (headerRow==null)
+					throw new Exception(LocaleBundle.bundleString("Invalid test data format"));
+				Cell versionCell = headerRow.getCell(0);
+				Cell midCell = headerRow.getCell(1);	        
+				if (versionCell==null || midCell==null)
+					throw new Exception(LocaleBundle.bundleString("Invalid test data format"));
+				updateSystemOptions(headerRow, options); 
+			}
 			TransitionTree tree = new TransitionTree(mid, options, false);
 			if (mid.checkAttackTransition()==null){
 				for (Transition transition: mid.getTransitions())
@@ -230,7 +258,9 @@ public class TestTreeFile {
 						mid.addHiddenPlaceOrEvent(transition.getEvent());
 			}	
 			ProgressDialog progressDialog = new ProgressDialog(kernel.getParentFrame(), LocaleBundle.bundleString("Load Test Data"), LocaleBundle.bundleString("Loading test data"));
-			TestTreeLoader testImport = new TestTreeLoader(kernel, progressDialog, tree, testDataFile, midFile, mid, sheet);
+			TestTreeLoader testImport = binaryReader!=null? 
+					new TestTreeLoader(kernel, progressDialog, tree, testDataFile, midFile, mid, binaryReader):
+					new TestTreeLoader(kernel, progressDialog, tree, testDataFile, midFile, mid, sheet);
 			Thread testImportThread = new Thread(testImport);
 			testImportThread.start();
 			progressDialog.setVisible(true);
@@ -264,22 +294,23 @@ public class TestTreeFile {
 	
 	static public void loadAllNodes(ProgressDialog progressDialog, TransitionTree tree, MID mid, Sheet sheet) throws Exception {
 		int numberOfRows = sheet.getPhysicalNumberOfRows();
-		TransitionTreeNode root = readRootFiring(sheet);
+		TestTreeFile reader = new TestTreeFile();
+		TransitionTreeNode root = reader.readRootFiring(sheet);
 		tree.setRoot(root);
 		LinkedList<TransitionTreeNode> queue = new LinkedList<TransitionTreeNode>();
 		queue.addLast(root);	
 		while (!queue.isEmpty()) {
 			tree.checkForCancellation();
 			TransitionTreeNode node = queue.poll();
-			progressDialog.setMessage(LocaleBundle.bundleString("Loading")+" "+rowIndex+" "+LocaleBundle.bundleString("out of")+" "+numberOfRows+"...");
+			progressDialog.setMessage(LocaleBundle.bundleString("Loading")+" "+reader.rowIndex+" "+LocaleBundle.bundleString("out of")+" "+numberOfRows+"...");
 //System.out.println("node: "+node);	
 			int numberOfChildren = node.getNumberOfSuccessors();
 //System.out.println("#Children: "+numberOfChildren);	
 			if (numberOfChildren>0) {
 				for (int i=0; i<numberOfChildren; i++){
 					tree.checkForCancellation();
-					TransitionTreeNode child = readNodeFiring(node, mid, sheet);
-					readUserInput(child, sheet);
+					TransitionTreeNode child = reader.readNodeFiring(node, mid, sheet);
+					reader.readUserInput(child, sheet);
 					node.add(child);
 				}
 				for (TransitionTreeNode child: node.children())
@@ -289,7 +320,7 @@ public class TestTreeFile {
 		root.resetChildrenOutlineNumbers(tree.getSystemOptions().getMaxIdDepth());
 	} 
 
-	static TransitionTreeNode readRootFiring(Sheet sheet) throws IOException {
+	private TransitionTreeNode readRootFiring(Sheet sheet) throws IOException {
 		rowIndex = 1;
 	    Row rootRow = sheet.getRow(rowIndex++);
 	    if (rootRow==null) {
@@ -316,7 +347,7 @@ public class TestTreeFile {
 	    return numberOfChildren;
 	}
 	
-	static TransitionTreeNode readNodeFiring(TransitionTreeNode parent, MID mid, Sheet sheet) throws IOException {
+	private TransitionTreeNode readNodeFiring(TransitionTreeNode parent, MID mid, Sheet sheet) throws IOException {
 		
 	    Row rootRow = sheet.getRow(rowIndex++);
 	    if (rootRow==null)
@@ -403,7 +434,7 @@ public class TestTreeFile {
 		return marking;
 	}
 
-	static void readUserInput(TransitionTreeNode node, Sheet sheet) {
+	private void readUserInput(TransitionTreeNode node, Sheet sheet) {
 		Row row = sheet.getRow(rowIndex);
 //System.out.println("Columns: "+row.getPhysicalNumberOfCells());					
 		Vector<ParaRecord> dataVector = new Vector<ParaRecord>();
@@ -24,6 +24,7 @@ class TestTreeLoader implements Runnable {
 	private File midFile;
 	private MID mid;
 	private Sheet sheet;
+	private BinaryTestTreeReader binaryReader;
 	
 	TestTreeLoader(Kernel kernel, ProgressDialog progressDialog, TransitionTree tree, File testDataFile, File midFile, MID mid, Sheet sheet) {
 		this.kernel = kernel;
@@ -35,12 +36,27 @@ class TestTreeLoader implements Runnable {
 		this.sheet = sheet;
 	}
 	
+	TestTreeLoader(Kernel kernel, ProgressDialog progressDialog, TransitionTree tree, File testDataFile, File midFile, MID mid, BinaryTestTreeReader binaryReader) {
+		this(kernel, progressDialog, tree, testDataFile, midFile, mid, (Sheet)null);
+		this.binaryReader = binaryReader;
+	}
+	
 	public void run ()  {
 		try {
 			tree.setProgressDialog(progressDialog);
-			TestTreeFile.loadAllNodes(progressDialog, tree, mid, sheet);	
+			String info = LocaleBundle.bundleString("Imported tree");
+			if (binaryReader!=null) {
+				// only the initial states are read here; the other nodes are read from the file as the tree is expanded
+				tree.setRoot(binaryReader.loadSubtree(0, mid, 1));
+				tree.getRoot().resetChildrenOutlineNumbers(tree.getSystemOptions().getMaxIdDepth());
+				info += "\n"+LocaleBundle.bundleString("Number of nodes")+": "+binaryReader.getNodeCount();
+			}
+			else {
+				TestTreeFile.loadAllNodes(progressDialog, tree, mid, sheet);	
+				info += tree.getStatisticsString();
+			}
 			progressDialog.setMessage(LocaleBundle.bundleString("VISUALIZING_TEST_TREE"));
-			kernel.getTestingManager().visualizeTree(tree, LocaleBundle.bundleString("Imported tree")+tree.getStatisticsString(), progressDialog);
+			kernel.getTestingManager().visualizeTree(tree, info, progressDialog);
 			kernel.getTestingManager().setTreeSaved(true);
 			progressDialog.dispose();
 			kernel.getFileManager().updateAfterFileLoading(kernel, testDataFile.getAbsolutePath());
@@ -388,6 +388,14 @@ public class XMIDEditor extends GeneralEditor implements TableModelListener{
 	}
 
 	public MID parse(){
+		String snapshotKey = getSnapshotKey();
+		if (snapshotKey!=null) {
+			MID mid = ModelSnapshot.read(midFile, snapshotKey);
+			if (mid!=null) {
+				mid.setFileName(midFile.getAbsolutePath());
+				return mid;
+			}
+		}
 		MID mid = new MID();
 		try {
 			modelPanel.parse(mid);
@@ -406,6 +414,8 @@ public class XMIDEditor extends GeneralEditor implements TableModelListener{
 		   		printInConsoleArea(errorMessage);
 		   		return null;
 		   	}
+		   	if (snapshotKey!=null)
+		   		ModelSnapshot.write(midFile, snapshotKey, mid);
 		   	if (Kernel.IS_DEBUGGING_MODE){
 		   		printInConsoleArea(mid+"\n");
 		   		printInConsoleArea(LocaleBundle.bundleString("Number of transitions")+": "+mid.getTransitions().size()+"; "
@@ -420,6 +430,14 @@ public class XMIDEditor extends GeneralEditor implements TableModelListener{
 		return mid;	
 	}
 
+	// a tabular model that has been saved is parsed once and then read from its snapshot (see ModelSnapshot);
+	// a graphical model is not, its separate model file can be changed without the xmid file
+	private String getSnapshotKey(){
+		if (!isXMIDSaved() || !(modelPanel instanceof ModelPanelTabularNet) || midFile==null || !midFile.exists())
+			return null;
+		return ModelSnapshot.getKey(midFile, kernel.getSystemOptions().getLanguage().toString());
+	}
+
 	public MID parseModel(){
 		MID mid = new MID();
 		try {
@@ -398,7 +398,7 @@ public class FileManager implements ActionListener{
 			kernel.printDialogMessage(LocaleBundle.bundleString("Invalid XMID file"));
 		} else {
 			editor = tmpEditor;
-			TestTreeFile.loadTestDataFromExcelFile(kernel, testDataFile, midFile, mid, kernel.getSystemOptions());
+			TestTreeFile.loadTestData(kernel, testDataFile, midFile, mid, kernel.getSystemOptions());
 		}
 		return true;
 	}
@@ -5,11 +5,19 @@ package kernel;
 
 import java.awt.Font;
 import java.awt.GraphicsEnvironment;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 
 import locales.LocaleBundle;
 import mid.MID;
+import mid.MappedMarkingStore;
+import mid.MarkingStore;
+import mid.MemoryMarkingStore;
 
 import testcode.GoalTagCode;
 import testcode.TargetLanguage;
@@ -42,6 +50,12 @@ public class SystemOptions implements Serializable {
 	public static enum ModelType {FUNCTIONNET, ABAC, STATEMACHINE, CONTRACT, THREATNET, THREATTREE};
 
 	public static final ModelType DEFAULT_MODEL_TYPE = ModelType.FUNCTIONNET;
+
+	public static final int DEFAULT_FRONTIER_MEMORY_LIMIT = 200000;
+	public static final int DEFAULT_BITSTATE_MEMORY = 64;
+	public static final int MAX_BITSTATE_MEMORY = 8192;
+	public static final int DEFAULT_BITSTATE_HASH_FUNCTIONS = 3;
+	public static final int MAX_BITSTATE_HASH_FUNCTIONS = 16;
 	
 	public static final String FUNCTIONNET_KEYWORD = "Function net";
 	public static final String STATEMACHINE_KEYWORD = "State machine";
@@ -117,9 +131,21 @@ public class SystemOptions implements Serializable {
 	private boolean totalOrdering = true;
 	private boolean pairwiseTesting = false;
 	
+	private boolean parallelSearch = false;		// expand each level of a breadth-first state tree on multiple threads
+	private int		numberOfSearchThreads = 0;	// 0 - the number of available processors
+	private boolean diskSearch = false;			// keep visited states (and the queue of breadth-first verification) on disk
+	private int		frontierMemoryLimit = DEFAULT_FRONTIER_MEMORY_LIMIT;	// states in the queue that are kept in memory for disk search
+	private boolean bitstateHashing = false;	// verification records visited states as bits (supertrace)
+	private int		bitstateMemory = DEFAULT_BITSTATE_MEMORY;		// megabytes of the bit array
+	private int		bitstateHashFunctions = DEFAULT_BITSTATE_HASH_FUNCTIONS;
+	private boolean partialOrderReduction = false;	// explore stubborn sets of firings in verification and deadlock checking
+	
 	// random tests
 	private int		maxRandomTests = 20;		 
 	
+	// threat trees: the attack paths merged into the test tree (0 - no limit)
+	private long	maxAttackPaths = 0;
+	
 	// options for test generation only
 	private CoverageCriterion coverageCriterion = ReachabilityTreeCoverage; 
 
@@ -149,6 +175,7 @@ public class SystemOptions implements Serializable {
 
 	private int 	maxLevelOfNodeExpansion = 30;
 	private boolean showStatesInNodes = false;
+	private boolean saveTestTreesAsSpreadsheets = false;	// test trees are saved in the binary format unless set
 	
 	private boolean viewTestCode = true;
 	private boolean generateSeparateTestFiles = false;
@@ -304,6 +331,80 @@ public class SystemOptions implements Serializable {
 		this.pairwiseTesting = pairwise;
 	}
 	
+	public boolean isParallelSearch(){
+		return parallelSearch;
+	}
+	
+	public void setParallelSearch(boolean parallel){
+		this.parallelSearch = parallel;
+	}
+	
+	public int getNumberOfSearchThreads(){
+		return numberOfSearchThreads>0? numberOfSearchThreads: Runtime.getRuntime().availableProcessors();
+	}
+	
+	public void setNumberOfSearchThreads(int number){
+		this.numberOfSearchThreads = number;
+	}
+	
+	// 1 if search is sequential
+	public int getNumberOfVerificationThreads(){
+		return parallelSearch? getNumberOfSearchThreads(): 1;
+	}
+	
+	public boolean isDiskSearch(){
+		return diskSearch;
+	}
+	
+	public void setDiskSearch(boolean disk){
+		this.diskSearch = disk;
+	}
+	
+	public int getFrontierMemoryLimit(){
+		return frontierMemoryLimit;
+	}
+	
+	public void setFrontierMemoryLimit(int limit){
+		this.frontierMemoryLimit = limit>0? limit: DEFAULT_FRONTIER_MEMORY_LIMIT;
+	}
+	
+	public boolean isBitstateHashing(){
+		return bitstateHashing;
+	}
+	
+	public void setBitstateHashing(boolean bitstate){
+		this.bitstateHashing = bitstate;
+	}
+	
+	public int getBitstateMemory(){
+		return bitstateMemory;
+	}
+	
+	public void setBitstateMemory(int megabytes){
+		this.bitstateMemory = megabytes>0? Math.min(megabytes, MAX_BITSTATE_MEMORY): DEFAULT_BITSTATE_MEMORY;
+	}
+	
+	public int getBitstateHashFunctions(){
+		return bitstateHashFunctions;
+	}
+	
+	public void setBitstateHashFunctions(int number){
+		this.bitstateHashFunctions = number>0? Math.min(number, MAX_BITSTATE_HASH_FUNCTIONS): DEFAULT_BITSTATE_HASH_FUNCTIONS;
+	}
+	
+	public boolean isPartialOrderReduction(){
+		return partialOrderReduction;
+	}
+	
+	public void setPartialOrderReduction(boolean reduction){
+		this.partialOrderReduction = reduction;
+	}
+	
+	// the store of visited markings for a search
+	public MarkingStore createMarkingStore() throws IOException {
+		return diskSearch? new MappedMarkingStore(): new MemoryMarkingStore();
+	}
+	
 	public void setMaxRandomTests(int max){
 		maxRandomTests = max;
 	}
@@ -312,6 +413,14 @@ public class SystemOptions implements Serializable {
 		return maxRandomTests;
 	}
 	
+	public void setMaxAttackPaths(long max){
+		maxAttackPaths = Math.max(0, max);
+	}
+	
+	public long getMaxAttackPaths(){
+		return maxAttackPaths;
+	}
+	
 	public void setMaxIdDepth(int max){
 		maxIdDepth = max;
 	}
@@ -337,6 +446,14 @@ public class SystemOptions implements Serializable {
 		this.showStatesInNodes = showStates;
 	}
 	
+	public boolean saveTestTreesAsSpreadsheets(){
+		return saveTestTreesAsSpreadsheets;
+	}
+	
+	public void setSaveTestTreesAsSpreadsheets(boolean asSpreadsheets){
+		this.saveTestTreesAsSpreadsheets = asSpreadsheets;
+	}
+	
 	/////////////////////////////////////////////////////////
 	//Model type
 	/////////////////////////////////////////////////////////	
@@ -416,20 +533,30 @@ public class SystemOptions implements Serializable {
 					return breadthFirstSearch? new TransitionTreeForStateCoverageBFS(mid, this): new TransitionTreeForStateCoverageDFS(mid, this);
 				} else 
 				if (coverageCriterion==GoalCoverage) {
-					ProgressDialog progressDialog = new ProgressDialog(null, LocaleBundle.bundleString("Reachability Analysis"), LocaleBundle.bundleString("Checking for goal reachability"));
+					ProgressDialog progressDialog = GraphicsEnvironment.isHeadless()? null: 
+						new ProgressDialog(null, LocaleBundle.bundleString("Reachability Analysis"), LocaleBundle.bundleString("Checking for goal reachability"));
 					GoalReachabilityChecker goalReachabilityChecker = new GoalReachabilityChecker(mid, searchForHomeStates, progressDialog);
-					Thread gaolReachabilityThread = new Thread(goalReachabilityChecker);
-					gaolReachabilityThread.start();
-					progressDialog.setVisible(true);
+					if (progressDialog==null)
+						goalReachabilityChecker.run();		// batch mode
+					else {
+						Thread gaolReachabilityThread = new Thread(goalReachabilityChecker);
+						gaolReachabilityThread.start();
+						progressDialog.setVisible(true);
+					}
 					GoalVerifier goalVerifier= goalReachabilityChecker.getGoalVerifier();
 					return goalVerifier!=null? new TransitionTreeFromVerificationResults(mid, this, goalVerifier): null;
 				} else 
 				if (coverageCriterion==CounterExampleCoverage) {
-					ProgressDialog progressDialog = new ProgressDialog(null, LocaleBundle.bundleString("VERIFY_ASSERTIONS"), LocaleBundle.bundleString("VERIFYING_ASSERTIONS"));
+					ProgressDialog progressDialog = GraphicsEnvironment.isHeadless()? null: 
+						new ProgressDialog(null, LocaleBundle.bundleString("VERIFY_ASSERTIONS"), LocaleBundle.bundleString("VERIFYING_ASSERTIONS"));
 					AssertionChecker assertionChecker = new AssertionChecker(mid, progressDialog);
-					Thread assertionCheckingThread = new Thread(assertionChecker);
-					assertionCheckingThread.start();
-					progressDialog.setVisible(true);
+					if (progressDialog==null)
+						assertionChecker.run();		// batch mode
+					else {
+						Thread assertionCheckingThread = new Thread(assertionChecker);
+						assertionCheckingThread.start();
+						progressDialog.setVisible(true);
+					}
 					AssertionVerifier assertionVerifier= assertionChecker.getAssertionVerifier();
 					return assertionVerifier!=null? new TransitionTreeFromVerificationResults(mid, this, assertionVerifier): null;
 				} else 
@@ -465,10 +592,11 @@ public class SystemOptions implements Serializable {
 		
 		public void run () {
 			try {
-				goalVerifier = VerificationManager.getPropertyVerifier(mid, breadthFirstSearch, searchDepth, searchForHomeStates, progressDialog);
+				goalVerifier = VerificationManager.getPropertyVerifier(mid, breadthFirstSearch, searchDepth, searchForHomeStates, progressDialog, SystemOptions.this);
 			}
 			catch (CancellationException e){}			
-			progressDialog.dispose();				
+			if (progressDialog!=null)
+				progressDialog.dispose();				
 		}
 		
 		// return null if reachability analysis is cancelled
@@ -489,12 +617,13 @@ public class SystemOptions implements Serializable {
 		
 		public void run () {
 			try {
-				verifier = breadthFirstSearch? new AssertionVerifierBFS(mid, searchDepth, progressDialog):
-							new AssertionVerifierDFS(mid, searchDepth, progressDialog);
+				verifier = breadthFirstSearch? new AssertionVerifierBFS(mid, searchDepth, progressDialog, SystemOptions.this):
+							new AssertionVerifierDFS(mid, searchDepth, progressDialog, SystemOptions.this);
 			}
 			catch (CancellationException e){
 			}			
-			progressDialog.dispose();				
+			if (progressDialog!=null)
+				progressDialog.dispose();				
 		}
 		
 		public AssertionVerifier getAssertionVerifier(){ 
@@ -905,10 +1034,26 @@ public class SystemOptions implements Serializable {
 	}
 
 	public static SystemOptions readSystemOptionsFromFile(){
+		return readSystemOptionsFromFile(SystemOptionsFileName);
+	}
+
+	// the options saved before an option was added have 0 for it, not its default
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		if (frontierMemoryLimit<=0)
+			frontierMemoryLimit = DEFAULT_FRONTIER_MEMORY_LIMIT;
+		if (bitstateMemory<=0)
+			bitstateMemory = DEFAULT_BITSTATE_MEMORY;
+		if (bitstateHashFunctions<=0)
+			bitstateHashFunctions = DEFAULT_BITSTATE_HASH_FUNCTIONS;
+	}
+
+	public static SystemOptions readSystemOptionsFromFile(String fileName){
 		SystemOptions systemOptions = null;
 		try {
-			systemOptions = (SystemOptions) (ReadWriteObj.read(SystemOptionsFileName));
+			systemOptions = (SystemOptions) (ReadWriteObj.read(fileName));
 			systemOptions.setLanguage(systemOptions.getLanguageIndex());
+			systemOptions.setCoverageCriterion(systemOptions.coverageCriterion.getID());
 		}
 		catch (Exception e) {
 //			e.printStackTrace();
@@ -927,5 +1072,24 @@ public class SystemOptions implements Serializable {
 		systemOptions.setDefaultTageCodeForAllTestFrameworks();
 		return systemOptions;
 	}
+
+	// a separate copy of the options, e.g., for each model processed in batch mode 
+	public SystemOptions copy() {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(this);
+			out.close();
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+			SystemOptions systemOptions = (SystemOptions) in.readObject();
+			in.close();
+			systemOptions.setLanguage(systemOptions.getLanguageIndex());
+			systemOptions.setCoverageCriterion(systemOptions.coverageCriterion.getID());
+			return systemOptions;
+		}
+		catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
 	
 }
@@ -35,12 +35,14 @@ public class SystemOptionsJDialog extends JDialog implements ActionListener {
 	private static final String Cancel = "Cancel";
 
 	private JRadioButton breadthFirstSearchButton, depthFirstSearchButton;
+	private JCheckBox parallelSearchBox, diskSearchBox, bitstateBox, partialOrderReductionBox;
 	private JRadioButton searchForHomeStatesButton, donotSearchForHomeStatesButton;
 	private JRadioButton totalOrderingButton, partialOrderingButton;
 	private JRadioButton generalFiringRuleButton, pairwiseButton;
 	private JTextField searchDepthField, nodeIdDepthField, maxExpansionLevelField;
+	private JTextField frontierMemoryLimitField, bitstateMemoryField, bitstateHashFunctionsField;
 	
-	private JCheckBox viewTestCodeBox, generateSeparateTestFilesBox, includeSeqIndicesInTestIDBox, showStatesInNodesBox;
+	private JCheckBox viewTestCodeBox, generateSeparateTestFilesBox, includeSeqIndicesInTestIDBox, showStatesInNodesBox, saveTestTreesAsSpreadsheetsBox;
 	private JCheckBox testParameterBox;  
 	private JCheckBox includeAssertDefinitionBox;  	
 	private JCheckBox createObjectReferenceBox, referenceForMethodBox, referenceForAccessorBox, referenceForMutatorBox;  
@@ -95,6 +97,9 @@ public class SystemOptionsJDialog extends JDialog implements ActionListener {
 	    gridBagConstraints.gridy = 3;
 	    searchStrategyPanel.add(createOrderingPanel(), gridBagConstraints);
 
+	    gridBagConstraints.gridy = 4;
+	    searchStrategyPanel.add(createStateStoragePanel(), gridBagConstraints);
+
 	    searchStrategyPanel.setBorder(new TitledBorder(new EtchedBorder(), LocaleBundle.bundleString("Search")));
 		return searchStrategyPanel;
 	}
@@ -122,6 +127,21 @@ public class SystemOptionsJDialog extends JDialog implements ActionListener {
 		panel.add(breadthFirstSearchButton);
 		panel.add(depthFirstSearchButton);
 
+		parallelSearchBox = new JCheckBox(LocaleBundle.bundleString("Parallel"));
+		parallelSearchBox.setSelected(options.isParallelSearch());
+		parallelSearchBox.setEnabled(includeSearchOptions);
+		panel.add(parallelSearchBox);
+
+		diskSearchBox = new JCheckBox(LocaleBundle.bundleString("Use disk"));
+		diskSearchBox.setSelected(options.isDiskSearch());
+		diskSearchBox.setEnabled(includeSearchOptions);
+		panel.add(diskSearchBox);
+
+		bitstateBox = new JCheckBox(LocaleBundle.bundleString("Bitstate hashing"));
+		bitstateBox.setSelected(options.isBitstateHashing());
+		bitstateBox.setEnabled(includeSearchOptions);
+		panel.add(bitstateBox);
+
 		JLabel searchDepthLabel = new JLabel(LocaleBundle.bundleString("Maximum search depth"));
 		searchDepthLabel.setEnabled(includeSearchOptions);
 		panel.add(searchDepthLabel);
@@ -135,6 +155,41 @@ public class SystemOptionsJDialog extends JDialog implements ActionListener {
 		return panel;
 	}
 
+	private JPanel createStateStoragePanel(){
+		JPanel panel = new JPanel();
+		JLabel frontierMemoryLimitLabel = new JLabel(LocaleBundle.bundleString("States in memory for disk search"));
+		frontierMemoryLimitLabel.setEnabled(includeSearchOptions);
+		panel.add(frontierMemoryLimitLabel);
+
+		frontierMemoryLimitField = new JTextField(options.getFrontierMemoryLimit()+"");
+		frontierMemoryLimitField.setPreferredSize(new Dimension(70, 20));
+		frontierMemoryLimitField.setEnabled(includeSearchOptions);
+		frontierMemoryLimitField.setEditable(includeSearchOptions);
+		panel.add(frontierMemoryLimitField);
+
+		JLabel bitstateMemoryLabel = new JLabel(LocaleBundle.bundleString("Bitstate memory in MB"));
+		bitstateMemoryLabel.setEnabled(includeSearchOptions);
+		panel.add(bitstateMemoryLabel);
+
+		bitstateMemoryField = new JTextField(options.getBitstateMemory()+"");
+		bitstateMemoryField.setPreferredSize(new Dimension(50, 20));
+		bitstateMemoryField.setEnabled(includeSearchOptions);
+		bitstateMemoryField.setEditable(includeSearchOptions);
+		panel.add(bitstateMemoryField);
+
+		JLabel bitstateHashFunctionsLabel = new JLabel(LocaleBundle.bundleString("Hash functions"));
+		bitstateHashFunctionsLabel.setEnabled(includeSearchOptions);
+		panel.add(bitstateHashFunctionsLabel);
+
+		bitstateHashFunctionsField = new JTextField(options.getBitstateHashFunctions()+"");
+		bitstateHashFunctionsField.setPreferredSize(new Dimension(30, 20));
+		bitstateHashFunctionsField.setEnabled(includeSearchOptions);
+		bitstateHashFunctionsField.setEditable(includeSearchOptions);
+		panel.add(bitstateHashFunctionsField);
+
+		return panel;
+	}
+
 	private JPanel createOrderingPanel(){
 		totalOrderingButton = new JRadioButton(LocaleBundle.bundleString("Total ordering"));
 		totalOrderingButton.addActionListener(this);
@@ -158,6 +213,11 @@ public class SystemOptionsJDialog extends JDialog implements ActionListener {
 		panel.add(totalOrderingButton);
 		panel.add(partialOrderingButton);
 
+		partialOrderReductionBox = new JCheckBox(LocaleBundle.bundleString("Partial order reduction"));
+		partialOrderReductionBox.setSelected(options.isPartialOrderReduction());
+		partialOrderReductionBox.setEnabled(includeSearchOptions);
+		panel.add(partialOrderReductionBox);
+
 		return panel;
 	}
 
@@ -267,6 +327,11 @@ public class SystemOptionsJDialog extends JDialog implements ActionListener {
 	    gridBagConstraints.gridy = 1;
 	    testIdentificationAndTreeViewPanel.add(createIdDepthPanel(), gridBagConstraints);
 
+		saveTestTreesAsSpreadsheetsBox = createJCheckBox(LocaleBundle.bundleString("SAVE_TEST_TREES_AS_SPREADSHEETS"), options.saveTestTreesAsSpreadsheets());
+	    gridBagConstraints.gridx = 0;
+	    gridBagConstraints.gridy = 2;
+	    testIdentificationAndTreeViewPanel.add(saveTestTreesAsSpreadsheetsBox, gridBagConstraints);
+
 		testIdentificationAndTreeViewPanel.setBorder(new TitledBorder(new EtchedBorder(), LocaleBundle.bundleString("TEST_IDENTIFICATION_AND_TREE_PRESENTATION")));
 		return testIdentificationAndTreeViewPanel;
 		
@@ -420,9 +485,52 @@ public class SystemOptionsJDialog extends JDialog implements ActionListener {
 				return false;
 			}
 			options.setBreadthFirstSearch(breadthFirstSearchButton.isSelected());
+			options.setParallelSearch(parallelSearchBox.isSelected());
+			options.setDiskSearch(diskSearchBox.isSelected());
+			options.setBitstateHashing(bitstateBox.isSelected());
+			options.setPartialOrderReduction(partialOrderReductionBox.isSelected());
 			options.setSearchForHomeStates(searchForHomeStatesButton.isSelected());
 			options.setTotalOrdering(totalOrderingButton.isSelected());
 			options.setPairwiseTesting(pairwiseButton.isSelected());
+			try {
+				int frontierMemoryLimit = Integer.parseInt(frontierMemoryLimitField.getText().trim());
+				if (frontierMemoryLimit>0)
+					options.setFrontierMemoryLimit(frontierMemoryLimit);
+				else {
+					kernel.printDialogMessage(LocaleBundle.bundleString("States in memory should be a positive integer"));
+					return false;
+				}
+			}
+			catch (Exception e) {
+				kernel.printDialogMessage(LocaleBundle.bundleString("States in memory should be a positive integer"));
+				return false;
+			}
+			try {
+				int bitstateMemory = Integer.parseInt(bitstateMemoryField.getText().trim());
+				if (bitstateMemory>0 && bitstateMemory<=SystemOptions.MAX_BITSTATE_MEMORY)
+					options.setBitstateMemory(bitstateMemory);
+				else {
+					kernel.printDialogMessage(LocaleBundle.bundleString("INVALID_BITSTATE_MEMORY"));
+					return false;
+				}
+			}
+			catch (Exception e) {
+				kernel.printDialogMessage(LocaleBundle.bundleString("INVALID_BITSTATE_MEMORY"));
+				return false;
+			}
+			try {
+				int bitstateHashFunctions = Integer.parseInt(bitstateHashFunctionsField.getText().trim());
+				if (bitstateHashFunctions>0 && bitstateHashFunctions<=SystemOptions.MAX_BITSTATE_HASH_FUNCTIONS)
+					options.setBitstateHashFunctions(bitstateHashFunctions);
+				else {
+					kernel.printDialogMessage(LocaleBundle.bundleString("INVALID_NUMBER_OF_HASH_FUNCTIONS"));
+					return false;
+				}
+			}
+			catch (Exception e) {
+				kernel.printDialogMessage(LocaleBundle.bundleString("INVALID_NUMBER_OF_HASH_FUNCTIONS"));
+				return false;
+			}
 			try {
 				int idDepth = Integer.parseInt(nodeIdDepthField.getText());
 				if (idDepth>=0) {
@@ -500,6 +608,7 @@ public class SystemOptionsJDialog extends JDialog implements ActionListener {
 		options.setViewTestCode(viewTestCodeBox.isSelected());
 		options.setGenerateSeparateTestFile(generateSeparateTestFilesBox.isSelected());
 		options.setIncludeSeqIndicesInTestID(includeSeqIndicesInTestIDBox.isSelected());
+		options.setSaveTestTreesAsSpreadsheets(saveTestTreesAsSpreadsheetsBox.isSelected());
 		if (options.isOOLanguage()){
 			options.setCreateObjectReference(createObjectReferenceBox.isSelected());
 			options.setGenerateReferenceForMethodCall(referenceForMethodBox.isSelected());
@@ -315,6 +315,11 @@ public class TestingManager implements ActionListener {
 			return null;
 //System.out.println(mid);		
 		ModelType modelType = kernel.getFileManager().getEditor().getModelType();
+		return createTransitionTree(kernel, mid, modelType);
+	}
+
+	// also used by the batch runner, where kernel is headless
+	public static TransitionTree createTransitionTree(Kernel kernel, MID mid, ModelType modelType){
 		if (Kernel.IS_LIMITATION_SET && mid.getTransitions().size()>Kernel.MAX_TRANSITIONS_FOR_LIMITATION){
 			JOptionPane.showMessageDialog(null, LocaleBundle.bundleString("The model is too complex"));
 			return null;
@@ -332,12 +337,12 @@ public class TestingManager implements ActionListener {
 			return null;
 		}
 		if (kernel.getSystemOptions().getCoverageCriterion()==SystemOptions.SequenceCoverage)
-			return parseTestSequenceSpecification(mid);
+			return parseTestSequenceSpecification(kernel, mid);
 		else
 			return kernel.getSystemOptions().createTransitionTree(mid, modelType);
 	}
 	
-	private TransitionTree parseTestSequenceSpecification(MID mid){
+	private static TransitionTree parseTestSequenceSpecification(Kernel kernel, MID mid){
 		String sequenceFileName = mid.getSequencesFile();
 		if (sequenceFileName==null){
 			kernel.printDialogMessage(LocaleBundle.bundleString("Specify a sequences file"));
@@ -478,7 +483,7 @@ public class TestingManager implements ActionListener {
 	     public Boolean doInBackground() {
 				TransitionTree tree = treePanel.getTestTree().getTransitionTree();
 			try {
-				TestTreeFile.saveTestDataToExcelFile(tree, file);
+				TestTreeFile.saveTestData(tree, file);
 				setTreeSaved(true);
 				setProgress(100);
 //				Thread.sleep(5000);
@@ -559,11 +564,8 @@ public class TestingManager implements ActionListener {
 		TestJTree testTree = treePanel.getTestTree();
 		if (testTree==null)
 			return null;
-		DefaultMutableTreeNode selectedMutableNode = (DefaultMutableTreeNode) testTree.getLastSelectedPathComponent();
-		if (selectedMutableNode == null)
-			return null;
-		TransitionTreeNode node = (TransitionTreeNode) selectedMutableNode.getUserObject();
-		if (node.isRoot()) {
+		TransitionTreeNode node = (TransitionTreeNode) testTree.getLastSelectedPathComponent();
+		if (node == null || node.isRoot()) {
 			return null;
 		}
 		return node;
@@ -577,9 +579,9 @@ public class TestingManager implements ActionListener {
 	/////////////////////////////////////////////////////////////////////////
 	public void deleteTreeNode() {
 		TestJTree testTree = treePanel.getTestTree();
-		DefaultMutableTreeNode node = (DefaultMutableTreeNode) testTree
+		TransitionTreeNode node = (TransitionTreeNode) testTree
 				.getLastSelectedPathComponent();
-		if (node == null || ((TransitionTreeNode) (node.getUserObject())).isRoot()) {
+		if (node == null || node.isRoot()) {
 			JOptionPane.showMessageDialog(kernel.getParentFrame(), LocaleBundle.bundleString("Please choose a node"));
 			return;
 		}
@@ -595,83 +597,64 @@ public class TestingManager implements ActionListener {
 		}
 	}
 	
-	public void removeTestTreeNode(DefaultMutableTreeNode node, TestJTree testTree) {
-		DefaultMutableTreeNode parentNode = (DefaultMutableTreeNode) (node.getParent());	
-		MutableTreeNode toBeSelNode = getSibling(node);
+	public void removeTestTreeNode(TransitionTreeNode testNode, TestJTree testTree) {
+		TransitionTreeNode testParent = testNode.getParent();
+		TransitionTreeNode toBeSelNode = getSibling(testNode);
 		// if there are no siblings select the parent node after
 		// removing the node	
 		if (toBeSelNode == null) {
-			toBeSelNode = parentNode;
+			toBeSelNode = testParent;
 		}
-		if (parentNode != null) {
-			((DefaultTreeModel) testTree.getModel()).removeNodeFromParent(node);
-		}
-		TransitionTreeNode testNode = ((TransitionTreeNode) node.getUserObject());		
-		TransitionTreeNode testParent = testNode.getParent();
+		int index = testParent.getChildNodePosition(testNode);
 		testParent.removeNodeFromChildren(testNode);
 		testParent.resetChildrenOutlineNumbers(testTree.getTransitionTree().getSystemOptions().getMaxIdDepth());
-		// should enforce garbage collection???
+		testTree.getTestTreeModel().nodeWasRemoved(testParent, index, testNode);
+		testTree.getTestTreeModel().childrenChanged(testParent);
 		testNode.setParent(null);
-		testNode =  null;
-		setNewVisiblePath(testTree, (DefaultMutableTreeNode) toBeSelNode);
+		setNewVisiblePath(testTree, toBeSelNode);
 	}
 
 	/////////////////////////////////////////////////////////////////////////
 	public void cloneSubtree() {
 		TestJTree testTree = treePanel.getTestTree();
-		DefaultMutableTreeNode selectedMutableNode = (DefaultMutableTreeNode) testTree
+		TransitionTreeNode selectedUserNode = (TransitionTreeNode) testTree
 		.getLastSelectedPathComponent();
-		if (selectedMutableNode == null)
+		if (selectedUserNode == null)
 			return;
-		TransitionTreeNode selectedUserNode = (TransitionTreeNode) selectedMutableNode.getUserObject();
 		if (selectedUserNode.isRoot()) {
 			kernel.printDialogMessage(LocaleBundle.bundleString("Please choose a node"));
 			return;			
 		} 
-		DefaultMutableTreeNode parentMutableNode = (DefaultMutableTreeNode) (selectedMutableNode
-				.getParent());
-		TransitionTreeNode parentUserNode = (TransitionTreeNode) parentMutableNode.getUserObject();
+		TransitionTreeNode parentUserNode = selectedUserNode.getParent();
 		int index = parentUserNode.getChildNodePosition(selectedUserNode)+1;
 		TransitionTreeNode newNode = selectedUserNode.clone();
 		if (newNode==null){
 			kernel.printDialogMessage(LocaleBundle.bundleString("failed to clone node"));
 			return;			
 		}
-		newNode.setParent(parentUserNode);
-		parentUserNode.insert(index, newNode);
-		parentUserNode.resetChildrenOutlineNumbers(testTree.getTransitionTree().getSystemOptions().getMaxIdDepth());
-
-		DefaultMutableTreeNode newMutableNode = newNode.setToMutableNode();
-		((DefaultTreeModel) testTree.getModel()).insertNodeInto(newMutableNode,
-				parentMutableNode, index);
-		testTree.expandAllPaths(new TreePath(parentMutableNode), 0, true);
-		setNewVisiblePath(testTree, newMutableNode);
-		setTreeSaved(false);
+		insertTestTreeNode(newNode, parentUserNode, index, testTree);
 	}
 
-	public void insertTestTreeNode(DefaultMutableTreeNode node, DefaultMutableTreeNode parent, int index, TestJTree testTree) {
-		TransitionTreeNode parentUserNode = (TransitionTreeNode) parent.getUserObject();
-		TransitionTreeNode newNode = (TransitionTreeNode) node.getUserObject();
+	public void insertTestTreeNode(TransitionTreeNode newNode, TransitionTreeNode parentUserNode, int index, TestJTree testTree) {
 		newNode.setParent(parentUserNode);
 		parentUserNode.insert(index, newNode);
 		parentUserNode.resetChildrenOutlineNumbers(testTree.getTransitionTree().getSystemOptions().getMaxIdDepth());
-		DefaultMutableTreeNode newMutableNode = newNode.setToMutableNode();
-		((DefaultTreeModel) testTree.getModel()).insertNodeInto(newMutableNode,
-				parent, index);
-		testTree.expandAllPaths(new TreePath(parent), 0, true);
-		setNewVisiblePath(testTree, newMutableNode);
+		testTree.getTestTreeModel().nodeWasInserted(parentUserNode, index);
+		testTree.getTestTreeModel().childrenChanged(parentUserNode);
+		testTree.expandAllPaths(testTree.getTestTreeModel().getTreePath(parentUserNode), 0, true);
+		setNewVisiblePath(testTree, newNode);
 		setTreeSaved(false);
 	}
 
 	/////////////////////////////////////////////////////////////////////////
 	public void moveTreeNode() {
 		TestJTree testTree = treePanel.getTestTree();
-		DefaultMutableTreeNode currentNode = (DefaultMutableTreeNode) testTree.getLastSelectedPathComponent();
-		if (currentNode == null || ((TransitionTreeNode) (currentNode.getUserObject())).isRoot()) {
+		TransitionTreeNode currentNode = (TransitionTreeNode) testTree.getLastSelectedPathComponent();
+		if (currentNode == null || currentNode.isRoot()) {
 			kernel.printDialogMessage(LocaleBundle.bundleString("Please choose a node"));
 			return;
 		}
-		DefaultMutableTreeNode parentNode = (DefaultMutableTreeNode) currentNode.getParent();
+		TransitionTreeNode parentNode = currentNode.getParent();
 		int siblingCount = getSiblingCount(); 
 		String input = JOptionPane.showInputDialog(LocaleBundle.bundleString("Sibling Number")+" (1-"+siblingCount+"):");
 		if (input!=null) {
@@ -681,7 +664,7 @@ public class TestingManager implements ActionListener {
 					kernel.printDialogMessage(LocaleBundle.bundleString("Wrong sibling number"));
 					return;
 				}
-				int currentIndex = parentNode.getIndex(currentNode)+1;
+				int currentIndex = parentNode.getChildNodePosition(currentNode)+1;
 				if (newIndex == currentIndex) {
 					kernel.printDialogMessage(LocaleBundle.bundleString("Choose a sibling"));
 					return;
@@ -698,56 +681,49 @@ public class TestingManager implements ActionListener {
 	/////////////////////////////////////////////////////////////////////////
 	public void expandNode() {
 		TestJTree testTree = treePanel.getTestTree();
-		DefaultMutableTreeNode selectedMutableNode = (DefaultMutableTreeNode) testTree.getLastSelectedPathComponent();
-		if (selectedMutableNode == null)
+		TransitionTreeNode selectedUserNode = (TransitionTreeNode) testTree.getLastSelectedPathComponent();
+		if (selectedUserNode == null)
 			return;
-		TransitionTreeNode selectedUserNode = (TransitionTreeNode) selectedMutableNode.getUserObject();
 		if (selectedUserNode.isRoot()) {
 			kernel.printDialogMessage(LocaleBundle.bundleString("Please choose a node"));
 			return;			
 		} 
-		DefaultMutableTreeNode parentMutableNode = (DefaultMutableTreeNode) (selectedMutableNode.getParent());
-		testTree.expandAllPaths(new TreePath(parentMutableNode), 0, true);
+		testTree.expandAllPaths(testTree.getTestTreeModel().getTreePath(selectedUserNode.getParent()), 0, true);
 	}
 
 	public int getSiblingCount() {
 		TestJTree testTree = treePanel.getTestTree();
 		if (testTree==null)
 			return 0;
-		DefaultMutableTreeNode node = (DefaultMutableTreeNode) testTree
+		TransitionTreeNode node = (TransitionTreeNode) testTree
 				.getLastSelectedPathComponent();
-		if (node == null || ((TransitionTreeNode) (node.getUserObject())).isRoot()) {
+		if (node == null || node.isRoot()) {
 			return 0;
 		}
-		return node.getSiblingCount();
+		return node.getParent().children().size();
 	}
 
 	public boolean hasSiblingNode() {
 		return getSiblingCount()>1;
 	}
 
-	private MutableTreeNode getSibling(DefaultMutableTreeNode selNode) {
-		if (selNode != null) {
-			MutableTreeNode sibling = (MutableTreeNode) selNode
-					.getPreviousSibling();
-			if (sibling == null) {
-				sibling = (MutableTreeNode) selNode.getNextSibling();
-			}
-			if (sibling == null) {
-				sibling = getSibling((DefaultMutableTreeNode) (MutableTreeNode) selNode
-						.getParent());
-			}
-			return sibling;
+	private TransitionTreeNode getSibling(TransitionTreeNode selNode) {
+		if (selNode != null && selNode.getParent() != null) {
+			TransitionTreeNode parent = selNode.getParent();
+			int index = parent.getChildNodePosition(selNode);
+			if (index>0)
+				return parent.children().get(index-1);
+			if (index+1<parent.children().size())
+				return parent.children().get(index+1);
+			return getSibling(parent);
 		} else {
 			return null;
 		}
 	}
 
 	//////////////////////////////////////////////////////////////////////////
-	private void setNewVisiblePath(TestJTree testTree, DefaultMutableTreeNode newMutableNode){
-		TreeNode[] nodes = ((DefaultTreeModel) testTree.getModel())
-				.getPathToRoot(newMutableNode);
-		TreePath path = new TreePath(nodes);
+	private void setNewVisiblePath(TestJTree testTree, TransitionTreeNode newNode){
+		TreePath path = testTree.getTestTreeModel().getTreePath(newNode);
 		testTree.scrollPathToVisible(path);
 		// select the newly added node
 		testTree.setSelectionPath(path);
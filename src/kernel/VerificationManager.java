@@ -205,7 +205,7 @@ public class VerificationManager implements ActionListener {
 				boolean searchForHomeStates = kernel.getSystemOptions().searchForHomeStates();
 //				long start= System.currentTimeMillis();
 //				GoalVerifier verifier = getGoalVerifier(mid, isBreadthFirstSearch, searchDepth, searchForHomeStates, progressFrame);
-				GoalVerifier verifier = getPropertyVerifier(mid, isBreadthFirstSearch, searchDepth, searchForHomeStates, progressFrame);
+				GoalVerifier verifier = getPropertyVerifier(mid, isBreadthFirstSearch, searchDepth, searchForHomeStates, progressFrame, kernel.getSystemOptions());
 //				long end = System.currentTimeMillis();
 				progressFrame.dispose();
 				String result = verifier.reportResult();
@@ -220,6 +220,11 @@ public class VerificationManager implements ActionListener {
 	}
 
 	public static GoalVerifier getPropertyVerifier(MID mid, boolean isBreadthFirstSearch, int searchDepth, boolean searchForHomeStates, ProgressDialog progressFrame) throws CancellationException{
+		return getPropertyVerifier(mid, isBreadthFirstSearch, searchDepth, searchForHomeStates, progressFrame, null);
+	}
+
+	// systemOptions decide parallel and disk-based search (null for sequential search in memory)
+	public static GoalVerifier getPropertyVerifier(MID mid, boolean isBreadthFirstSearch, int searchDepth, boolean searchForHomeStates, ProgressDialog progressFrame, SystemOptions systemOptions) throws CancellationException{
 		GoalVerifier verifier=null;
 		if (isBreadthFirstSearch) { // planning graph is a breadth-first strategy
 			if (isPlanningGraphAnalysisApplicable(mid)){
@@ -229,13 +234,13 @@ public class VerificationManager implements ActionListener {
 				// 12/27/2011 planning graph found no paths to the reachable goals in Magento
 				Verifier pgVerifier= converter.analyzePlanningGraph(goalMarkings, searchDepth, progressFrame);
 				pgVerifier.removeInvalidFiringSequences();
-				verifier = new GoalVerifierBFS(mid, searchDepth, searchForHomeStates, progressFrame, pgVerifier.getFiringSequences(), true);
+				verifier = new GoalVerifierBFS(mid, searchDepth, searchForHomeStates, progressFrame, pgVerifier.getFiringSequences(), true, systemOptions);
 			} else {
-				verifier = new GoalVerifierBFS(mid, searchDepth, searchForHomeStates, progressFrame);
+				verifier = new GoalVerifierBFS(mid, searchDepth, searchForHomeStates, progressFrame, systemOptions);
 			}
 		}
 		else 
-			verifier = new GoalVerifierDFS(mid, searchDepth, searchForHomeStates, progressFrame);
+			verifier = new GoalVerifierDFS(mid, searchDepth, searchForHomeStates, progressFrame, systemOptions);
 		return verifier;
 	}
 
@@ -337,8 +342,8 @@ public class VerificationManager implements ActionListener {
 				int searchDepth = kernel.getSystemOptions().getSearchDepth();
 //				long start= System.currentTimeMillis();
 				AssertionVerifier verifier = kernel.getSystemOptions().isBreadthFirstSearch()?
-						new AssertionVerifierBFS(mid, searchDepth, progressDialog):
-							new AssertionVerifierDFS(mid, searchDepth, progressDialog);
+						new AssertionVerifierBFS(mid, searchDepth, progressDialog, kernel.getSystemOptions()):
+							new AssertionVerifierDFS(mid, searchDepth, progressDialog, kernel.getSystemOptions());
 //				long end = System.currentTimeMillis();
 				progressDialog.dispose();
 				String result = verifier.reportResult();
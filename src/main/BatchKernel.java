@@ -0,0 +1,111 @@
+package main;
+
+import javax.swing.JFileChooser;
+import javax.swing.JFrame;
+import javax.swing.JMenu;
+import javax.swing.JToolBar;
+
+import kernel.FileManager;
+import kernel.Kernel;
+import kernel.RecentFiles;
+import kernel.StatusPanel;
+import kernel.SystemOptions;
+import kernel.TestingManager;
+import kernel.VerificationManager;
+import testcode.TargetLanguage;
+
+// The kernel of a model processed in batch mode: there is no frame, menu, or tool bar.
+// Each model has its own copy of the system options; messages are collected for the report of the model.
+// Also used by the benchmarks to load models.
+
+public class BatchKernel implements Kernel {
+
+	private SystemOptions systemOptions;
+	private StringBuffer messages = new StringBuffer();
+
+	public BatchKernel(SystemOptions systemOptions){
+		this.systemOptions = systemOptions;
+	}
+
+	public String getMessages(){
+		return messages.toString();
+	}
+
+	public FileManager getFileManager(){
+		return null;
+	}
+
+	public VerificationManager getVerificationManager(){
+		return null;
+	}
+
+	public TestingManager getTestingManager(){
+		return null;
+	}
+
+	public SystemOptions getSystemOptions(){
+		return systemOptions;
+	}
+
+	public JFileChooser getFileChooser(){
+		return null;
+	}
+
+	public JFrame getParentFrame(){
+		return null;
+	}
+
+	public void setSystemTitle(String message){
+	}
+
+	public void updateContentPane(){
+	}
+
+	public void updateToolBar(JToolBar additionalToolBar){
+	}
+
+	public void showSystemOptionsInInfoPanel(){
+	}
+
+	public StatusPanel getStatusPanel(){
+		return null;
+	}
+
+	public void printDialogMessage(String message){
+		messages.append(message+"\n");
+	}
+
+	public void printToConsole(String message){
+		messages.append(message+"\n");
+	}
+
+	public void updateEditMenu(JMenu newModelMenu, JMenu newMIMMenu, JMenu newHelperCodeMenu){
+	}
+
+	public void updateModelMenu(JMenu newModelMenu){
+	}
+
+	public void setMenuAndToolBarEnabled(boolean enabled){
+	}
+
+	public void enableTestTreeEditMenuItems(boolean enabled){
+	}
+
+	public RecentFiles getRecentFiles(){
+		return null;
+	}
+
+	public void clearRecentFilesMenu(){
+	}
+
+	public void updateRecentFilesMenu(){
+	}
+
+	public void updateModelType(){
+	}
+
+	// the target language specified in the model overrides the options, as in the GUI
+	public void updateLanguage(TargetLanguage newLanguage){
+		systemOptions.setLanguage(newLanguage);
+	}
+}
@@ -0,0 +1,405 @@
+package main;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import kernel.SystemOptions;
+import kernel.TestingManager;
+import locales.LocaleBundle;
+import mid.MID;
+import mid.ModelContext;
+import simulation.ParallelOnlineTester;
+import simulation.RandomWalkSimulator;
+import testcode.TestCodeGenerator;
+import testgeneration.TransitionTree;
+import testgeneration.TransitionTreeForThreatTree;
+import utilities.FileUtil;
+
+import edit.TestTreeFile;
+import edit.XMIDEditor;
+
+// Generates test code for models without the GUI, e.g., in continuous integration.
+// Usage: java -Djava.awt.headless=true main.MISTABatch [options] (model.xmid | model.xls | directory)...
+//   -options <file>      system options saved by the GUI (default: the options of the current directory)
+//   -coverage <id>       coverage criterion, e.g., RT, TC, SC, GC, RAN
+//   -depth <n>           search depth
+//   -bfs | -dfs          breadth-first or depth-first search
+//   -disk                keep visited states (and the queue of breadth-first verification) on disk
+//   -frontier <n>        states of the queue kept in memory for disk search (default: 200000)
+//   -bitstate <mb>       record the visited states of verification in a bit array of the given megabytes (supertrace)
+//   -hashfunctions <k>   number of hash functions of bitstate hashing (default: 3)
+//   -maxpaths <n>        maximum number of attack paths merged into the test tree of a threat tree (default: no limit)
+//   -language <name>     target language unless the model specifies one
+//   -output <dir>        directory of the test code (default: the directory of the model)
+//   -workers <n>         number of models processed at the same time (default: number of processors)
+//   -dropmarkings        drop the markings of inner tree nodes after test generation (less memory for large trees)
+//   -savetree            also save the test tree (test data file) next to the test code
+//   -online <url>,...    execute the tests against the given instances of the system under test (RPC) instead of
+//                        generating test code; the tests are shared out among the instances (see ParallelOnlineTester)
+//   -simulate <walks>    run random walks instead of generating test code, and report the steps per second,
+//                        goals reached, and assertions violated (see RandomWalkSimulator)
+//   -steps <n>           maximum number of steps of a walk (default: the search depth)
+//   -seed <n>            seed of the random walks (default: 0)
+//   -walkers <n>         number of walks executed at the same time (default: number of processors)
+//   -traces              write the traces of the walks to a simulation log next to the model
+// Directories are searched recursively for models.
+// The times of parsing, test generation, and code generation are reported for each model.
+// Each worker is bound to the context of the model it processes (see ModelContext), so models do not share
+// named constants or interned tuples.
+
+public class MISTABatch {
+
+	// the editors of visual models exchange the net through a shared temporary file, so models are loaded one at a time
+	private static final Object loadingLock = new Object();
+
+	private SystemOptions systemOptions;
+	private File outputDirectory;
+	private boolean dropIntermediateMarkings = false;
+	private boolean saveTestTrees = false;
+	private ArrayList<URL> endpoints = null;
+	private long simulationWalks = 0;
+	private int simulationSteps = -1;
+	private long simulationSeed = 0;
+	private int simulationWalkers = Runtime.getRuntime().availableProcessors();
+	private boolean writeSimulationTraces = false;
+
+	public MISTABatch(SystemOptions systemOptions, File outputDirectory){
+		this.systemOptions = systemOptions;
+		this.outputDirectory = outputDirectory;
+	}
+
+	public void setDropIntermediateMarkings(boolean drop){
+		dropIntermediateMarkings = drop;
+	}
+
+	public void setSaveTestTrees(boolean save){
+		saveTestTrees = save;
+	}
+
+	public void setOnlineTestingEndpoints(ArrayList<URL> endpoints){
+		this.endpoints = endpoints;
+	}
+
+	// no simulation if walks is 0; steps is the search depth if negative
+	public void setRandomSimulation(long walks, int steps, long seed, int walkers, boolean writeTraces){
+		simulationWalks = walks;
+		simulationSteps = steps;
+		simulationSeed = seed;
+		simulationWalkers = walkers;
+		writeSimulationTraces = writeTraces;
+	}
+
+	public static void main(String[] args) {
+		LocaleBundle.setResourceBundle();
+		SystemOptions systemOptions = null;
+		File outputDirectory = null;
+		int workers = Runtime.getRuntime().availableProcessors();
+		boolean dropMarkings = false, saveTrees = false;
+		ArrayList<URL> endpoints = null;
+		long walks = 0, seed = 0;
+		int steps = -1, walkers = Runtime.getRuntime().availableProcessors();
+		boolean traces = false;
+		ArrayList<File> models = new ArrayList<File>();
+		String coverage = null, language = null;
+		int depth = -1;
+		Boolean breadthFirst = null;
+		boolean diskSearch = false;
+		int frontierMemoryLimit = -1;
+		int bitstateMemory = -1, bitstateHashFunctions = -1;
+		long maxAttackPaths = -1;
+		try {
+			for (int index=0; index<args.length; index++) {
+				String arg = args[index];
+				if (arg.equals("-options")) {
+					File optionsFile = new File(args[++index]);
+					if (!optionsFile.exists())
+						exitWithUsage(optionsFile+" "+LocaleBundle.bundleString("is not found"));
+					systemOptions = SystemOptions.readSystemOptionsFromFile(optionsFile.getPath());
+				}
+				else if (arg.equals("-coverage"))
+					coverage = args[++index];
+				else if (arg.equals("-depth"))
+					depth = Integer.parseInt(args[++index]);
+				else if (arg.equals("-bfs"))
+					breadthFirst = true;
+				else if (arg.equals("-dfs"))
+					breadthFirst = false;
+				else if (arg.equals("-disk"))
+					diskSearch = true;
+				else if (arg.equals("-frontier"))
+					frontierMemoryLimit = Math.max(1, Integer.parseInt(args[++index]));
+				else if (arg.equals("-bitstate"))
+					bitstateMemory = Math.max(1, Integer.parseInt(args[++index]));
+				else if (arg.equals("-hashfunctions"))
+					bitstateHashFunctions = Math.max(1, Integer.parseInt(args[++index]));
+				else if (arg.equals("-maxpaths"))
+					maxAttackPaths = Math.max(1, Long.parseLong(args[++index]));
+				else if (arg.equals("-language"))
+					language = args[++index];
+				else if (arg.equals("-output"))
+					outputDirectory = new File(args[++index]);
+				else if (arg.equals("-workers"))
+					workers = Math.max(1, Integer.parseInt(args[++index]));
+				else if (arg.equals("-dropmarkings"))
+					dropMarkings = true;
+				else if (arg.equals("-savetree"))
+					saveTrees = true;
+				else if (arg.equals("-online")) {
+					endpoints = new ArrayList<URL>();
+					for (String endpoint: args[++index].split(","))
+						if (endpoint.trim().length()>0)
+							endpoints.add(new URL(endpoint.trim()));
+					if (endpoints.size()==0)
+						exitWithUsage("No endpoint is given");
+				}
+				else if (arg.equals("-simulate"))
+					walks = Math.max(1, Long.parseLong(args[++index]));
+				else if (arg.equals("-steps"))
+					steps = Math.max(0, Integer.parseInt(args[++index]));
+				else if (arg.equals("-seed"))
+					seed = Long.parseLong(args[++index]);
+				else if (arg.equals("-walkers"))
+					walkers = Math.max(1, Integer.parseInt(args[++index]));
+				else if (arg.equals("-traces"))
+					traces = true;
+				else if (arg.startsWith("-"))
+					exitWithUsage("Unknown option "+arg);
+				else
+					collectModels(new File(arg), models);
+			}
+		}
+		catch (ArrayIndexOutOfBoundsException e){
+			exitWithUsage("Missing value of option "+args[args.length-1]);
+		}
+		catch (NumberFormatException e){
+			exitWithUsage(e.getMessage());
+		}
+		catch (MalformedURLException e){
+			exitWithUsage(e.getMessage());
+		}
+		if (models.size()==0)
+			exitWithUsage("No model is given");
+		if (systemOptions==null)
+			systemOptions = SystemOptions.readSystemOptionsFromFile();
+		if (coverage!=null)
+			systemOptions.setCoverageCriterion(coverage);
+		if (depth>0)
+			systemOptions.setSearchDepth(depth);
+		if (breadthFirst!=null)
+			systemOptions.setBreadthFirstSearch(breadthFirst);
+		if (diskSearch)
+			systemOptions.setDiskSearch(true);
+		if (frontierMemoryLimit>0)
+			systemOptions.setFrontierMemoryLimit(frontierMemoryLimit);
+		if (bitstateMemory>0) {
+			systemOptions.setBitstateHashing(true);
+			systemOptions.setBitstateMemory(bitstateMemory);
+		}
+		if (bitstateHashFunctions>0)
+			systemOptions.setBitstateHashFunctions(bitstateHashFunctions);
+		if (maxAttackPaths>0)
+			systemOptions.setMaxAttackPaths(maxAttackPaths);
+		if (language!=null)
+			setLanguage(systemOptions, language);
+		if (outputDirectory!=null && !outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+			exitWithUsage(outputDirectory+" "+LocaleBundle.bundleString("is not found"));
+		MISTABatch batch = new MISTABatch(systemOptions, outputDirectory);
+		batch.setDropIntermediateMarkings(dropMarkings);
+		batch.setSaveTestTrees(saveTrees);
+		batch.setOnlineTestingEndpoints(endpoints);
+		batch.setRandomSimulation(walks, steps, seed, walkers, traces);
+		int failures = batch.run(models, workers);
+		System.exit(failures>0? 1: 0);
+	}
+
+	private static void setLanguage(SystemOptions systemOptions, String language){
+		String[] names = systemOptions.getAllLanguageNamesForSelection();
+		for (int index=0; index<names.length; index++)
+			if (names[index].equalsIgnoreCase(language)) {
+				systemOptions.setLanguage(index);
+				return;
+			}
+		exitWithUsage("Unknown language "+language);
+	}
+
+	private static void collectModels(File file, ArrayList<File> models){
+		if (file.isDirectory()) {
+			File[] files = file.listFiles();
+			if (files==null)
+				return;
+			Arrays.sort(files);
+			for (File child: files)
+				collectModels(child, models);
+		}
+		else if (FileUtil.isXMIDFile(file.getName()) || FileUtil.isXLSFile(file.getName()))
+			models.add(file);
+		else if (!file.exists())
+			System.err.println(file+" "+LocaleBundle.bundleString("is not found"));
+	}
+
+	private static void exitWithUsage(String message){
+		System.err.println(message);
+		System.err.println("Usage: java -Djava.awt.headless=true main.MISTABatch [-options <file>] [-coverage <id>] [-depth <n>] [-bfs|-dfs]"
+				+" [-disk [-frontier <n>]]"
+				+" [-bitstate <mb> [-hashfunctions <k>]] [-maxpaths <n>] [-language <name>] [-output <dir>] [-workers <n>] [-dropmarkings] [-savetree] [-online <url>,...]"
+				+" [-simulate <walks> [-steps <n>] [-seed <n>] [-walkers <n>] [-traces]] (model | directory)...");
+		System.exit(2);
+	}
+
+	// returns the number of models for which no test code is generated
+	// (or, in online testing, for which a test does not pass, and in random simulation, for which an assertion is violated)
+	public int run(ArrayList<File> models, int workers){
+		if (simulationWalks>0)
+			System.out.println(String.format("%-40s %8s %8s %8s %8s  %s", "model", "parse ms", "sim ms", "walks", "steps", "steps/s"));
+		else if (endpoints!=null)
+			System.out.println(String.format("%-40s %8s %8s %8s %8s  %s", "model", "parse ms", "tree ms", "exec ms", "tests", "failed tests"));
+		else
+			System.out.println(String.format("%-40s %8s %8s %8s %8s  %s", "model", "parse ms", "tree ms", "code ms", "tests", "test code"));
+		long start = System.currentTimeMillis();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, models.size()));
+		ArrayList<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for (final File model: models)
+			results.add(executor.submit(new Callable<Boolean>() {
+				public Boolean call() {
+					return processModel(model);
+				}
+			}));
+		int failures = 0;
+		for (Future<Boolean> result: results) {
+			try {
+				if (!result.get())
+					failures++;
+			}
+			catch (Exception e) {
+				failures++;
+			}
+		}
+		executor.shutdown();
+		System.out.println("models: "+models.size()+", failed: "+failures+", total ms: "+(System.currentTimeMillis()-start));
+		return failures;
+	}
+
+	private boolean processModel(File model){
+		BatchKernel kernel = new BatchKernel(systemOptions.copy());
+		long parseTime = 0, treeTime = 0, codeTime = 0;
+		ModelContext.bind(new ModelContext());	// replaced by the context of the parsed model
+		try {
+			long start;
+			XMIDEditor editor;
+			MID mid;
+			synchronized (loadingLock) {
+				start = System.currentTimeMillis();
+				editor = new XMIDEditor(kernel, false, model);
+				mid = editor.parse();
+			}
+			if (mid==null) {
+				report(model, editor.getConsoleText().trim());
+				return false;
+			}
+			parseTime = System.currentTimeMillis()-start;
+			if (simulationWalks>0)
+				return simulate(model, mid, parseTime);
+			TransitionTree tree = TestingManager.createTransitionTree(kernel, mid, editor.getModelType());
+			if (tree==null) {
+				report(model, kernel.getMessages().trim());
+				return false;
+			}
+			start = System.currentTimeMillis();
+			tree.generateTransitionTree();
+			if (dropIntermediateMarkings)
+				tree.dropIntermediateMarkings();
+			treeTime = System.currentTimeMillis()-start;
+			if (endpoints!=null)
+				return executeTests(model, editor, tree, parseTime, treeTime);
+			start = System.currentTimeMillis();
+			File directory = outputDirectory!=null? outputDirectory: model.getAbsoluteFile().getParentFile();
+			File testCodeFile = new File(directory, FileUtil.getTestCodeFileName(tree));
+			TestCodeGenerator.createCodeGenerator(tree).saveTestSuiteCode(testCodeFile);
+			if (saveTestTrees)
+				TestTreeFile.saveTestData(tree, new File(directory, FileUtil.getTestDataFileName(tree)));
+			codeTime = System.currentTimeMillis()-start;
+			synchronized (System.out) {
+				System.out.println(String.format("%-40s %8d %8d %8d %8d  %s", model.getName(), parseTime, treeTime, codeTime,
+						tree.getAllTests().size(), testCodeFile.getPath()));
+				if (tree instanceof TransitionTreeForThreatTree) {
+					TransitionTreeForThreatTree threatTree = (TransitionTreeForThreatTree)tree;
+					System.out.println("\t"+LocaleBundle.bundleString("Attack paths")+": "+threatTree.getNumberOfAttackPaths()
+							+" "+LocaleBundle.bundleString("out of")+" "+threatTree.getTotalAttackPaths());
+				}
+			}
+			return true;
+		}
+		catch (Throwable e) {
+			report(model, e.toString());
+			return false;
+		}
+		finally {
+			ModelContext.bind(null);
+		}
+	}
+
+	private boolean simulate(File model, MID mid, long parseTime) throws Exception {
+		RandomWalkSimulator simulator = new RandomWalkSimulator(mid);
+		simulator.setNumberOfWalks(simulationWalks);
+		simulator.setMaxSteps(simulationSteps>=0? simulationSteps: systemOptions.getSearchDepth());
+		simulator.setSeed(simulationSeed);
+		simulator.setNumberOfWalkers(simulationWalkers);
+		File traceFile = null;
+		BufferedWriter traceWriter = null;
+		if (writeSimulationTraces) {
+			traceFile = FileUtil.getNewSimulationLogFile(model.getAbsoluteFile());
+			traceWriter = new BufferedWriter(new FileWriter(traceFile), 65536);
+			simulator.setTraceWriter(traceWriter);
+		}
+		try {
+			simulator.run();
+		}
+		finally {
+			if (traceWriter!=null)
+				traceWriter.close();
+		}
+		synchronized (System.out) {
+			System.out.println(String.format("%-40s %8d %8d %8d %8d  %d", model.getName(), parseTime, simulator.getElapsedTime(),
+					simulator.getNumberOfWalks(), simulator.getNumberOfSteps(), simulator.getStepsPerSecond()));
+			System.out.println("\t"+simulator.getReport().trim().replace("\n", "\n\t"));
+			if (traceFile!=null)
+				System.out.println("\t"+LocaleBundle.bundleString("Log file")+": "+traceFile.getPath());
+		}
+		for (int index=0; index<mid.getAssertionProperties().size(); index++)
+			if (simulator.getAssertionViolations(index)>0)
+				return false;
+		return true;
+	}
+
+	private boolean executeTests(File model, XMIDEditor editor, TransitionTree tree, long parseTime, long treeTime) throws Exception {
+		long start = System.currentTimeMillis();
+		ParallelOnlineTester tester = new ParallelOnlineTester(editor, tree, endpoints);
+		int failures = tester.run();
+		long executionTime = System.currentTimeMillis()-start;
+		synchronized (System.out) {
+			System.out.println(String.format("%-40s %8d %8d %8d %8d  %d", model.getName(), parseTime, treeTime, executionTime,
+					tester.getNumberOfTests(), failures));
+			String log = tester.getLog().trim();
+			if (log.length()>0)
+				System.out.println("\t"+log.replace("\n", "\n\t"));
+		}
+		return failures==0;
+	}
+
+	private static void report(File model, String message){
+		synchronized (System.out) {
+			System.out.println(String.format("%-40s %s", model.getName(), "FAILED"));
+			if (message.length()>0)
+				System.out.println("\t"+message.replace("\n", "\n\t"));
+		}
+	}
+}
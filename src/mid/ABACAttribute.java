@@ -1,6 +1,10 @@
 package mid;
 
-public class ABACAttribute {
+import java.io.Serializable;
+
+public class ABACAttribute implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	private String name;
 	private String type;
 	private String[] values;
@@ -1,8 +1,11 @@
 package mid;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 
-public class ABACRule {
+public class ABACRule implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	public static enum EffectType {PERMIT, DENY};
 
 	private EffectType effect;
@@ -0,0 +1,57 @@
+package mid;
+
+import java.util.Hashtable;
+
+// Arithmetic expression of the second argument of equals/gt/gte/lt/lte, as parsed by MIDParser.ExpressionValue.
+// An operand is an argument token; *, / and % have been applied before + and -, from left to right.
+// Functions evaluates it under bindings, and GuardPlan compiles it into int operations.
+
+public class ArithmeticExpression {
+
+	private String operand;				// null if it is an operation
+	private int operator;
+	private ArithmeticExpression left, right;
+
+	public ArithmeticExpression(String operand){
+		this.operand = operand;
+	}
+
+	public ArithmeticExpression(int operator, ArithmeticExpression left, ArithmeticExpression right){
+		this.operator = operator;
+		this.left = left;
+		this.right = right;
+	}
+
+	public boolean isOperand(){
+		return operand!=null;
+	}
+
+	public String getOperand(){
+		return operand;
+	}
+
+	public int getOperator(){
+		return operator;
+	}
+
+	public ArithmeticExpression getLeft(){
+		return left;
+	}
+
+	public ArithmeticExpression getRight(){
+		return right;
+	}
+
+	// an operand is returned as it is; the value of an operation is null if an operand is not an integer
+	public String evaluate(Hashtable<String, String> bindings){
+		if (operand!=null)
+			return operand;
+		return Functions.compute(operator, left.evaluate(bindings), right.evaluate(bindings), bindings);
+	}
+
+	public String toString(){
+		if (operand!=null)
+			return operand;
+		return "("+left+" "+"+-*/%".charAt(operator)+" "+right+")";
+	}
+}
@@ -1,8 +1,11 @@
 package mid;
 
+import java.io.Serializable;
+
 import kernel.Kernel;
 
-public class AssertionProperty {
+public class AssertionProperty implements Serializable {
+	private static final long serialVersionUID = 1L;
 	
 	// ASSERTION ifClause => thenClause: thenClause must hold whenever ifClause holds; ifClause => is optional.
 	// Example1: ASSERTION safety1 tokenCount(p, x), x<2
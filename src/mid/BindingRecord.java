@@ -0,0 +1,20 @@
+package mid;
+
+class BindingRecord {
+	// "variable" is bound when the "index" input place is unified
+	private String variable;
+	private int index;
+
+	public BindingRecord(String variable, int index){
+		this.variable = variable;
+		this.index = index;
+	}
+
+	public String getVariable(){
+		return variable;
+	}
+	
+	public boolean isIndex(int index){
+		return this.index == index;
+	}
+}
@@ -0,0 +1,83 @@
+package mid;
+
+// Bitstate hashing (supertrace): a visited marking is recorded only as k bits of a large bit array, 
+// set by k hash functions derived from the 64-bit hash of its key. 
+// A new marking whose k bits happen to be set already is taken as visited and its successors are missed, 
+// so the search covers the state space with a probability that is estimated from the fill of the array.
+
+public class BitstateMarkingStore implements MarkingStore {
+
+	private long[] bits;
+	private long mask;				// number of bits - 1 (a power of 2)
+	private int numberOfHashFunctions;
+	private long setBits = 0;
+	private int size = 0;
+	private double expectedOmissions = 0;
+
+	// memory in megabytes is rounded down to a power of 2
+	public BitstateMarkingStore(int megabytes, int numberOfHashFunctions){
+		int words = Integer.highestOneBit(Math.max(1, megabytes)) * (1<<17);	// 2^17 longs per megabyte
+		bits = new long[words];
+		mask = (long)words*64-1;
+		this.numberOfHashFunctions = Math.max(1, numberOfHashFunctions);
+	}
+
+	// finalizer of splitmix64
+	private static long mix(long z){
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	// double hashing: the i-th function is h1+i*h2
+	public synchronized boolean add(MarkingKey key){
+		long h1 = key.longHashCode();
+		long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+		double falsePositiveRate = getFalsePositiveRate();
+		boolean isNew = false;
+		for (int i=0; i<numberOfHashFunctions; i++) {
+			long bit = (h1 + i*h2) & mask;
+			int word = (int)(bit>>>6);
+			long bitMask = 1L<<(bit & 63);
+			if ((bits[word] & bitMask)==0) {
+				bits[word] |= bitMask;
+				setBits++;
+				isNew = true;
+			}
+		}
+		if (isNew) {
+			size++;
+			// each new marking could have been missed with the current false positive rate
+			expectedOmissions += falsePositiveRate;
+		}
+		return isNew;
+	}
+
+	public synchronized boolean contains(MarkingKey key){
+		long h1 = key.longHashCode();
+		long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+		for (int i=0; i<numberOfHashFunctions; i++) {
+			long bit = (h1 + i*h2) & mask;
+			if ((bits[(int)(bit>>>6)] & (1L<<(bit & 63)))==0)
+				return false;
+		}
+		return true;
+	}
+
+	// the probability that a new marking is taken as visited under the current fill
+	public synchronized double getFalsePositiveRate(){
+		return Math.pow((double)setBits/(mask+1), numberOfHashFunctions);
+	}
+
+	public synchronized double getExpectedOmissions(){
+		return expectedOmissions;
+	}
+
+	public synchronized int size(){
+		return size;
+	}
+
+	public synchronized void close(){
+		bits = null;
+	}
+}
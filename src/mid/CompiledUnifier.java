@@ -0,0 +1,357 @@
+/* 	All Rights Reserved
+	Author Dianxiang Xu
+*/
+package mid;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Stack;
+
+// Index-driven unifier with the same results as Unifier.
+// The precondition is compiled once into a JoinPlan (see Transition.getJoinPlan).
+// Positive inputs are joined in the order of selectivity: the input with the most bound arguments first,
+// then the input with the fewest tokens. Bindings are kept in variable slots.
+// When an input is probed repeatedly, its tokens are indexed by a bound argument.
+// Substitutions are returned in the same order as Unifier.
+
+public class CompiledUnifier implements GeneralUnifier {
+
+		private static final int IndexThreshold = 8;	// minimum number of tokens for building an index
+		private static final ArrayList<Integer> NoCandidates = new ArrayList<Integer>();
+
+		private Transition transition;
+		private Marking marking;
+		private Hashtable <String, String> existingBindings;
+		private JoinPlan plan;
+
+		private String[] values;			// bound value of each variable slot
+		private boolean[] preBound;			// the slot is bound by the existing substitution
+		private String[] localValues;		// bindings local to a negation
+		private ArrayList<ArrayList<Tuple>> tuples;
+		private int[] order;				// positive inputs in the order of joining
+		private int[][] negationsAt;		// negations to check after the given number of joined inputs
+		private int[] keyPositions;			// bound argument of the input joined at each level, -1 if none
+		private int[][] newBindings;		// slots bound at each level
+		private int[] probes;
+		private ArrayList<HashMap<String, ArrayList<Integer>>> indexes;
+		private int[] chosen;				// index of the token chosen for each input
+		private boolean inOriginalOrder;
+
+		private boolean firstOnly;
+		private ArrayList<Substitution> substitutions;
+		private ArrayList<int[]> choices;
+
+		public CompiledUnifier(Transition transition, Marking marking) {
+			this.transition = transition;
+			this.marking = marking;
+		}
+
+		public CompiledUnifier(Transition transition, Marking marking, Substitution existingSubstitution) {
+			this(transition, marking);
+			existingBindings = existingSubstitution.getBindings();
+		}
+
+		// Find ALL possible substitutions for firing the transition under current marking
+		public ArrayList<Substitution> getSubstitutions() {
+			substitutions = new ArrayList<Substitution>();
+			choices = new ArrayList<int[]>();
+			firstOnly = false;
+			if (transition.numberOfInputs()==0) {
+				Hashtable <String, String> bindings = copyExistingBindings();
+				if (isWhenConditionTrue(bindings))
+					substitutions.add(new Substitution(bindings));
+				return substitutions;
+			}
+			if (!prepare())
+				return substitutions;
+			join(0);
+			if (!inOriginalOrder && substitutions.size()>1)
+				sortSubstitutions();
+			return substitutions;
+		}
+
+		public boolean isFirable() {
+			firstOnly = true;
+			if (transition.numberOfInputs()==0)
+				return isWhenConditionTrue(copyExistingBindings());
+			return prepare() && join(0);
+		}
+
+		// returns false if a positive input place has no token
+		private boolean prepare(){
+			plan = transition.getJoinPlan();
+			int numberOfInputs = plan.places.length;
+			tuples = new ArrayList<ArrayList<Tuple>>(numberOfInputs);
+			int numberOfPositives = 0;
+			for (int input=0; input<numberOfInputs; input++) {
+				ArrayList<Tuple> inputTuples = marking.getTuples(plan.places[input]);
+				if (!plan.negations[input]) {
+					if (inputTuples==null || inputTuples.size()==0)
+						return false;
+					numberOfPositives++;
+				}
+				tuples.add(inputTuples);
+			}
+			int numberOfSlots = plan.variables.length;
+			values = new String[numberOfSlots];
+			preBound = new boolean[numberOfSlots];
+			localValues = new String[numberOfSlots];
+			int[] boundAt = new int[numberOfSlots];	// number of joined inputs when a slot gets bound
+			for (int slot=0; slot<numberOfSlots; slot++) {
+				if (existingBindings!=null)
+					values[slot] = existingBindings.get(plan.variables[slot]);
+				preBound[slot] = values[slot]!=null;
+				boundAt[slot] = preBound[slot]? 0: -1;
+			}
+			order = new int[numberOfPositives];
+			keyPositions = new int[numberOfPositives];
+			newBindings = new int[numberOfPositives][];
+			boolean[] joined = new boolean[numberOfInputs];
+			inOriginalOrder = true;
+			for (int level=0; level<numberOfPositives; level++) {
+				int best = -1, bestBound = -1, bestSize = 0;
+				for (int input=0; input<numberOfInputs; input++) {
+					if (plan.negations[input] || joined[input])
+						continue;
+					int numberOfBound = 0;
+					for (int slot: plan.slots[input])
+						if (slot<0 || boundAt[slot]>=0)
+							numberOfBound++;
+					int size = tuples.get(input).size();
+					if (best<0 || numberOfBound>bestBound || numberOfBound==bestBound && size<bestSize) {
+						best = input;
+						bestBound = numberOfBound;
+						bestSize = size;
+					}
+				}
+				if (level>0 && best<order[level-1])
+					inOriginalOrder = false;
+				order[level] = best;
+				joined[best] = true;
+				int[] slots = plan.slots[best];
+				keyPositions[level] = -1;
+				for (int position=0; position<slots.length && keyPositions[level]<0; position++)
+					if (slots[position]<0 || boundAt[slots[position]]>=0)
+						keyPositions[level] = position;
+				newBindings[level] = new int[slots.length];
+				for (int slot: slots)
+					if (slot>=0 && boundAt[slot]<0)
+						boundAt[slot] = level+1;
+			}
+			// a negation is checked as soon as its visible variables are bound
+			ArrayList<ArrayList<Integer>> negations = new ArrayList<ArrayList<Integer>>();
+			for (int level=0; level<=numberOfPositives; level++)
+				negations.add(new ArrayList<Integer>());
+			for (int input=0; input<numberOfInputs; input++) {
+				if (!plan.negations[input])
+					continue;
+				int level = 0;
+				int[] slots = plan.slots[input];
+				for (int position=0; position<slots.length; position++)
+					if (slots[position]>=0 && (plan.visible[input][position] || preBound[slots[position]]))
+						level = Math.max(level, boundAt[slots[position]]);
+				negations.get(level).add(input);
+			}
+			negationsAt = new int[numberOfPositives+1][];
+			for (int level=0; level<=numberOfPositives; level++) {
+				negationsAt[level] = new int[negations.get(level).size()];
+				for (int i=0; i<negationsAt[level].length; i++)
+					negationsAt[level][i] = negations.get(level).get(i);
+			}
+			probes = new int[numberOfPositives];
+			indexes = new ArrayList<HashMap<String, ArrayList<Integer>>>();
+			for (int level=0; level<numberOfPositives; level++)
+				indexes.add(null);
+			chosen = new int[numberOfInputs];
+			return true;
+		}
+
+		// returns true if a substitution is found and only the first one is needed
+		private boolean join(int level){
+			for (int negation: negationsAt[level])
+				if (!isNegationTrue(negation))
+					return false;
+			if (level==order.length)
+				return handleSuccessfulUnification();
+			int input = order[level];
+			ArrayList<Tuple> inputTuples = tuples.get(input);
+			ArrayList<Integer> candidates = getCandidates(level, input, inputTuples);
+			int numberOfCandidates = candidates==null? inputTuples.size(): candidates.size();
+			for (int candidate=0; candidate<numberOfCandidates; candidate++) {
+				int index = candidates==null? candidate: candidates.get(candidate);
+				int numberOfNewBindings = unifyLabels(input, inputTuples.get(index), newBindings[level]);
+				if (numberOfNewBindings>=0) {
+					chosen[input] = index;
+					boolean found = join(level+1);
+					undoBindings(newBindings[level], numberOfNewBindings);
+					if (found)
+						return true;
+				}
+			}
+			return false;
+		}
+
+		// Unify the arguments (arc labels) of an input with a tuple
+		// returns the number of newly bound slots, or -1 if the unification fails
+		private int unifyLabels(int input, Tuple tuple, int[] newlyBound){
+			int[] slots = plan.slots[input];
+			String[] labels = plan.labels[input];
+			ArrayList<String> arguments = tuple.getArguments();
+			if (arguments.size()<slots.length)
+				return -1;
+			int numberOfNewBindings = 0;
+			for (int position=0; position<slots.length; position++) {
+				String tupleElement = arguments.get(position);
+				int slot = slots[position];
+				if (slot>=0 && values[slot]==null) {
+					values[slot] = tupleElement;
+					newlyBound[numberOfNewBindings++] = slot;
+				} else
+				if (!(slot<0? labels[position]: values[slot]).equals(tupleElement)) {
+					undoBindings(newlyBound, numberOfNewBindings);
+					return -1;
+				}
+			}
+			return numberOfNewBindings;
+		}
+
+		private void undoBindings(int[] newlyBound, int numberOfNewBindings){
+			for (int i=0; i<numberOfNewBindings; i++)
+				values[newlyBound[i]] = null;
+		}
+
+		// not p(?x) is true only if no tuple (token) can be unified
+		private boolean isNegationTrue(int input){
+			ArrayList<Tuple> inputTuples = tuples.get(input);
+			if (inputTuples==null || inputTuples.size()==0)
+				return true;
+			int[] slots = plan.slots[input];
+			String[] labels = plan.labels[input];
+			boolean[] visible = plan.visible[input];
+			for (Tuple tuple: inputTuples) {
+				ArrayList<String> arguments = tuple.getArguments();
+				boolean unified = arguments.size()>=slots.length;
+				for (int position=0; unified && position<slots.length; position++) {
+					int slot = slots[position];
+					String tupleElement = arguments.get(position);
+					if (slot<0)
+						unified = labels[position].equals(tupleElement);
+					else
+					if (visible[position] || preBound[slot])
+						unified = values[slot].equals(tupleElement);
+					else
+					if (localValues[slot]==null)
+						localValues[slot] = tupleElement;
+					else
+						unified = localValues[slot].equals(tupleElement);
+				}
+				for (int slot: slots)
+					if (slot>=0)
+						localValues[slot] = null;
+				if (unified)
+					return false;
+			}
+			return true;
+		}
+
+		// tokens of the input that may unify under the current bindings, null for all tokens
+		private ArrayList<Integer> getCandidates(int level, int input, ArrayList<Tuple> inputTuples){
+			int position = keyPositions[level];
+			if (position<0 || inputTuples.size()<IndexThreshold || ++probes[level]==1)
+				return null;
+			HashMap<String, ArrayList<Integer>> index = indexes.get(level);
+			if (index==null) {
+				index = new HashMap<String, ArrayList<Integer>>();
+				for (int i=0; i<inputTuples.size(); i++) {
+					ArrayList<String> arguments = inputTuples.get(i).getArguments();
+					if (position<arguments.size()) {
+						ArrayList<Integer> entry = index.get(arguments.get(position));
+						if (entry==null) {
+							entry = new ArrayList<Integer>();
+							index.put(arguments.get(position), entry);
+						}
+						entry.add(i);
+					}
+				}
+				indexes.set(level, index);
+			}
+			int slot = plan.slots[input][position];
+			ArrayList<Integer> candidates = index.get(slot<0? plan.labels[input][position]: values[slot]);
+			return candidates!=null? candidates: NoCandidates;
+		}
+
+		private boolean handleSuccessfulUnification(){
+			Hashtable <String, String> bindings = copyExistingBindings();
+			for (int slot=0; slot<values.length; slot++)
+				if (values[slot]!=null)
+					bindings.put(plan.variables[slot], values[slot]);
+			// A successful substitution is found if the when condition evaluates true
+			if (!isWhenConditionTrue(bindings))
+				return false;
+			if (firstOnly)
+				return true;
+			substitutions.add(new Substitution(bindings));
+			choices.add(chosen.clone());
+			return false;
+		}
+
+		// restore the order of Unifier, i.e., by the tokens chosen for the inputs in the order of the precondition
+		private void sortSubstitutions(){
+			ArrayList<Integer> positions = new ArrayList<Integer>();
+			for (int i=0; i<substitutions.size(); i++)
+				positions.add(i);
+			Collections.sort(positions, new Comparator<Integer>(){
+				public int compare(Integer first, Integer second){
+					int[] firstChoice = choices.get(first);
+					int[] secondChoice = choices.get(second);
+					for (int input=0; input<firstChoice.length; input++)
+						if (firstChoice[input]!=secondChoice[input])
+							return firstChoice[input]<secondChoice[input]? -1: 1;
+					return 0;
+				}
+			});
+			ArrayList<Substitution> sortedSubstitutions = new ArrayList<Substitution>();
+			for (int position: positions)
+				sortedSubstitutions.add(substitutions.get(position));
+			substitutions = sortedSubstitutions;
+		}
+
+		// evaluate the truth value of the when condition according to the bindings
+		private boolean isWhenConditionTrue(Hashtable <String, String> bindings){
+			if (transition.getWhenCondition()==null || transition.getWhenCondition().size()==0)
+				return true;
+			Stack<BindingRecord> bindingHistory = new Stack<BindingRecord>();
+			int inputIndex = transition.numberOfInputs()-1;
+			GuardPlan guardPlan = transition.getGuardPlan();
+			for (int index=0; index<guardPlan.size(); index++) {
+				Predicate predicate = transition.getWhenCondition().get(index);
+				if (Functions.isAssertFunction(predicate)){
+					if (!Functions.assertTrue(predicate, marking))
+						return false;
+				} else
+				if (Functions.isTokenCountFunction(predicate)){
+					if (!Functions.tokenCount(predicate, marking, bindings, bindingHistory, inputIndex))
+						return false;
+				} else
+				if (!guardPlan.isTrue(index, bindings, bindingHistory, inputIndex))
+					return false;
+			}
+			return true;
+		}
+
+		private Hashtable <String, String> copyExistingBindings(){
+			Hashtable <String, String> bindingsCopy = new Hashtable <String, String>();
+			if (existingBindings!=null) {
+				Enumeration<String> en = existingBindings.keys();
+				while (en.hasMoreElements()) {
+					String variable = en.nextElement();
+					bindingsCopy.put(variable, existingBindings.get(variable));
+				}
+			}
+			return bindingsCopy;
+		}
+}
@@ -0,0 +1,107 @@
+package mid;
+
+import java.util.ArrayList;
+
+// The substitutions of all transitions under a marking.
+// The firings enabled after a transition is fired are derived from the firings before it:
+// only the transitions that read a place written by the fired transition are unified again.
+// Derived firings are computed when they are first requested.
+// The returned lists are shared and must not be modified.
+
+public class EnabledFirings {
+
+	private MID mid;
+	private Marking marking;
+	private boolean pairwise;		// use PairwiseUnifier where combinatorial testing is applicable
+
+	private EnabledFirings previous;
+	private Transition firedTransition;
+	private ArrayList<ArrayList<Substitution>> substitutions;
+
+	public EnabledFirings(MID mid, Marking marking){
+		this(mid, marking, false);
+	}
+
+	public EnabledFirings(MID mid, Marking marking, boolean pairwise){
+		this.mid = mid;
+		this.marking = marking;
+		this.pairwise = pairwise;
+	}
+
+	private EnabledFirings(EnabledFirings previous, Transition firedTransition, Marking marking){
+		this(previous.mid, marking, previous.pairwise);
+		this.previous = previous;
+		this.firedTransition = firedTransition;
+	}
+
+	// the enabled firings under newMarking, which results from firing the transition under this marking
+	public EnabledFirings fire(Transition transition, Marking newMarking){
+		return new EnabledFirings(this, transition, newMarking);
+	}
+
+	public Marking getMarking(){
+		return marking;
+	}
+
+	public ArrayList<Substitution> getSubstitutions(Transition transition){
+		TransitionDependencies dependencies = mid.getTransitionDependencies();
+		int index = dependencies.indexOf(transition);
+		if (index<0)
+			return unify(transition);
+		return getSubstitutions(dependencies).get(index);
+	}
+
+	public ArrayList<Firing> getFirings(){
+		TransitionDependencies dependencies = mid.getTransitionDependencies();
+		ArrayList<ArrayList<Substitution>> allSubstitutions = getSubstitutions(dependencies);
+		ArrayList<Firing> firings = new ArrayList<Firing>();
+		for (int index=0; index<dependencies.size(); index++)
+			for (Substitution substitution: allSubstitutions.get(index))
+				firings.add(new Firing(dependencies.getTransition(index), substitution));
+		return firings;
+	}
+
+	public int getNumberOfFirings(){
+		int count = 0;
+		for (ArrayList<Substitution> transitionSubstitutions: getSubstitutions(mid.getTransitionDependencies()))
+			count += transitionSubstitutions.size();
+		return count;
+	}
+
+	// the firing at the index in getFirings(), without creating the other firings
+	public Firing getFiring(int index){
+		TransitionDependencies dependencies = mid.getTransitionDependencies();
+		ArrayList<ArrayList<Substitution>> allSubstitutions = getSubstitutions(dependencies);
+		for (int transition=0; transition<dependencies.size(); transition++) {
+			if (index<allSubstitutions.get(transition).size())
+				return new Firing(dependencies.getTransition(transition), allSubstitutions.get(transition).get(index));
+			index -= allSubstitutions.get(transition).size();
+		}
+		throw new IndexOutOfBoundsException();
+	}
+
+	private synchronized ArrayList<ArrayList<Substitution>> getSubstitutions(TransitionDependencies dependencies){
+		if (substitutions==null) {
+			int firedIndex = previous!=null? dependencies.indexOf(firedTransition): -1;
+			if (firedIndex<0) {
+				substitutions = new ArrayList<ArrayList<Substitution>>(dependencies.size());
+				for (int index=0; index<dependencies.size(); index++)
+					substitutions.add(unify(dependencies.getTransition(index)));
+			} else {
+				substitutions = new ArrayList<ArrayList<Substitution>>(previous.getSubstitutions(dependencies));
+				for (int index: dependencies.getAffectedTransitions(firedIndex))
+					substitutions.set(index, unify(dependencies.getTransition(index)));
+			}
+			previous = null;
+			firedTransition = null;
+		}
+		return substitutions;
+	}
+
+	private ArrayList<Substitution> unify(Transition transition){
+		GeneralUnifier unifier = pairwise && mid.isCombinatorialTestingApplicable(transition)?
+				new PairwiseUnifier(transition, marking):
+				new CompiledUnifier(transition, marking);
+		return unifier.getSubstitutions();
+	}
+}
@@ -536,7 +536,7 @@ public class Functions {
 	}
 	
 	// e.g., "-1000"
-	private static String removeQuotesFromString(String s) {
+	static String removeQuotesFromString(String s) {
 		if (s.charAt(0)!='"')
 			return s;
 		else
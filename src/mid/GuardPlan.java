@@ -0,0 +1,410 @@
+package mid;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.Stack;
+
+import kernel.Kernel;
+import parser.MIDParser;
+import parser.ParseException;
+import parser.TokenMgrError;
+
+// Compiled form of a when condition, built once per transition instead of parsing the functions at each evaluation.
+// The expressions of equals/gt/gte/lt/lte are parsed once by MIDParser, as in Functions, and compiled into int operations,
+// constant arguments (including named constants) are resolved when the condition is compiled,
+// and the condition of an OR function is parsed and compiled once.
+// The results are the same as those of Functions.isTrue, which evaluates a function whose expression cannot be parsed.
+// assert and tokenCount depend on the marking and are evaluated by Functions.
+
+class GuardPlan {
+
+	private ArrayList<Predicate> whenCondition;
+	private int size;
+	private Guard[] guards;
+
+	GuardPlan(ArrayList<Predicate> whenCondition){
+		this.whenCondition = whenCondition;
+		size = whenCondition!=null? whenCondition.size(): 0;
+		guards = new Guard[size];
+		for (int index=0; index<size; index++)
+			guards[index] = compile(whenCondition.get(index));
+	}
+
+	boolean isCompiledFrom(ArrayList<Predicate> whenCondition){
+		return this.whenCondition==whenCondition && size==(whenCondition!=null? whenCondition.size(): 0);
+	}
+
+	int size(){
+		return size;
+	}
+
+	// the truth value of the function at the index, as Functions.isTrue
+	boolean isTrue(int index, Hashtable<String, String> bindings, Stack<BindingRecord> bindingHistory, int inputIndex){
+		return guards[index].isTrue(bindings, bindingHistory, inputIndex);
+	}
+
+	private static Guard compile(Predicate predicate){
+		String name = predicate.getName();
+		ArrayList<String> arguments = predicate.getArguments();
+		boolean negation = predicate.getNegation();
+		try {
+			if (name.equalsIgnoreCase(Functions.EQUALS))
+				return new EqualsGuard(negation, arguments.get(0), compile(arguments.get(1)));
+			if (name.equalsIgnoreCase(Functions.BOUND))
+				return new BoundGuard(negation, arguments.get(0));
+			if (name.equalsIgnoreCase(Functions.GreaterThanOrEqualTo))
+				return new ComparisonGuard(new Value(arguments.get(0)), compile(arguments.get(1)), true, true);
+			if (name.equalsIgnoreCase(Functions.GreaterThan))
+				return new ComparisonGuard(new Value(arguments.get(0)), compile(arguments.get(1)), true, false);
+			if (name.equalsIgnoreCase(Functions.LessThanOrEqualTo))
+				return new ComparisonGuard(new Value(arguments.get(0)), compile(arguments.get(1)), false, true);
+			if (name.equalsIgnoreCase(Functions.LessThan))
+				return new ComparisonGuard(new Value(arguments.get(0)), compile(arguments.get(1)), false, false);
+			if (name.equalsIgnoreCase(Functions.ISEVEN))
+				return new ParityGuard(negation, new Value(arguments.get(0)), false);
+			if (name.equalsIgnoreCase(Functions.ISODD))
+				return new ParityGuard(negation, new Value(arguments.get(0)), true);
+			if (name.equalsIgnoreCase(Functions.ADD))
+				return new ArithmeticGuard(Functions.ADDITION, arguments);
+			if (name.equalsIgnoreCase(Functions.SUBTRACT))
+				return new ArithmeticGuard(Functions.SUBTRACTION, arguments);
+			if (name.equalsIgnoreCase(Functions.MULTIPLY))
+				return new ArithmeticGuard(Functions.MULTIPLICATION, arguments);
+			if (name.equalsIgnoreCase(Functions.DIVIDE))
+				return new ArithmeticGuard(Functions.DIVISION, arguments);
+			if (name.equalsIgnoreCase(Functions.MODULUS))
+				return new ArithmeticGuard(Functions.MODULUSOP, arguments);
+			if (name.equalsIgnoreCase(Functions.BELONGSTO))
+				return new BelongsToGuard(negation, arguments);
+			if (name.equalsIgnoreCase(Functions.OR))
+				return new OrGuard(negation, arguments.get(0));
+		}
+		catch (ParseException e) {
+			return new InterpretedGuard(predicate);
+		}
+		catch (TokenMgrError e) {
+			return new InterpretedGuard(predicate);
+		}
+		catch (RuntimeException e) {
+			return new InterpretedGuard(predicate);
+		}
+		return new FalseGuard();
+	}
+
+	private static Expression compile(String expression) throws ParseException {
+		return compile(MIDParser.parseArithmeticExpression(expression));
+	}
+
+	private static Expression compile(ArithmeticExpression expression){
+		if (expression.isOperand())
+			return new Value(expression.getOperand());
+		return new Operation(expression.getOperator(), compile(expression.getLeft()), compile(expression.getRight()));
+	}
+
+	private static abstract class Guard {
+
+		final boolean isTrue(Hashtable<String, String> bindings, Stack<BindingRecord> bindingHistory, int inputIndex){
+			try {
+				return evaluate(bindings, bindingHistory, inputIndex);
+			}
+			catch (Exception e) {
+				if (Kernel.IS_DEBUGGING_MODE)
+					e.printStackTrace();
+			}
+			return false;
+		}
+
+		abstract boolean evaluate(Hashtable<String, String> bindings, Stack<BindingRecord> bindingHistory, int inputIndex) throws Exception;
+	}
+
+	// functions that are not evaluated under bindings, e.g., assert in an OR condition
+	private static class FalseGuard extends Guard {
+		boolean evaluate(Hashtable<String, String> bindings, Stack<BindingRecord> bindingHistory, int inputIndex){
+			return false;
+		}
+	}
+
+	private static class InterpretedGuard extends Guard {
+		private Predicate predicate;
+
+		InterpretedGuard(Predicate predicate){
+			this.predicate = predicate;
+		}
+
+		boolean evaluate(Hashtable<String, String> bindings, Stack<BindingRecord> bindingHistory, int inputIndex){
+			return Functions.isTrue(predicate, bindings, bindingHistory, inputIndex);
+		}
+	}
+
+	private static class EqualsGuard extends Guard {
+		private boolean negation;
+		private String variable;			// null if the first argument is not a variable
+		private Value first;
+		private Expression second;
+		private String secondArgument;		// for a single operand: the value to be bound, where a number of a named constant is replaced by the name
+		private Value secondValue;
+
+		EqualsGuard(boolean negation, String firstArgument, Expression second){
+			this.negation = negation;
+			variable = MID.isVariable(firstArgument)? firstArgument: null;
+			first = new Value(firstArgument);
+			this.second = second;
+			if (second instanceof Value) {
+				secondArgument = ((Value)second).token;
+				if (MID.containsNumberKey(secondArgument))
+					secondArgument = MID.getSymbolForNumber(secondArgument);
+				secondValue = new Value(secondArgument);
+			}
+		}
+
+		boolean evaluate(Hashtable<String, String> bindings, Stack<BindingRecord> bindingHistory, int inputIndex) throws Exception {
+			String argument = secondArgument;
+			if (argument==null) {
+				argument = Integer.toString(second.intValue(bindings));
+				if (MID.containsNumberKey(argument))
+					argument = MID.getSymbolForNumber(argument);
+			}
+			if (variable!=null && bindings.get(variable)==null){
+				bindings.put(variable, argument);
+				bindingHistory.push(new BindingRecord(variable, inputIndex));
+			}
+			String value = secondValue!=null? secondValue.resolve(bindings): Functions.getBoundValue(argument, bindings);
+			boolean equal = first.resolve(bindings).equals(value);
+			return negation? !equal: equal;
+		}
+	}
+
+	private static class BoundGuard extends Guard {
+		private boolean negation;
+		private String variable;
+
+		BoundGuard(boolean negation, String variable){
+			this.negation = negation;
+			this.variable = variable;
+		}
+
+		boolean evaluate(Hashtable<String, String> bindings, Stack<BindingRecord> bindingHistory, int inputIndex){
+			String binding = bindings.get(variable);
+			return negation? binding==null: binding!=null;
+		}
+	}
+
+	// as in Functions, a negated comparison is evaluated as the comparison
+	private static class ComparisonGuard extends Guard {
+		private Value first;
+		private Expression second;
+		private boolean greater;
+		private boolean orEqualTo;
+
+		ComparisonGuard(Value first, Expression second, boolean greater, boolean orEqualTo){
+			this.first = first;
+			this.second = second;
+			this.greater = greater;
+			this.orEqualTo = orEqualTo;
+		}
+
+		boolean evaluate(Hashtable<String, String> bindings, Stack<BindingRecord> bindingHistory, int inputIndex){
+			try {
+				int firstValue = first.intValue(bindings);
+				int secondValue = second.intValue(bindings);
+				if (!greater) {
+					int value = firstValue;
+					firstValue = secondValue;
+					secondValue = value;
+				}
+				return orEqualTo? firstValue>=secondValue: firstValue>secondValue;
+			}
+			catch (Exception e) {
+				if (Kernel.IS_DEBUGGING_MODE)
+					e.printStackTrace();
+				System.out.println("Non-integer in comparison: "+ first.token+" vs "+second);
+			}
+			return false;
+		}
+	}
+
+	private static class ParityGuard extends Guard {
+		private boolean negation;
+		private Value value;
+		private boolean odd;
+
+		ParityGuard(boolean negation, Value value, boolean odd){
+			this.negation = negation;
+			this.value = value;
+			this.odd = odd;
+		}
+
+		boolean evaluate(Hashtable<String, String> bindings, Stack<BindingRecord> bindingHistory, int inputIndex){
+			try {
+				boolean even = value.intValue(bindings) % 2==0;
+				return negation==odd? even: !even;
+			}
+			catch (Exception e) {
+				System.out.println("Non-integer occurred in isEven: "+ value.token);
+				return false;
+			}
+		}
+	}
+
+	private static class ArithmeticGuard extends Guard {
+		private int operator;
+		private Value first, second, result;
+		private String variable;			// null if the result is not a variable
+
+		ArithmeticGuard(int operator, ArrayList<String> arguments){
+			this.operator = operator;
+			first = new Value(arguments.get(0));
+			second = new Value(arguments.get(1));
+			result = new Value(arguments.get(2));
+			variable = MID.isVariable(result.token)? result.token: null;
+		}
+
+		boolean evaluate(Hashtable<String, String> bindings, Stack<BindingRecord> bindingHistory, int inputIndex){
+			int value;
+			try {
+				value = Operation.compute(operator, first.intValue(bindings), second.intValue(bindings));
+			}
+			catch (Exception e) {
+				System.out.println("Non-integer occurred in an arithmetic operation: "+ first.resolve(bindings)+" and "+second.resolve(bindings));
+				return false;
+			}
+			if (variable!=null && bindings.get(variable)==null) {
+				String resultNumber = Integer.toString(value);
+				if (MID.containsNumberKey(resultNumber))
+					resultNumber = MID.getSymbolForNumber(resultNumber);
+				bindings.put(variable, resultNumber);
+				bindingHistory.push(new BindingRecord(variable, inputIndex));
+				return true;
+			}
+			try {
+				return result.intValue(bindings)==value;
+			}
+			catch (Exception e) {
+				System.out.println("Non-integer occurred in an arithmetic operation: " + operator +": "+ result.token);
+			}
+			return false;
+		}
+	}
+
+	private static class BelongsToGuard extends Guard {
+		private boolean negation;
+		private Value element;
+		private Value[] values;
+
+		BelongsToGuard(boolean negation, ArrayList<String> arguments){
+			this.negation = negation;
+			element = new Value(arguments.get(0));
+			values = new Value[arguments.size()-1];
+			for (int i=1; i<arguments.size(); i++)
+				values[i-1] = new Value(arguments.get(i));
+		}
+
+		boolean evaluate(Hashtable<String, String> bindings, Stack<BindingRecord> bindingHistory, int inputIndex){
+			String elementValue = element.resolve(bindings);
+			for (Value value: values)
+				if (elementValue.equals(value.resolve(bindings)))
+					return !negation;
+			return negation;
+		}
+	}
+
+	private static class OrGuard extends Guard {
+		private boolean negation;
+		private Guard[] conditions;			// null if the condition cannot be parsed
+
+		OrGuard(boolean negation, String argument){
+			this.negation = negation;
+			try {
+				ArrayList<Predicate> predicates = MIDParser.parseConditionString(Functions.removeQuotesFromString(argument));
+				conditions = new Guard[predicates.size()];
+				for (int index=0; index<conditions.length; index++)
+					conditions[index] = compile(predicates.get(index));
+			}
+			catch (Exception e) {
+				if (Kernel.IS_DEBUGGING_MODE)
+					e.printStackTrace();
+			}
+		}
+
+		boolean evaluate(Hashtable<String, String> bindings, Stack<BindingRecord> bindingHistory, int inputIndex){
+			if (conditions==null)
+				return false;
+			boolean result = false;
+			for (Guard condition: conditions)
+				if (condition.isTrue(bindings, bindingHistory, inputIndex)){
+					result = true;
+					break;
+				}
+			return negation? !result: result;
+		}
+	}
+
+	// arithmetic expression of equals/gt/gte/lt/lte
+	private static abstract class Expression {
+		abstract int intValue(Hashtable<String, String> bindings);
+	}
+
+	// an argument, whose value is its binding if it is a variable;
+	// a named constant is replaced by its number and the quotes of a string are removed, as in Functions.getBoundValue
+	private static class Value extends Expression {
+		private String token;
+		private boolean variable;
+		private String constant;			// the resolved value if not a variable
+		private Integer number;				// the resolved value if it is an integer constant
+
+		Value(String token){
+			this.token = token;
+			variable = MID.isVariable(token);
+			if (!variable) {
+				constant = Functions.getBoundValue(token, new Hashtable<String, String>());
+				try {
+					number = Integer.parseInt(constant);
+				}
+				catch (NumberFormatException e) {
+				}
+			}
+		}
+
+		String resolve(Hashtable<String, String> bindings){
+			return variable? Functions.getBoundValue(token, bindings): constant;
+		}
+
+		int intValue(Hashtable<String, String> bindings){
+			return number!=null? number: Integer.parseInt(resolve(bindings));
+		}
+
+		public String toString(){
+			return token;
+		}
+	}
+
+	private static class Operation extends Expression {
+		private int operator;
+		private Expression left, right;
+
+		Operation(int operator, Expression left, Expression right){
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+
+		int intValue(Hashtable<String, String> bindings){
+			return compute(operator, left.intValue(bindings), right.intValue(bindings));
+		}
+
+		static int compute(int operator, int first, int second){
+			switch (operator){
+				case Functions.ADDITION: return first + second;
+				case Functions.SUBTRACTION: return first - second;
+				case Functions.MULTIPLICATION: return first * second;
+				case Functions.DIVISION: return first / second;
+				case Functions.MODULUSOP: return first % second;
+			}
+			return 0;
+		}
+
+		public String toString(){
+			return "("+left+" "+"+-*/%".charAt(operator)+" "+right+")";
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package mid;
+
+import java.util.ArrayList;
+
+// Compiled form of a precondition used by CompiledUnifier.
+// Each variable gets a slot, and each argument of an input predicate is either a slot or a constant (slot -1).
+// For a negated input, an argument variable is visible if it is bound by a positive input before the negation.
+// Other variables of the negation are local to it, as in Unifier.
+
+class JoinPlan {
+
+	private ArrayList<Predicate> precondition;
+	private int numberOfInputs;
+
+	String[] variables;
+	String[] places;
+	boolean[] negations;
+	int[][] slots;
+	String[][] labels;
+	boolean[][] visible;
+
+	JoinPlan(ArrayList<Predicate> precondition){
+		this.precondition = precondition;
+		numberOfInputs = precondition.size();
+		places = new String[numberOfInputs];
+		negations = new boolean[numberOfInputs];
+		slots = new int[numberOfInputs][];
+		labels = new String[numberOfInputs][];
+		visible = new boolean[numberOfInputs][];
+		ArrayList<String> variableList = new ArrayList<String>();
+		ArrayList<String> boundVariables = new ArrayList<String>();
+		for (int input=0; input<numberOfInputs; input++){
+			Predicate predicate = precondition.get(input);
+			ArrayList<String> arguments = predicate.getArguments();
+			places[input] = predicate.getName();
+			negations[input] = predicate.getNegation();
+			slots[input] = new int[arguments.size()];
+			labels[input] = new String[arguments.size()];
+			visible[input] = new boolean[arguments.size()];
+			for (int position=0; position<arguments.size(); position++){
+				String label = arguments.get(position);
+				labels[input][position] = label;
+				if (MID.isVariable(label)){
+					int slot = variableList.indexOf(label);
+					if (slot<0){
+						slot = variableList.size();
+						variableList.add(label);
+					}
+					slots[input][position] = slot;
+					visible[input][position] = boundVariables.contains(label);
+				}
+				else
+					slots[input][position] = -1;
+			}
+			if (!negations[input])
+				for (String label: arguments)
+					if (MID.isVariable(label) && !boundVariables.contains(label))
+						boundVariables.add(label);
+		}
+		variables = variableList.toArray(new String[variableList.size()]);
+	}
+
+	boolean isCompiledFrom(ArrayList<Predicate> precondition){
+		return this.precondition==precondition && numberOfInputs==precondition.size();
+	}
+}
@@ -4,6 +4,9 @@
 package mid;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
 
@@ -47,8 +50,7 @@ public class MID implements Serializable {
     private ArrayList<GoalProperty> goalProperties = new ArrayList<GoalProperty>();
     private ArrayList<AssertionProperty> assertionProperties = new ArrayList<AssertionProperty>();
     
-	private static Hashtable<String, String> symbolsToNumbers = new Hashtable<String, String>();   
-	private static Hashtable<String, String> numbersToSymbols = new Hashtable<String, String>();   
+	private transient ModelContext context;	// named constants, interned tuples, and planner names of the model
 
 	private ArrayList<String> sinkEvents = new ArrayList<String>();		// sink (termination) events
 
@@ -93,10 +95,29 @@ public class MID implements Serializable {
 
 
     public MID(){
-    	symbolsToNumbers.clear();
-    	numbersToSymbols.clear();
+    	context = ModelContext.createForNewModel();
     }
 
+	public ModelContext getContext(){
+		return context!=null? context: ModelContext.current();
+	}
+
+	// a model read from a file (e.g., a snapshot of a parsed model) gets a new context before its tuples are interned,
+	// and its named constants are put back into the context
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeObject(getContext().getNamedConstants());
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		context = ModelContext.createForNewModel();
+		in.defaultReadObject();
+		Hashtable<String, String> namedConstants = (Hashtable<String, String>)in.readObject();
+		for (Map.Entry<String, String> constant: namedConstants.entrySet())
+			context.putSymbolNumber(constant.getKey(), constant.getValue());
+	}
+
     // Part 0: file name
     public void setFileName(String fileName){
     	this.fileName = fileName;
@@ -189,6 +210,17 @@ public class MID implements Serializable {
     	this.transitions = transitions;
     }
 
+    private transient volatile TransitionDependencies transitionDependencies;
+    
+    public TransitionDependencies getTransitionDependencies(){
+    	TransitionDependencies dependencies = transitionDependencies;
+    	if (dependencies==null || !dependencies.isBuiltFrom(transitions)) {
+    		dependencies = new TransitionDependencies(transitions);
+    		transitionDependencies = dependencies;
+    	}
+    	return dependencies;
+    }
+
     public ArrayList<Transition> getTransitionsForEvent(String event){
     	return transitionsForEvents.get(event);
     }
@@ -226,7 +258,7 @@ public class MID implements Serializable {
     
     public void fireAll(Marking marking){
     	for (Transition transition: transitions) {
-    		Unifier unifier = new Unifier(transition, marking);
+    		CompiledUnifier unifier = new CompiledUnifier(transition, marking);
     		ArrayList<Substitution> substitutions = unifier.getSubstitutions();
     		for (Substitution substitution: substitutions) {
     			System.out.println(transition.getEvent()+": "+substitution.toString(transition.getAllVariables()));
@@ -237,6 +269,11 @@ public class MID implements Serializable {
     }
 
     public Marking fireTransition(Marking marking, Transition transition, Substitution substitution){
+    	return nextMarking(marking, transition, substitution);
+    }
+
+    // the marking after the firing; it does not depend on the model, e.g., for replaying the firings of a test tree
+    public static Marking nextMarking(Marking marking, Transition transition, Substitution substitution){
     	Marking newMarking = marking.clone();
     	// remove tokens from input places
 //    	for (Predicate input: transition.getPrecondition()){
@@ -275,8 +312,9 @@ public class MID implements Serializable {
 			}
     	}
 		if (transition.getWhenCondition()!=null){
-			for (Predicate guard: transition.getWhenCondition())
-				if (!Functions.isTrue(guard, substitution.getBindings(), new Stack<BindingRecord>(), 0)) {
+			GuardPlan guardPlan = transition.getGuardPlan();
+			for (int index=0; index<guardPlan.size(); index++)
+				if (!guardPlan.isTrue(index, substitution.getBindings(), new Stack<BindingRecord>(), 0)) {
 					return false;
 				}
 		}
@@ -318,10 +356,11 @@ public class MID implements Serializable {
     private ArrayList<Transition> combinatorialApplicableTransitions = null;
     public boolean isCombinatorialTestingApplicable(Transition transition){
     	if (combinatorialApplicableTransitions==null){
-    		combinatorialApplicableTransitions = new ArrayList<Transition>();
+    		ArrayList<Transition> applicableTransitions = new ArrayList<Transition>();
     		for (Transition t: transitions)
     			if (t.isCombinatorialTestingApplicable())
-    				combinatorialApplicableTransitions.add(t);
+    				applicableTransitions.add(t);
+    		combinatorialApplicableTransitions = applicableTransitions;
     	}
     	return combinatorialApplicableTransitions.contains(transition);		
     }
@@ -430,25 +469,30 @@ public class MID implements Serializable {
 	}
 
 	// begin Named Integer Constants: <name> <number>
+	// kept in the context of the current thread (see ModelContext)
 	public static String getNumberForSymbol(String symbol){
-		return symbolsToNumbers.get(symbol);
+		return ModelContext.current().getNumberForSymbol(symbol);
 	}
 
 	public static String getSymbolForNumber(String number){
-		return numbersToSymbols.get(number);
+		return ModelContext.current().getSymbolForNumber(number);
 	}
 	
 	public static void putSymbolNumber(String symbol, String number){
-		symbolsToNumbers.put(symbol, number);
-		numbersToSymbols.put(number, symbol);
+		ModelContext.current().putSymbolNumber(symbol, number);
 	}
 	
 	public static boolean containsNumberKey(String number){
-		return numbersToSymbols.containsKey(number);
+		return ModelContext.current().containsNumberKey(number);
 	}
 
 	public static boolean containsSymbolKey(String symbol){
-		return symbolsToNumbers.containsKey(symbol);
+		return ModelContext.current().containsSymbolKey(symbol);
+	}
+
+	// true if the model of the current context has named constants
+	public static boolean hasNamedConstants(){
+		return ModelContext.current().hasNamedConstants();
 	}
 	// end Named Integer Constants: <name> <number>
 	
@@ -0,0 +1,154 @@
+package mid;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+// Keeps the 64-bit fingerprints of visited markings in open-addressing hash tables
+// that are mapped from a temporary file, so that the tables are paged by the operating system
+// rather than held on the Java heap.
+// Only fingerprints are kept: two markings with the same fingerprint are taken as the same state.
+// For n states this happens with a probability of about n*n/2^65 (less than 10^-5 for 10^7 states).
+// The tables are segments of the same size, found through a directory indexed by the high bits of the fingerprints.
+// A full segment is split into itself and a new segment mapped at the end of the file,
+// so the file only grows and no mapping is ever replaced.
+
+public class MappedMarkingStore implements MarkingStore {
+
+	private static final int SegmentBits = 20;			// 2^20 slots (8MB) per segment
+	private static final long SegmentSlots = 1L<<SegmentBits;
+	private static final double MaxLoad = 0.6;
+
+	private File file;
+	private RandomAccessFile data;
+	private ArrayList<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+	private ArrayList<Integer> segmentDepths = new ArrayList<Integer>();	// the number of high bits shared by the fingerprints of a segment
+	private ArrayList<Integer> segmentSizes = new ArrayList<Integer>();
+	private int[] directory = {0};						// the segment of each value of the first directoryDepth bits
+	private int directoryDepth = 0;
+	private int size = 0;
+
+	public MappedMarkingStore() throws IOException {
+		file = File.createTempFile("mista", ".states");
+		file.deleteOnExit();
+		data = new RandomAccessFile(file, "rw");
+		addSegment(0);
+	}
+
+	private int addSegment(int depth) throws IOException {
+		long offset = segments.size()*SegmentSlots*8;
+		segments.add(data.getChannel().map(FileChannel.MapMode.READ_WRITE, offset, SegmentSlots*8));
+		segmentDepths.add(depth);
+		segmentSizes.add(0);
+		return segments.size()-1;
+	}
+
+	// 0 marks an empty slot
+	private static long fingerprint(MarkingKey key){
+		long fingerprint = key.longHashCode();
+		return fingerprint!=0? fingerprint: 1;
+	}
+
+	private int segmentOf(long fingerprint){
+		return directoryDepth==0? directory[0]: directory[(int)(fingerprint>>>(64-directoryDepth))];
+	}
+
+	// the slot of the fingerprint in the segment, or the empty slot where it would be inserted
+	private static int findSlot(MappedByteBuffer segment, long fingerprint){
+		long mask = SegmentSlots-1;
+		int slot = (int)((fingerprint ^ (fingerprint>>>SegmentBits)) & mask);
+		while (true) {
+			long stored = segment.getLong(slot*8);
+			if (stored==0 || stored==fingerprint)
+				return slot;
+			slot = (int)((slot+1) & mask);
+		}
+	}
+
+	public synchronized boolean add(MarkingKey key){
+		long fingerprint = fingerprint(key);
+		int segmentIndex = segmentOf(fingerprint);
+		MappedByteBuffer segment = segments.get(segmentIndex);
+		int slot = findSlot(segment, fingerprint);
+		if (segment.getLong(slot*8)!=0)
+			return false;
+		segment.putLong(slot*8, fingerprint);
+		segmentSizes.set(segmentIndex, segmentSizes.get(segmentIndex)+1);
+		size++;
+		while (segmentSizes.get(segmentIndex)>MaxLoad*SegmentSlots)
+			segmentIndex = split(segmentIndex);
+		return true;
+	}
+
+	public synchronized boolean contains(MarkingKey key){
+		long fingerprint = fingerprint(key);
+		MappedByteBuffer segment = segments.get(segmentOf(fingerprint));
+		return segment.getLong(findSlot(segment, fingerprint)*8)!=0;
+	}
+
+	public synchronized int size(){
+		return size;
+	}
+
+	// moves the fingerprints whose next high bit is 1 to a new segment; returns the fuller of the two segments
+	private int split(int segmentIndex){
+		int depth = segmentDepths.get(segmentIndex);
+		if (depth==directoryDepth) {
+			int[] newDirectory = new int[directory.length*2];
+			for (int index=0; index<newDirectory.length; index++)
+				newDirectory[index] = directory[index>>1];
+			directory = newDirectory;
+			directoryDepth++;
+		}
+		int newSegmentIndex;
+		try {
+			newSegmentIndex = addSegment(depth+1);
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Cannot extend the file of visited states: "+e.getMessage(), e);
+		}
+		segmentDepths.set(segmentIndex, depth+1);
+		for (int index=0; index<directory.length; index++)
+			if (directory[index]==segmentIndex && ((index>>(directoryDepth-depth-1)) & 1)==1)
+				directory[index] = newSegmentIndex;
+		MappedByteBuffer segment = segments.get(segmentIndex);
+		MappedByteBuffer newSegment = segments.get(newSegmentIndex);
+		long[] fingerprints = new long[segmentSizes.get(segmentIndex)];
+		int count = 0;
+		for (int slot=0; slot<SegmentSlots; slot++) {
+			long fingerprint = segment.getLong(slot*8);
+			if (fingerprint!=0) {
+				fingerprints[count++] = fingerprint;
+				segment.putLong(slot*8, 0);
+			}
+		}
+		int moved = 0;
+		for (long fingerprint: fingerprints) {
+			if (((fingerprint>>>(63-depth)) & 1)==1) {
+				newSegment.putLong(findSlot(newSegment, fingerprint)*8, fingerprint);
+				moved++;
+			}
+			else
+				segment.putLong(findSlot(segment, fingerprint)*8, fingerprint);
+		}
+		segmentSizes.set(segmentIndex, fingerprints.length-moved);
+		segmentSizes.set(newSegmentIndex, moved);
+		return moved>fingerprints.length-moved? newSegmentIndex: segmentIndex;
+	}
+
+	public synchronized void close(){
+		if (data!=null) {
+			try {
+				data.close();
+			}
+			catch (IOException e) {
+			}
+			file.delete();
+			data = null;
+			segments = null;
+		}
+	}
+}
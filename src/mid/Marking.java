@@ -2,6 +2,9 @@
 	Author Dianxiang Xu
 */
 package mid;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
 
@@ -15,6 +18,13 @@ public class Marking implements Serializable {
 
     private Hashtable<String, ArrayList<Tuple>> states = new Hashtable<String, ArrayList<Tuple>>();
 
+    // Copy-on-write: a clone shares the tuple lists with the original marking.
+    // ownedPlaces holds the places whose lists have been copied by this marking (null: all lists are its own).
+    private transient HashSet<String> ownedPlaces;
+    
+    // cached key, reset whenever the marking is changed
+    private transient MarkingKey key;
+    
     public Marking(){
     }
 
@@ -22,8 +32,28 @@ public class Marking implements Serializable {
     	this.states = states;
     }
     
+    private Marking(Hashtable<String, ArrayList<Tuple>> states, HashSet<String> ownedPlaces){
+    	this.states = states;
+    	this.ownedPlaces = ownedPlaces;
+    }
+
+    // returns the list of the given place that can be modified by this marking
+    private ArrayList<Tuple> getWritableTuples(String place){
+    	key = null;
+    	ArrayList<Tuple> tuples = states.get(place);
+    	if (tuples!=null && ownedPlaces!=null && !ownedPlaces.contains(place)) {
+    		tuples = new ArrayList<Tuple>(tuples);
+    		states.put(place, tuples);
+    		ownedPlaces.add(place);
+    	}
+    	return tuples;
+    }
+    
     public void addTuples(String place, ArrayList<Tuple> tuples){
+    	key = null;
         states.put(place, sort(tuples));
+        if (ownedPlaces!=null)
+        	ownedPlaces.add(place);
     }
 
     private ArrayList<Tuple> sort(ArrayList<Tuple> tuples){
@@ -62,11 +92,13 @@ else
     }
     
     public void addTuple(String place, Tuple tuple){
-    	ArrayList<Tuple> tuples = states.get(place);
+    	ArrayList<Tuple> tuples = getWritableTuples(place);
     	if (tuples == null) {
     		tuples = new ArrayList<Tuple>();
     		tuples.add(tuple);
     		states.put(place, tuples);
+    		if (ownedPlaces!=null)
+    			ownedPlaces.add(place);
     	}
     	else {
             insertTuple(tuples, tuple);
@@ -74,7 +106,7 @@ else
     }
 
     public void removeTuple(String place, Tuple tuple){
-		ArrayList<Tuple> tuples = states.get(place);
+		ArrayList<Tuple> tuples = getWritableTuples(place);
 		if (tuples!=null){
 			tuples.remove(tuple);
 			if (tuples.size()==0)
@@ -84,6 +116,7 @@ else
     
     // remove all tokens from the given place (for RESET) 
     public void resetPlace(String place) {
+    	key = null;
     	states.remove(place);
     }
     
@@ -126,7 +159,7 @@ else
     public boolean isAssertionTrue(AssertionProperty assertion){
     	ArrayList<Substitution> substitionsForIfClause;
     	if (assertion.hasIfClause()){
-    		substitionsForIfClause = new Unifier(assertion.getIfClause(), this).getSubstitutions();
+    		substitionsForIfClause = new CompiledUnifier(assertion.getIfClause(), this).getSubstitutions();
 //System.out.println(this+"\n"+assertion+" - " + substitionsForIfClause.size());	   	
     		if (substitionsForIfClause.size()==0)
     			return true;
@@ -135,7 +168,7 @@ else
     		substitionsForIfClause.add(new Substitution());
     	}
     	for (Substitution substitutionFromIfClause: substitionsForIfClause) {
-    		Unifier unifier = new Unifier(assertion.getThenClause(), this, substitutionFromIfClause);
+    		CompiledUnifier unifier = new CompiledUnifier(assertion.getThenClause(), this, substitutionFromIfClause);
 //System.out.println(this+"\n"+assertion+" - " + unifier.isFirable());	   	
     		if (!unifier.isFirable())
     			return false;
@@ -151,7 +184,7 @@ System.out.println((substitutions.size()>0) +" - " +new Unifier(transition, this
     }
 */
     public boolean isFirable(Transition transition){
-		return new Unifier(transition, this).isFirable();
+		return new CompiledUnifier(transition, this).isFirable();
     }
     
 	public boolean includes(Marking goal){
@@ -198,6 +231,24 @@ System.out.println((substitutions.size()>0) +" - " +new Unifier(transition, this
 		return true;
 	}
 	
+	// two markings have the same key if and only if they are equal
+	public MarkingKey getKey(){
+		if (key==null) {
+			int size = 0;
+			for (ArrayList<Tuple> tuples: states.values())
+				size += tuples.size();
+			long[] tokens = new long[size];
+			int index = 0;
+			for (Map.Entry<String, ArrayList<Tuple>> entry: states.entrySet()) {
+				int placeId = TupleFactory.getPlaceId(entry.getKey());
+				for (Tuple tuple: entry.getValue())
+					tokens[index++] = MarkingKey.encode(placeId, tuple.getId());
+			}
+			key = new MarkingKey(tokens);
+		}
+		return key;
+	}
+	
 	// two markings have the same key string if and only if they are equal
 	public String getKeyString(ArrayList<String> places){
 		StringBuffer buffer = new StringBuffer();
@@ -285,19 +336,40 @@ System.out.println((substitutions.size()>0) +" - " +new Unifier(transition, this
 	    }
 	}
 
+	// the tuple lists are shared until either marking changes them
 	public Marking clone(){
 		Hashtable<String, ArrayList<Tuple>> statesCopy = new Hashtable<String, ArrayList<Tuple>>();
 		Enumeration<String> en = states.keys();
 		while (en.hasMoreElements()) {
 			String place = (String)en.nextElement();
 			ArrayList<Tuple> tuples = states.get(place);
-			if (tuples!=null) {
-				ArrayList<Tuple> tuplesCopy = new ArrayList<Tuple>();
-				for (Tuple tuple: tuples)
-					tuplesCopy.add(tuple);
-				statesCopy.put(place, tuplesCopy);
-			}
+			if (tuples!=null)
+				statesCopy.put(place, tuples);
 		}
-		return new Marking(statesCopy);
+		ownedPlaces = new HashSet<String>();
+		Marking copy = new Marking(statesCopy, new HashSet<String>());
+		copy.key = key;
+		return copy;
 	} 
+
+	// deserialized markings may share tuple lists, so none of them is owned
+	// the order of the places is kept (e.g., for printing a marking read from a snapshot of a model):
+	// the places are added back to a new table in reverse order, as in BinaryTestTreeWriter
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		ArrayList<String> places = getPlaces();
+		Collections.reverse(places);
+		out.writeObject(places);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		ArrayList<String> places = (ArrayList<String>)in.readObject();
+		Hashtable<String, ArrayList<Tuple>> orderedStates = new Hashtable<String, ArrayList<Tuple>>();
+		for (String place: places)
+			orderedStates.put(place, states.get(place));
+		states = orderedStates;
+		ownedPlaces = new HashSet<String>();
+	}
 }
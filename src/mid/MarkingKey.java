@@ -0,0 +1,60 @@
+package mid;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+// A compact identity of a marking that replaces its key string in the tables of explored states.
+// Each token is encoded as (place id, tuple id) in a sorted long array,
+// together with a precomputed 64-bit hash.
+// Two markings have equal keys if and only if they are equal.
+
+public class MarkingKey implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final long[] tokens;
+	private final long hash;
+
+	MarkingKey(long[] tokens){
+		Arrays.sort(tokens);
+		this.tokens = tokens;
+		long h = 0xcbf29ce484222325L;
+		for (long token: tokens) {
+			h ^= mix(token);
+			h *= 0x100000001b3L;
+		}
+		hash = mix(h ^ tokens.length);
+	}
+
+	static long encode(int placeId, int tupleId){
+		return ((long)placeId<<32) | (tupleId & 0xffffffffL);
+	}
+
+	// finalizer of splitmix64
+	private static long mix(long z){
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	public long longHashCode(){
+		return hash;
+	}
+
+	public int numberOfTokens(){
+		return tokens.length;
+	}
+
+	public int hashCode(){
+		return (int)(hash ^ (hash >>> 32));
+	}
+
+	public boolean equals(Object other){
+		if (this==other)
+			return true;
+		if (!(other instanceof MarkingKey))
+			return false;
+		MarkingKey otherKey = (MarkingKey)other;
+		return hash==otherKey.hash && Arrays.equals(tokens, otherKey.tokens);
+	}
+
+}
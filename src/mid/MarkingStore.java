@@ -0,0 +1,15 @@
+package mid;
+
+// The markings visited by a search, identified by their keys.
+
+public interface MarkingStore {
+	// false if the marking is already in the store
+	public boolean add(MarkingKey key);
+	
+	public boolean contains(MarkingKey key);
+	
+	public int size();
+	
+	// releases the resources of the store (e.g., its file)
+	public void close();
+}
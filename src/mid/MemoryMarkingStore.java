@@ -0,0 +1,24 @@
+package mid;
+
+import java.util.HashSet;
+
+public class MemoryMarkingStore implements MarkingStore {
+
+	private HashSet<MarkingKey> keys = new HashSet<MarkingKey>();
+
+	public boolean add(MarkingKey key){
+		return keys.add(key);
+	}
+
+	public boolean contains(MarkingKey key){
+		return keys.contains(key);
+	}
+
+	public int size(){
+		return keys.size();
+	}
+
+	public void close(){
+		keys.clear();
+	}
+}
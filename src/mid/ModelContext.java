@@ -0,0 +1,101 @@
+package mid;
+
+import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The state of a model that used to be kept in static fields: the tables of named constants,
+// the interned tuples, and the place/transition names of the planning graph.
+// Each MID creates its own context. The context of the current thread is used by the static methods
+// of MID and TupleFactory. A thread that is not bound to a context uses the context of the latest model,
+// as in the GUI, where one model is open at a time. A thread that processes a model alongside others
+// (e.g., the batch runner) binds itself to a context; the models it creates then replace its context only.
+// Worker threads of a search are bound to the context of the thread that starts the search.
+
+public class ModelContext {
+
+	private static volatile ModelContext latest = new ModelContext();
+	private static final ThreadLocal<ModelContext> bound = new ThreadLocal<ModelContext>();
+
+	private Hashtable<String, String> symbolsToNumbers = new Hashtable<String, String>();
+	private Hashtable<String, String> numbersToSymbols = new Hashtable<String, String>();
+
+	private ConcurrentHashMap<String, Tuple> tupleBase = new ConcurrentHashMap<String, Tuple>();
+
+	// names of the places and transitions of the latest planning graph, used for printing facts and firings
+	private String[] plannerPlaces = new String[0];
+	private String[] plannerTransitions = new String[0];
+
+	public static ModelContext current(){
+		ModelContext context = bound.get();
+		return context!=null? context: latest;
+	}
+
+	// binds the current thread to the context (null for unbinding) and returns the previous binding
+	public static ModelContext bind(ModelContext context){
+		ModelContext previous = bound.get();
+		if (context!=null)
+			bound.set(context);
+		else
+			bound.remove();
+		return previous;
+	}
+
+	static ModelContext createForNewModel(){
+		ModelContext context = new ModelContext();
+		if (bound.get()!=null)
+			bound.set(context);
+		else
+			latest = context;
+		return context;
+	}
+
+	String getNumberForSymbol(String symbol){
+		return symbolsToNumbers.get(symbol);
+	}
+
+	String getSymbolForNumber(String number){
+		return numbersToSymbols.get(number);
+	}
+
+	void putSymbolNumber(String symbol, String number){
+		symbolsToNumbers.put(symbol, number);
+		numbersToSymbols.put(number, symbol);
+	}
+
+	boolean containsNumberKey(String number){
+		return numbersToSymbols.containsKey(number);
+	}
+
+	boolean containsSymbolKey(String symbol){
+		return symbolsToNumbers.containsKey(symbol);
+	}
+
+	boolean hasNamedConstants(){
+		return !symbolsToNumbers.isEmpty();
+	}
+
+	Hashtable<String, String> getNamedConstants(){
+		return symbolsToNumbers;
+	}
+
+	ConcurrentHashMap<String, Tuple> getTupleBase(){
+		return tupleBase;
+	}
+
+	void resetTupleBase(){
+		tupleBase = new ConcurrentHashMap<String, Tuple>();
+	}
+
+	public void setPlannerNames(String[] places, String[] transitions){
+		plannerPlaces = places;
+		plannerTransitions = transitions;
+	}
+
+	public String getPlannerPlace(int place){
+		return place>=0 && place<plannerPlaces.length? plannerPlaces[place]: "p"+place;
+	}
+
+	public String getPlannerTransition(int transition){
+		return transition>=0 && transition<plannerTransitions.length? plannerTransitions[transition]: "t"+transition;
+	}
+}
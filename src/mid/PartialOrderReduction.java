@@ -0,0 +1,116 @@
+package mid;
+
+import java.util.Collection;
+
+// Partial-order reduction with stubborn sets computed from the static dependencies between transitions.
+// Under a marking, only the firings of the transitions in a stubborn set are explored. The set is closed so that
+// - with an enabled transition, it contains the transitions dependent on it, and 
+// - with a disabled transition, it contains the transitions that may enable it.
+// Such sets preserve all reachable deadlocks. 
+// For the reachability of goals and the violation of assertions, the places of the properties are visible:
+// a stubborn set must not have an enabled transition that writes a visible place, 
+// and the search must fully expand a reduced state whose firings lead to an expanded marking (cycle proviso).
+// With a bounded search depth, a reduced search may need longer firing sequences than a full one.
+
+public class PartialOrderReduction {
+
+	private MID mid;
+	private boolean[] visible;			// null if no place is visible
+
+	private int examinedStates = 0;
+	private int reducedStates = 0;
+	private long prunedFirings = 0;
+
+	// visiblePlaces is null if only deadlocks are to be preserved
+	public PartialOrderReduction(MID mid, Collection<String> visiblePlaces){
+		this.mid = mid;
+		if (visiblePlaces!=null) {
+			TransitionDependencies dependencies = mid.getTransitionDependencies();
+			visible = new boolean[dependencies.size()];
+			for (int index=0; index<dependencies.size(); index++)
+				for (String place: dependencies.getWrittenPlaces(index))
+					if (visiblePlaces.contains(place))
+						visible[index] = true;
+		}
+	}
+
+	// the transitions (indexed as in mid.getTransitions()) whose firings are explored under the marking of enabledFirings;
+	// null if all firings are to be explored
+	public boolean[] getStubbornSet(EnabledFirings enabledFirings){
+		TransitionDependencies dependencies = mid.getTransitionDependencies();
+		int size = dependencies.size();
+		int[] numberOfFirings = new int[size];
+		int totalFirings = 0;
+		for (int index=0; index<size; index++) {
+			numberOfFirings[index] = enabledFirings.getSubstitutions(dependencies.getTransition(index)).size();
+			totalFirings += numberOfFirings[index];
+		}
+		boolean[] best = null;
+		int bestFirings = totalFirings;
+		for (int seed=0; seed<size; seed++) {
+			if (numberOfFirings[seed]==0 || (visible!=null && visible[seed]))
+				continue;
+			boolean[] stubborn = closure(seed, numberOfFirings, dependencies);
+			if (stubborn==null)
+				continue;
+			int firings = 0;
+			for (int index=0; index<size; index++)
+				if (stubborn[index])
+					firings += numberOfFirings[index];
+			if (firings<bestFirings) {
+				best = stubborn;
+				bestFirings = firings;
+			}
+		}
+		return best;
+	}
+
+	// null if the set would include an enabled visible transition
+	private boolean[] closure(int seed, int[] numberOfFirings, TransitionDependencies dependencies){
+		boolean[] stubborn = new boolean[dependencies.size()];
+		int[] work = new int[dependencies.size()];
+		int top = 0;
+		stubborn[seed] = true;
+		work[top++] = seed;
+		while (top>0) {
+			int index = work[--top];
+			boolean isEnabled = numberOfFirings[index]>0;
+			if (isEnabled && visible!=null && visible[index])
+				return null;
+			int[] required = isEnabled? dependencies.getDependentTransitions(index): dependencies.getEnablingTransitions(index);
+			for (int other: required)
+				if (!stubborn[other]) {
+					stubborn[other] = true;
+					work[top++] = other;
+				}
+		}
+		return stubborn;
+	}
+
+	// called by a search for each state whose successors are created, with the number of firings explored under it
+	public void recordState(EnabledFirings enabledFirings, int exploredFirings){
+		TransitionDependencies dependencies = mid.getTransitionDependencies();
+		int firings = 0;
+		for (int index=0; index<dependencies.size(); index++)
+			firings += enabledFirings.getSubstitutions(dependencies.getTransition(index)).size();
+		synchronized (this) {
+			examinedStates++;
+			if (exploredFirings<firings) {
+				reducedStates++;
+				prunedFirings += firings-exploredFirings;
+			}
+		}
+	}
+
+	public synchronized int getNumberOfExaminedStates(){
+		return examinedStates;
+	}
+
+	public synchronized int getNumberOfReducedStates(){
+		return reducedStates;
+	}
+
+	public synchronized long getNumberOfPrunedFirings(){
+		return prunedFirings;
+	}
+}
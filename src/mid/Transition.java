@@ -32,12 +32,37 @@ public class Transition implements Serializable {
     // Rationale for not using a separate reset list: we can reset a place and then add a token in the same firing
     // for example: reset(p), p(x) in a postcondition will first reset p and then add token x to p
     
+    private transient volatile JoinPlan joinPlan;				// compiled precondition for CompiledUnifier
+    private transient volatile GuardPlan guardPlan;			// compiled when condition for the unifiers
+
     public Transition(String event) {
 		this.event = event;
 		precondition = new ArrayList<Predicate>();
 		postcondition = new ArrayList<Predicate>();
     }
 
+	// a transition of another model with the same parsed conditions; the lists are copied because a model changes them
+	// (e.g., unit test places are added to the conditions), the predicates are shared.
+	// The compiled plans are not shared because they depend on the named constants of the model
+	public Transition copy(){
+		Transition copy = new Transition(event);
+		copy.id = id;
+		copy.arguments = copyList(arguments);
+		copy.precondition = copyList(precondition);
+		copy.postcondition = copyList(postcondition);
+		copy.when = copyList(when);
+		copy.effect = copyList(effect);
+		copy.guard = guard;
+		copy.allVariables = copyList(allVariables);
+		copy.deletePrecondition = copyList(deletePrecondition);
+		copy.addPostcondition = copyList(addPostcondition);
+		return copy;
+	}
+
+	private static <T> ArrayList<T> copyList(ArrayList<T> list){
+		return list!=null? new ArrayList<T>(list): null;
+	}
+
 	public String getEvent(){
 		return event;
 	}
@@ -113,6 +138,15 @@ public class Transition implements Serializable {
 		return precondition.size();
 	}
 
+	JoinPlan getJoinPlan(){
+		JoinPlan plan = joinPlan;
+		if (plan==null || !plan.isCompiledFrom(precondition)) {
+			plan = new JoinPlan(precondition);
+			joinPlan = plan;
+		}
+		return plan;
+	}
+
 	public ArrayList<Predicate> getDeletePrecondition(){
 		return deletePrecondition;
 	}
@@ -171,6 +205,15 @@ public class Transition implements Serializable {
 		this.when = when;
 	}
 
+	GuardPlan getGuardPlan(){
+		GuardPlan plan = guardPlan;
+		if (plan==null || !plan.isCompiledFrom(when)) {
+			plan = new GuardPlan(when);
+			guardPlan = plan;
+		}
+		return plan;
+	}
+
 	public String getGuard(){
 		return guard;
 	}
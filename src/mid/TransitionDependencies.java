@@ -0,0 +1,143 @@
+package mid;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Hashtable;
+
+// Static dependencies between transitions through places.
+// A transition reads the places of its precondition (including negated/inhibitor inputs)
+// and the places of assert and tokenCount functions in its when condition.
+// It writes the places of its deletePrecondition and addPostcondition (including RESET places).
+// Firing a transition can only change the enabledness of the transitions that read a place it writes.
+
+public class TransitionDependencies {
+
+	private ArrayList<Transition> transitions;
+	private Hashtable<Transition, Integer> indexes = new Hashtable<Transition, Integer>();
+	private ArrayList<HashSet<String>> readPlaces = new ArrayList<HashSet<String>>();
+	private ArrayList<HashSet<String>> writtenPlaces = new ArrayList<HashSet<String>>();
+	private int[][] affectedTransitions;
+	private int[][] enablingTransitions;		// transitions that write a place read by the transition
+	private int[][] dependentTransitions;		// transitions that do not commute with the transition
+
+	public TransitionDependencies(ArrayList<Transition> transitions){
+		this.transitions = transitions;
+		for (int index=0; index<transitions.size(); index++){
+			Transition transition = transitions.get(index);
+			indexes.put(transition, index);
+			readPlaces.add(collectReadPlaces(transition));
+			writtenPlaces.add(collectWrittenPlaces(transition));
+		}
+		affectedTransitions = new int[transitions.size()][];
+		for (int fired=0; fired<transitions.size(); fired++){
+			ArrayList<Integer> affected = new ArrayList<Integer>();
+			for (int other=0; other<transitions.size(); other++)
+				if (intersects(writtenPlaces.get(fired), readPlaces.get(other)))
+					affected.add(other);
+			affectedTransitions[fired] = new int[affected.size()];
+			for (int i=0; i<affected.size(); i++)
+				affectedTransitions[fired][i] = affected.get(i);
+		}
+		enablingTransitions = new int[transitions.size()][];
+		dependentTransitions = new int[transitions.size()][];
+		for (int index=0; index<transitions.size(); index++){
+			ArrayList<Integer> enabling = new ArrayList<Integer>();
+			ArrayList<Integer> dependent = new ArrayList<Integer>();
+			for (int other=0; other<transitions.size(); other++){
+				if (intersects(writtenPlaces.get(other), readPlaces.get(index)))
+					enabling.add(other);
+				if (other==index 
+						|| intersects(writtenPlaces.get(index), readPlaces.get(other))
+						|| intersects(writtenPlaces.get(index), writtenPlaces.get(other))
+						|| intersects(writtenPlaces.get(other), readPlaces.get(index)))
+					dependent.add(other);
+			}
+			enablingTransitions[index] = toArray(enabling);
+			dependentTransitions[index] = toArray(dependent);
+		}
+	}
+
+	private static int[] toArray(ArrayList<Integer> list){
+		int[] array = new int[list.size()];
+		for (int i=0; i<list.size(); i++)
+			array[i] = list.get(i);
+		return array;
+	}
+
+	// also used for the places observed by properties
+	public static HashSet<String> collectReadPlaces(Transition transition){
+		HashSet<String> places = new HashSet<String>();
+		for (Predicate predicate: transition.getPrecondition())
+			places.add(predicate.getName());
+		if (transition.getWhenCondition()!=null)
+			for (Predicate predicate: transition.getWhenCondition())
+				if (Functions.isAssertFunction(predicate) || Functions.isTokenCountFunction(predicate))
+					places.add(predicate.getArguments().get(0));
+		return places;
+	}
+
+	private HashSet<String> collectWrittenPlaces(Transition transition){
+		HashSet<String> places = new HashSet<String>();
+		ArrayList<Predicate> deletePrecondition = transition.getDeletePrecondition()!=null?
+				transition.getDeletePrecondition(): transition.getPrecondition();
+		ArrayList<Predicate> addPostcondition = transition.getAddPostcondition()!=null?
+				transition.getAddPostcondition(): transition.getPostcondition();
+		for (Predicate predicate: deletePrecondition)
+			places.add(predicate.getName());
+		for (Predicate predicate: addPostcondition)
+			if (predicate.getName().equalsIgnoreCase(MID.RESET))
+				places.add(predicate.getArguments().get(0));
+			else
+				places.add(predicate.getName());
+		return places;
+	}
+
+	private static boolean intersects(HashSet<String> first, HashSet<String> second){
+		for (String place: first)
+			if (second.contains(place))
+				return true;
+		return false;
+	}
+
+	public boolean isBuiltFrom(ArrayList<Transition> transitions){
+		return this.transitions==transitions && indexes.size()==transitions.size();
+	}
+
+	public int size(){
+		return transitions.size();
+	}
+
+	public Transition getTransition(int index){
+		return transitions.get(index);
+	}
+
+	// -1 if the transition is not in the model
+	public int indexOf(Transition transition){
+		Integer index = indexes.get(transition);
+		return index!=null? index: -1;
+	}
+
+	public HashSet<String> getReadPlaces(int index){
+		return readPlaces.get(index);
+	}
+
+	public HashSet<String> getWrittenPlaces(int index){
+		return writtenPlaces.get(index);
+	}
+
+	// indexes of the transitions whose enabledness may be changed by firing the given transition
+	public int[] getAffectedTransitions(int index){
+		return affectedTransitions[index];
+	}
+
+	// indexes of the transitions whose firing may enable the given transition
+	public int[] getEnablingTransitions(int index){
+		return enablingTransitions[index];
+	}
+
+	// indexes of the transitions (including itself) that may disable the given transition, be disabled by it, 
+	// or lead to a different marking when fired in a different order with it
+	public int[] getDependentTransitions(int index){
+		return dependentTransitions[index];
+	}
+}
@@ -11,6 +11,10 @@ public class Tuple implements Serializable {
 	public static final String DUMMY_VARIABLE="_";
 	
     private ArrayList<String> arguments;
+    
+    // cached identity of the tuple: key string and interned id (0 = not yet assigned)
+    private transient String key;
+    private transient int id;
 
     public Tuple(ArrayList<String> arguments){
     	this.arguments = arguments;
@@ -35,7 +39,26 @@ public class Tuple implements Serializable {
     
     public String hashKey(){
 //        return String.valueOf(super.hashCode());
-      return toString();
+    	if (key==null)
+    		key = toString();
+    	return key;
+    }
+
+    // a small integer that identifies tuples with the same arguments
+    public int getId(){
+    	if (id==0)
+    		id = TupleFactory.getTupleId(this);
+    	return id;
+    }
+
+    void setId(int id){
+    	this.id = id;
+    }
+
+    // a tuple read from a file (e.g., a marking written to disk) is replaced with the interned one,
+    // because markings remove tuples by identity
+    private Object readResolve(){
+    	return TupleFactory.createTuple(arguments);
     }
 
     public String toString(){
@@ -1,25 +1,56 @@
 package mid;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TupleFactory {
-	   private static HashMap<String, Tuple> tupleBase = new HashMap<String, Tuple>();
-	   
 	   private static Tuple DefaultTuple = new Tuple(new ArrayList<String>()); 
 	   
+	   // tuples are interned in the context of the current thread (see ModelContext);
+	   // ids of tuples and places are shared by all models, used for compact marking keys
+	   private static ConcurrentHashMap<String, Integer> tupleIds = new ConcurrentHashMap<String, Integer>();
+	   private static ConcurrentHashMap<String, Integer> placeIds = new ConcurrentHashMap<String, Integer>();
+	   
 	   public static Tuple createTuple(ArrayList<String> arguments) {
 		  if (arguments.size()==0)
 			  return DefaultTuple;
 		  String key = argumentString(arguments);
+		  ConcurrentHashMap<String, Tuple> tupleBase = ModelContext.current().getTupleBase();
 	      Tuple tupleInBase = (Tuple)tupleBase.get(key);
 	      if(tupleInBase == null) {
-	         tupleInBase = new Tuple(arguments);
-	         tupleBase.put(key, tupleInBase);
+	         Tuple newTuple = new Tuple(arguments);
+	         newTuple.setId(getId(tupleIds, key));
+	         tupleInBase = tupleBase.putIfAbsent(key, newTuple);
+	         if (tupleInBase == null)
+	        	 tupleInBase = newTuple;
 	      }
 	      return tupleInBase;
 	   }
 
+	   // tuples created outside the factory get the same id as the interned tuple with the same arguments
+	   public static int getTupleId(Tuple tuple) {
+		   ArrayList<String> arguments = tuple.getArguments();
+		   return getId(tupleIds, arguments.size()==0? "": argumentString(arguments));
+	   }
+	   
+	   public static int getPlaceId(String place) {
+		   return getId(placeIds, place);
+	   }
+	   
+	   private static int getId(ConcurrentHashMap<String, Integer> ids, String key) {
+		   Integer id = ids.get(key);
+		   if (id==null) {
+			   synchronized (ids) {
+				   id = ids.get(key);
+				   if (id==null) {
+					   id = ids.size()+1;
+					   ids.put(key, id);
+				   }
+			   }
+		   }
+		   return id;
+	   }
+	   
 	   public static String argumentString(ArrayList<String> arguments){
 	        StringBuffer str = new StringBuffer();
 	        str.append(arguments.get(0));
@@ -31,6 +62,6 @@ public class TupleFactory {
 	   }
 	   
 	   public static void reset(){
-		   tupleBase = new HashMap<String, Tuple>();
+		   ModelContext.current().resetTupleBase();
 	   }
 }
@@ -219,7 +219,9 @@ public class Unifier implements GeneralUnifier{
 		private boolean isWhenConditionTrue(){
 			if (transition.getWhenCondition()==null || transition.getWhenCondition().size()==0)
 				return true;
-			for (Predicate predicate: transition.getWhenCondition()) {
+			GuardPlan guardPlan = transition.getGuardPlan();
+			for (int index=0; index<guardPlan.size(); index++) {
+				Predicate predicate = transition.getWhenCondition().get(index);
 				if (Functions.isAssertFunction(predicate)){
 					if (!Functions.assertTrue(predicate, marking))
 						return false;
@@ -228,7 +230,7 @@ public class Unifier implements GeneralUnifier{
 					if (!Functions.tokenCount(predicate, marking, bindings, bindingHistory, inputIndex))
 						return false;					
 				} else
-				if (!Functions.isTrue(predicate, bindings, bindingHistory, inputIndex))
+				if (!guardPlan.isTrue(index, bindings, bindingHistory, inputIndex))
 					return false;
 			}	
 			return true;
@@ -246,22 +248,3 @@ public class Unifier implements GeneralUnifier{
 			return bindingsCopy;
 		}
 }
-
-class BindingRecord {
-	// "variable" is bound when the "index" input place is unified
-	private String variable;
-	private int index;
-
-	public BindingRecord(String variable, int index){
-		this.variable = variable;
-		this.index = index;
-	}
-
-	public String getVariable(){
-		return variable;
-	}
-	
-	public boolean isIndex(int index){
-		return this.index == index;
-	}
-}
\ No newline at end of file
@@ -85,11 +85,15 @@ public class MIDParser implements MIDParserConstants {
         }
 
         public static String evaluateExpression(String inString, Hashtable <String, String> bindings) throws ParseException {
+                return parseArithmeticExpression(inString).evaluate(bindings);
+        }
+
+        public static ArithmeticExpression parseArithmeticExpression(String inString) throws ParseException {
                 Reader reader = null;
                 try {
                         reader = new StringReader(inString) ;
                         MIDParser parser = new MIDParser(reader) ;
-                        return parser.evaluateExpressionValue(bindings);
+                        return parser.ExpressionValue();
             }
             catch (ParseException e) {
                 throw e;
@@ -1195,9 +1199,11 @@ System.out.println(var);
     throw new Error("Missing return statement in function");
   }
 
-  final public String evaluateExpressionValue(Hashtable<String, String> bindings) throws ParseException {
-        ArrayList<String>  ops = new ArrayList<String>();
+  final public ArithmeticExpression ExpressionValue() throws ParseException {
+        ArrayList<ArithmeticExpression> operands = new ArrayList<ArithmeticExpression>();
+        ArrayList<String> operators = new ArrayList<String>();
         String arg;
+        ArithmeticExpression expression;
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
     case IDENTIFIER:
     case SPECIALVAR:
@@ -1205,11 +1211,12 @@ System.out.println(var);
     case STRING:
     case 34:
       arg = GeneralArgument();
-                                         ops.add(arg);
+                                         operands.add(new ArithmeticExpression(arg));
       break;
     case LPAREN:
       jj_consume_token(LPAREN);
-                                                ops.add(evaluateExpressionValue(bindings));
+      expression = ExpressionValue();
+                                         operands.add(expression);
       jj_consume_token(RPAREN);
       break;
     default:
@@ -1252,7 +1259,7 @@ System.out.println(var);
         jj_consume_token(-1);
         throw new ParseException();
       }
-                                                ops.add(token.toString());
+                                                operators.add(token.toString());
       switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
       case IDENTIFIER:
       case SPECIALVAR:
@@ -1260,11 +1267,12 @@ System.out.println(var);
       case STRING:
       case 34:
         arg = GeneralArgument();
-                                ops.add(token.toString());
+                                operands.add(new ArithmeticExpression(token.toString()));
         break;
       case LPAREN:
         jj_consume_token(LPAREN);
-                                                ops.add(evaluateExpressionValue(bindings));
+        expression = ExpressionValue();
+                                           operands.add(expression);
         jj_consume_token(RPAREN);
         break;
       default:
@@ -1273,29 +1281,20 @@ System.out.println(var);
         throw new ParseException();
       }
     }
-//for (String item: ops)
-//System.out.println(item);		
-                int index;
-                if (ops.size()>2){
-                        index=0;
-                        while (index<ops.size()-2){
-                                int op = Functions.getArithmeticOperator(ops.get(index+1));
-                                if (op==Functions.MULTIPLICATION || op==Functions.DIVISION || op==Functions.MODULUSOP) {
-                                        ops.set(index, Functions.compute(op, ops.get(index), ops.get(index+2), bindings));
-                                        ops.remove(index+2);
-                                        ops.remove(index+1);
-                                } else {
-                                        index+=2;
-                                }
+                int index=0;
+                while (index<operators.size()){
+                        int op = Functions.getArithmeticOperator(operators.get(index));
+                        if (op==Functions.MULTIPLICATION || op==Functions.DIVISION || op==Functions.MODULUSOP) {
+                                operands.set(index, new ArithmeticExpression(op, operands.get(index), operands.get(index+1)));
+                                operands.remove(index+1);
+                                operators.remove(index);
+                        } else {
+                                index++;
                         }
                 }
-                String result = ops.get(0);
-                index = 1;
-                while (index<ops.size()){
-                        int op = Functions.getArithmeticOperator(ops.get(index));
-                        result = Functions.compute(op, result, ops.get(index+1), bindings);
-                        index+=2;
-                }
+                ArithmeticExpression result = operands.get(0);
+                for (index=0; index<operators.size(); index++)
+                        result = new ArithmeticExpression(Functions.getArithmeticOperator(operators.get(index)), result, operands.get(index+1));
                 {if (true) return result;}
     throw new Error("Missing return statement in function");
   }
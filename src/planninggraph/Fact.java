@@ -2,6 +2,8 @@ package planninggraph;
 import java.util.*;
 import java.io.*;
 
+import mid.ModelContext;
+
 /**
  *
  * @version 1.0, 12/26/2001
@@ -11,7 +13,9 @@ public class Fact{
 
     private Token  token;         // basic fact (predicate+arguments)
     private Vector firings;       // a list of firings creating the fact
-    private Vector mutexFacts;    // facts that the fact is mutually exclusive
+    private BitSet mutexFacts;    // positions of the facts in the marking level that the fact is mutually exclusive
+    private NetMarking level;     // the marking level of the fact (null if not indexed)
+    private int index = -1;       // position in the marking level
     private int pointer=0;        // pointer of firing selection
 
     /**
@@ -72,21 +76,61 @@ public class Fact{
         return firings.size();
     }
 
+    /**
+     * set the marking level of the fact and its position in the level
+     */
+    void setLevel(NetMarking level, int index){
+        this.level = level;
+        this.index = index;
+    }
+
+    /**
+     * get the position of the fact in its marking level (-1 if not indexed)
+     */
+    public int getIndex(){
+        return index;
+    }
+
+    /**
+     * get the marking level of the fact (null if not indexed)
+     */
+    NetMarking getLevel(){
+        return level;
+    }
+
+    /**
+     * get the positions of the mutually exclusive facts in the marking level (null if none)
+     */
+    BitSet getMutexFactIndices(){
+        return mutexFacts;
+    }
+
+    /**
+     * set the positions of the mutually exclusive facts in the marking level
+     */
+    void setMutexFacts(BitSet mutexFacts){
+        this.mutexFacts = mutexFacts;
+    }
+
     /**
      * get the facts that the fact is mutually exclusive
      */
     public Vector getMutexFacts(){
-        return mutexFacts;
+        if (mutexFacts==null)
+            return null;
+        Vector facts = new Vector();
+        for (int i=mutexFacts.nextSetBit(0); i>=0; i=mutexFacts.nextSetBit(i+1))
+            facts.addElement(level.factAt(i));
+        return facts;
     }
 
     /**
-    * add a mutually exclusive fact
+    * add a mutually exclusive fact of the same marking level
     */
     public void addMutexFact(Fact fact) {
         if (mutexFacts==null)
-            mutexFacts = new Vector();
-        if (!mutexFacts.contains(fact))
-            mutexFacts.addElement(fact);
+            mutexFacts = new BitSet();
+        mutexFacts.set(fact.index);
     }
 
     /**
@@ -138,27 +182,31 @@ public class Fact{
      * reason about mutual exclusion between this fact and another fact
      */
     public void inferMutualExclusion(Fact fact){
+        if (firingsAreMutuallyExclusive(fact)){
+            addMutexFact(fact);
+            fact.addMutexFact(this);
+        }
+    }
+
+    /**
+     * true if every firing creating this fact is mutually exclusive with every firing creating another fact
+     * (does not change the graph, so facts can be checked by several threads)
+     */
+    boolean firingsAreMutuallyExclusive(Fact fact){
         for (int i=0; i<firings.size(); i++) {
             TransitionFiring firing = (TransitionFiring)firings.elementAt(i);
             for(int j=0; j<fact.firings.size(); j++)
                 if (!firing.isMutuallyExclusiveOf((TransitionFiring)fact.firings.elementAt(j)))
-                    return;
+                    return false;
         }
-        addMutexFact(fact);
-        fact.addMutexFact(this);
+        return true;
     }
 
     /**
      * true if this fact is mutually exclusive with another fact
      */
     public boolean isMutuallyExclusiveOf(Fact fact){
-        return (mutexFacts!=null && mutexFacts.contains(fact));
-/*
-        for (int i=0; i<mutexFacts.size(); i++)
-            if ((Fact)mutexFacts.elementAt(i)==fact)
-                return true;
-        return false;
-*/
+        return (mutexFacts!=null && fact.level==level && mutexFacts.get(fact.index));
     }
 
     /**
@@ -208,7 +256,7 @@ public class Fact{
      * convert a fact into a string
      */
     public String toString(){
-        StringBuffer str = new StringBuffer("\n"+PetriNet.places[token.getPlace()]+token);
+        StringBuffer str = new StringBuffer("\n"+ModelContext.current().getPlannerPlace(token.getPlace())+token);
         if (firings!=null){
             str.append("\n  ------------------------ created by following firings");
             for (int i=0; i<firings.size(); i++){
@@ -227,8 +275,8 @@ public class Fact{
         if (mutexFacts==null)
             return "";
         StringBuffer str = new StringBuffer("\n  ------------------------ mutually exclusive with following facts");
-        for (int i=0; i<mutexFacts.size(); i++){
-            str.append(((Fact)mutexFacts.elementAt(i)).basicFactString());
+        for (int i=mutexFacts.nextSetBit(0); i>=0; i=mutexFacts.nextSetBit(i+1)){
+            str.append(level.factAt(i).basicFactString());
         }
         return str.toString();
     }
@@ -237,6 +285,6 @@ public class Fact{
      * basic fact string
      */
     private String basicFactString(){
-        return "\n  "+PetriNet.places[token.getPlace()]+token;
+        return "\n  "+ModelContext.current().getPlannerPlace(token.getPlace())+token;
     }
 }
@@ -10,15 +10,20 @@ package planninggraph;
 
 import java.util.*;
 
+import kernel.CancellationException;
+import kernel.ProgressDialog;
+
 public class FiringSet {
 
     private Vector<TransitionFiring> firings;	// a list of firings for all transitions
+    private HashSet<TransitionFiring> members;	// the same firings, for membership tests
 
     /**
      * default constructor
      */
     public FiringSet(){
         firings = new Vector<TransitionFiring>();
+        members = new HashSet<TransitionFiring>();
     }
 
     /**
@@ -26,13 +31,14 @@ public class FiringSet {
      */
     public FiringSet(Vector<TransitionFiring> firings){
         this.firings = firings;
+        members = new HashSet<TransitionFiring>(firings);
     }
 
     /**
      * add a firing
      */
     public void addFiring(TransitionFiring firing){
-        if (!firings.contains(firing))
+        if (members.add(firing))
             firings.addElement(firing);
     }
 
@@ -40,7 +46,7 @@ public class FiringSet {
      * return true if contains a given firing
      */
     public boolean containsFiring(TransitionFiring firing){
-        return firings.contains(firing);
+        return members.contains(firing);
     }
 
     /**
@@ -55,13 +61,15 @@ public class FiringSet {
      */
     public void removeAllFirings(){
         firings.removeAllElements();
+        members.clear();
     }
 
     /**
      * remove a firing
      */
     public void removeFiring(TransitionFiring firing){
-        firings.removeElement(firing);
+        if (members.remove(firing))
+            firings.removeElement(firing);
     }
 
     /**
@@ -106,21 +114,50 @@ public class FiringSet {
      * A NOOP may also be mutual exclusive of a normal firing if:
      *     1) their preconditions are mutual exclusive, or
      *     2) the normal firing deletes the fact carried forward by the NOOP
+     * The relation is kept as bitsets over the positions of the firings in this level.
+     * Two firings conflict if a precondition of one is mutually exclusive with a precondition of the other,
+     * so the firings that conflict with a firing are found through the mutex facts of its preconditions
+     * (all in the prior marking level) instead of checking every pair of firings.
      */
-    public void inferMutexFirings(){
-        TransitionFiring firing1, firing2;
-        for (int index1=0; index1<firings.size(); index1++){
-            firing1 = (TransitionFiring)firings.elementAt(index1);
-            for (int index2=index1+1; index2<firings.size();index2++){
-                firing2 = (TransitionFiring)firings.elementAt(index2);
-                if (firing1.conflict(firing2)){
-// use following statement to record interference (need more memory)
-//                if (firing1.interference(firing2)||firing1.conflict(firing2)){
-                    firing1.addMutexFiring(firing2);
-                    firing2.addMutexFiring(firing1);
+    public void inferMutexFirings(ProgressDialog progressDialog) throws CancellationException{
+        final TransitionFiring[] level = firings.toArray(new TransitionFiring[firings.size()]);
+        // the firings that use each fact of the prior marking level as a precondition
+        final HashMap<Fact, BitSet> users = new HashMap<Fact, BitSet>();
+        for (int index=0; index<level.length; index++){
+            level[index].setLevel(this, index);
+            Vector<Fact> preCondFacts = level[index].getPreCondFacts();
+            for (int i=0; i<preCondFacts.size(); i++){
+                Fact p = preCondFacts.elementAt(i);
+                BitSet firingsOfFact = users.get(p);
+                if (firingsOfFact==null){
+                    firingsOfFact = new BitSet();
+                    users.put(p, firingsOfFact);
                 }
+                firingsOfFact.set(index);
             }
         }
+// to record interference (need more memory), add the firings that delete the preconditions or postconditions of the firing
+        BitSet[] mutexFirings = MutexInference.infer(level.length, new MutexInference.RowInference(){
+            public BitSet inferRow(int index){
+                BitSet conflicts = new BitSet();
+                Vector<Fact> preCondFacts = level[index].getPreCondFacts();
+                for (int i=0; i<preCondFacts.size(); i++){
+                    Fact p = preCondFacts.elementAt(i);
+                    BitSet mutexFacts = p.getMutexFactIndices();
+                    if (mutexFacts==null)
+                        continue;
+                    for (int q=mutexFacts.nextSetBit(0); q>=0; q=mutexFacts.nextSetBit(q+1)){
+                        BitSet firingsOfFact = users.get(p.getLevel().factAt(q));
+                        if (firingsOfFact!=null)
+                            conflicts.or(firingsOfFact);
+                    }
+                }
+                conflicts.clear(0, index+1);
+                return conflicts.isEmpty()? null: conflicts;
+            }
+        }, progressDialog);
+        for (int index=0; index<level.length; index++)
+            level[index].setMutexFirings(mutexFirings[index]);
     }
 
     /**
@@ -0,0 +1,90 @@
+package planninggraph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import kernel.CancellationException;
+import kernel.ProgressDialog;
+import locales.LocaleBundle;
+
+/**
+ * Mutual exclusion relation among the facts of a marking level or the firings of a firing level,
+ * as one bitset per element indexed by the positions in the level.
+ * Row i is computed for the elements after i only, and is then copied to the rows of those elements.
+ * Large levels are computed on a pool of threads, one row at a time, so the rows must only read the planning graph.
+ */
+class MutexInference {
+
+    // levels with fewer elements are not worth the threads
+    static final int PARALLEL_THRESHOLD = 512;
+
+    interface RowInference {
+        // the positions after the given one that are mutually exclusive with it (null if none)
+        BitSet inferRow(int row);
+    }
+
+    /**
+     * returns the mutex bitset of each element (null if the element is not mutually exclusive with any other)
+     */
+    static BitSet[] infer(final int size, final RowInference rowInference, final ProgressDialog progressDialog) throws CancellationException{
+        final BitSet[] rows = new BitSet[size];
+        int numberOfThreads = Math.min(Runtime.getRuntime().availableProcessors(), size/PARALLEL_THRESHOLD);
+        if (numberOfThreads<2) {
+            for (int row=0; row<size; row++){
+                checkForCancellation(progressDialog);
+                rows[row] = rowInference.inferRow(row);
+            }
+        }
+        else {
+            final AtomicInteger nextRow = new AtomicInteger(0);
+            ExecutorService pool = Executors.newFixedThreadPool(numberOfThreads);
+            try {
+                ArrayList<Future<Object>> workers = new ArrayList<Future<Object>>();
+                for (int worker=0; worker<numberOfThreads; worker++)
+                    workers.add(pool.submit(new Callable<Object>() {
+                        public Object call() throws CancellationException {
+                            int row;
+                            while ((row = nextRow.getAndIncrement())<size) {
+                                checkForCancellation(progressDialog);
+                                rows[row] = rowInference.inferRow(row);
+                            }
+                            return null;
+                        }
+                    }));
+                for (Future<Object> worker: workers)
+                    worker.get();
+            }
+            catch (InterruptedException e) {
+                throw new CancellationException(LocaleBundle.bundleString("Verification cancelled"));
+            }
+            catch (ExecutionException e) {
+                if (e.getCause() instanceof CancellationException)
+                    throw (CancellationException)e.getCause();
+                throw new RuntimeException(e.getCause());
+            }
+            finally {
+                pool.shutdownNow();
+            }
+        }
+        // each pair is recorded in the row of its first element; copy it to the row of the second
+        for (int row=0; row<size; row++)
+            if (rows[row]!=null)
+                for (int column=rows[row].nextSetBit(row+1); column>=0; column=rows[row].nextSetBit(column+1)) {
+                    if (rows[column]==null)
+                        rows[column] = new BitSet();
+                    rows[column].set(row);
+                }
+        return rows;
+    }
+
+    private static void checkForCancellation(ProgressDialog progressDialog) throws CancellationException{
+        if (progressDialog!=null && progressDialog.isCancelled())
+            throw new CancellationException(LocaleBundle.bundleString("Verification cancelled"));
+    }
+}
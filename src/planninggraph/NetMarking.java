@@ -14,20 +14,21 @@ import locales.LocaleBundle;
  */
 public class NetMarking {
 
-    private Vector facts;			// a set of facts
+    private Vector<Fact> facts;			// a set of facts
+    private HashMap<Token, Fact> factIndex;	// the first fact of each token, for searchFact (built when first needed)
 
     /**
      * default constructor
      */
     public NetMarking() {
-        facts = new Vector();
+        facts = new Vector<Fact>();
     }
 
     /**
      * construct a marking in terms of an array of facts
      */
     public NetMarking(Fact[] tokens){
-        facts = new Vector();
+        facts = new Vector<Fact>();
         for (int i=0; i<tokens.length; i++) {
             facts.addElement(tokens[i]);
         }
@@ -36,7 +37,7 @@ public class NetMarking {
     /**
      * construct a marking in terms of a vector of facts.
      */
-    public NetMarking(Vector facts){
+    public NetMarking(Vector<Fact> facts){
         this.facts = facts;
     }
 
@@ -45,12 +46,14 @@ public class NetMarking {
      */
     public void addFact(Fact fact){
             facts.addElement(fact);
+            if (factIndex!=null && !factIndex.containsKey(fact.getToken()))
+                factIndex.put(fact.getToken(), fact);
     }
 
     /**
      * get the facts.
      */
-    public Vector getFacts(){
+    public Vector<Fact> getFacts(){
         return facts;
     }
 
@@ -58,7 +61,7 @@ public class NetMarking {
      * get a fact at specific position
      */
     public Fact factAt(int index){
-        return (Fact)facts.elementAt(index);
+        return facts.elementAt(index);
     }
 
     /**
@@ -68,17 +71,99 @@ public class NetMarking {
         return facts.size();
     }
 
+    /**
+     * make this marking the level of its facts: each fact records its position
+     */
+    public void indexFacts(){
+        for (int index=0; index<facts.size(); index++)
+            factAt(index).setLevel(this, index);
+    }
+
     /**
      * reason about mutual exclusion relationships among facts
+     * the facts are indexed first; the relation is kept as bitsets over their positions.
+     * Two facts are mutually exclusive if every firing creating one is mutually exclusive with every firing creating the other.
+     * Every fact of this level is created by some firing (a NOOP for the facts carried forward), so the candidates
+     * for a fact are the facts created by the firings that are mutually exclusive with its first firing:
+     * the recorded mutex firings and the interfering firings, which delete its preconditions or postconditions or are deleted by it.
+     * Only the candidates are checked against all firings of the fact.
      */
     public void inferMutexFacts(ProgressDialog progressDialog) throws CancellationException{
-        for (int index1=0; index1<facts.size(); index1++){
-    		if (progressDialog!=null && progressDialog.isCancelled())
-    			throw new CancellationException(LocaleBundle.bundleString("Verification cancelled"));
-           Fact p = (Fact)facts.elementAt(index1);
-            for (int index2=index1+1; index2<facts.size(); index2++)
-                p.inferMutualExclusion((Fact)facts.elementAt(index2));
-        }
+        indexFacts();
+        final Fact[] level = facts.toArray(new Fact[facts.size()]);
+        // the firings that delete each fact of this level
+        final HashMap<Fact, Vector<TransitionFiring>> deleters = new HashMap<Fact, Vector<TransitionFiring>>();
+        HashSet<TransitionFiring> visited = new HashSet<TransitionFiring>();
+        for (int index=0; index<level.length; index++)
+            for (int i=0; level[index].getFirings()!=null && i<level[index].numOfFirings(); i++){
+                TransitionFiring firing = (TransitionFiring)level[index].getFirings().elementAt(i);
+                if (!visited.add(firing))
+                    continue;
+                Vector<Fact> delCondFacts = firing.getDelCondFacts();
+                for (int j=0; j<delCondFacts.size(); j++){
+                    Vector<TransitionFiring> firings = deleters.get(delCondFacts.elementAt(j));
+                    if (firings==null){
+                        firings = new Vector<TransitionFiring>();
+                        deleters.put(delCondFacts.elementAt(j), firings);
+                    }
+                    firings.addElement(firing);
+                }
+            }
+        visited = null;
+        BitSet[] mutexFacts = MutexInference.infer(level.length, new MutexInference.RowInference(){
+            public BitSet inferRow(int index){
+                Fact fact = level[index];
+                if (fact.getFirings()==null)
+                    return null;
+                TransitionFiring firing = (TransitionFiring)fact.getFirings().elementAt(0);
+                // firings that may be mutually exclusive with the first firing of the fact
+                Vector<TransitionFiring> candidateFirings = new Vector<TransitionFiring>();
+                BitSet mutexFirings = firing.getMutexFiringIndices();
+                if (mutexFirings!=null)
+                    for (int i=mutexFirings.nextSetBit(0); i>=0; i=mutexFirings.nextSetBit(i+1))
+                        candidateFirings.addElement(firing.getLevel().firingAt(i));
+                Vector<Fact> delCondFacts = firing.getDelCondFacts();
+                for (int i=0; i<delCondFacts.size(); i++){
+                    Fact deleted = delCondFacts.elementAt(i);
+                    addAll(candidateFirings, deleters.get(deleted));
+                    addFirings(candidateFirings, deleted);
+                }
+                Vector<Fact> postCondFacts = firing.getPostCondFacts();
+                for (int i=0; i<postCondFacts.size(); i++)
+                    addAll(candidateFirings, deleters.get(postCondFacts.elementAt(i)));
+                BitSet checked = new BitSet();
+                BitSet mutex = null;
+                for (int i=0; i<candidateFirings.size(); i++){
+                    Vector<Fact> candidates = candidateFirings.elementAt(i).getPostCondFacts();
+                    for (int j=0; j<candidates.size(); j++){
+                        Fact candidate = candidates.elementAt(j);
+                        int candidateIndex = candidate.getIndex();
+                        if (candidate.getLevel()!=NetMarking.this || candidateIndex<=index || checked.get(candidateIndex))
+                            continue;
+                        checked.set(candidateIndex);
+                        if (fact.firingsAreMutuallyExclusive(candidate)){
+                            if (mutex==null)
+                                mutex = new BitSet();
+                            mutex.set(candidateIndex);
+                        }
+                    }
+                }
+                return mutex;
+            }
+        }, progressDialog);
+        for (int index=0; index<level.length; index++)
+            level[index].setMutexFacts(mutexFacts[index]);
+    }
+
+    private static void addAll(Vector<TransitionFiring> to, Vector<TransitionFiring> from){
+        if (from!=null)
+            to.addAll(from);
+    }
+
+    // the firings that create a fact
+    private static void addFirings(Vector<TransitionFiring> to, Fact fact){
+        for (int i=0; fact.getFirings()!=null && i<fact.numOfFirings(); i++)
+            to.addElement((TransitionFiring)fact.getFirings().elementAt(i));
     }
 
     /**
@@ -86,7 +171,7 @@ public class NetMarking {
      */
     public void unSelectFirings(){
         for (int factIndex=0; factIndex<facts.size(); factIndex++)
-            ((Fact)facts.elementAt(factIndex)).resetPointer();
+            facts.elementAt(factIndex).resetPointer();
     }
 
     /**
@@ -94,9 +179,9 @@ public class NetMarking {
      */
     public boolean checkGoalConsistence(){
         for (int i=0; i<facts.size(); i++){
-            Fact p = (Fact)facts.elementAt(i);
+            Fact p = facts.elementAt(i);
             for (int j=i+1; j<facts.size(); j++)
-                if (p.isMutuallyExclusiveOf((Fact)facts.elementAt(j))){
+                if (p.isMutuallyExclusiveOf(facts.elementAt(j))){
 //printGoalPointers("Goal facts are found exclusive:");
 //System.out.println("\n---------------------------");
 //System.out.println("Exclusive facts are found: ");
@@ -177,15 +262,16 @@ public class NetMarking {
      * search a fact
      */
     public Fact searchFact(int pred, String[] args){
-        int i=0;
-        while (i<facts.size()){
-            Fact fact = (Fact)facts.elementAt(i);
-            if (fact.getPlace()==pred && fact.getToken().equalsTo(args)){
-                return fact;
-            }
-            i++;
+        // a token without arguments has the default arguments, so it is never equal to empty args
+        if (args.length==0)
+            return null;
+        if (factIndex==null){
+            factIndex = new HashMap<Token, Fact>();
+            for (int i=0; i<facts.size(); i++)
+                if (!factIndex.containsKey(factAt(i).getToken()))
+                    factIndex.put(factAt(i).getToken(), factAt(i));
         }
-        return null;
+        return factIndex.get(new Token(pred, args));
     }
 
     /**
@@ -214,6 +300,7 @@ public class NetMarking {
         }
         if (i<facts.size()){
             facts.removeElementAt(i);
+            factIndex = null;
             return true;
         }
         return false;
@@ -223,10 +310,10 @@ public class NetMarking {
      * carry forward a marking to next level, connected by noops
      */
     public NetMarking carryForward(FiringSet currentFiringLevel){
-        Vector newFacts = new Vector();
-        Enumeration en = facts.elements();
+        Vector<Fact> newFacts = new Vector<Fact>();
+        Enumeration<Fact> en = facts.elements();
         while (en.hasMoreElements()) {
-            Fact source = (Fact)en.nextElement();
+            Fact source = en.nextElement();
             Fact dest = source.copy();
             TransitionFiring noop = new TransitionFiring(source, dest);
             dest.addFiring(noop);
@@ -240,10 +327,10 @@ public class NetMarking {
      * copy a marking without considering noops
      */
     public NetMarking copy(){
-        Vector newFacts = new Vector();
-        Enumeration en = facts.elements();
+        Vector<Fact> newFacts = new Vector<Fact>();
+        Enumeration<Fact> en = facts.elements();
         while (en.hasMoreElements()) {
-            newFacts.addElement(((Fact)en.nextElement()).copy());
+            newFacts.addElement(en.nextElement().copy());
         }
         return new NetMarking(newFacts);
     }
@@ -252,12 +339,17 @@ public class NetMarking {
      * merge sorted markings
      */
     public void mergeMarkings(NetMarking marking){
+        factIndex = null;
+        if (isSorted()){
+            mergeIntoSortedFacts(marking);
+            return;
+        }
         int index, place;
         boolean inserted;
         Fact f;
-        Enumeration en = marking.facts.elements();
+        Enumeration<Fact> en = marking.facts.elements();
         while (en.hasMoreElements()) {
-            f = (Fact)en.nextElement();
+            f = en.nextElement();
             if (facts.size()==0){
                 facts.addElement(f);
                 continue;
@@ -265,7 +357,7 @@ public class NetMarking {
             inserted =false;
             index = 0;
             while (!inserted && index<facts.size()){
-                if (f.getPlace()<((Fact)facts.elementAt(index)).getPlace()){
+                if (f.getPlace()<facts.elementAt(index).getPlace()){
                     facts.insertElementAt(f, index);
                     inserted =true;
                 }
@@ -277,6 +369,41 @@ public class NetMarking {
         }
     }
 
+    /**
+     * true if the facts are sorted in terms of place indices
+     */
+    private boolean isSorted(){
+        for (int i=1; i<facts.size(); i++)
+            if (factAt(i-1).getPlace()>factAt(i).getPlace())
+                return false;
+        return true;
+    }
+
+    /**
+     * merge in one pass, with the same result as inserting the facts of the given marking one by one:
+     * each new fact goes after the facts of the same place, in the order of the given marking
+     */
+    private void mergeIntoSortedFacts(NetMarking marking){
+        Vector<Fact> newFacts = new Vector<Fact>(marking.facts);
+        Collections.sort(newFacts, new Comparator<Fact>(){     // stable
+            public int compare(Fact fact1, Fact fact2){
+                return fact1.getPlace()-fact2.getPlace();
+            }
+        });
+        Vector<Fact> merged = new Vector<Fact>(facts.size()+newFacts.size());
+        int index=0;
+        for (int i=0; i<newFacts.size(); i++){
+            Fact f = newFacts.elementAt(i);
+            while (index<facts.size() && factAt(index).getPlace()<=f.getPlace())
+                merged.addElement(facts.elementAt(index++));
+            merged.addElement(f);
+        }
+        while (index<facts.size())
+            merged.addElement(facts.elementAt(index++));
+        facts.clear();
+        facts.addAll(merged);
+    }
+
     /**
      * count facts
      */
@@ -287,21 +414,35 @@ public class NetMarking {
             total[i] = 0;
         }
         for (i=0; i<facts.size(); i++){
-            int place = ((Fact)facts.elementAt(i)).getPlace();
+            int place = facts.elementAt(i).getPlace();
             if (start[place] == -1)
                 start[place] = i;
             total[place] = total[place]+1;
         }
     }
 
+    /**
+     * compact key of goal facts that belong to one marking level (for unsolvable goals):
+     * the positions of the facts in the level, two chars each, in the order of the goals
+     */
+    public String levelKey(){
+        char[] key = new char[facts.size()*2];
+        for (int i=0; i<facts.size(); i++){
+            int index = factAt(i).getIndex();
+            key[2*i] = (char)(index>>>16);
+            key[2*i+1] = (char)index;
+        }
+        return new String(key);
+    }
+
     /**
      * hashKey (for goal markings)
      */
     public String hashKey(){
         StringBuffer str = new StringBuffer();
-        Enumeration en = facts.elements();
+        Enumeration<Fact> en = facts.elements();
         while (en.hasMoreElements()) {
-            str.append(((Fact)en.nextElement()).getToken().hashKey());
+            str.append(en.nextElement().getToken().hashKey());
         }
         return str.toString();
     }
@@ -314,9 +455,9 @@ public class NetMarking {
 //            return " ()";
             return "";
         StringBuffer str = new StringBuffer();
-        Enumeration en = facts.elements();
+        Enumeration<Fact> en = facts.elements();
         while (en.hasMoreElements()) {
-            str.append(((Fact)en.nextElement()).toString());
+            str.append(en.nextElement().toString());
         }
 //                str.append("["+index+"]");
         return str.toString();
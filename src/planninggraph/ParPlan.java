@@ -133,7 +133,7 @@ System.out.println(new Marking(allPostConds));
         //not appendable if a precondition of the firing is contained in the postconditions
         for (int j=0; j<f.getPreCondFacts().size(); j++){
             boolean found = false;
-            Fact preFact = (Fact)f.getPreCondFacts().elementAt(j);
+            Fact preFact = f.getPreCondFacts().elementAt(j);
             for (int i=0; i<allPostConds.size(); i++){
                 if (preFact.getToken()==((Fact)allPostConds.elementAt(i)).getToken()){
                     found = true;
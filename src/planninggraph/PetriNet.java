@@ -48,15 +48,14 @@ import kernel.CancellationException;
 import kernel.ProgressDialog;
 import kernel.VerificationManager;
 import locales.LocaleBundle;
+import mid.ModelContext;
 
 
 
 public class PetriNet {
 
-    public static String[]    places;         // place/predicate names; places are referenced by internal numbers
-    public static String[]    transitions;    // tranistion names; transitions are referenced by internal numbers
-//    private String[]    places;         // place/predicate names; places are referenced by internal numbers
-//    private String[]    transitions;    // tranistion names; transitions are referenced by internal numbers
+    private String[]    places;         // place/predicate names; places are referenced by internal numbers
+    private String[]    transitions;    // tranistion names; transitions are referenced by internal numbers
     private NetPredicate[][] preConds;     // preConds[i] is the list of preconditions of transition i
     private NetPredicate[][] delConds;     // preConds[i] is the list of preconditions(delete conditions) of transition i (become untrue after firing)
     private NetPredicate[][] postConds;    // postConds[i] is the list of postconditions(add conditions) of transition i (become true after firing)
@@ -69,7 +68,7 @@ public class PetriNet {
     private FiringSet   currentFiringLevel; // current firing level
 
     private Stack<FiringSet>       firingStack;                        // for plan execution
-    private Vector      unsolvableGoals = new Vector();     // goals that are already proven unsolvable
+    private Vector      unsolvableGoals = new Vector();     // goals that are already proven unsolvable, by level; keyed by NetMarking.levelKey()
     private NetMarking     currentGoals;                       // current goals
 
     // for unification
@@ -93,6 +92,7 @@ public class PetriNet {
         this.transitions = new String[transitions.size()];
         for (int i=0; i<transitions.size(); i++)
             this.transitions[i] = (String)transitions.elementAt(i);
+        ModelContext.current().setPlannerNames(this.places, this.transitions);	// for printing facts and firings
         this.preConds = preConds;
         this.delConds = delConds;
         this.postConds = postConds;
@@ -122,6 +122,8 @@ public class PetriNet {
 //printStartIndex();
         setPreCondVariables();
         int[] goalFactIndices = resetGoalFactIndices(goals);
+        // the keys of unsolvable goals are positions of facts, which are only meaningful in this graph
+        unsolvableGoals.removeAllElements();
         unsolvableGoals.addElement(new Hashtable());
         mLevels.addElement(marking);
 
@@ -163,7 +165,7 @@ if (graphLevelNo>searchDepth){
             doVirtualFirings(tran);
         }
         // reason about mutual exclusion relationships among firings in current firing level
-        currentFiringLevel.inferMutexFirings();
+        currentFiringLevel.inferMutexFirings(progressDialog);
         // save current firing level
         fLevels.addElement(currentFiringLevel);
         // combine marking and newMarking and adjust the fact indices
@@ -249,14 +251,14 @@ if (graphLevelNo>searchDepth){
         NetPredicate[] preCond = preConds[transition];
         // preCondition facts in the prior marking level
         // the firing is not possible if there exist two mutually exclusive facts in preCondFacts
-        Vector preCondFacts = new Vector();
+        Vector<Fact> preCondFacts = new Vector<Fact>();
         for (int preIndex=0; preIndex<preCond.length; preIndex++){
             int place = preCond[preIndex].getName();
             Fact currentFact = marking.factAt(start[place]+pointer[preIndex]-1);
             TransitionFiring noop = (TransitionFiring)currentFact.getFirings().elementAt(0);  // NOOP is the first firing
-            Fact priorFact = (Fact)noop.getPreCondFacts().elementAt(0);   // priorFact and newFact are the same fact connected by NOOP between two levels
+            Fact priorFact = noop.getPreCondFacts().elementAt(0);   // priorFact and newFact are the same fact connected by NOOP between two levels
             for (int i=0; i<preCondFacts.size(); i++)
-                if (priorFact.isMutuallyExclusiveOf((Fact)preCondFacts.elementAt(i)))              // impossible firing
+                if (priorFact.isMutuallyExclusiveOf(preCondFacts.elementAt(i)))              // impossible firing
                     return null;
             preCondFacts.addElement(priorFact);
         }
@@ -268,7 +270,7 @@ if (graphLevelNo>searchDepth){
         firing.setPreCondFacts(preCondFacts);
 
         // set pointers to precondition(delete) facts in the current marking level
-        Vector delCondFacts = new Vector();
+        Vector<Fact> delCondFacts = new Vector<Fact>();
         for (int delIndex=0; delIndex<delConds[transition].length; delIndex++){
             int place = preCond[delIndex].getName();
             delCondFacts.addElement(marking.factAt(start[place]+pointer[delIndex]-1));
@@ -276,7 +278,7 @@ if (graphLevelNo>searchDepth){
         firing.setDelCondFacts(delCondFacts);
 
         // set the pointers to newly created facts in current marking level
-        Vector postCondFacts = new Vector();
+        Vector<Fact> postCondFacts = new Vector<Fact>();
         for ( int postIndex=0; postIndex<postConds[transition].length; postIndex++) {
             NetPredicate p = postConds[transition][postIndex];
             Fact newFact = createNewFact(p.getName(),env.substitute(p.getArguments()));
@@ -356,10 +358,11 @@ if (graphLevelNo>searchDepth){
     			throw new CancellationException(LocaleBundle.bundleString("Verification cancelled"));
             Hashtable unsolvable = (Hashtable)unsolvableGoals.elementAt(currentLevelNo);
             FiringSet firingSet = new FiringSet();
-            if (unsolvable.containsKey(currentGoals.hashKey())){
+            String goalKey = currentGoals.levelKey();
+            if (unsolvable.containsKey(goalKey)){
 //                System.out.println("Current goal is proven unsolvable at level: "+currentLevelNo);
             }
-            if (!unsolvable.containsKey(currentGoals.hashKey()) && goalResolution(firingSet)){
+            if (!unsolvable.containsKey(goalKey) && goalResolution(firingSet)){
 //            System.out.println("Extraction succeeds at level "+currentLevelNo);
                 // goals are solvable at this level
                 goalStack.push(currentGoals);
@@ -373,8 +376,8 @@ if (graphLevelNo>searchDepth){
             }
             else { // goals are not solvable at this level
 //                System.out.println("Extraction fails at level "+currentLevelNo);
-                if (!unsolvable.contains(currentGoals))
-                    unsolvable.put(currentGoals.hashKey(), currentGoals);
+                if (!unsolvable.containsKey(goalKey))
+                    unsolvable.put(goalKey, currentGoals);
                 if (currentLevelNo==mLevels.size()-1){
                     return false;           // no solution found
                 }
@@ -455,10 +458,10 @@ if (graphLevelNo>searchDepth){
         // deduce new subgoals
         NetMarking subGoals = new NetMarking();
         for (int firingIndex=0; firingIndex<firingSet.numOfFirings(); firingIndex++){
-            Vector preCondFacts = firingSet.firingAt(firingIndex).getPreCondFacts();
+            Vector<Fact> preCondFacts = firingSet.firingAt(firingIndex).getPreCondFacts();
             for (int preIndex=0; preIndex<preCondFacts.size(); preIndex++){
-                if (!subGoals.containsFact((Fact)preCondFacts.elementAt(preIndex)))
-                        subGoals.addFact((Fact)preCondFacts.elementAt(preIndex));
+                if (!subGoals.containsFact(preCondFacts.elementAt(preIndex)))
+                        subGoals.addFact(preCondFacts.elementAt(preIndex));
             }
         }
         // check goal consistence
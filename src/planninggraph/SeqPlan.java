@@ -88,9 +88,9 @@ public class SeqPlan {
                 return null;
             }
             if (step instanceof TransitionFiring){
-                Vector postConds = ((TransitionFiring)step).getPostCondFacts();
+                Vector<Fact> postConds = ((TransitionFiring)step).getPostCondFacts();
                 for (int j=0; j<postConds.size(); j++)
-                    allPostConds.addElement((Fact)postConds.elementAt(j));
+                    allPostConds.addElement(postConds.elementAt(j));
             }
         }
         return allPostConds;
@@ -75,6 +75,13 @@ public class Token {
         return true;
     }
 
+    /**
+     * hash code consistent with equals
+     */
+    public int hashCode() {
+        return 31*place+Arrays.hashCode(arguments);
+    }
+
     /**
      * The arguments of this token are the same as given strings
      */
@@ -9,25 +9,29 @@ package planninggraph;
 import java.util.*;
 import java.io.*;
 
+import mid.ModelContext;
+
 public class TransitionFiring extends FiringSubstitution{
 
     private int transition;             // transition
-    private Vector preCondFacts;        // facts of unification(preCond+biCond) in prior marking level
-    private Vector delCondFacts;        // facts of precondition(deletion) in current marking level
-    private Vector postCondFacts;       // facts of postcondition in current marking level
-    private Vector mutexFirings;        // mutual exclusive firings (interference or competing needs/conflict)
+    private Vector<Fact> preCondFacts;        // facts of unification(preCond+biCond) in prior marking level
+    private Vector<Fact> delCondFacts;        // facts of precondition(deletion) in current marking level
+    private Vector<Fact> postCondFacts;       // facts of postcondition in current marking level
+    private BitSet mutexFirings;        // positions of mutual exclusive firings (interference or competing needs/conflict) in the firing level
                                         // to save memory, interference firings may not be recorded
+    private FiringSet level;            // the firing level of the firing (null if not indexed)
+    private int index = -1;             // position in the firing level
 
     /**
      * construct a noop firing, which carried facts from level to level
      */
     TransitionFiring(Fact preFact, Fact postFact){             // noop
         transition = -1;
-        preCondFacts = new Vector();
+        preCondFacts = new Vector<Fact>();
         preCondFacts.addElement(preFact);
-        postCondFacts = new Vector();
+        postCondFacts = new Vector<Fact>();
         postCondFacts.addElement(postFact);
-        delCondFacts = new Vector();
+        delCondFacts = new Vector<Fact>();
     }
 
     /**
@@ -48,59 +52,93 @@ public class TransitionFiring extends FiringSubstitution{
     /**
      * get precondition facts in the previous marking level
      */
-    public Vector getPreCondFacts(){
+    public Vector<Fact> getPreCondFacts(){
         return preCondFacts;
     }
 
     /**
      * set precondition facts in the previous marking level
      */
-    public void setPreCondFacts(Vector preCondFacts){
+    public void setPreCondFacts(Vector<Fact> preCondFacts){
         this.preCondFacts = preCondFacts;
     }
 
     /**
      * get precondition/delete facts
      */
-    public Vector getDelCondFacts(){
+    public Vector<Fact> getDelCondFacts(){
         return delCondFacts;
     }
 
     /**
      * set precondition facts in the previous marking level
      */
-    public void setDelCondFacts(Vector delCondFacts){
+    public void setDelCondFacts(Vector<Fact> delCondFacts){
         this.delCondFacts = delCondFacts;
     }
 
     /**
      * get postcondition facts
      */
-    public Vector getPostCondFacts(){
+    public Vector<Fact> getPostCondFacts(){
         return postCondFacts;
     }
 
     /**
      * set postcondition facts
      */
-    public void setPostCondFacts(Vector postCondFacts){
+    public void setPostCondFacts(Vector<Fact> postCondFacts){
         this.postCondFacts = postCondFacts;
     }
 
+    /**
+     * set the firing level of the firing and its position in the level
+     */
+    void setLevel(FiringSet level, int index){
+        this.level = level;
+        this.index = index;
+    }
+
+    /**
+     * get the firing level of the firing (null if not indexed)
+     */
+    FiringSet getLevel(){
+        return level;
+    }
+
+    /**
+     * get the positions of the mutually exclusive firings in the firing level (null if none)
+     */
+    BitSet getMutexFiringIndices(){
+        return mutexFirings;
+    }
+
+    /**
+     * set the positions of the mutually exclusive firings in the firing level
+     */
+    void setMutexFirings(BitSet mutexFirings){
+        this.mutexFirings = mutexFirings;
+    }
+
     /**
      * get mutually exclusive firings
      */
     public Vector getMutexFirings(){
-        return mutexFirings;
+        if (mutexFirings==null)
+            return null;
+        Vector firings = new Vector();
+        for (int i=mutexFirings.nextSetBit(0); i>=0; i=mutexFirings.nextSetBit(i+1))
+            firings.addElement(level.firingAt(i));
+        return firings;
     }
 
     /**
-     * add a mutually exclusive firing
+     * add a mutually exclusive firing of the same firing level
      */
     public void addMutexFiring(TransitionFiring firing){
         if (mutexFirings==null)
-            mutexFirings = new Vector();
-        mutexFirings.addElement(firing);
+            mutexFirings = new BitSet();
+        mutexFirings.set(firing.index);
     }
 
     /**
@@ -111,15 +149,15 @@ public class TransitionFiring extends FiringSubstitution{
             return false;
 
         for (int i=0; i<firing.postCondFacts.size(); i++) {
-            if (delCondFacts.contains((Fact)firing.postCondFacts.elementAt(i)))
+            if (delCondFacts.contains(firing.postCondFacts.elementAt(i)))
                return true;
         }
         for (int i=0; i<firing.delCondFacts.size(); i++){
-            if (delCondFacts.contains((Fact)firing.delCondFacts.elementAt(i)))
+            if (delCondFacts.contains(firing.delCondFacts.elementAt(i)))
                 return true;
         }
         for (int i=0; i<postCondFacts.size(); i++) {
-            if (firing.delCondFacts.contains((Fact)postCondFacts.elementAt(i)))
+            if (firing.delCondFacts.contains(postCondFacts.elementAt(i)))
                 return true;
         }
         return false;
@@ -130,9 +168,9 @@ public class TransitionFiring extends FiringSubstitution{
      */
     public boolean conflict(TransitionFiring firing){
         for (int i=0; i<preCondFacts.size(); i++) {
-            Fact p = (Fact)preCondFacts.elementAt(i);
+            Fact p = preCondFacts.elementAt(i);
             for (int j=0; j<firing.preCondFacts.size(); j++){
-                Fact q = (Fact)firing.preCondFacts.elementAt(j);
+                Fact q = firing.preCondFacts.elementAt(j);
                 if (p.isMutuallyExclusiveOf(q))
                     return true;
             }
@@ -147,7 +185,7 @@ public class TransitionFiring extends FiringSubstitution{
         if (firing==this)
             return false;
         else
-            return interference(firing) || (mutexFirings!=null && mutexFirings.contains(firing));
+            return interference(firing) || (mutexFirings!=null && firing.level==level && mutexFirings.get(firing.index));
 // use following statement if interference is recorded.
 //        return (mutexFirings!=null && mutexFirings.contains(firing));
     }
@@ -165,7 +203,7 @@ public class TransitionFiring extends FiringSubstitution{
     public String toString(){
         if (transition<0)
             return "  NOOP";
-        return "  "+PetriNet.transitions[transition]+super.toString();
+        return "  "+ModelContext.current().getPlannerTransition(transition)+super.toString();
     }
 
     /**
@@ -176,15 +214,15 @@ public class TransitionFiring extends FiringSubstitution{
         str.append("\n==Unification condition");
         if (preCondFacts!=null)
             for (int i=0; i<preCondFacts.size(); i++)
-                str.append((Fact)preCondFacts.elementAt(i));
+                str.append(preCondFacts.elementAt(i));
         str.append("\n==Precondition/delete condition");
         if (delCondFacts!=null)
             for (int i=0; i<delCondFacts.size(); i++)
-                str.append((Fact)delCondFacts.elementAt(i));
+                str.append(delCondFacts.elementAt(i));
         str.append("\n==PostCondition/add condition");
         if (postCondFacts!=null)
             for (int i=0; i<postCondFacts.size(); i++)
-                str.append((Fact)postCondFacts.elementAt(i));
+                str.append(postCondFacts.elementAt(i));
 
         return new String(str);
     }
@@ -196,8 +234,8 @@ public class TransitionFiring extends FiringSubstitution{
         if (mutexFirings==null)
             return "";
         StringBuffer str = new StringBuffer("\n  ------------------------  mutually exclusive with following firings due to competing needs");
-        for (int i=0; i<mutexFirings.size(); i++)
-            str.append((TransitionFiring)mutexFirings.elementAt(i));
+        for (int i=mutexFirings.nextSetBit(0); i>=0; i=mutexFirings.nextSetBit(i+1))
+            str.append(level.firingAt(i));
         return new String(str);
     }
 
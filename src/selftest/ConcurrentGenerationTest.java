@@ -0,0 +1,125 @@
+package selftest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edit.XMIDEditor;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import kernel.SystemOptions;
+import kernel.TestingManager;
+import locales.LocaleBundle;
+import main.BatchKernel;
+import mid.MID;
+import mid.ModelContext;
+import testcode.TestCodeGenerator;
+import testgeneration.TransitionTree;
+
+// Generates the test code of several models at the same time, each in its own model context,
+// and compares it with the test code generated one model at a time.
+// LightSwitchNet has named constants; the other models do not.
+// Run without the GUI: java -Djava.awt.headless=true selftest.ConcurrentGenerationTest
+
+public class ConcurrentGenerationTest extends TestCase {
+
+	private static final String[] Models = {
+		"examples//robot//LightSwitchNet//LightSwitchNet.xmid",
+		"examples//java//CruiseControl//CruiseControllerNet.xmid",
+		"examples//java//CruiseControl//CruiseController.xmid",
+		"examples//tutorial//FunctionNetReferences//LightSwitchNet.xmid"
+	};
+	private static final int Rounds = 4;
+
+	public static Test suite() {
+		return new TestSuite(ConcurrentGenerationTest.class);
+	}
+
+	public static void main(String args[]) {
+		junit.textui.TestRunner.run(suite());
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		LocaleBundle.setResourceBundle();
+	}
+
+	public void testConcurrentGeneration() throws Exception {
+		ArrayList<String> expectedCode = new ArrayList<String>();
+		for (String model: Models)
+			expectedCode.add(generateTestCode(loadEditor(model)));
+		// the editors are loaded one at a time; parsing, test generation, and code generation are concurrent
+		ArrayList<XMIDEditor> editors = new ArrayList<XMIDEditor>();
+		for (int round=0; round<Rounds; round++)
+			for (String model: Models)
+				editors.add(loadEditor(model));
+		ExecutorService pool = Executors.newFixedThreadPool(Models.length*2);
+		try {
+			ArrayList<Future<String>> results = new ArrayList<Future<String>>();
+			for (final XMIDEditor editor: editors)
+				results.add(pool.submit(new Callable<String>() {
+					public String call() throws Exception {
+						return generateTestCode(editor);
+					}
+				}));
+			for (int index=0; index<results.size(); index++)
+				assertEquals(Models[index%Models.length], expectedCode.get(index%Models.length), results.get(index).get());
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	private XMIDEditor loadEditor(String model) throws Exception {
+		SystemOptions systemOptions = new SystemOptions();
+		systemOptions.setSearchDepth(4);
+		systemOptions.setCoverageCriterion(SystemOptions.ReachabilityTreeCoverage.getID());
+		return new XMIDEditor(new BatchKernel(systemOptions), false, new File(model));
+	}
+
+	private String generateTestCode(XMIDEditor editor) throws Exception {
+		ModelContext.bind(new ModelContext());
+		try {
+			MID mid = editor.parse();
+			assertNotNull(editor.getConsoleText(), mid);
+			BatchKernel kernel = (BatchKernel)editor.getKernel();
+			TransitionTree tree = TestingManager.createTransitionTree(kernel, mid, editor.getModelType());
+			assertNotNull(kernel.getMessages(), tree);
+			tree.generateTransitionTree();
+			File testCodeFile = File.createTempFile("concurrent", ".test");
+			try {
+				TestCodeGenerator.createCodeGenerator(tree).saveTestSuiteCode(testCodeFile);
+				// the named constants are still those of the model, whatever the other threads have parsed
+				return readFile(testCodeFile)+"named constants: "+MID.hasNamedConstants();
+			}
+			finally {
+				testCodeFile.delete();
+			}
+		}
+		finally {
+			ModelContext.bind(null);
+		}
+	}
+
+	private static String readFile(File file) throws IOException {
+		StringBuffer text = new StringBuffer();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine())!=null)
+				text.append(line+"\n");
+		}
+		finally {
+			reader.close();
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,70 @@
+package selftest;
+
+import java.io.File;
+import java.lang.reflect.Field;
+
+import javax.swing.JTextArea;
+
+import edit.ModelPanelTabularNet;
+import edit.XMIDEditor;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import kernel.SystemOptions;
+import locales.LocaleBundle;
+import main.BatchKernel;
+import mid.MID;
+import mid.Transition;
+
+// Parses a model several times in the same editor, as after each change of the model.
+// The transitions of unchanged rows are reused from the previous parse, but each parse must give the transitions of the first one,
+// although the unit tests of a model add places to the conditions of its transitions.
+// Run without the GUI: java -Djava.awt.headless=true selftest.ModelParsingTest
+
+public class ModelParsingTest extends TestCase {
+
+	private static final String Model = "examples//java//CruiseControl//CruiseController.xmid";
+	private static final String UnitTests = "engineOn";
+	private static final int Rounds = 3;
+
+	public static Test suite() {
+		return new TestSuite(ModelParsingTest.class);
+	}
+
+	public static void main(String args[]) {
+		junit.textui.TestRunner.run(suite());
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		LocaleBundle.setResourceBundle();
+	}
+
+	public void testRepeatedParsingWithUnitTests() throws Exception {
+		XMIDEditor editor = new XMIDEditor(new BatchKernel(new SystemOptions()), false, new File(Model));
+		setUnitTests(editor, UnitTests);
+		String expectedTransitions = parse(editor);
+		assertTrue(expectedTransitions, expectedTransitions.contains("[engineOnTest, "));
+		assertFalse(expectedTransitions, expectedTransitions.contains("engineOnTest, engineOnTest"));
+		for (int round=0; round<Rounds; round++)
+			assertEquals(expectedTransitions, parse(editor));
+	}
+
+	// the model panel is parsed directly, as a changed model is never read from its snapshot
+	private String parse(XMIDEditor editor) throws Exception {
+		MID mid = new MID();
+		editor.getModelPanel().parse(mid);
+		assertNull(mid.findErrors());
+		StringBuffer transitions = new StringBuffer();
+		for (Transition transition: mid.getTransitions())
+			transitions.append(transition.getEvent()+" "+transition.getPrecondition()+" "+transition.getPostcondition()+"\n");
+		return transitions.toString();
+	}
+
+	private static void setUnitTests(XMIDEditor editor, String unitTests) throws Exception {
+		Field unitTestsArea = ModelPanelTabularNet.class.getDeclaredField("unitTestsArea");
+		unitTestsArea.setAccessible(true);
+		((JTextArea)unitTestsArea.get(editor.getModelPanel())).setText(unitTests);
+	}
+}
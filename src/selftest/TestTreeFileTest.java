@@ -0,0 +1,118 @@
+package selftest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import edit.BinaryTestTreeReader;
+import edit.TestTreeFile;
+import edit.XMIDEditor;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import kernel.SystemOptions;
+import kernel.TestingManager;
+import locales.LocaleBundle;
+import main.BatchKernel;
+import mid.MID;
+import testcode.TestCodeGenerator;
+import testgeneration.TransitionTree;
+import utilities.FileUtil;
+
+// Saves a test tree in the binary format, loads it into a new tree of the same model,
+// and compares the test code generated from the two trees. The tree is also loaded with only the initial states read,
+// so that the other nodes are read from the file while the test code is generated.
+// The dirty tests of RTD add negative nodes, whose transitions are saved with their arguments;
+// the transitions of CBlocksContracts have parameters, so the nodes also have substitutions.
+// Run without the GUI: java -Djava.awt.headless=true selftest.TestTreeFileTest
+
+public class TestTreeFileTest extends TestCase {
+
+	private static final String[] Models = {
+		"examples//java//CruiseControl//CruiseController.xmid",
+		"examples//c//Blocks//CBlocksContracts.xmid"
+	};
+
+	public static Test suite() {
+		return new TestSuite(TestTreeFileTest.class);
+	}
+
+	public static void main(String args[]) {
+		junit.textui.TestRunner.run(suite());
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		LocaleBundle.setResourceBundle();
+	}
+
+	public void testReachabilityTree() throws Exception {
+		for (String model: Models)
+			checkSavedTree(model, SystemOptions.ReachabilityTreeCoverage.getID());
+	}
+
+	public void testReachabilityTreeWithDirtyTests() throws Exception {
+		for (String model: Models)
+			checkSavedTree(model, SystemOptions.ReachabilityTreeWithDirtyTests.getID());
+	}
+
+	private void checkSavedTree(String model, String coverage) throws Exception {
+		SystemOptions systemOptions = new SystemOptions();
+		systemOptions.setSearchDepth(4);
+		systemOptions.setCoverageCriterion(coverage);
+		BatchKernel kernel = new BatchKernel(systemOptions);
+		XMIDEditor editor = new XMIDEditor(kernel, false, new File(model));
+		MID mid = editor.parse();
+		assertNotNull(editor.getConsoleText(), mid);
+		TransitionTree tree = TestingManager.createTransitionTree(kernel, mid, editor.getModelType());
+		assertNotNull(kernel.getMessages(), tree);
+		tree.generateTransitionTree();
+
+		File testDataFile = File.createTempFile("testtree", "."+FileUtil.TestDataFileExtension);
+		try {
+			TestTreeFile.saveTestData(tree, testDataFile);
+			assertTrue(BinaryTestTreeReader.isBinaryTestTreeFile(testDataFile));
+			BinaryTestTreeReader reader = new BinaryTestTreeReader(testDataFile);
+			assertEquals(coverage, reader.getCoverage());
+			TransitionTree loadedTree = TestingManager.createTransitionTree(kernel, mid, editor.getModelType());
+			reader.loadTree(loadedTree, mid);
+			String testCode = generateTestCode(tree);
+			assertEquals(model+" "+coverage, testCode, generateTestCode(loadedTree));
+			TransitionTree partlyLoadedTree = TestingManager.createTransitionTree(kernel, mid, editor.getModelType());
+			partlyLoadedTree.setRoot(reader.loadSubtree(0, mid, 1));
+			partlyLoadedTree.getRoot().resetChildrenOutlineNumbers(systemOptions.getMaxIdDepth());
+			assertEquals(reader.getChildren(0).length, partlyLoadedTree.getRoot().children().size());
+			assertEquals(model+" "+coverage, testCode, generateTestCode(partlyLoadedTree));
+		}
+		finally {
+			testDataFile.delete();
+		}
+	}
+
+	private String generateTestCode(TransitionTree tree) throws Exception {
+		File testCodeFile = File.createTempFile("testcode", ".txt");
+		try {
+			TestCodeGenerator.createCodeGenerator(tree).saveTestSuiteCode(testCodeFile);
+			return readFile(testCodeFile);
+		}
+		finally {
+			testCodeFile.delete();
+		}
+	}
+
+	private static String readFile(File file) throws IOException {
+		StringBuffer text = new StringBuffer();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine())!=null)
+				text.append(line+"\n");
+		}
+		finally {
+			reader.close();
+		}
+		return text.toString();
+	}
+}
@@ -9,8 +9,8 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.ArrayList;
-import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.HashSet;
+import java.util.Map;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -35,6 +35,7 @@ import mid.Firing;
 import mid.FiringSequence;
 import mid.MID;
 import mid.Marking;
+import mid.MarkingKey;
 import mid.Substitution;
 import mid.Transition;
 import mid.UserDefinedSequences;
@@ -329,13 +330,14 @@ public class OnTheFlyTestingAnalyzer extends JDialog implements ActionListener {
 		}
 		int numberOfSequences=1;
 		ArrayList<Marking> resultMarkings = new ArrayList<Marking>();
+		HashSet<MarkingKey> resultKeys = new HashSet<MarkingKey>();
 		for (FiringSequence firingSequence: sequences.getSequences()){
 			Marking newMarking = findResultantMarking(mid, initMarking, firingSequence);
 			if (listFailureTestsBox.isSelected()){
 				editor.printInConsoleArea("\t"+LocaleBundle.bundleString("Test")+ " "+ numberOfSequences+": "+firingSequence.toCompactString(), false);
 				editor.printInConsoleArea("\t\t"+LocaleBundle.bundleString("Failure state")+ ": "+ newMarking, false);
 			}
-			if (newMarking!=null && !markingExists(resultMarkings, newMarking)) {
+			if (newMarking!=null && resultKeys.add(newMarking.getKey())) {
 				resultMarkings.add(newMarking);
 			}
 			numberOfSequences++;
@@ -354,10 +356,10 @@ public class OnTheFlyTestingAnalyzer extends JDialog implements ActionListener {
 				break;
 			}
 		}
-	// use BFS
+	// use A* for the remaining failure states
 		if (!done) {
-			BFSPathFinder bfsPathFinder = new  BFSPathFinder(progressDialog, mid, editor.getKernel().getSystemOptions().getSearchDepth(), initMarking, goalMarkings, firingPaths);
-			firingPaths = bfsPathFinder.findPaths();
+			ShortestPathFinder pathFinder = new ShortestPathFinder(progressDialog, mid, editor.getKernel().getSystemOptions().getSearchDepth(), initMarking, goalMarkings, firingPaths);
+			firingPaths = pathFinder.findPaths();
 		}
 		reportPaths(initIndex, firingPaths, goalMarkings);
 	}
@@ -388,14 +390,6 @@ public class OnTheFlyTestingAnalyzer extends JDialog implements ActionListener {
 	    return currentMarking;
 	}
 	
-	private boolean markingExists(ArrayList<Marking> markings, Marking marking){
-		for (Marking currentMarking: markings){
-			if (marking.equals(currentMarking))
-				return true;
-		}
-		return false;
-	}
-
     private BufferedWriter pathsLogFileWriter;
 
     private void initLogFile(){
@@ -465,14 +459,16 @@ public class OnTheFlyTestingAnalyzer extends JDialog implements ActionListener {
 			return;
 		}
 		try {
-			ArrayList<UserDefinedSequences> allTests = MIDParser.parseUserDefinedTestSequences(FileUtil.readTextFile(testLogFile), mid);
-			int totalTests = getTotalNumberOfSequences(allTests);
+			// the log is read one sequence at a time, it may be too large for memory
+			TestLogCoverage coverage = new TestLogCoverage(mid, testLogFile, evaluateStateCoverageBox.isSelected() || listCoveredStatesBox.isSelected());
+			coverage.evaluate(progressDialog);
+			long totalTests = coverage.getNumberOfSequences();
 			if (totalTests>0){
 				editor.printInConsoleArea(LocaleBundle.bundleString("TOTAL_NUMBER_OF_TESTS")+": "+totalTests, false);
 				if (evaluateTransitionCoverageBox.isSelected())
-					evaluateTransitionCoverage(allTests, progressDialog);
+					evaluateTransitionCoverage(coverage.getCoveredTransitions(), progressDialog);
 				if (evaluateStateCoverageBox.isSelected() || listCoveredStatesBox.isSelected())
-					evaluateStateCoverage(allTests, progressDialog);
+					evaluateStateCoverage(coverage.getCoveredMarkings(), progressDialog);
 			} else {
 				editor.printInConsoleArea(LocaleBundle.bundleString("THE_LOG_HAS_NO_TESTS")+": "+testLogFile.getName());
 			}
@@ -488,58 +484,36 @@ public class OnTheFlyTestingAnalyzer extends JDialog implements ActionListener {
 		}
 	}
 
-    private void evaluateTransitionCoverage(ArrayList<UserDefinedSequences> allTests, ProgressDialog progressDialog) throws CancellationException{
+    private void evaluateTransitionCoverage(ArrayList<Transition> coveredTransitions, ProgressDialog progressDialog) throws CancellationException{
+    	HashSet<Transition> covered = new HashSet<Transition>(coveredTransitions);
     	ArrayList<Transition> allTransitions = new ArrayList<Transition>();
     	for (Transition transition: mid.getTransitions())
-    		allTransitions.add(transition);
+    		if (!covered.contains(transition))
+    			allTransitions.add(transition);
     	editor.printInConsoleArea(LocaleBundle.bundleString("TOTAL_NUMBER_OF_TRANSITIONS")+": "+mid.getTransitions().size());    	
-    	ArrayList<Transition> coveredTransitions = removeCoveredTransitions(allTests, allTransitions, progressDialog);
     	if (coveredTransitions.size()!=mid.getTransitions().size()) {
     		editor.printInConsoleArea(LocaleBundle.bundleString("NUMBER_OF_COVERED_TRANSITIONS")+": "+coveredTransitions.size());
-    		for (Transition transition: coveredTransitions)
-    			editor.printInConsoleArea("\t"+(coveredTransitions.indexOf(transition)+1)+".\t"+transition.toString().replaceAll("\n", "\n\t\t"));
+    		for (int index=0; index<coveredTransitions.size(); index++)
+    			editor.printInConsoleArea("\t"+(index+1)+".\t"+coveredTransitions.get(index).toString().replaceAll("\n", "\n\t\t"));
     		}
     	editor.printInConsoleArea(LocaleBundle.bundleString("NUMBER_OF_UNCOVERED_TRANSITIONS")+": "+(allTransitions.size())
     			+ " "+ getPercentage(allTransitions.size(), mid.getTransitions().size()));
-    	for (Transition transition: allTransitions)
-        	editor.printInConsoleArea("\t"+(allTransitions.indexOf(transition)+1)+".\t"+transition.toString().replaceAll("\n", "\n\t\t"));
+    	for (int index=0; index<allTransitions.size(); index++)
+        	editor.printInConsoleArea("\t"+(index+1)+".\t"+allTransitions.get(index).toString().replaceAll("\n", "\n\t\t"));
 	}
     
-    private ArrayList<Transition> removeCoveredTransitions(ArrayList<UserDefinedSequences> allTests, ArrayList<Transition> allTransitions, ProgressDialog progressDialog) throws CancellationException{
-    	ArrayList<Transition> coveredTransitions = new ArrayList<Transition>();
-    	ArrayList<Marking> initialMarkings = mid.getInitialMarkings();
-		for (int initIndex=0; initIndex< initialMarkings.size() && allTransitions.size()>0; initIndex++) {
-			UserDefinedSequences sequences = allTests.get(initIndex);
-			if (sequences.hasSequences()) {
-				for (FiringSequence firingSequence: sequences.getSequences()){
-					for (Firing firing: firingSequence.getSequence()) {
-						if (allTransitions.contains(firing.getTransition())){
-							coveredTransitions.add(firing.getTransition());
-							allTransitions.remove(firing.getTransition());
-						}
-						checkForCancellation(progressDialog);
-						if (allTransitions.size()==0)
-							return coveredTransitions;
-					}	
-				}
-			}
-		}
-		return coveredTransitions;
-    }
-    
     private String getPercentage(int portion, int total) {
     	return total==0? "": "("+(portion*100)/total +"%)";
     }
     
-    private void evaluateStateCoverage(ArrayList<UserDefinedSequences> allTests, ProgressDialog progressDialog) throws CancellationException{
-    	ArrayList<Marking> coveredMarkings = getCoveredMarkings(allTests, progressDialog);
+    private void evaluateStateCoverage(ArrayList<Marking> coveredMarkings, ProgressDialog progressDialog) throws CancellationException{
     	editor.printInConsoleArea(LocaleBundle.bundleString("NUMBER_OF_COVERED_STATES")+": "+coveredMarkings.size());
     	listCoveredStates(coveredMarkings, progressDialog);
     	if (evaluateStateCoverageBox.isSelected()){
     		TransitionTreeForStateCoverageBFS stateTree = new TransitionTreeForStateCoverageBFS(mid, editor.getKernel().getSystemOptions().getSystemOptionForStateGeneration());
     		stateTree.setProgressDialog(progressDialog);
     		stateTree.generateTransitionTree();
-    		Hashtable<String, Marking> allReachableMarkings = stateTree.getExpandedMarkings();
+    		Map<MarkingKey, Marking> allReachableMarkings = stateTree.getExpandedMarkings();
     		editor.printInConsoleArea(
     			LocaleBundle.bundleString("TOTAL_NUMBER_OF_STATES")+": "+allReachableMarkings.size()
     			+"\n"+LocaleBundle.bundleString("NUMBER_OF_UNCOVERED_STATES")+": "+(allReachableMarkings.size()-coveredMarkings.size())
@@ -558,14 +532,12 @@ public class OnTheFlyTestingAnalyzer extends JDialog implements ActionListener {
     	}
     }
     
-    private void listUncoveredMarkings(ArrayList<Marking> coveredMarkings, Hashtable<String, Marking> allReachableMarkings, ProgressDialog progressDialog)  throws CancellationException{
+    private void listUncoveredMarkings(ArrayList<Marking> coveredMarkings, Map<MarkingKey, Marking> allReachableMarkings, ProgressDialog progressDialog)  throws CancellationException{
     	if (listUncoveredStatesBox.isSelected()){
         	removeCoveredMarkingsFromAllReachableMarkings(coveredMarkings, allReachableMarkings, progressDialog);
         	if (allReachableMarkings.size()>0){
     			int index=0;
-    			Enumeration<String> keys = allReachableMarkings.keys();
-    			while (keys.hasMoreElements()){
-    				String key = (String)keys.nextElement();
+    			for (MarkingKey key: allReachableMarkings.keySet()){
     				Marking marking = allReachableMarkings.get(key);
     				editor.printInConsoleArea("\t"+(index+1)+".\t"+marking.toString());
     				index++;
@@ -575,30 +547,9 @@ public class OnTheFlyTestingAnalyzer extends JDialog implements ActionListener {
     	}
     }
     
-    private ArrayList<Marking> getCoveredMarkings(ArrayList<UserDefinedSequences> allTests, ProgressDialog progressDialog) throws CancellationException{
-    	ArrayList<Marking> coveredMarkings = new ArrayList<Marking>();
-		ArrayList<Marking> initialMarkings = mid.getInitialMarkings();
-		for (int initIndex=0; initIndex< initialMarkings.size(); initIndex++) {
-			UserDefinedSequences sequences = allTests.get(initIndex);
-			if (sequences.hasSequences()) {
-				Marking	initMarking = initialMarkings.get(initIndex);
-				for (FiringSequence firingSequence: sequences.getSequences()){
-					Marking	currentMarking = initMarking; 
-					for (Firing firing: firingSequence.getSequence()) {
-						currentMarking = mid.fireTransition(currentMarking, firing.getTransition(), firing.getSubstitution());
-						if (!markingExists(coveredMarkings, currentMarking))
-							coveredMarkings.add(currentMarking);
-						checkForCancellation(progressDialog);
-					}	
-				}
-			}
-		}
-		return coveredMarkings;
-	}
-
-    private void removeCoveredMarkingsFromAllReachableMarkings(ArrayList<Marking> coveredMarkings, Hashtable<String, Marking> allMarkings, ProgressDialog progressDialog)  throws CancellationException {
+    private void removeCoveredMarkingsFromAllReachableMarkings(ArrayList<Marking> coveredMarkings, Map<MarkingKey, Marking> allMarkings, ProgressDialog progressDialog)  throws CancellationException {
     	for (Marking coveredMarking: coveredMarkings) {
-			allMarkings.remove(coveredMarking.getKeyString(mid.getPlaces()));
+			allMarkings.remove(coveredMarking.getKey());
      		checkForCancellation(progressDialog);
     	}
     }
@@ -0,0 +1,180 @@
+package simulation;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import locales.LocaleBundle;
+
+import edit.GeneralEditor;
+
+import mid.ModelContext;
+import testcode.TargetLanguage;
+import testcode.TestCodeGeneratorOnline;
+import testgeneration.TransitionTree;
+import testgeneration.TransitionTreeNode;
+
+// Executes the tests of a test tree against several instances of the system under test at the same time, without the GUI.
+// Each endpoint has its own engine and executes one test at a time (set-up, test inputs and oracles, tear-down).
+// An endpoint takes the next test that has not been started, so the tests are shared out by the speed of the endpoints.
+// Results and messages are kept by test and reported in the order of the tests, whichever endpoint executed them.
+// Unlike PrTOnlineTester, there is no delay between steps, and a test that cannot be executed does not stop the others.
+
+public class ParallelOnlineTester {
+
+	public static final int PASSED = 0;
+	public static final int FAILED = 1;
+	// the set-up, a test input, or the tear-down could not be executed
+	public static final int NOT_EXECUTED = 2;
+
+	private GeneralEditor editor;
+	private TransitionTree transitionTree;
+	private ArrayList<URL> endpoints;
+
+	private ArrayList<TransitionTreeNode> tests;
+	private int[] results;
+	private String[] logs;
+
+	public ParallelOnlineTester(GeneralEditor editor, TransitionTree transitionTree, ArrayList<URL> endpoints){
+		this.editor = editor;
+		this.transitionTree = transitionTree;
+		this.endpoints = endpoints;
+	}
+
+	// returns the number of tests that did not pass
+	public int run() throws Exception {
+		// the Selenium engine drives a browser window
+		if (editor.getKernel().getSystemOptions().getLanguage()!=TargetLanguage.RPC)
+			throw new Exception("Parallel online testing needs the RPC language");
+		tests = transitionTree.getAllTestsForCodeGeneration();
+		results = new int[tests.size()];
+		logs = new String[tests.size()];
+		ArrayList<TestCodeGeneratorOnline> engines = new ArrayList<TestCodeGeneratorOnline>();
+		try {
+			for (URL endpoint: endpoints) {
+				TestCodeGeneratorOnline engine = new TestCodeGeneratorOnline(editor, transitionTree.getMID(), endpoint);
+				engines.add(engine);
+				if (!engine.hasTestEngine())
+					throw new Exception(endpoint+": "+LocaleBundle.bundleString("Fail to connect"));
+			}
+			final ModelContext context = ModelContext.current();
+			final AtomicInteger nextTest = new AtomicInteger(0);
+			ExecutorService pool = Executors.newFixedThreadPool(engines.size());
+			try {
+				ArrayList<Future<Object>> workers = new ArrayList<Future<Object>>();
+				for (final TestCodeGeneratorOnline engine: engines)
+					workers.add(pool.submit(new Callable<Object>() {
+						public Object call() {
+							ModelContext.bind(context);
+							try {
+								int test;
+								while ((test = nextTest.getAndIncrement())<tests.size())
+									executeTest(engine, test);
+							}
+							finally {
+								ModelContext.bind(null);
+							}
+							return null;
+						}
+					}));
+				for (Future<Object> worker: workers)
+					worker.get();
+			}
+			catch (ExecutionException e) {
+				throw new Exception(e.getCause());
+			}
+			finally {
+				pool.shutdownNow();
+			}
+		}
+		finally {
+			for (TestCodeGeneratorOnline engine: engines)
+				engine.terminate();
+		}
+		int failures = 0;
+		for (int result: results)
+			if (result!=PASSED)
+				failures++;
+		return failures;
+	}
+
+	public int getNumberOfTests(){
+		return tests!=null? tests.size(): 0;
+	}
+
+	public int getResult(int test){
+		return results[test];
+	}
+
+	// the messages of all tests in the order of the tests
+	public String getLog(){
+		StringBuilder log = new StringBuilder();
+		for (String testLog: logs)
+			if (testLog!=null)
+				log.append(testLog);
+		return log.toString();
+	}
+
+	private void executeTest(TestCodeGeneratorOnline codeGenerator, int testIndex){
+		StringBuilder log = new StringBuilder();
+		codeGenerator.setLog(log);
+		ArrayList<TransitionTreeNode> testSequence = transitionTree.getTestSequence(tests.get(testIndex));
+		results[testIndex] = PASSED;
+		if (testSequence.size()>0) {
+			try {
+				codeGenerator.executeSetUp(testSequence.get(0).getMarking());
+				for (int i=1; i<testSequence.size(); i++) {
+					TransitionTreeNode node = testSequence.get(i);
+					try {
+						codeGenerator.executeTestInput(node.getTransition(), node.getSubstitution());
+						if (!codeGenerator.checkTestOracles(node.getTransition(), node.getSubstitution(), node.getMarking())) {
+							results[testIndex] = FAILED;
+							log.append(LocaleBundle.bundleString("FAILED_TEST")+" "+(testIndex+1)+": "+testSequenceString(testSequence, i)+"\n");
+							break;
+						}
+					}
+					catch (Exception exception) {
+						results[testIndex] = NOT_EXECUTED;
+						log.append(LocaleBundle.bundleString("TEST_NO")+" "+(testIndex+1)+": "+LocaleBundle.bundleString("FAIL_TO_EXECUTE_THE_TEST")+exceptionMessage(exception)+"\n");
+						break;
+					}
+				}
+			}
+			catch (Exception exception) {
+				results[testIndex] = NOT_EXECUTED;
+				log.append(LocaleBundle.bundleString("TEST_NO")+" "+(testIndex+1)+": "+LocaleBundle.bundleString("FAIL_TO_EXECUTE_THE_SETUP")+exceptionMessage(exception)+"\n");
+			}
+			// the next test on this endpoint starts from the tear-down state even if this one has failed
+			try {
+				codeGenerator.executeTearDown();
+			}
+			catch (Exception exception) {
+				results[testIndex] = NOT_EXECUTED;
+				log.append(LocaleBundle.bundleString("TEST_NO")+" "+(testIndex+1)+": "+LocaleBundle.bundleString("FAIL_TO_EXECUTE_THE_TEARDOWN")+exceptionMessage(exception)+"\n");
+			}
+		}
+		logs[testIndex] = log.toString();
+	}
+
+	private static String testSequenceString(ArrayList<TransitionTreeNode> testSequence, int index){
+		StringBuilder result = new StringBuilder();
+		for (int i=1; i<=index; i++) {
+			if (i>1)
+				result.append(", ");
+			TransitionTreeNode node = testSequence.get(i);
+			result.append(node.getTransition().getEvent()+PrTEngine.getActualParameterList(node.getTransition(), node.getSubstitution()));
+		}
+		return result.toString();
+	}
+
+	private static String exceptionMessage(Exception e){
+		String msg = e.toString();
+		int lastIndexOfColon = msg.lastIndexOf(":");
+		return lastIndexOfColon>=0? msg.substring(lastIndexOfColon+1)+".": msg+".";
+	}
+}
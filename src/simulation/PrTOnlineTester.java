@@ -31,7 +31,7 @@ import edit.GeneralEditor;
 
 import mid.Marking;
 import mid.Transition;
-import mid.Unifier;
+import mid.CompiledUnifier;
 import pipeprt.dataLayer.PipeTransition;
 import pipeprt.gui.PrTPanel;
 import testcode.TestCodeGeneratorOnline;
@@ -127,7 +127,7 @@ public class PrTOnlineTester extends PrTEngine implements ActionListener {
 	private void highlightFirableTransitionsInPrTPanel(Marking marking){
 		for (Transition transition: transitionTree.getMID().getTransitions()){
 			PipeTransition pipeTransition = transitionTree.getMID().getPipeTransition(transition);
-			pipeTransition.setHighlighted(new Unifier(transition, marking).getSubstitutions().size()>0);
+			pipeTransition.setHighlighted(new CompiledUnifier(transition, marking).getSubstitutions().size()>0);
 		}
 	}
 
@@ -49,7 +49,7 @@ import mid.MID;
 import mid.Marking;
 import mid.Substitution;
 import mid.Transition;
-import mid.Unifier;
+import mid.CompiledUnifier;
 import pipeprt.dataLayer.PipeTransition;
 import pipeprt.gui.PrTPanel;
 import testcode.TestCodeGeneratorOnline;
@@ -264,7 +264,7 @@ public class PrTSimulator extends PrTEngine implements ActionListener, ItemListe
 		possibleFirings.clear();
 		Marking marking = markings.get(markings.size()-1);
 		for (Transition transition: mid.getTransitions()){
-			Unifier unifier = new Unifier(transition, marking);
+			CompiledUnifier unifier = new CompiledUnifier(transition, marking);
 			ArrayList<Substitution> substitutions =  unifier.getSubstitutions();
 			if (substitutions.size()>0)
 				possibleFirings.put(transition, substitutions);
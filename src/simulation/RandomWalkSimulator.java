@@ -0,0 +1,271 @@
+package simulation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import mid.AssertionProperty;
+import mid.EnabledFirings;
+import mid.Firing;
+import mid.GoalProperty;
+import mid.MID;
+import mid.Marking;
+import mid.ModelContext;
+import mid.Transition;
+
+// Random simulation without the GUI, e.g., for soak testing a model with millions of steps.
+// A walk starts from a random initial marking and fires random enabled firings until none is enabled or the maximum number of steps is reached.
+// Walks are executed by several threads at the same time. Walk k draws its random numbers from a generator seeded with the seed and k,
+// so each walk is the same whatever the number of threads.
+// A walk keeps only its current marking and enabled firings (and its trace if traces are written), so memory does not grow with the steps.
+// Goals and assertions are checked in every marking visited, including the initial ones.
+// Traces are written in the format of the simulation logs, "SEQUENCE (INIT n) event index(bindings), ...", in the order of the walks.
+// If a walk fails, the other walkers stop and the failure is thrown by run().
+
+public class RandomWalkSimulator {
+
+	// finished traces waiting for the traces of earlier walks, per thread
+	private static final int PENDING_TRACES_PER_WALKER = 64;
+
+	private MID mid;
+	private long seed = 0;
+	private long numberOfWalks = 1;
+	private int maxSteps = 100;
+	private int numberOfWalkers = Runtime.getRuntime().availableProcessors();
+	private Writer traceWriter = null;
+	private volatile boolean cancelled = false;
+	private volatile boolean failed = false;
+
+	private ArrayList<GoalProperty> goals;
+	private ArrayList<AssertionProperty> assertions;
+
+	private AtomicLong nextWalk;
+	private AtomicLong completedWalks;
+	private AtomicLong steps;
+	private AtomicLong deadlocks;
+	private AtomicLongArray goalHits;
+	private AtomicLongArray assertionViolations;
+	private AtomicLongArray firstViolatingWalks;
+	private long elapsedTime;
+
+	private HashMap<Long, String> pendingTraces = new HashMap<Long, String>();
+	private long nextTraceToWrite;
+
+	public RandomWalkSimulator(MID mid){
+		this.mid = mid;
+	}
+
+	public void setSeed(long seed){
+		this.seed = seed;
+	}
+
+	public void setNumberOfWalks(long walks){
+		numberOfWalks = walks;
+	}
+
+	public void setMaxSteps(int steps){
+		maxSteps = steps;
+	}
+
+	public void setNumberOfWalkers(int walkers){
+		numberOfWalkers = Math.max(1, walkers);
+	}
+
+	// traces of walks with at least one firing; the writer is not closed
+	public void setTraceWriter(Writer writer){
+		traceWriter = writer;
+	}
+
+	// the walks in progress are completed
+	public void cancel(){
+		cancelled = true;
+	}
+
+	public void run() throws Exception {
+		ArrayList<Marking> initialMarkings = mid.getInitialMarkings();
+		if (initialMarkings.size()==0)
+			throw new Exception("No initial state");
+		goals = mid.getGoalProperties();
+		assertions = mid.getAssertionProperties();
+		nextWalk = new AtomicLong(0);
+		completedWalks = new AtomicLong(0);
+		steps = new AtomicLong(0);
+		deadlocks = new AtomicLong(0);
+		goalHits = new AtomicLongArray(goals.size());
+		assertionViolations = new AtomicLongArray(assertions.size());
+		firstViolatingWalks = new AtomicLongArray(assertions.size());
+		for (int index=0; index<assertions.size(); index++)
+			firstViolatingWalks.set(index, Long.MAX_VALUE);
+		pendingTraces.clear();
+		nextTraceToWrite = 0;
+		cancelled = false;
+		failed = false;
+		// shared by the walks; the enabled firings of a marking are computed once
+		final EnabledFirings[] initialFirings = new EnabledFirings[initialMarkings.size()];
+		for (int index=0; index<initialFirings.length; index++)
+			initialFirings[index] = new EnabledFirings(mid, initialMarkings.get(index));
+		final ModelContext context = ModelContext.current();
+		long start = System.currentTimeMillis();
+		int threads = (int)Math.min(numberOfWalkers, numberOfWalks);
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			// the walkers are waited for in the order they finish, so that a failure is seen at once
+			CompletionService<Object> walkers = new ExecutorCompletionService<Object>(pool);
+			for (int walker=0; walker<threads; walker++)
+				walkers.submit(new Callable<Object>() {
+					public Object call() throws Exception {
+						ModelContext.bind(context);
+						try {
+							long walk;
+							while (!cancelled && !failed && (walk = nextWalk.getAndIncrement())<numberOfWalks) {
+								String trace = walk(walk, initialFirings);
+								if (traceWriter!=null)
+									writeTrace(walk, trace);
+								completedWalks.incrementAndGet();
+							}
+						}
+						catch (Throwable e) {
+							abort();
+							if (e instanceof Exception)
+								throw (Exception)e;
+							throw (Error)e;
+						}
+						finally {
+							ModelContext.bind(null);
+						}
+						return null;
+					}
+				});
+			for (int walker=0; walker<threads; walker++)
+				walkers.take().get();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception)
+				throw (Exception)e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+			elapsedTime = System.currentTimeMillis()-start;
+		}
+		if (traceWriter!=null)
+			traceWriter.flush();
+	}
+
+	// returns the trace of the walk ("" if traces are not written or nothing is fired)
+	private String walk(long walk, EnabledFirings[] initialFirings){
+		Random random = new Random(seed ^ (walk*0x9E3779B97F4A7C15L));
+		int initMarkingIndex = initialFirings.length>1? random.nextInt(initialFirings.length): 0;
+		EnabledFirings firings = initialFirings[initMarkingIndex];
+		Marking marking = firings.getMarking();
+		checkGoalsAndAssertions(walk, marking);
+		StringBuilder trace = traceWriter!=null? new StringBuilder(): null;
+		int step = 0;
+		for (; step<maxSteps; step++) {
+			int numberOfFirings = firings.getNumberOfFirings();
+			if (numberOfFirings==0) {
+				deadlocks.incrementAndGet();
+				break;
+			}
+			Firing firing = firings.getFiring(numberOfFirings>1? random.nextInt(numberOfFirings): 0);
+			Transition transition = firing.getTransition();
+			marking = mid.fireTransition(marking, transition, firing.getSubstitution());
+			firings = firings.fire(transition, marking);
+			checkGoalsAndAssertions(walk, marking);
+			if (trace!=null) {
+				trace.append(step==0? "SEQUENCE (INIT "+initMarkingIndex+") ": ", ");
+				trace.append(transition.getEvent()+" "+mid.getTransitionIndex(transition)+firing.getSubstitution().toString(transition.getAllVariables()));
+			}
+		}
+		steps.addAndGet(step);
+		if (trace==null || step==0)
+			return "";
+		return trace.append("\n").toString();
+	}
+
+	private void checkGoalsAndAssertions(long walk, Marking marking){
+		for (int index=0; index<goals.size(); index++)
+			if (marking.isFirable(goals.get(index)))
+				goalHits.incrementAndGet(index);
+		for (int index=0; index<assertions.size(); index++)
+			if (!marking.isAssertionTrue(assertions.get(index))) {
+				assertionViolations.incrementAndGet(index);
+				long first;
+				while (walk<(first = firstViolatingWalks.get(index)) && !firstViolatingWalks.compareAndSet(index, first, walk));
+			}
+	}
+
+	// stops the other walkers, including those waiting for the trace of the failed walk
+	private synchronized void abort(){
+		failed = true;
+		notifyAll();
+	}
+
+	// traces are written in the order of the walks; a walker waits if too many later traces are pending
+	private synchronized void writeTrace(long walk, String trace) throws IOException, InterruptedException {
+		while (!failed && walk-nextTraceToWrite>=PENDING_TRACES_PER_WALKER*numberOfWalkers)
+			wait();
+		if (failed)
+			return;
+		pendingTraces.put(walk, trace);
+		String next;
+		while ((next = pendingTraces.remove(nextTraceToWrite))!=null) {
+			traceWriter.write(next);
+			nextTraceToWrite++;
+		}
+		notifyAll();
+	}
+
+	public long getNumberOfWalks(){
+		return completedWalks.get();
+	}
+
+	public long getNumberOfSteps(){
+		return steps.get();
+	}
+
+	public long getNumberOfDeadlocks(){
+		return deadlocks.get();
+	}
+
+	public long getGoalHits(int goal){
+		return goalHits.get(goal);
+	}
+
+	public long getAssertionViolations(int assertion){
+		return assertionViolations.get(assertion);
+	}
+
+	public long getElapsedTime(){
+		return elapsedTime;
+	}
+
+	public long getStepsPerSecond(){
+		return elapsedTime>0? steps.get()*1000/elapsedTime: steps.get()*1000;
+	}
+
+	public String getReport(){
+		StringBuilder report = new StringBuilder();
+		report.append("walks: "+completedWalks.get()+", steps: "+steps.get()+", deadlocks: "+deadlocks.get()
+				+", ms: "+elapsedTime+", steps/s: "+getStepsPerSecond()+"\n");
+		for (int index=0; index<goals.size(); index++)
+			report.append("goal "+goals.get(index).getPropertyString()+": "+goalHits.get(index)+" states\n");
+		for (int index=0; index<assertions.size(); index++) {
+			report.append("assertion "+assertions.get(index).getAssertionString()+": "+assertionViolations.get(index)+" violations");
+			if (assertionViolations.get(index)>0)
+				report.append(" (first in walk "+firstViolatingWalks.get(index)+")");
+			report.append("\n");
+		}
+		return report.toString();
+	}
+}
@@ -0,0 +1,227 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+import kernel.CancellationException;
+import kernel.ProgressDialog;
+import locales.LocaleBundle;
+
+import mid.EnabledFirings;
+import mid.Firing;
+import mid.FiringSequence;
+import mid.MID;
+import mid.Marking;
+import mid.MarkingKey;
+import mid.Predicate;
+import mid.Substitution;
+import mid.Transition;
+import mid.Tuple;
+
+// Shortest firing sequences (of at most searchDepth firings) from an initial marking to markings that include the goal markings,
+// e.g., the failure states of a test log. All goals are searched in one A* pass over the reachable markings.
+// The heuristic of a marking is the smallest number of firings that could add the missing tokens of a remaining goal,
+// given the largest number of tokens a firing adds; it never overestimates, so each path found is a shortest one.
+// Only a parent pointer and the last firing are kept for each marking reached, not a tree of nodes.
+
+public class ShortestPathFinder {
+
+	private ProgressDialog progressDialog;
+	private MID mid;
+	private int searchDepth;
+	private Marking initMarking;
+	private ArrayList<Marking> goalMarkings;
+	private ArrayList<FiringSequence> firingSequences;
+
+	// the goals without a path, by index in goalMarkings
+	private ArrayList<Integer> currentGoals = new ArrayList<Integer>();
+	// incremented when goals are found, so that older estimates are recomputed
+	private int goalsVersion = 1;
+	private int maxTokensPerFiring = 1;
+
+	private static class Node {
+		Marking marking;
+		Node parent;
+		Transition transition;
+		Substitution substitution;
+		int depth;
+		int estimate;
+		int estimateVersion;
+		// until the node is expanded
+		EnabledFirings enabledFirings;
+		boolean expanded = false;
+	}
+
+	// a node in the open queue; it is stale if the node has been reached by a shorter path since
+	private static class Entry {
+		Node node;
+		int depth;
+		int cost;
+		long order;
+	}
+
+	private static final Comparator<Entry> ENTRY_ORDER = new Comparator<Entry>() {
+		public int compare(Entry first, Entry second) {
+			if (first.cost!=second.cost)
+				return first.cost<second.cost? -1: 1;
+			// deeper nodes first among equal costs, they are closer to a goal
+			if (first.depth!=second.depth)
+				return first.depth>second.depth? -1: 1;
+			return first.order<second.order? -1: (first.order==second.order? 0: 1);
+		}
+	};
+
+	private PriorityQueue<Entry> queue = new PriorityQueue<Entry>(1024, ENTRY_ORDER);
+	private long numberOfEntries = 0;
+
+	// the paths already found (e.g., by the planning graph) are kept; null elements are searched for
+	public ShortestPathFinder(ProgressDialog progressDialog, MID mid, int searchDepth, Marking initMarking, ArrayList<Marking> goalMarkings, ArrayList<FiringSequence> existingFiringSequences) {
+		this.progressDialog = progressDialog;
+		this.mid = mid;
+		this.searchDepth = searchDepth;
+		this.initMarking = initMarking;
+		this.goalMarkings = goalMarkings;
+		this.firingSequences = existingFiringSequences;
+		for (int goalIndex=0; goalIndex<goalMarkings.size(); goalIndex++)
+			if (firingSequences.get(goalIndex)==null)
+				currentGoals.add(goalIndex);
+		for (Transition transition: mid.getTransitions()) {
+			int tokens = 0;
+			for (Predicate output: transition.getAddPostcondition())
+				if (!output.getName().equalsIgnoreCase(MID.RESET))
+					tokens++;
+			maxTokensPerFiring = Math.max(maxTokensPerFiring, tokens);
+		}
+	}
+
+	public ArrayList<FiringSequence> findPaths() throws CancellationException {
+		HashMap<MarkingKey, Node> reachedMarkings = new HashMap<MarkingKey, Node>();
+		Node initNode = new Node();
+		initNode.marking = initMarking;
+		initNode.depth = 0;
+		initNode.enabledFirings = new EnabledFirings(mid, initMarking);
+		reachedMarkings.put(initMarking.getKey(), initNode);
+		addToQueue(initNode);
+		while (!queue.isEmpty() && currentGoals.size()>0) {
+			checkForCancellation();
+			Entry entry = queue.poll();
+			Node node = entry.node;
+			if (node.expanded || entry.depth!=node.depth)
+				continue;
+			// as before, a path has at least one firing
+			if (node!=initNode && verifyCurrentGoals(node)) {
+				if (currentGoals.size()==0)
+					break;
+				reorderQueue();
+			}
+			node.expanded = true;
+			EnabledFirings enabledFirings = node.enabledFirings;
+			node.enabledFirings = null;
+			if (node.depth>=searchDepth)
+				continue;
+			for (Transition transition: mid.getTransitions()) {
+				for (Substitution substitution: enabledFirings.getSubstitutions(transition)) {
+					Marking newMarking = mid.fireTransition(node.marking, transition, substitution);
+					Node child = reachedMarkings.get(newMarking.getKey());
+					if (child==null) {
+						child = new Node();
+						child.marking = newMarking;
+						reachedMarkings.put(newMarking.getKey(), child);
+					}
+					else if (child.expanded || child.depth<=node.depth+1)
+						continue;
+					child.parent = node;
+					child.transition = transition;
+					child.substitution = substitution;
+					child.depth = node.depth+1;
+					if (child.depth+estimate(child)<=searchDepth) {
+						child.enabledFirings = enabledFirings.fire(transition, newMarking);
+						addToQueue(child);
+					}
+				}
+			}
+		}
+		return firingSequences;
+	}
+
+	// returns true if the node reaches at least one of the current goals
+	private boolean verifyCurrentGoals(Node node) {
+		boolean found = false;
+		for (int i=currentGoals.size()-1; i>=0; i--) {
+			int goalIndex = currentGoals.get(i);
+			if (node.marking.includes(goalMarkings.get(goalIndex))) {
+				firingSequences.set(goalIndex, createFiringSequence(node));
+				currentGoals.remove(i);
+				found = true;
+			}
+		}
+		return found;
+	}
+
+	// the estimates of the open nodes increase when goals are removed
+	private void reorderQueue() {
+		goalsVersion++;
+		PriorityQueue<Entry> oldQueue = queue;
+		queue = new PriorityQueue<Entry>(Math.max(1024, oldQueue.size()), ENTRY_ORDER);
+		for (Entry entry: oldQueue) {
+			Node node = entry.node;
+			if (node.expanded || entry.depth!=node.depth)
+				continue;
+			if (node.depth+estimate(node)<=searchDepth)
+				addToQueue(node);
+			else
+				node.enabledFirings = null;
+		}
+	}
+
+	private void addToQueue(Node node) {
+		Entry entry = new Entry();
+		entry.node = node;
+		entry.depth = node.depth;
+		entry.cost = node.depth+estimate(node);
+		entry.order = numberOfEntries++;
+		queue.add(entry);
+	}
+
+	private int estimate(Node node) {
+		if (node.estimateVersion!=goalsVersion) {
+			node.estimate = estimate(node.marking);
+			node.estimateVersion = goalsVersion;
+		}
+		return node.estimate;
+	}
+
+	// the smallest number of firings needed to add the missing tokens of any current goal
+	private int estimate(Marking marking) {
+		int estimate = Integer.MAX_VALUE;
+		for (int goalIndex: currentGoals) {
+			int missingTokens = 0;
+			Marking goal = goalMarkings.get(goalIndex);
+			for (String place: goal.getPlaces()) {
+				ArrayList<Tuple> tuples = marking.getTuples(place);
+				for (Tuple tuple: goal.getTuples(place))
+					if (tuples==null || !tuples.contains(tuple))
+						missingTokens++;
+			}
+			estimate = Math.min(estimate, (missingTokens+maxTokensPerFiring-1)/maxTokensPerFiring);
+		}
+		return estimate==Integer.MAX_VALUE? 0: estimate;
+	}
+
+	private static FiringSequence createFiringSequence(Node node) {
+		ArrayList<Firing> firings = new ArrayList<Firing>();
+		for (; node.parent!=null; node = node.parent)
+			firings.add(new Firing(node.transition, node.substitution));
+		ArrayList<Firing> sequence = new ArrayList<Firing>(firings.size());
+		for (int index=firings.size()-1; index>=0; index--)
+			sequence.add(firings.get(index));
+		return new FiringSequence(sequence);
+	}
+
+	private void checkForCancellation() throws CancellationException {
+		if (progressDialog!=null && progressDialog.isCancelled())
+			throw new CancellationException(LocaleBundle.bundleString("TEST_ANALYSIS_CANCELLED"));
+	}
+}
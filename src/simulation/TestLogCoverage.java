@@ -0,0 +1,300 @@
+package simulation;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import kernel.CancellationException;
+import kernel.ProgressDialog;
+import locales.LocaleBundle;
+import mid.Firing;
+import mid.FiringSequence;
+import mid.MID;
+import mid.Marking;
+import mid.MarkingKey;
+import mid.ModelContext;
+import mid.Transition;
+import mid.UserDefinedSequences;
+import parser.MIDParser;
+import parser.ParseException;
+
+// Transition and state coverage of a test log ("SEQUENCE (INIT n) firing, ..." per test), read one sequence at a time
+// so that a log is never loaded as a whole. Each sequence is parsed on its own and replayed from its initial marking;
+// covered transitions and markings (by MarkingKey) are kept in hashed sets.
+// A large log is split into regions, each starting at a SEQUENCE line, that are read by separate threads.
+// Covered transitions and markings are listed in the order of their first occurrences, for one initial marking after another
+// (as if the sequences of the log were grouped by initial marking), whatever the number of regions.
+
+public class TestLogCoverage {
+
+	// logs smaller than two regions are read by one thread
+	private static final long REGION_SIZE = 16*1024*1024;
+	private static final long PROGRESS_INTERVAL = 500;
+
+	private MID mid;
+	private File logFile;
+	private boolean evaluateStates;
+
+	private long numberOfSequences = 0;
+	private ArrayList<Transition> coveredTransitions = new ArrayList<Transition>();
+	private ArrayList<Marking> coveredMarkings = new ArrayList<Marking>();
+
+	private AtomicLong bytesRead = new AtomicLong(0);
+	private AtomicLong lastProgressTime = new AtomicLong(0);
+
+	public TestLogCoverage(MID mid, File logFile, boolean evaluateStates){
+		this.mid = mid;
+		this.logFile = logFile;
+		this.evaluateStates = evaluateStates;
+	}
+
+	public long getNumberOfSequences(){
+		return numberOfSequences;
+	}
+
+	public ArrayList<Transition> getCoveredTransitions(){
+		return coveredTransitions;
+	}
+
+	// the markings reached by the firings of the sequences (not the initial markings); empty if states are not evaluated
+	public ArrayList<Marking> getCoveredMarkings(){
+		return coveredMarkings;
+	}
+
+	public void evaluate(final ProgressDialog progressDialog) throws IOException, ParseException, CancellationException {
+		long length = logFile.length();
+		int numberOfRegions = (int)Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), length/REGION_SIZE));
+		final long[] starts = getRegionStarts(numberOfRegions, length);
+		final Region[] regions = new Region[starts.length-1];
+		if (regions.length==1)
+			regions[0] = readRegion(starts[0], starts[1], length, progressDialog);
+		else {
+			final ModelContext context = ModelContext.current();
+			ExecutorService pool = Executors.newFixedThreadPool(regions.length);
+			try {
+				ArrayList<Future<Region>> readers = new ArrayList<Future<Region>>();
+				for (int index=0; index<regions.length; index++) {
+					final int region = index;
+					final long total = length;
+					readers.add(pool.submit(new Callable<Region>() {
+						public Region call() throws Exception {
+							ModelContext.bind(context);
+							try {
+								return readRegion(starts[region], starts[region+1], total, progressDialog);
+							}
+							finally {
+								ModelContext.bind(null);
+							}
+						}
+					}));
+				}
+				for (int index=0; index<regions.length; index++)
+					regions[index] = readers.get(index).get();
+			}
+			catch (InterruptedException e) {
+				throw new CancellationException(LocaleBundle.bundleString("TEST_ANALYSIS_CANCELLED"));
+			}
+			catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException)
+					throw (IOException)e.getCause();
+				if (e.getCause() instanceof ParseException)
+					throw (ParseException)e.getCause();
+				if (e.getCause() instanceof CancellationException)
+					throw (CancellationException)e.getCause();
+				if (e.getCause() instanceof Error)
+					throw (Error)e.getCause();
+				throw new RuntimeException(e.getCause());
+			}
+			finally {
+				pool.shutdownNow();
+			}
+		}
+		merge(regions);
+	}
+
+	private void merge(Region[] regions){
+		numberOfSequences = 0;
+		for (Region region: regions)
+			numberOfSequences += region.sequences;
+		LinkedHashSet<Transition> transitions = new LinkedHashSet<Transition>();
+		LinkedHashMap<MarkingKey, Marking> markings = new LinkedHashMap<MarkingKey, Marking>();
+		for (int initIndex=0; initIndex<mid.getInitialMarkings().size(); initIndex++)
+			for (Region region: regions) {
+				transitions.addAll(region.transitions.get(initIndex));
+				for (Marking marking: region.markings.get(initIndex).values())
+					if (!markings.containsKey(marking.getKey()))
+						markings.put(marking.getKey(), marking);
+			}
+		coveredTransitions = new ArrayList<Transition>(transitions);
+		coveredMarkings = new ArrayList<Marking>(markings.values());
+	}
+
+	// the coverage of the sequences that start in a region, kept by initial marking
+	private class Region {
+		long sequences = 0;
+		ArrayList<LinkedHashSet<Transition>> transitions = new ArrayList<LinkedHashSet<Transition>>();
+		ArrayList<LinkedHashMap<MarkingKey, Marking>> markings = new ArrayList<LinkedHashMap<MarkingKey, Marking>>();
+
+		Region(){
+			for (int initIndex=0; initIndex<mid.getInitialMarkings().size(); initIndex++) {
+				transitions.add(new LinkedHashSet<Transition>());
+				markings.add(new LinkedHashMap<MarkingKey, Marking>());
+			}
+		}
+
+		void replay(int initIndex, FiringSequence firingSequence){
+			sequences++;
+			LinkedHashSet<Transition> initTransitions = transitions.get(initIndex);
+			LinkedHashMap<MarkingKey, Marking> initMarkings = markings.get(initIndex);
+			Marking currentMarking = mid.getInitialMarkings().get(initIndex);
+			for (Firing firing: firingSequence.getSequence()) {
+				initTransitions.add(firing.getTransition());
+				if (evaluateStates) {
+					currentMarking = mid.fireTransition(currentMarking, firing.getTransition(), firing.getSubstitution());
+					if (!initMarkings.containsKey(currentMarking.getKey()))
+						initMarkings.put(currentMarking.getKey(), currentMarking);
+				}
+			}
+		}
+	}
+
+	// reads the sequences whose SEQUENCE line starts in [start, end); the last one may extend beyond end
+	private Region readRegion(long start, long end, long total, ProgressDialog progressDialog) throws IOException, ParseException, CancellationException {
+		Region region = new Region();
+		LineReader reader = new LineReader(logFile, start);
+		try {
+			StringBuilder entry = new StringBuilder();
+			long previousPosition = start;
+			String line;
+			while ((line = reader.readLine())!=null) {
+				if (isSequenceLine(line)) {
+					replayEntry(region, entry);
+					if (reader.getLineStart()>=end)
+						break;
+					checkForCancellation(progressDialog);
+					reportProgress(reader.getLineStart()-previousPosition, total, progressDialog);
+					previousPosition = reader.getLineStart();
+				}
+				entry.append(line).append('\n');
+			}
+			if (line==null)
+				replayEntry(region, entry);
+		}
+		finally {
+			reader.close();
+		}
+		return region;
+	}
+
+	private void replayEntry(Region region, StringBuilder entry) throws ParseException {
+		if (entry.toString().trim().length()==0)
+			return;
+		ArrayList<UserDefinedSequences> sequences = MIDParser.parseUserDefinedTestSequences(entry.toString(), mid);
+		for (int initIndex=0; initIndex<sequences.size(); initIndex++)
+			for (FiringSequence firingSequence: sequences.get(initIndex).getSequences())
+				region.replay(initIndex, firingSequence);
+		entry.setLength(0);
+	}
+
+	// the regions start at the first SEQUENCE line at or after multiples of the length divided by the number of regions
+	private long[] getRegionStarts(int numberOfRegions, long length) throws IOException {
+		ArrayList<Long> starts = new ArrayList<Long>();
+		starts.add(0L);
+		for (int region=1; region<numberOfRegions; region++) {
+			long start = findSequenceLine(length*region/numberOfRegions, length);
+			if (start>starts.get(starts.size()-1))
+				starts.add(start);
+		}
+		starts.add(length);
+		long[] result = new long[starts.size()];
+		for (int index=0; index<result.length; index++)
+			result[index] = starts.get(index);
+		return result;
+	}
+
+	private long findSequenceLine(long offset, long length) throws IOException {
+		LineReader reader = new LineReader(logFile, offset-1);
+		try {
+			reader.readLine();		// the rest of the line that contains offset-1
+			String line;
+			while ((line = reader.readLine())!=null)
+				if (isSequenceLine(line))
+					return reader.getLineStart();
+		}
+		finally {
+			reader.close();
+		}
+		return length;
+	}
+
+	private static boolean isSequenceLine(String line){
+		return line.trim().startsWith("SEQUENCE");
+	}
+
+	private void reportProgress(long bytes, long total, ProgressDialog progressDialog){
+		long read = bytesRead.addAndGet(bytes);
+		long now = System.currentTimeMillis();
+		long last = lastProgressTime.get();
+		if (progressDialog!=null && total>0 && now-last>=PROGRESS_INTERVAL && lastProgressTime.compareAndSet(last, now))
+			progressDialog.setMessage(LocaleBundle.bundleString("ANALYZING_TESTS")+" "+(read*100/total)+"%");
+	}
+
+	private void checkForCancellation(ProgressDialog progressDialog) throws CancellationException {
+		if (progressDialog!=null && progressDialog.isCancelled())
+			throw new CancellationException(LocaleBundle.bundleString("TEST_ANALYSIS_CANCELLED"));
+	}
+
+	// lines of a file from a byte position, with the position of each line
+	private static class LineReader {
+		private FileInputStream file;
+		private InputStream in;
+		private long position;
+		private long lineStart;
+		private ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+
+		LineReader(File logFile, long start) throws IOException {
+			file = new FileInputStream(logFile);
+			position = Math.max(0, start);
+			file.getChannel().position(position);
+			in = new BufferedInputStream(file, 65536);
+		}
+
+		// null at the end of the file
+		String readLine() throws IOException {
+			line.reset();
+			lineStart = position;
+			int b;
+			while ((b = in.read())>=0) {
+				position++;
+				if (b=='\n')
+					return line.toString("UTF-8");
+				line.write(b);
+			}
+			return line.size()>0? line.toString("UTF-8"): null;
+		}
+
+		long getLineStart(){
+			return lineStart;
+		}
+
+		void close(){
+			try {
+				in.close();
+			}
+			catch (IOException e){
+			}
+		}
+	}
+}
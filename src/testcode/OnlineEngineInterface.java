@@ -1,10 +1,16 @@
 package testcode;
 
+import java.util.ArrayList;
+
 import mid.Predicate;
 
 public interface OnlineEngineInterface {
 	public boolean hasEngine();
 	public void executeMethod(Predicate call) throws Exception;
 	public boolean executeQuery(Predicate call) throws Exception;
+	// sends the queries together rather than one round trip each, and returns the position of the first query
+	// whose result is not the expected one (-1 if none). Results are checked in the order of the queries,
+	// as if they were executed one at a time: an error of a query after that position is not reported.
+	public int executeQueries(ArrayList<Predicate> calls, boolean[] expectedResults) throws Exception;
 	public void terminate();
 }
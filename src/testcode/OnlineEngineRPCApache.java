@@ -1,9 +1,13 @@
 package testcode;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
 
 import javax.swing.JOptionPane;
 
+import org.apache.xmlrpc.XmlRpcRequest;
+import org.apache.xmlrpc.client.AsyncCallback;
 import org.apache.xmlrpc.client.XmlRpcClient;
 import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
 
@@ -35,7 +39,44 @@ public class OnlineEngineRPCApache implements OnlineEngineInterface {
 	public boolean executeQuery(Predicate rpc) throws Exception{
 		if (xmlrpc==null)
 			throw new Exception(LocaleBundle.bundleString("Network exception"));
-		String result = (String)xmlrpc.execute (rpc.getName(), rpc.getArguments());
+		return getQueryResult(xmlrpc.execute (rpc.getName(), rpc.getArguments()));
+	}
+
+	// XML-RPC has no standard batch, so the queries are pipelined: all of them are sent asynchronously
+	// before the results, which are kept by position, are awaited
+	public int executeQueries(ArrayList<Predicate> rpcs, boolean[] expectedResults) throws Exception{
+		if (xmlrpc==null)
+			throw new Exception(LocaleBundle.bundleString("Network exception"));
+		final Object[] results = new Object[rpcs.size()];
+		final Throwable[] errors = new Throwable[rpcs.size()];
+		final CountDownLatch done = new CountDownLatch(rpcs.size());
+		for (int index=0; index<rpcs.size(); index++) {
+			final int position = index;
+			xmlrpc.executeAsync(rpcs.get(index).getName(), rpcs.get(index).getArguments(), new AsyncCallback() {
+				public void handleResult(XmlRpcRequest request, Object result) {
+					results[position] = result;
+					done.countDown();
+				}
+				public void handleError(XmlRpcRequest request, Throwable error) {
+					errors[position] = error;
+					done.countDown();
+				}
+			});
+		}
+		done.await();
+		for (int index=0; index<rpcs.size(); index++) {
+			if (errors[index] instanceof Exception)
+				throw (Exception)errors[index];
+			else if (errors[index]!=null)
+				throw new Exception(errors[index]);
+			if (getQueryResult(results[index])!=expectedResults[index])
+				return index;
+		}
+		return -1;
+	}
+
+	private boolean getQueryResult(Object value) throws Exception{
+		String result = (String)value;
 		if (result!=null) {
 			if (result.equals("false"))
 				return false;
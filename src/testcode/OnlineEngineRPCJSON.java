@@ -1,6 +1,16 @@
 package testcode;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpCookie;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONValue;
 
 import com.thetransactioncompany.jsonrpc2.JSONRPC2Request;
 import com.thetransactioncompany.jsonrpc2.JSONRPC2Response;
@@ -14,6 +24,8 @@ public class OnlineEngineRPCJSON implements OnlineEngineInterface {
 	private URL serverURL=null;
 	private JSONRPC2Session mySession =null;
 	private int requestID = 0;
+	// set when the server does not answer a batch with an array of responses; queries are then sent one at a time
+	private boolean batchesUnsupported = false;
 
 	public OnlineEngineRPCJSON(URL url){
 		this.serverURL = url;
@@ -21,10 +33,7 @@ public class OnlineEngineRPCJSON implements OnlineEngineInterface {
 	}
 	
 	public void executeMethod(Predicate rpc) throws Exception{
-		JSONRPC2Request request = new JSONRPC2Request(rpc.getName(), requestID++);
-		if (rpc.getArguments().size()>0)
-			request.setParams(rpc.getArguments());
-		JSONRPC2Response response = mySession.send(request);
+		JSONRPC2Response response = mySession.send(createRequest(rpc));
 		if (response.indicatesSuccess()) {
 //			System.out.println("Success: "+response.getResult());
 		}
@@ -34,10 +43,92 @@ public class OnlineEngineRPCJSON implements OnlineEngineInterface {
 	}
 	
 	public boolean executeQuery(Predicate rpc) throws Exception{
+		return getQueryResult(mySession.send(createRequest(rpc)));
+	}
+
+	// the queries are sent as one JSON-RPC 2.0 batch; the responses may come in any order and are matched by request id
+	public int executeQueries(ArrayList<Predicate> rpcs, boolean[] expectedResults) throws Exception{
+		JSONRPC2Response[] responses = batchesUnsupported || rpcs.size()<2? null: sendBatch(rpcs);
+		for (int index=0; index<rpcs.size(); index++) {
+			boolean result = responses!=null? getQueryResult(responses[index]): executeQuery(rpcs.get(index));
+			if (result!=expectedResults[index])
+				return index;
+		}
+		return -1;
+	}
+
+	private JSONRPC2Response[] sendBatch(ArrayList<Predicate> rpcs) throws Exception{
+		JSONArray batch = new JSONArray();
+		HashMap<Long, Integer> positions = new HashMap<Long, Integer>();
+		for (int index=0; index<rpcs.size(); index++) {
+			JSONRPC2Request request = createRequest(rpcs.get(index));
+			positions.put(((Number)request.getID()).longValue(), index);
+			batch.add(request.toJSON());
+		}
+		Object reply = JSONValue.parse(post(batch.toString()));
+		if (!(reply instanceof JSONArray)) {
+			batchesUnsupported = true;
+			return null;
+		}
+		JSONRPC2Response[] responses = new JSONRPC2Response[rpcs.size()];
+		JSONRPC2Response unmatchedError = null;
+		for (Object member: (JSONArray)reply) {
+			JSONRPC2Response response = JSONRPC2Response.parse(member.toString());
+			Integer position = response.getID() instanceof Number? positions.get(((Number)response.getID()).longValue()): null;
+			if (position!=null)
+				responses[position] = response;
+			else if (!response.indicatesSuccess())
+				unmatchedError = response;
+		}
+		for (JSONRPC2Response response: responses)
+			if (response==null)
+				throw new Exception(unmatchedError!=null? unmatchedError.getError().getMessage(): LocaleBundle.bundleString("Network exception"));
+		return responses;
+	}
+
+	private String post(String content) throws Exception{
+		HttpURLConnection connection = (HttpURLConnection)serverURL.openConnection();
+		try {
+			connection.setDoOutput(true);
+			connection.setRequestMethod("POST");
+			connection.setRequestProperty("Content-Type", "application/json");
+			StringBuilder cookies = new StringBuilder();
+			for (HttpCookie cookie: mySession.getCookies())
+				cookies.append(cookies.length()>0? "; ": "").append(cookie.toString());
+			if (cookies.length()>0)
+				connection.setRequestProperty("Cookie", cookies.toString());
+			OutputStream out = connection.getOutputStream();
+			try {
+				out.write(content.getBytes("UTF-8"));
+			}
+			finally {
+				out.close();
+			}
+			InputStream in = connection.getInputStream();
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try {
+				byte[] buffer = new byte[8192];
+				for (int count=in.read(buffer); count>=0; count=in.read(buffer))
+					bytes.write(buffer, 0, count);
+			}
+			finally {
+				in.close();
+			}
+			return bytes.toString("UTF-8");
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private JSONRPC2Request createRequest(Predicate rpc){
 		JSONRPC2Request request = new JSONRPC2Request(rpc.getName(), requestID++);
 		if (rpc.getArguments().size()>0)
 			request.setParams(rpc.getArguments());
-		JSONRPC2Response response = mySession.send(request);
+		return request;
+	}
+
+	private boolean getQueryResult(JSONRPC2Response response) throws Exception{
 		if (response.indicatesSuccess() && response.getResult()!=null){
 			if (response.getResult().toString().equals("false"))
 				return false;
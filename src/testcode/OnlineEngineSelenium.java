@@ -80,6 +80,14 @@ public class OnlineEngineSelenium implements OnlineEngineInterface {
 		}
 	}
 
+	// the commands drive one browser, so they are executed one at a time
+	public int executeQueries(ArrayList<Predicate> cmds, boolean[] expectedResults){
+		for (int index=0; index<cmds.size(); index++)
+			if (executeQuery(cmds.get(index))!=expectedResults[index])
+				return index;
+		return -1;
+	}
+
 	private String[] transformArguments(ArrayList<String> args){
 		String[] arguments = new String[args.size()];
 		for (int index=0; index<args.size(); index++)
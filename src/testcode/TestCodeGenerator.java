@@ -6,7 +6,13 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import testgeneration.TransitionTree;
 import testgeneration.TransitionTreeForThreatNet;
@@ -20,6 +26,7 @@ import kernel.SystemOptions;
 import mid.MID;
 import mid.Mapping;
 import mid.Marking;
+import mid.ModelContext;
 import mid.Predicate;
 import mid.GoalProperty;
 import mid.Substitution;
@@ -30,6 +37,10 @@ public abstract class TestCodeGenerator {
 	
 	protected boolean preferSpeed = false;
 	
+	// with preferSpeed, the code of each node is generated once and kept here rather than in the tree
+	private HashMap<TransitionTreeNode, String> testInputCodes = new HashMap<TransitionTreeNode, String>();
+	private HashMap<TransitionTreeNode, String> testOracleCodes = new HashMap<TransitionTreeNode, String>();
+	
 	protected static final String TestCodeMessage = "Test code generated by "+Kernel.SYSTEM_NAME;
 	protected String newLine = "\n";
 	protected String tab = "";
@@ -41,6 +52,9 @@ public abstract class TestCodeGenerator {
 	private final boolean assertEffect = false;
 	private final boolean needNegation = true;
 
+	// tests rendered by a worker at a time; at most two chunks per worker are waiting to be written 
+	private static final int TestsPerChunk = 64;
+
 	public TestCodeGenerator(TransitionTree transitionTree) {
 		this.transitionTree = transitionTree;
 		this.mid = transitionTree.getMID();
@@ -103,16 +117,131 @@ public abstract class TestCodeGenerator {
 	abstract public void saveTestsToSeparateFiles(ArrayList<TransitionTreeNode> allTests, PrintWriter testSuiteWriter, File suiteFile) throws CancellationException;
 	abstract public String generateSequenceCodeForReview(ArrayList<TransitionTreeNode> testSequence);
 	
+	// Streaming emission of tests: the tests are rendered in chunks on a pool of workers and written in the order of the tests, 
+	// so that only a few chunks of test code are in memory. 
+	// renderTest is called on the workers; writeTest is called on the thread that saves the code, in the order of the tests.
+	protected abstract class TestEmitter {
+		abstract void renderTest(int testNo, TransitionTreeNode leaf, ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder code) throws CancellationException;
+		abstract void writeTest(int testNo, TransitionTreeNode leaf, String code);
+	}
+
+	protected void emitTests(final ArrayList<TransitionTreeNode> allTests, final TestEmitter emitter) throws CancellationException {
+		int numberOfChunks = (allTests.size()+TestsPerChunk-1)/TestsPerChunk;
+		int numberOfWorkers = Math.min(systemOptions.getNumberOfSearchThreads(), numberOfChunks);
+		if (numberOfWorkers<=1) {
+			StringBuilder code = new StringBuilder();
+			for (int index=0; index<allTests.size(); index++) {
+				transitionTree.checkForCancellation();
+				TransitionTreeNode leaf = allTests.get(index);
+				ArrayList<TransitionTreeNode> testSequence = getTestSequence(leaf);
+				code.setLength(0);
+				emitter.renderTest(index+1, leaf, testSequence, decideOracles(testSequence), code);
+				emitter.writeTest(index+1, leaf, code.toString());
+			}
+			return;
+		}
+		final ModelContext context = ModelContext.current();
+		ExecutorService pool = Executors.newFixedThreadPool(numberOfWorkers);
+		LinkedList<Future<String[]>> chunks = new LinkedList<Future<String[]>>();
+		try {
+			int nextChunk = 0;
+			for (int written=0; written<allTests.size(); ) {
+				while (nextChunk<numberOfChunks && chunks.size()<2*numberOfWorkers) {
+					final int start = nextChunk*TestsPerChunk;
+					final int end = Math.min(start+TestsPerChunk, allTests.size());
+					// the oracles depend on the tests before, so they are decided in the order of the tests
+					final ArrayList<ArrayList<TransitionTreeNode>> testSequences = new ArrayList<ArrayList<TransitionTreeNode>>();
+					final ArrayList<boolean[]> oracles = new ArrayList<boolean[]>();
+					for (int index=start; index<end; index++) {
+						ArrayList<TransitionTreeNode> testSequence = getTestSequence(allTests.get(index));
+						testSequences.add(testSequence);
+						oracles.add(decideOracles(testSequence));
+					}
+					chunks.addLast(pool.submit(new Callable<String[]>() {
+						public String[] call() throws CancellationException {
+							ModelContext.bind(context);
+							try {
+								String[] codes = new String[end-start];
+								StringBuilder code = new StringBuilder();
+								for (int index=start; index<end; index++) {
+									code.setLength(0);
+									emitter.renderTest(index+1, allTests.get(index), testSequences.get(index-start), oracles.get(index-start), code);
+									codes[index-start] = code.toString();
+								}
+								return codes;
+							}
+							finally {
+								ModelContext.bind(null);
+							}
+						}
+					}));
+					nextChunk++;
+				}
+				String[] codes = chunks.removeFirst().get();
+				for (String code: codes) {
+					transitionTree.checkForCancellation();
+					emitter.writeTest(written+1, allTests.get(written), code);
+					written++;
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			throw new CancellationException(e.getMessage());
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof CancellationException)
+				throw (CancellationException)e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	// whether the oracle of each node in the test is generated; with verifyFirstOccurrence, only the first occurrence of a node is verified 
+	private boolean[] decideOracles(ArrayList<TransitionTreeNode> testSequence){
+		boolean[] oracles = new boolean[testSequence.size()];
+		for (int i=1; i<testSequence.size(); i++) {
+			TransitionTreeNode currentNode = testSequence.get(i);
+			oracles[i] = !systemOptions.verifyFirstOccurrence() || !currentNode.isTraversed();
+			currentNode.setTraversed(true);
+		}
+		return oracles;
+	}
+
+	// the input and oracle code of the nodes after the initial state
+	protected void appendTestSteps(ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder code) throws CancellationException {
+		for (int i=1; i<testSequence.size(); i++) {
+			transitionTree.checkForCancellation();
+			TransitionTreeNode currentNode = testSequence.get(i);
+			code.append(getTestInputCode(currentNode));
+			if (oracles[i])
+				code.append(getTestOracleCode(currentNode));
+		}
+	}
+
+	protected String getTestInputCode(TransitionTreeNode node){
+		return preferSpeed? testInputCodes.get(node): generateTestInputCodeForNode(node);
+	}
+
+	protected String getTestOracleCode(TransitionTreeNode node){
+		return preferSpeed? testOracleCodes.get(node): generateTestOracleCodeForNode(node);
+	}
+
 	// generate test code for nodes and node sequences
 	protected void generateAndSetTestCodeForTree(){
+		testInputCodes.clear();
+		testOracleCodes.clear();
 		LinkedList<TransitionTreeNode> queue = new LinkedList<TransitionTreeNode>();
 		for (TransitionTreeNode initNode: transitionTree.getRoot().children())
 			queue.addLast(initNode);
 		while (!queue.isEmpty()) {
 			TransitionTreeNode node = queue.poll();
 			if (!node.getEvent().equalsIgnoreCase(MID.ConstructorEvent)){
-				node.setTestInputCode(generateTestInputCodeForNode(node));
-				node.setTestOracleCode(generateTestOracleCodeForNode(node));
+				testInputCodes.put(node, generateTestInputCodeForNode(node));
+				testOracleCodes.put(node, generateTestOracleCodeForNode(node));
 			}
 			for (TransitionTreeNode child: node.children())
 				queue.addLast(child);
@@ -125,7 +254,7 @@ public abstract class TestCodeGenerator {
 		String testInputCode = "";
 		if (!mid.isHidden(currentNode.getEvent())) {
 			testInputCode += getOptionSetupCode(currentNode);
-			testInputCode += getUserProvidedStatements(currentNode.getParaTable().getNonParaStrings());
+			testInputCode += getUserProvidedStatements(currentNode.getUserInput().getNonParaStrings());
 			testInputCode += getInputActionCode(currentNode);
 			// if dirty tests are expected to throw exceptions
 			testInputCode = getExceptionHandlingCode(currentNode, testInputCode);
@@ -152,8 +281,8 @@ public abstract class TestCodeGenerator {
 	protected String getInputActionExpression(TransitionTreeNode currentNode) {
 		String event = currentNode.getEvent();
 		String inputActionCode = "";  
-		if (currentNode.getParaTable().hasParameters()) { // 1st priority - implementation parameters entered via the GUI
-			inputActionCode = getInputActionWithImplementationParameters(currentNode, currentNode.getParaTable().getParameters());
+		if (currentNode.getUserInput().hasParameters()) { // 1st priority - implementation parameters entered via the GUI
+			inputActionCode = getInputActionWithImplementationParameters(currentNode, currentNode.getUserInput().getParameters());
 		} else if (mid.hasParameters(event)) {// 2nd priority - specification parameters in the mid file 
 			inputActionCode = getInputActionWithSpecificationParameters(currentNode, mid.getParameters(event));
 		} else if (systemOptions.generateTestParameters()){// 3rd priority - bindings from firings if expected
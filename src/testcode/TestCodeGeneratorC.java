@@ -6,7 +6,7 @@ package testcode;
 import java.io.File;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.Vector;
+import java.util.List;
 
 import kernel.CancellationException;
 
@@ -44,38 +44,39 @@ public class TestCodeGeneratorC extends TestCodeGenerator {
 
 	}
 
-	public void saveTestsToSeparateFiles(ArrayList<TransitionTreeNode> allTests, PrintWriter testSuiteWriter, File testSuiteFile) throws CancellationException{
+	public void saveTestsToSeparateFiles(ArrayList<TransitionTreeNode> allTests, final PrintWriter testSuiteWriter, File testSuiteFile) throws CancellationException{
 		testSuiteWriter.print("/*Tests are saved in the following files*/\n");
-		String filePrefix = FileUtil.getPrefix(testSuiteFile.getName());
-		String fileExtension = FileUtil.getExtension(testSuiteFile.getName());
-		String fileDir = testSuiteFile.getParent();		
-		String header = getHeader();
-		String helper = getHelperCode();
-		String[] setupDefitnitions = getAllSetupDefinitions();
-		String tearDown = getTearDownCode();
-		String assertDefinition = getAssertDefinition();
-		int testNo = 1;
+		final String filePrefix = FileUtil.getPrefix(testSuiteFile.getName());
+		final String fileExtension = FileUtil.getExtension(testSuiteFile.getName());
+		final String fileDir = testSuiteFile.getParent();		
+		final String header = getHeader();
+		final String helper = getHelperCode();
+		final String[] setupDefitnitions = getAllSetupDefinitions();
+		final String tearDown = getTearDownCode();
+		final String assertDefinition = getAssertDefinition();
 		try {
-		for (TransitionTreeNode leaf : allTests) {
-			transitionTree.checkForCancellation();
-			ArrayList<TransitionTreeNode> testSequence = getTestSequence(leaf);
-			StringBuffer testCodeBuffer = new StringBuffer();
-			testCodeBuffer.append("/*"+TestCodeMessage+"*/\n\n");
-			testCodeBuffer.append(header);
-			testCodeBuffer.append(helper);
-			int initStateIndex = Integer.parseInt(testSequence.get(0).getOutlineNumber())-1;
-			testCodeBuffer.append(setupDefitnitions[initStateIndex]);
-			testCodeBuffer.append(tearDown);
-			testCodeBuffer.append(assertDefinition);		
-			testCodeBuffer.append(generateTestMethod(testNo, testSequence));
-			testCodeBuffer.append(newLine); 
-			testCodeBuffer.append(getTestCaseDriverCode(getTestId(testNo, leaf)));
-			String testFileName = filePrefix+getTestId(testNo, leaf)+"."+fileExtension;
-			String testFilePath = fileDir+File.separator+testFileName;
-			FileUtil.saveStringToTextFile(testCodeBuffer.toString(), testFilePath);
-			testSuiteWriter.print(testFileName+"\n");
-			testNo++;
-		}		
+			// each test file is written by the worker that renders it
+			emitTests(allTests, new TestEmitter() {
+				void renderTest(int testNo, TransitionTreeNode leaf, ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder testFileName) throws CancellationException {
+					StringBuilder testCodeBuffer = new StringBuilder();
+					testCodeBuffer.append("/*"+TestCodeMessage+"*/\n\n");
+					testCodeBuffer.append(header);
+					testCodeBuffer.append(helper);
+					int initStateIndex = Integer.parseInt(testSequence.get(0).getOutlineNumber())-1;
+					testCodeBuffer.append(setupDefitnitions[initStateIndex]);
+					testCodeBuffer.append(tearDown);
+					testCodeBuffer.append(assertDefinition);		
+					generateTestMethod(testNo, testSequence, oracles, testCodeBuffer);
+					testCodeBuffer.append(newLine); 
+					testCodeBuffer.append(getTestCaseDriverCode(getTestId(testNo, leaf)));
+					testFileName.append(filePrefix+getTestId(testNo, leaf)+"."+fileExtension);
+					String testFilePath = fileDir+File.separator+testFileName;
+					FileUtil.saveStringToTextFile(testCodeBuffer.toString(), testFilePath);
+				}
+				void writeTest(int testNo, TransitionTreeNode leaf, String testFileName) {
+					testSuiteWriter.print(testFileName+"\n");
+				}
+			});
 		} catch (CancellationException e){
 			testSuiteWriter.close();
 			throw e;
@@ -103,14 +104,16 @@ public class TestCodeGeneratorC extends TestCodeGenerator {
 	}
 
 
-	protected void getTestCaseSegment(ArrayList<TransitionTreeNode> allLeaves, PrintWriter out) throws CancellationException{
-		int testNo=1;
-		for (TransitionTreeNode leaf : allLeaves) {
-			transitionTree.checkForCancellation();
-			ArrayList<TransitionTreeNode> testSequence = getTestSequence(leaf);
-			out.print(generateTestMethod(testNo, testSequence) + "\n");
-			testNo++;
-		}
+	protected void getTestCaseSegment(ArrayList<TransitionTreeNode> allLeaves, final PrintWriter out) throws CancellationException{
+		emitTests(allLeaves, new TestEmitter() {
+			void renderTest(int testNo, TransitionTreeNode leaf, ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder code) throws CancellationException {
+				generateTestMethod(testNo, testSequence, oracles, code);
+				code.append("\n");
+			}
+			void writeTest(int testNo, TransitionTreeNode leaf, String code) {
+				out.print(code);
+			}
+		});
 	}
 
 	protected String getAlphaCode(){
@@ -181,7 +184,7 @@ public class TestCodeGeneratorC extends TestCodeGenerator {
 	}
 	
 	protected String[] getAllSetupDefinitions(){
-		Vector<TransitionTreeNode> initNodes = transitionTree.getRoot().children(); 
+		List<TransitionTreeNode> initNodes = transitionTree.getRoot().children(); 
 		String[] setUpMethods = new String[initNodes.size()];
 		if (mid.hasSetUpCode()){
 			String setUpCode = "\n"+newLine+mid.getSetUpCode().replaceAll("\n", newLine);
@@ -201,7 +204,7 @@ public class TestCodeGeneratorC extends TestCodeGenerator {
 			return setUpAttribute+mid.getSetUpCode();
 		// if no user-defined setup  
 		// generate setUp method from each of the initial states
-		Vector<TransitionTreeNode> initNodes = transitionTree.getRoot().children(); 
+		List<TransitionTreeNode> initNodes = transitionTree.getRoot().children(); 
 		String setupCode = "";
 		for (int i=0; i<initNodes.size(); i++){
 			String index= i==0? "": ""+(i+1);
@@ -228,23 +231,17 @@ public class TestCodeGeneratorC extends TestCodeGenerator {
 	} 
 
 	// test sequence must start with an initial state node
-	protected String generateTestMethod(int testNo, ArrayList<TransitionTreeNode> testSequence) throws CancellationException {
+	protected void generateTestMethod(int testNo, ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder code) throws CancellationException {
 		String name = transitionTree instanceof TransitionTreeForThreatNet? "Attack":"Test case";
-		String methodBody = newLine + tab +"printf(\""+ name+ " "+ getTestId(testNo, testSequence) + "\\n\");";
-		methodBody += generateSetupCallCode(testSequence.get(0));
-		for (int i=1; i<testSequence.size(); i++) {
-			transitionTree.checkForCancellation();
-			TransitionTreeNode currentNode = testSequence.get(i);
-			methodBody += preferSpeed? currentNode.getTestInputCode(): generateTestInputCodeForNode(currentNode);
-			if (!systemOptions.verifyFirstOccurrence() || !currentNode.isTraversed())
-				methodBody += preferSpeed? currentNode.getTestOracleCode(): generateTestOracleCodeForNode(currentNode);
-			currentNode.setTraversed(true);
-		}
+		code.append(getTestMethodSignature(testNo, testSequence) + "{");
+		code.append(newLine + tab +"printf(\""+ name+ " "+ getTestId(testNo, testSequence) + "\\n\");");
+		code.append(generateSetupCallCode(testSequence.get(0)));
+		appendTestSteps(testSequence, oracles, code);
 		if (transitionTree instanceof TransitionTreeForThreatNet)
-			methodBody += newLine + tab +"printf(\"Attack "+ getTestId(testNo, testSequence) + " succeeded!\\n\");";
+			code.append(newLine + tab +"printf(\"Attack "+ getTestId(testNo, testSequence) + " succeeded!\\n\");");
 		if (mid.hasTearDownCode())
-			methodBody += newLine +tab+"tearDown();";
-		return getTestMethodSignature(testNo, testSequence) + "{" + methodBody + newLine + "}";
+			code.append(newLine +tab+"tearDown();");
+		code.append(newLine + "}");
 	}
 	
 	protected String getInputActionCode(TransitionTreeNode currentNode) {
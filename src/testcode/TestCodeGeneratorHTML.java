@@ -6,7 +6,7 @@ package testcode;
 import java.io.File;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.Vector;
+import java.util.List;
 
 import kernel.CancellationException;
 
@@ -23,7 +23,7 @@ public class TestCodeGeneratorHTML extends TestCodeGenerator {
 		super(transitionTree);
 	}
 	
-	public void saveTestsToSingleFile(ArrayList<TransitionTreeNode> allLeaves, PrintWriter testSuiteWriter) throws CancellationException {
+	public void saveTestsToSingleFile(ArrayList<TransitionTreeNode> allLeaves, final PrintWriter testSuiteWriter) throws CancellationException {
 		testSuiteWriter.print(systemOptions.getHeader());
 		if (mid.hasAlphaBlock())
 			testSuiteWriter.print(newLine+mid.getAlphaBlock().replace("\n", newLine));
@@ -31,14 +31,16 @@ public class TestCodeGeneratorHTML extends TestCodeGenerator {
 				"\n<meta http-equiv=\"Content-Type\" content=\"text/html; charset=UTF-8\" />"+
 				"\n</head>"+
 				"\n<body>");
-		int testNo = 1;
 		try {
-			for (TransitionTreeNode leaf : allLeaves) {
-				transitionTree.checkForCancellation();
-				ArrayList<TransitionTreeNode> testSequence = getTestSequence(leaf);
-				testSuiteWriter.print(generateTestCaseCode(testNo, testSequence) + newLine);
-				testNo++;
-			}
+			emitTests(allLeaves, new TestEmitter() {
+				void renderTest(int testNo, TransitionTreeNode leaf, ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder code) throws CancellationException {
+					generateTestCaseCode(testNo, testSequence, oracles, code);
+					code.append(newLine);
+				}
+				void writeTest(int testNo, TransitionTreeNode leaf, String code) {
+					testSuiteWriter.print(code);
+				}
+			});
 		} catch (CancellationException e){
 			testSuiteWriter.close();
 			throw e;
@@ -46,13 +48,13 @@ public class TestCodeGeneratorHTML extends TestCodeGenerator {
 		testSuiteWriter.print(getTestSuiteEnd()); 
 	}
 
-	public void saveTestsToSeparateFiles(ArrayList<TransitionTreeNode> allLeaves, PrintWriter testSuiteWriter, File testSuiteFile) throws CancellationException{
+	public void saveTestsToSeparateFiles(ArrayList<TransitionTreeNode> allLeaves, final PrintWriter testSuiteWriter, File testSuiteFile) throws CancellationException{
 		testSuiteWriter.print(systemOptions.getHeader());
 		if (mid.hasAlphaBlock())
 			testSuiteWriter.print(newLine+mid.getAlphaBlock().replace("\n", newLine));
-		String filePrefix = FileUtil.getPrefix(testSuiteFile.getName());
-		String fileExtension = FileUtil.getExtension(testSuiteFile.getName());
-		String fileDir = testSuiteFile.getParent();		
+		final String filePrefix = FileUtil.getPrefix(testSuiteFile.getName());
+		final String fileExtension = FileUtil.getExtension(testSuiteFile.getName());
+		final String fileDir = testSuiteFile.getParent();		
 		testSuiteWriter.print("\n<head>"+
 				"\n\t<meta content=\"text/html; charset=UTF-8\" http-equiv=\"content-type\" />" +
 				"\n\t<title>Test Suite</title>"+
@@ -60,19 +62,22 @@ public class TestCodeGeneratorHTML extends TestCodeGenerator {
 				"\n<body>"+
 				"\n<table id=\"suiteTable\" cellpadding=\"1\" cellspacing=\"1\" border=\"1\" class=\"selenium\"><tbody>"+
 				"\n<tr><td><b>Test Suite</b></td></tr>\n");
-		int testNo = 1;
 		try {
-			for (TransitionTreeNode leaf : allLeaves) {
-				transitionTree.checkForCancellation();
-				ArrayList<TransitionTreeNode> testSequence = getTestSequence(leaf);
-				String testCaseCode = generateTestCaseCode(testNo, testSequence) + newLine; 
-				String testFileName = filePrefix+getTestId(testNo, leaf)+"."+fileExtension;
-				String testFilePath = fileDir+File.separator+testFileName;
-				FileUtil.saveStringToTextFile(testCaseCode, testFilePath);
-				String linkInSuite = "<tr><td><a href=\"" + testFileName +"\"> "+testFileName+" </a></td></tr>"+ newLine;
-				testSuiteWriter.print(linkInSuite);
-				testNo++;
-			}	
+			// each test file is written by the worker that renders it; the link is written into the suite
+			emitTests(allLeaves, new TestEmitter() {
+				void renderTest(int testNo, TransitionTreeNode leaf, ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder linkInSuite) throws CancellationException {
+					StringBuilder testCaseCode = new StringBuilder();
+					generateTestCaseCode(testNo, testSequence, oracles, testCaseCode);
+					testCaseCode.append(newLine); 
+					String testFileName = filePrefix+getTestId(testNo, leaf)+"."+fileExtension;
+					String testFilePath = fileDir+File.separator+testFileName;
+					FileUtil.saveStringToTextFile(testCaseCode.toString(), testFilePath);
+					linkInSuite.append("<tr><td><a href=\"" + testFileName +"\"> "+testFileName+" </a></td></tr>"+ newLine);
+				}
+				void writeTest(int testNo, TransitionTreeNode leaf, String linkInSuite) {
+					testSuiteWriter.print(linkInSuite);
+				}
+			});
 		} catch (CancellationException e){
 			testSuiteWriter.close();
 			throw e;
@@ -81,23 +86,15 @@ public class TestCodeGeneratorHTML extends TestCodeGenerator {
 		testSuiteWriter.print(getTestSuiteEnd()); 
 	} 
 	
-	private String generateTestCaseCode(int testNo, ArrayList<TransitionTreeNode> testSequence) throws CancellationException{
-		String  testCase = getInitializationCode(getTestId(testNo, testSequence));
+	private void generateTestCaseCode(int testNo, ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder code) throws CancellationException{
+		code.append(getInitializationCode(getTestId(testNo, testSequence)));
 		if (mid.getGoalProperties().size()>0 && systemOptions.createGoalTags() && 
 				systemOptions.hasTagCodeForTestFramework() && systemOptions.areGoalTagsAtBeginningOfTests())
-			testCase += getGoalTagsAtBeginningOfTest(testSequence);
-		testCase += getSetupCode(testSequence);
-		for (int i=1; i<testSequence.size(); i++) {
-			transitionTree.checkForCancellation();
-			TransitionTreeNode currentNode = testSequence.get(i);
-			testCase += preferSpeed? currentNode.getTestInputCode(): generateTestInputCodeForNode(currentNode);
-			if (!systemOptions.verifyFirstOccurrence() || !currentNode.isTraversed())
-				testCase += preferSpeed? currentNode.getTestOracleCode(): generateTestOracleCodeForNode(currentNode);
-			currentNode.setTraversed(true);
-		}
-		testCase += newLine+ "</tbody></table>";
-		testCase += getTearDownCode();
-		return testCase;
+			code.append(getGoalTagsAtBeginningOfTest(testSequence));
+		code.append(getSetupCode(testSequence));
+		appendTestSteps(testSequence, oracles, code);
+		code.append(newLine+ "</tbody></table>");
+		code.append(getTearDownCode());
 	}
 	
 	private String getTestSuiteEnd(){
@@ -142,7 +139,7 @@ public class TestCodeGeneratorHTML extends TestCodeGenerator {
 	private String[] setupDefinitions = getAllSetupDefinitions();
 	
 	private String[] getAllSetupDefinitions(){
-		Vector<TransitionTreeNode> initNodes = transitionTree.getRoot().children(); 
+		List<TransitionTreeNode> initNodes = transitionTree.getRoot().children(); 
 		String[] setUpMethods = new String[initNodes.size()];
 		if (mid.hasSetUpCode()){
 			String setUpCode = newLine+mid.getSetUpCode();
@@ -20,67 +20,63 @@ public class TestCodeGeneratorKBT extends TestCodeGenerator {
 		tab = "\t";
 	}
 	
-	public void saveTestsToSingleFile(ArrayList<TransitionTreeNode> allLeaves, PrintWriter testSuiteWriter) throws CancellationException {
+	public void saveTestsToSingleFile(ArrayList<TransitionTreeNode> allLeaves, final PrintWriter testSuiteWriter) throws CancellationException {
 		testSuiteWriter.print(getHeader()+"*** Testcases ***\n");
-		int testNo = 1;
 		try {
-			for (TransitionTreeNode leaf : allLeaves) {
-				transitionTree.checkForCancellation();
-				ArrayList<TransitionTreeNode> testSequence = getTestSequence(leaf);
-				testSuiteWriter.print("test"+testNo);	
-				if (mid.getGoalProperties().size()>0 && systemOptions.createGoalTags() && 
-						systemOptions.hasTagCodeForTestFramework() && systemOptions.areGoalTagsAtBeginningOfTests())
-					testSuiteWriter.print(getGoalTagsAtBeginningOfTest(testSequence));
-				testSuiteWriter.print(generateTestCaseCode(testNo, testSequence) + newLine);
-				testNo++;
-			}
+			emitTests(allLeaves, new TestEmitter() {
+				void renderTest(int testNo, TransitionTreeNode leaf, ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder code) throws CancellationException {
+					code.append("test"+testNo);	
+					if (mid.getGoalProperties().size()>0 && systemOptions.createGoalTags() && 
+							systemOptions.hasTagCodeForTestFramework() && systemOptions.areGoalTagsAtBeginningOfTests())
+						code.append(getGoalTagsAtBeginningOfTest(testSequence));
+					generateTestCaseCode(testSequence, oracles, code);
+					code.append(newLine);
+				}
+				void writeTest(int testNo, TransitionTreeNode leaf, String code) {
+					testSuiteWriter.print(code);
+				}
+			});
 		} catch (CancellationException e){
 			testSuiteWriter.close();
 			throw e;
 		}
 	}
 
-	public void saveTestsToSeparateFiles(ArrayList<TransitionTreeNode> allLeaves, PrintWriter testSuiteWriter, File testSuiteFile) throws CancellationException{
+	public void saveTestsToSeparateFiles(ArrayList<TransitionTreeNode> allLeaves, final PrintWriter testSuiteWriter, File testSuiteFile) throws CancellationException{
 		testSuiteWriter.print(systemOptions.getHeader());
-		String filePrefix = FileUtil.getPrefix(testSuiteFile.getName());
-		String fileExtension = FileUtil.getExtension(testSuiteFile.getName());
-		String fileDir = testSuiteFile.getParent();		
-		int testNo = 1;
+		final String filePrefix = FileUtil.getPrefix(testSuiteFile.getName());
+		final String fileExtension = FileUtil.getExtension(testSuiteFile.getName());
+		final String fileDir = testSuiteFile.getParent();		
 		try {
-			for (TransitionTreeNode leaf : allLeaves) {
-				transitionTree.checkForCancellation();
-				ArrayList<TransitionTreeNode> testSequence = getTestSequence(leaf);
-				String testCaseCode = getHeader()
-						+"*** Testcases ***\n"
-						+"test"+testNo;
-				if (mid.getGoalProperties().size()>0 && systemOptions.createGoalTags() && 
-								systemOptions.hasTagCodeForTestFramework() && systemOptions.areGoalTagsAtBeginningOfTests())
-						testCaseCode += getGoalTagsAtBeginningOfTest(testSequence);
-				testCaseCode += generateTestCaseCode(testNo, testSequence) + newLine; 
-				String testFileName = filePrefix+getTestId(testNo, leaf)+"."+fileExtension;
-				String testFilePath = fileDir+File.separator+testFileName;
-				FileUtil.saveStringToTextFile(testCaseCode, testFilePath);
-				String linkInSuite = testFileName+ newLine;
-				testSuiteWriter.print(linkInSuite);
-				testNo++;
-			}	
+			// each test file is written by the worker that renders it; the file name is written into the suite
+			emitTests(allLeaves, new TestEmitter() {
+				void renderTest(int testNo, TransitionTreeNode leaf, ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder linkInSuite) throws CancellationException {
+					StringBuilder testCaseCode = new StringBuilder(getHeader()
+							+"*** Testcases ***\n"
+							+"test"+testNo);
+					if (mid.getGoalProperties().size()>0 && systemOptions.createGoalTags() && 
+							systemOptions.hasTagCodeForTestFramework() && systemOptions.areGoalTagsAtBeginningOfTests())
+						testCaseCode.append(getGoalTagsAtBeginningOfTest(testSequence));
+					generateTestCaseCode(testSequence, oracles, testCaseCode);
+					testCaseCode.append(newLine); 
+					String testFileName = filePrefix+getTestId(testNo, leaf)+"."+fileExtension;
+					String testFilePath = fileDir+File.separator+testFileName;
+					FileUtil.saveStringToTextFile(testCaseCode.toString(), testFilePath);
+					linkInSuite.append(testFileName+ newLine);
+				}
+				void writeTest(int testNo, TransitionTreeNode leaf, String linkInSuite) {
+					testSuiteWriter.print(linkInSuite);
+				}
+			});
 		} catch (CancellationException e){
 			testSuiteWriter.close();
 			throw e;
 		}
 	} 
 	
-	private String generateTestCaseCode(int testNo, ArrayList<TransitionTreeNode> testSequence) throws CancellationException{
-		String  testCase = "\t";
-		for (int i=1; i<testSequence.size(); i++) {
-			transitionTree.checkForCancellation();
-			TransitionTreeNode currentNode = testSequence.get(i);
-			testCase += preferSpeed? currentNode.getTestInputCode(): generateTestInputCodeForNode(currentNode);
-			if (!systemOptions.verifyFirstOccurrence() || !currentNode.isTraversed())
-				testCase += preferSpeed? currentNode.getTestOracleCode(): generateTestOracleCodeForNode(currentNode);
-			currentNode.setTraversed(true);
-		}
-		return testCase;
+	private void generateTestCaseCode(ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder code) throws CancellationException{
+		code.append("\t");
+		appendTestSteps(testSequence, oracles, code);
 	}
 	
 	public String generateSequenceCodeForReview(ArrayList<TransitionTreeNode> testSequence) {
@@ -6,7 +6,7 @@ package testcode;
 import java.io.File;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.Vector;
+import java.util.List;
 
 import kernel.CancellationException;
 
@@ -61,74 +61,77 @@ public class TestCodeGeneratorOO extends TestCodeGenerator{
 		}
 	}
 
-	public void saveTestsToSeparateFiles(ArrayList<TransitionTreeNode> allTests, PrintWriter testSuiteWriter, File testSuiteFile) throws CancellationException{
+	public void saveTestsToSeparateFiles(final ArrayList<TransitionTreeNode> allTests, PrintWriter testSuiteWriter, File testSuiteFile) throws CancellationException{
 		
-		String filePrefix = FileUtil.getPrefix(testSuiteFile.getName());
-		String fileExtension = FileUtil.getExtension(testSuiteFile.getName());
-		String fileDir = testSuiteFile.getParent();		
-		String basicClassName = FileUtil.getTestClassName(transitionTree);
-		String packageAndImportCode = getPackageAndImportCode();
-		String[] setupDefinitions = getAllSetupDefinitions();
-		String tearDownCode = getTearDownCode();
-		String assertDefinition = language.getAssertDefinition();
-		String helperCode = mid.hasHelperCode()?
+		final String filePrefix = FileUtil.getPrefix(testSuiteFile.getName());
+		final String fileExtension = FileUtil.getExtension(testSuiteFile.getName());
+		final String fileDir = testSuiteFile.getParent();		
+		final String basicClassName = FileUtil.getTestClassName(transitionTree);
+		final String packageAndImportCode = getPackageAndImportCode();
+		final String[] setupDefinitions = getAllSetupDefinitions();
+		final String tearDownCode = getTearDownCode();
+		final String assertDefinition = language.getAssertDefinition();
+		final String helperCode = mid.hasHelperCode()?
 			"\n"+newLine+mid.getHelperCode().replaceAll("\n", newLine): "";
-		String endOfNameSpace = mid.hasPackageBlock()? language.getEndOfNameSpace():"";
+		final String endOfNameSpace = mid.hasPackageBlock()? language.getEndOfNameSpace():"";
 		
 		testSuiteWriter.print(language.getLineCommentToken()+TestCodeMessage+"\n\n");
 		testSuiteWriter.print(packageAndImportCode);
 		testSuiteWriter.print(getClassSignature(FileUtil.getTestClassName(transitionTree)));
 		
-		String callsInTestSuite = getAlphaCode();
-		int testNo = 1;
+		final StringBuilder callsInTestSuite = new StringBuilder(getAlphaCode());
 		try {
-		for (TransitionTreeNode leaf : allTests) {
-			if (transitionTree.getProgressDialog()!=null){
-				transitionTree.getProgressDialog().setMessage(LocaleBundle.bundleString("Generating test code")+testNo+"/"+allTests.size());
-				transitionTree.checkForCancellation();
-			}
-			ArrayList<TransitionTreeNode> testSequence = getTestSequence(leaf);
-			String testClassName = basicClassName+testNo;
-			String testID = getTestId(testNo, leaf);
-			StringBuffer testCodeBuffer = new StringBuffer();
-			testCodeBuffer.append(language.getLineCommentToken()+TestCodeMessage+"\n\n");
-			testCodeBuffer.append(packageAndImportCode);
-			if (systemOptions.useTestFramework())
-				testCodeBuffer.append(language.getTestFixtureAttribute());
-			testCodeBuffer.append(getClassSignature(testClassName));
-			testCodeBuffer.append(createObjectVariableDeclaration());
-			int initStateIndex = Integer.parseInt(testSequence.get(0).getOutlineNumber())-1;
-			testCodeBuffer.append(setupDefinitions[initStateIndex]);
-			testCodeBuffer.append(tearDownCode);
-			testCodeBuffer.append(assertDefinition);		
-			String testAttribute = systemOptions.useTestFramework()? language.getTestAttribute(): "";
-			testCodeBuffer.append(testAttribute+generateTestMethod(testNo, testSequence));
-			testCodeBuffer.append(newLine); 
-			testCodeBuffer.append(helperCode);
-			String testCall = newLine+tab+language.getTestMethodCall(testClassName, ""+testNo, testID).replace("\n", newLine+tab);
-			if (systemOptions.useTestFramework())
-				testCodeBuffer.append(language.endClassWithoutMainMathod());
-			else
-				testCodeBuffer.append(language.endClassWithMainMathod(newLine, tab, testCall)); 
-			testCodeBuffer.append(endOfNameSpace);
-			String testFileName = filePrefix+testID+"."+fileExtension;
-			String testFilePath = fileDir+File.separator+testFileName;
-			FileUtil.saveStringToTextFile(testCodeBuffer.toString(), testFilePath);
-
-			callsInTestSuite += testCall;
-			
-			testNo++;
-		}
+			// each test file is written by the worker that renders it; the test call is written into the suite
+			emitTests(allTests, new TestEmitter() {
+				void renderTest(int testNo, TransitionTreeNode leaf, ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder testCall) throws CancellationException {
+					String testClassName = basicClassName+testNo;
+					String testID = getTestId(testNo, leaf);
+					StringBuilder testCodeBuffer = new StringBuilder();
+					testCodeBuffer.append(language.getLineCommentToken()+TestCodeMessage+"\n\n");
+					testCodeBuffer.append(packageAndImportCode);
+					if (systemOptions.useTestFramework())
+						testCodeBuffer.append(language.getTestFixtureAttribute());
+					testCodeBuffer.append(getClassSignature(testClassName));
+					testCodeBuffer.append(createObjectVariableDeclaration());
+					int initStateIndex = Integer.parseInt(testSequence.get(0).getOutlineNumber())-1;
+					testCodeBuffer.append(setupDefinitions[initStateIndex]);
+					testCodeBuffer.append(tearDownCode);
+					testCodeBuffer.append(assertDefinition);		
+					if (systemOptions.useTestFramework())
+						testCodeBuffer.append(language.getTestAttribute());
+					generateTestMethod(testNo, testSequence, oracles, testCodeBuffer);
+					testCodeBuffer.append(newLine); 
+					testCodeBuffer.append(helperCode);
+					testCall.append(newLine+tab+language.getTestMethodCall(testClassName, ""+testNo, testID).replace("\n", newLine+tab));
+					if (systemOptions.useTestFramework())
+						testCodeBuffer.append(language.endClassWithoutMainMathod());
+					else
+						testCodeBuffer.append(language.endClassWithMainMathod(newLine, tab, testCall.toString())); 
+					testCodeBuffer.append(endOfNameSpace);
+					String testFileName = filePrefix+testID+"."+fileExtension;
+					String testFilePath = fileDir+File.separator+testFileName;
+					FileUtil.saveStringToTextFile(testCodeBuffer.toString(), testFilePath);
+				}
+				void writeTest(int testNo, TransitionTreeNode leaf, String testCall) {
+					showProgress(testNo, allTests.size());
+					callsInTestSuite.append(testCall);
+				}
+			});
 		} catch (CancellationException e){
 			testSuiteWriter.close();
 			throw e;
 		}
 		if (mid.hasOmegaBlock())
-			callsInTestSuite += newLine+ tab + mid.getOmegaBlock().replace("\n", newLine+tab);
-		testSuiteWriter.print(language.endClassWithMainMathod(newLine, tab, callsInTestSuite));
+			callsInTestSuite.append(newLine+ tab + mid.getOmegaBlock().replace("\n", newLine+tab));
+		testSuiteWriter.print(language.endClassWithMainMathod(newLine, tab, callsInTestSuite.toString()));
 		testSuiteWriter.print(endOfNameSpace);
 	}
 
+	private void showProgress(int testNo, int numberOfTests){
+		if (transitionTree.getProgressDialog()!=null)
+			transitionTree.getProgressDialog().setMessage(LocaleBundle.bundleString("Generating test code")+testNo+"/"+numberOfTests);
+	}
+
 	// called when user clicks on a leaf of the tree
 	// test sequence must start with an initial state node
 	public String generateSequenceCodeForReview(ArrayList<TransitionTreeNode> testSequence) {
@@ -186,20 +189,20 @@ public class TestCodeGeneratorOO extends TestCodeGenerator{
 		return mid.hasAlphaBlock()? newLine +tab+ mid.getAlphaBlock().replace("\n", newLine+tab):"";
 	} 
 
-	private void getTestCaseSegment(ArrayList<TransitionTreeNode> allLeaves, PrintWriter out) throws CancellationException {
-		String testAttribute = systemOptions.useTestFramework()?
+	private void getTestCaseSegment(final ArrayList<TransitionTreeNode> allLeaves, final PrintWriter out) throws CancellationException {
+		final String testAttribute = systemOptions.useTestFramework()?
 				language.getTestAttribute(): "";
-		int testNo = 1;		
-		for (TransitionTreeNode leaf : allLeaves) {
-			if (transitionTree.getProgressDialog()!=null) {
-				transitionTree.getProgressDialog().setMessage(LocaleBundle.bundleString("Generating test code")+testNo+"/"+allLeaves.size());
-				transitionTree.checkForCancellation();
+		emitTests(allLeaves, new TestEmitter() {
+			void renderTest(int testNo, TransitionTreeNode leaf, ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder code) throws CancellationException {
+				code.append(testAttribute);
+				generateTestMethod(testNo, testSequence, oracles, code);
+				code.append("\n");
 			}
-			out.print(testAttribute);
-			ArrayList<TransitionTreeNode> testSequence = getTestSequence(leaf);
-			out.print(generateTestMethod(testNo, testSequence) + "\n");
-			testNo++;
-		}
+			void writeTest(int testNo, TransitionTreeNode leaf, String code) {
+				showProgress(testNo, allLeaves.size());
+				out.print(code);
+			}
+		});
 	}
 
 	private void getTestSuiteSegment(ArrayList<TransitionTreeNode> leaves, PrintWriter out) throws CancellationException {
@@ -261,7 +264,7 @@ public class TestCodeGeneratorOO extends TestCodeGenerator{
 			return setUpAttribute+newLine+mid.getSetUpCode().replaceAll("\n", newLine)+"\n";
 		// if no user-defined setup  
 		// generate setUp method from each of the initial states
-		Vector<TransitionTreeNode> initNodes = transitionTree.getRoot().children(); 
+		List<TransitionTreeNode> initNodes = transitionTree.getRoot().children(); 
 		String setupCode = "";
 		for (int i=0; i<initNodes.size(); i++){
 			String index= i==0? "": ""+(i+1);
@@ -273,7 +276,7 @@ public class TestCodeGeneratorOO extends TestCodeGenerator{
 	private String[] getAllSetupDefinitions(){
 		String setUpAttribute = systemOptions.useTestFramework()?
 				formatAttribute(language.getSetUpAttribute()): "";
-		Vector<TransitionTreeNode> initNodes = transitionTree.getRoot().children(); 
+		List<TransitionTreeNode> initNodes = transitionTree.getRoot().children(); 
 		String[] setUpMethods = new String[initNodes.size()];
 		if (mid.hasSetUpCode()){
 			// user-defined setUp method
@@ -312,8 +315,8 @@ public class TestCodeGeneratorOO extends TestCodeGenerator{
 	// for setUp method definition
 	protected String generateObjectConstructionCode(TransitionTreeNode currentNode) {
 		String className = mid.getSystemName();
-		ParaTableModel paraTable = currentNode.getParaTable();
-		String statements = getUserProvidedStatements(currentNode.getParaTable().getNonParaStrings());
+		ParaTableModel paraTable = currentNode.getUserInput();
+		String statements = getUserProvidedStatements(currentNode.getUserInput().getNonParaStrings());
 		String paraString = paraTable.getParaString();
 		if (paraString.length()==0) // parameters defined in the input file
 			paraString = mid.getParameterString(currentNode.getEvent());;
@@ -323,23 +326,17 @@ public class TestCodeGeneratorOO extends TestCodeGenerator{
 
 		
 	// test sequence must start with an initial state node
-	private String generateTestMethod(int testNo, ArrayList<TransitionTreeNode> testSequence) throws CancellationException {
-		String methodBody = newLine + tab +language.printLine("\"Test case " + getTestId(testNo, testSequence) + "\"");
+	private void generateTestMethod(int testNo, ArrayList<TransitionTreeNode> testSequence, boolean[] oracles, StringBuilder code) throws CancellationException {
+		code.append(newLine+language.getTestMethodSignature(getTestId(testNo, testSequence)) + language.getMethodBodyStart());
+		code.append(newLine + tab +language.printLine("\"Test case " + getTestId(testNo, testSequence) + "\""));
 		if (mid.getGoalProperties().size()>0 && systemOptions.createGoalTags() && 
 				systemOptions.hasTagCodeForTestFramework() && systemOptions.areGoalTagsAtBeginningOfTests())
-			methodBody += getGoalTagsAtBeginningOfTest(testSequence);
-		methodBody += generateSetupCallCode(testSequence.get(0));
-		for (int i=1; i<testSequence.size(); i++) {
-			transitionTree.checkForCancellation();
-			TransitionTreeNode currentNode = testSequence.get(i);
-			methodBody += preferSpeed? currentNode.getTestInputCode(): generateTestInputCodeForNode(currentNode);
-			if (!systemOptions.verifyFirstOccurrence() || !currentNode.isTraversed())
-				methodBody += preferSpeed? currentNode.getTestOracleCode(): generateTestOracleCodeForNode(currentNode);
-			currentNode.setTraversed(true);
-		}
+			code.append(getGoalTagsAtBeginningOfTest(testSequence));
+		code.append(generateSetupCallCode(testSequence.get(0)));
+		appendTestSteps(testSequence, oracles, code);
 		if (mid.hasTearDownCode() && !systemOptions.useTestFramework())
-			methodBody += newLine +tab+language.getTearDownMethodName()+"()"+language.getEndOfStatement();
-		return newLine+language.getTestMethodSignature(getTestId(testNo, testSequence)) + language.getMethodBodyStart() + methodBody + newLine + language.getMethodBodyEnd();
+			code.append(newLine +tab+language.getTearDownMethodName()+"()"+language.getEndOfStatement());
+		code.append(newLine + language.getMethodBodyEnd());
 	}
 	
 	protected String getInputActionCode(TransitionTreeNode currentNode) {
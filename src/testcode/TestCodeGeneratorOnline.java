@@ -3,6 +3,7 @@ package testcode;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import kernel.SystemOptions;
 import locales.LocaleBundle;
@@ -25,12 +26,19 @@ public class TestCodeGeneratorOnline {
 	private GeneralEditor editor;
 	private MID mid;
 	private OnlineEngineInterface engine;
+	// messages go to the log rather than the console if it is set
+	private StringBuilder log = null;
 	
 	public TestCodeGeneratorOnline(GeneralEditor editor, MID mid){
+		this(editor, mid, null);
+	}
+
+	// the tests are executed against the given endpoint instead of the system named in the model, e.g., one of several instances
+	public TestCodeGeneratorOnline(GeneralEditor editor, MID mid, URL endpoint){
 		this.editor=editor;
 		this.mid = mid;
 		try {
-			URL serverURL = new URL(mid.getSystemName());
+			URL serverURL = endpoint!=null? endpoint: new URL(mid.getSystemName());
 			if (editor.getKernel().getSystemOptions().getLanguage() == TargetLanguage.RPC){
 				switch (editor.getKernel().getSystemOptions().getTestFrameworkIndex()){
 					case TargetLanguage.JSONRPC: engine = new OnlineEngineRPCJSON(serverURL); break;
@@ -38,14 +46,25 @@ public class TestCodeGeneratorOnline {
 				}
 			}
 			else {
-				engine = new OnlineEngineSelenium(mid.getSystemName(), editor);
+				engine = new OnlineEngineSelenium(endpoint!=null? endpoint.toString(): mid.getSystemName(), editor);
 			}
 		} catch (MalformedURLException e) {
 		}
 	}
 	
 	public boolean hasTestEngine(){
-		return engine.hasEngine();
+		return engine!=null && engine.hasEngine();
+	}
+
+	public void setLog(StringBuilder log){
+		this.log = log;
+	}
+
+	private void printMessage(String message){
+		if (log!=null)
+			log.append(message+"\n");
+		else
+			editor.printInConsoleArea(message, false);
 	}
 	
 	public void executeSetUp(Marking marking) throws Exception {
@@ -88,7 +107,7 @@ public class TestCodeGeneratorOnline {
 		for (Transition nonDeterministicTransition: nonDeterministicTransitions) {
 			Marking nonDeterministicMarking = mid.fireTransition(sourceMarking, nonDeterministicTransition, substitution);
 			if (checkTestOracles(transition, substitution, nonDeterministicMarking)) {
-				editor.printInConsoleArea("Nondeterminism found.", false);
+				printMessage("Nondeterminism found.");
 				return nonDeterministicTransition;
 			}
 		}
@@ -189,33 +208,44 @@ public class TestCodeGeneratorOnline {
 	}
 
 	private boolean verifyMarking(Marking marking) throws Exception {
+		ArrayList<Predicate> rpcs = new ArrayList<Predicate>();
 		for (String place: mid.getPlaces()) {
 			if (!mid.isHidden(place) && marking.hasTuples(place)) {
 				ArrayList<Tuple> tuples = marking.getTuples(place);
-				for (Tuple tuple: tuples) {
-					if (!executeAccessor(place, tuple, !needNegation))
-						return false;
-				}
+				for (Tuple tuple: tuples)
+					rpcs.addAll(getAccessorRPCs(place, tuple));
 			}
 		}
-		return true;
+		return executeAccessors(rpcs, !needNegation);
 	}
 	
 	private boolean verifyConditions(Substitution substitution, ArrayList<Predicate> conditions, boolean needNegation) throws Exception {
 		if (conditions==null || substitution==null)
 			return true;
+		ArrayList<Predicate> rpcs = new ArrayList<Predicate>();
 		for (Predicate predicate: conditions) {
 			String place = predicate.getName();
 			if (!mid.isHidden(place)){
 				Tuple tuple = substitution.substitute(predicate);
-				if (!executeAccessor(place, tuple, needNegation))
-					return false;
+				rpcs.addAll(getAccessorRPCs(place, tuple));
 			}	
 		}
+		return executeAccessors(rpcs, needNegation);
+	}
+
+	// the accessor queries of one check are sent together instead of waiting for each result in turn
+	private boolean executeAccessors(ArrayList<Predicate> rpcs, boolean needNegation) throws Exception{
+		boolean[] expectedResults = new boolean[rpcs.size()];
+		Arrays.fill(expectedResults, !needNegation);
+		int failure = engine.executeQueries(rpcs, expectedResults);
+		if (failure>=0) {
+			printMessage(rpcs.get(failure)+" "+LocaleBundle.bundleString("is false"));		
+			return false;
+		}
 		return true;
 	}
 
-	private boolean executeAccessor(String place, Tuple tuple, boolean needNegation) throws Exception{
+	private ArrayList<Predicate> getAccessorRPCs(String place, Tuple tuple) throws ParseException {
 		String accessorCode = "";  
 		Mapping accessor = mid.getAccessor(place, tuple);
 		if (accessor!=null)
@@ -233,15 +263,7 @@ public class TestCodeGeneratorOnline {
 		// No accessor code found
 		if (accessorCode.equals(""))
 			accessorCode = tuple.arity()!=0? place+tuple: place;		
-		ArrayList<Predicate> rpcs = MIDParser.parseRPCString(accessorCode);
-		for (Predicate rpc: rpcs) {
-			boolean pass = needNegation? !engine.executeQuery(rpc): engine.executeQuery(rpc); 
-			if (!pass) {
-				editor.printInConsoleArea(rpc+" "+LocaleBundle.bundleString("is false"), false);		
-				return false;
-			}
-		}
-		return true;
+		return MIDParser.parseRPCString(accessorCode);
 	}
 
 	private void executeMutator(String place, Tuple tuple) throws Exception{
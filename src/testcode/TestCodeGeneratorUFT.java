@@ -43,7 +43,7 @@ public class TestCodeGeneratorUFT extends TestCodeGenerator {
 		for (int i=1; i<testSequence.size(); i++) {
 			transitionTree.checkForCancellation();
 			TransitionTreeNode currentNode = testSequence.get(i);
-			testCase += preferSpeed? currentNode.getTestInputCode(): generateTestInputCodeForNode(currentNode);
+			testCase += getTestInputCode(currentNode);
 			currentNode.setTraversed(true);
 		}
 		return testCase;
@@ -3,12 +3,11 @@
 */
 package testgeneration;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
-import java.util.Vector;
-
-import javax.swing.tree.DefaultMutableTreeNode;
 
 import kernel.CancellationException;
 import kernel.Kernel;
@@ -16,8 +15,11 @@ import kernel.ProgressDialog;
 import kernel.SystemOptions;
 import locales.LocaleBundle;
 
+import mid.EnabledFirings;
 import mid.MID;
 import mid.Marking;
+import mid.MarkingStore;
+import mid.PartialOrderReduction;
 import mid.Predicate;
 import mid.Transition;
 import mid.Tuple;
@@ -26,6 +28,8 @@ public class TransitionTree implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 
+	public static final int MarkingCheckpointDepth = 8;
+
 	protected MID mid;
 	protected SystemOptions systemOptions;
 	
@@ -35,6 +39,7 @@ public class TransitionTree implements Serializable {
 
 	protected int testCount =0;
 	protected int numberOfStates=0;
+	protected transient PartialOrderReduction partialOrderReduction = null;	// null if all firings are explored
 	
 	private boolean isTreeGenerated = true;
 	
@@ -91,6 +96,15 @@ public class TransitionTree implements Serializable {
 		return progressDialog;
 	}
 	
+	protected MarkingStore createMarkingStore() throws CancellationException {
+		try {
+			return systemOptions.createMarkingStore();
+		}
+		catch (IOException e) {
+			throw new CancellationException(LocaleBundle.bundleString("Cannot create the file of visited states")+": "+e.getMessage());
+		}
+	}
+
 	public void checkForCancellation() throws CancellationException {
 		if (progressDialog!=null && progressDialog.isCancelled())
 			throw new CancellationException(LocaleBundle.bundleString("Test generation cancelled"));
@@ -109,6 +123,26 @@ public class TransitionTree implements Serializable {
 		return numberOfStates;
 	}
 
+	public PartialOrderReduction getPartialOrderReduction(){
+		return partialOrderReduction;
+	}
+
+	public void setPartialOrderReduction(PartialOrderReduction reduction){
+		this.partialOrderReduction = reduction;
+	}
+
+	// null if all firings under the marking are explored
+	protected boolean[] getStubbornSet(EnabledFirings enabledFirings){
+		return partialOrderReduction!=null? partialOrderReduction.getStubbornSet(enabledFirings): null;
+	}
+
+	protected boolean isInStubbornSet(Transition transition, boolean[] stubbornSet){
+		if (stubbornSet==null)
+			return true;
+		int index = mid.getTransitionDependencies().indexOf(transition);
+		return index<0 || stubbornSet[index];
+	}
+
 	public void clearTraversedFlags(TransitionTreeNode node) {
 		node.resetTraversedFlag();
 		for (TransitionTreeNode child: node.children()){
@@ -116,6 +150,21 @@ public class TransitionTree implements Serializable {
 		}
 	}
 
+	// for large trees: drops the markings of the inner nodes, which are then replayed from their ancestors when needed
+	// the markings at every MarkingCheckpointDepth levels are kept so that a replay fires at most as many transitions
+	// returns the number of markings dropped
+	public int dropIntermediateMarkings(){
+		ArrayList<TransitionTreeNode> innerNodes = root.getAllNonLeafNodes();
+		int dropped = 0;
+		// descendants first, so that each marking is compared with the replay from a kept parent marking
+		for (int index=innerNodes.size()-1; index>=0; index--) {
+			TransitionTreeNode node = innerNodes.get(index);
+			if (node.getLevel()%MarkingCheckpointDepth!=0 && node.dropMarking())
+				dropped++;
+		}
+		return dropped;
+	}
+
 	/*
 	public ArrayList<TransitionTreeNode> simulateFiringSequence(TransitionTreeNode goalNode){
 		ArrayList<TransitionTreeNode> nodes = goalNode.getFiringSequence();
@@ -141,10 +190,6 @@ public class TransitionTree implements Serializable {
 	}
 */
 	
-	public DefaultMutableTreeNode setToMutableTree() {
-		return root.setToMutableNode();
-	}
-
 	// each leaf indicates a test sequence from the initial state node to the leaf
 	// this is to obtain all tests in the tree
 	public ArrayList<TransitionTreeNode> getAllTests(){
@@ -192,7 +237,7 @@ public class TransitionTree implements Serializable {
 	private boolean isValidTest(TransitionTreeNode test){
 		if (mid.isHidden(test.getEvent())) {
 			assert test.getParent()!=null;
-			Vector<TransitionTreeNode> siblings = test.getParent().children();
+			List<TransitionTreeNode> siblings = test.getParent().children();
 			return siblings.indexOf(test)==0;
 		}
 		else
@@ -276,6 +321,10 @@ public class TransitionTree implements Serializable {
 			matricsInfo +="; "+LocaleBundle.bundleString("Number of state transitions in transition tree")+": "+totalStateTransitions();
 			matricsInfo +="; "+LocaleBundle.bundleString("Number of test actions")+": "+getEventCount();
 		}
+		if (partialOrderReduction!=null){
+			matricsInfo +="; "+LocaleBundle.bundleString("Partial order reduction")+": "+partialOrderReduction.getNumberOfReducedStates()+" "+LocaleBundle.bundleString("reduced states")
+				+ ", "+partialOrderReduction.getNumberOfPrunedFirings()+" "+LocaleBundle.bundleString("pruned firings");
+		}
 		matricsInfo += "; "+LocaleBundle.bundleString("Length of longest test")+": " + getDeepestTestDepth()
 //		  		+ "; "+LocaleBundle.bundleString("Number of calls")+": " + getEventCount()
 //				  		+ "; Assertions: " + getAssertionCount()
@@ -330,7 +379,7 @@ public class TransitionTree implements Serializable {
 							assertionCount += effects.size();
 					}
 				}
-				ParaTableModel paraTable = currentNode.getParaTable();
+				ParaTableModel paraTable = currentNode.getUserInput();
 				paraCount += paraTable.getParaCount();
 				statementCount += paraTable.getNonParaCount();
 				currentNode.setTraversed(true);
@@ -404,7 +453,7 @@ public class TransitionTree implements Serializable {
 	
 	public void computeInputCount(TransitionTreeNode currentNode) {
 		if (currentNode!=null) {
-			ParaTableModel paraTable = currentNode.getParaTable();
+			ParaTableModel paraTable = currentNode.getUserInput();
 			inputParaCount += paraTable.getParaCount();
 			inputStatementCount += paraTable.getNonParaCount();
 			if (!currentNode.isLeaf()) {
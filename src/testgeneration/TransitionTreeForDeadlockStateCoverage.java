@@ -10,9 +10,10 @@ import kernel.SystemOptions;
 import mid.GeneralUnifier;
 import mid.MID;
 import mid.Marking;
+import mid.PartialOrderReduction;
 import mid.Substitution;
 import mid.Transition;
-import mid.Unifier;
+import mid.CompiledUnifier;
 
 public class TransitionTreeForDeadlockStateCoverage extends TransitionTree {
 	private static final long serialVersionUID = 1L;
@@ -29,8 +30,12 @@ public class TransitionTreeForDeadlockStateCoverage extends TransitionTree {
 				new TransitionTreeForStateCoverageBFS(mid, systemOptions, SinkEventsEnabled)
 				: new TransitionTreeForStateCoverageDFS(mid, systemOptions, SinkEventsEnabled);
 		stateTree.setProgressDialog(this.getProgressDialog());
+		// stubborn sets without visible places preserve all reachable deadlocks
+		if (systemOptions.isPartialOrderReduction())
+			stateTree.setPartialOrderReduction(new PartialOrderReduction(mid, null));
 		stateTree.generateTransitionTree();
 		root = stateTree.getRoot();
+		partialOrderReduction = stateTree.getPartialOrderReduction();
 		for (TransitionTreeNode leaf: getAllTests()){
 			checkForCancellation();
 			if (isLiveState(leaf.getMarking())){
@@ -46,7 +51,7 @@ public class TransitionTreeForDeadlockStateCoverage extends TransitionTree {
 			if (transitions!=null && transitions.size()>0){
 				for (Transition transition: transitions) {
 					checkForCancellation();
-					GeneralUnifier unifier = new Unifier(transition, marking);
+					GeneralUnifier unifier = new CompiledUnifier(transition, marking);
 					ArrayList<Substitution> substitutions = unifier.getSubstitutions();
 					if (substitutions.size()>0)
 						return true;
@@ -12,6 +12,7 @@ import kernel.SystemOptions;
 
 import mid.MID;
 import mid.Marking;
+import mid.MarkingKey;
 
 
 public class TransitionTreeForRoundTripBFS extends TransitionTreeForStructureCoverage {
@@ -25,20 +26,20 @@ public class TransitionTreeForRoundTripBFS extends TransitionTreeForStructureCov
 
 	public void expand() throws CancellationException {
 	    int searchDepth = systemOptions.getSearchDepth();
-		Hashtable <String, Marking> expandedMarkings = new Hashtable <String, Marking>();  
+		Hashtable <MarkingKey, Marking> expandedMarkings = new Hashtable <MarkingKey, Marking>();  
 		LinkedList<TransitionTreeNode> queue = new LinkedList<TransitionTreeNode>();
 		for (TransitionTreeNode initNode: root.children())
 			queue.addLast(initNode);
 		while (!queue.isEmpty()) {
 			checkForCancellation();
 			TransitionTreeNode node = queue.poll();
-			if (areSinkEventsEnabled && mid.isSinkTransition(node.getTransition()) && expandedMarkings.get(node.getMarking().getKeyString(mid.getPlaces()))==null) {
-				expandedMarkings.put(node.getMarking().getKeyString(mid.getPlaces()), node.getMarking());				
+			if (areSinkEventsEnabled && mid.isSinkTransition(node.getTransition()) && expandedMarkings.get(node.getMarking().getKey())==null) {
+				expandedMarkings.put(node.getMarking().getKey(), node.getMarking());				
 			}
-			if (node.getLevel()<= searchDepth && (!areSinkEventsEnabled || !mid.isSinkTransition(node.getTransition())) && expandedMarkings.get(node.getMarking().getKeyString(mid.getPlaces()))==null) {
-//			if (node.getLevel()<= searchDepth && expandedMarkings.get(node.getMarking().getKeyString(mid.getPlaces()))==null) {
+			if (node.getLevel()<= searchDepth && (!areSinkEventsEnabled || !mid.isSinkTransition(node.getTransition())) && expandedMarkings.get(node.getMarking().getKey())==null) {
+//			if (node.getLevel()<= searchDepth && expandedMarkings.get(node.getMarking().getKey())==null) {
 				createChildren(node);
-				expandedMarkings.put(node.getMarking().getKeyString(mid.getPlaces()), node.getMarking());
+				expandedMarkings.put(node.getMarking().getKey(), node.getMarking());
 				for (TransitionTreeNode child: node.children())
 					if (!child.isNegative() )
 						queue.addLast(child);
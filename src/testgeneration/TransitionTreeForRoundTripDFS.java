@@ -12,6 +12,7 @@ import kernel.SystemOptions;
 
 import mid.MID;
 import mid.Marking;
+import mid.MarkingKey;
 
 
 public class TransitionTreeForRoundTripDFS extends TransitionTreeForStructureCoverage {
@@ -23,20 +24,20 @@ public class TransitionTreeForRoundTripDFS extends TransitionTreeForStructureCov
 
 	protected void expand() throws CancellationException {
 		int searchDepth = systemOptions.getSearchDepth();
-		Hashtable <String, Marking> expandedMarkings = new Hashtable <String, Marking>();  
+		Hashtable <MarkingKey, Marking> expandedMarkings = new Hashtable <MarkingKey, Marking>();  
 		Stack<TransitionTreeNode> stack = new Stack<TransitionTreeNode>();
 		for (int i=root.children().size()-1; i>=0; i--)
 			stack.push(root.children().get(i));
 		while (!stack.isEmpty()) {
 			checkForCancellation();
 			TransitionTreeNode node = stack.pop();
-			if (areSinkEventsEnabled && mid.isSinkTransition(node.getTransition()) && expandedMarkings.get(node.getMarking().getKeyString(mid.getPlaces()))==null) {
-				expandedMarkings.put(node.getMarking().getKeyString(mid.getPlaces()), node.getMarking());				
+			if (areSinkEventsEnabled && mid.isSinkTransition(node.getTransition()) && expandedMarkings.get(node.getMarking().getKey())==null) {
+				expandedMarkings.put(node.getMarking().getKey(), node.getMarking());				
 			}
-			if (node.getLevel()<= searchDepth && (!areSinkEventsEnabled || !mid.isSinkTransition(node.getTransition())) && expandedMarkings.get(node.getMarking().getKeyString(mid.getPlaces()))==null) {
-//			if (node.getLevel()<= searchDepth  && expandedMarkings.get(node.getMarking().getKeyString(mid.getPlaces()))==null) {
+			if (node.getLevel()<= searchDepth && (!areSinkEventsEnabled || !mid.isSinkTransition(node.getTransition())) && expandedMarkings.get(node.getMarking().getKey())==null) {
+//			if (node.getLevel()<= searchDepth  && expandedMarkings.get(node.getMarking().getKey())==null) {
 				createChildren(node);
-				expandedMarkings.put(node.getMarking().getKeyString(mid.getPlaces()), node.getMarking());
+				expandedMarkings.put(node.getMarking().getKey(), node.getMarking());
 				for (int i=node.children().size()-1; i>=0; i--){
 					TransitionTreeNode child = node.children().get(i);
 					if (!child.isNegative())
@@ -6,20 +6,28 @@ package testgeneration;
 import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import kernel.CancellationException;
 import kernel.SystemOptions;
-import mid.GeneralUnifier;
+import mid.EnabledFirings;
 import mid.MID;
 import mid.Marking;
-import mid.PairwiseUnifier;
+import mid.MarkingKey;
+import mid.ModelContext;
 import mid.Substitution;
 import mid.Transition;
-import mid.Unifier;
 
 public class TransitionTreeForStateCoverageBFS extends TransitionTreeForStructureCoverage {
 	private static final long serialVersionUID = 1L;
-	private Hashtable <String, Marking> expandedMarkings = new Hashtable <String, Marking>();  
+	private Map <MarkingKey, Marking> expandedMarkings = new Hashtable <MarkingKey, Marking>();  
 	
 	public TransitionTreeForStateCoverageBFS(MID mid, SystemOptions systemOptions) {
 		super(mid, systemOptions);
@@ -30,12 +38,16 @@ public class TransitionTreeForStateCoverageBFS extends TransitionTreeForStructur
 	}
 
 	public void expand() throws CancellationException {
+		if (systemOptions.isParallelSearch()) {
+			expandInParallel();
+			return;
+		}
 	    int searchDepth = systemOptions.getSearchDepth();
 		LinkedList<TransitionTreeNode> queue = new LinkedList<TransitionTreeNode>();
 		for (TransitionTreeNode initNode: root.children()){
 			queue.addLast(initNode);
-			if (expandedMarkings.get(initNode.getMarking().getKeyString(mid.getPlaces()))==null && !systemOptions.searchForHomeStates())
-				expandedMarkings.put(initNode.getMarking().getKeyString(mid.getPlaces()), initNode.getMarking());
+			if (expandedMarkings.get(initNode.getMarking().getKey())==null && !systemOptions.searchForHomeStates())
+				expandedMarkings.put(initNode.getMarking().getKey(), initNode.getMarking());
 		}
 		while (!queue.isEmpty()) {
 			checkForCancellation();
@@ -48,28 +60,35 @@ public class TransitionTreeForStateCoverageBFS extends TransitionTreeForStructur
 //					}
 				}
 			}
+			node.setEnabledFirings(null);
 		}
 		numberOfStates = expandedMarkings.size();
 	}
 
 	protected void createChildren(TransitionTreeNode node) throws CancellationException {
+		EnabledFirings enabledFirings = node.getEnabledFirings();
+		if (enabledFirings==null)
+			enabledFirings = new EnabledFirings(mid, node.getMarking(), systemOptions.isPairwiseTesting());
+		boolean[] stubbornSet = getStubbornSet(enabledFirings);
+		int exploredFirings = 0;
 		for (String event: mid.getEvents()){
 			checkForCancellation();
 			ArrayList<Transition> transitions = mid.getTransitionsForEvent(event);
 			if (transitions!=null && transitions.size()>0){
 				for (Transition transition: transitions) {
 					checkForCancellation();
-		    		GeneralUnifier unifier = systemOptions.isPairwiseTesting() && mid.isCombinatorialTestingApplicable(transition)? 
-		    				new PairwiseUnifier(transition, node.getMarking()): 
-		    				new Unifier(transition, node.getMarking());
-		    		for (Substitution substitution:  unifier.getSubstitutions()){
+					if (!isInStubbornSet(transition, stubbornSet))
+						continue;
+					exploredFirings += enabledFirings.getSubstitutions(transition).size();
+		    		for (Substitution substitution: enabledFirings.getSubstitutions(transition)){
 		    			checkForCancellation();
 		    			if (systemOptions.isTotalOrdering() || !isIndependentFiring(transition, substitution, node.children())){
 		    				Marking newMarking = mid.fireTransition(node.getMarking(), transition, substitution);
-		    				String newMarkingKey= newMarking.getKeyString(mid.getPlaces());
+		    				MarkingKey newMarkingKey= newMarking.getKey();
 	    					if (expandedMarkings.get(newMarkingKey)==null){
 	    						expandedMarkings.put(newMarkingKey, newMarking);
 	    						TransitionTreeNode newNode = new TransitionTreeNode(transition, substitution, newMarking);
+	    						newNode.setEnabledFirings(enabledFirings.fire(transition, newMarking));
 	    						node.add(newNode);
 	    					}
 		    			} 	
@@ -77,11 +96,162 @@ public class TransitionTreeForStateCoverageBFS extends TransitionTreeForStructur
 		 		}
 			}
 		}
+		if (partialOrderReduction!=null)
+			partialOrderReduction.recordState(enabledFirings, exploredFirings);
     	node.setExpanded(true);
    		node.resetChildrenOutlineNumbers(systemOptions.getMaxIdDepth());
 	}
 
-	public Hashtable<String, Marking> getExpandedMarkings(){
+	public Map<MarkingKey, Marking> getExpandedMarkings(){
 		return expandedMarkings;
 	}
+
+	// The tree is expanded level by level. For each level:
+	// (1) the firings of the nodes are computed on a pool of threads, skipping the markings expanded at previous levels; 
+	// (2) the children are then added node by node in the same order as expand().
+	// Therefore the tree (and its outline numbers) is the same as the one created by expand().
+	private void expandInParallel() throws CancellationException {
+	    int searchDepth = systemOptions.getSearchDepth();
+	    expandedMarkings = new ConcurrentHashMap<MarkingKey, Marking>();
+		ArrayList<TransitionTreeNode> level = new ArrayList<TransitionTreeNode>();
+		for (TransitionTreeNode initNode: root.children()){
+			level.add(initNode);
+			if (expandedMarkings.get(initNode.getMarking().getKey())==null && !systemOptions.searchForHomeStates())
+				expandedMarkings.put(initNode.getMarking().getKey(), initNode.getMarking());
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(systemOptions.getNumberOfSearchThreads());
+		try {
+			while (!level.isEmpty()) {
+				checkForCancellation();
+				ArrayList<TransitionTreeNode> nodesToExpand = new ArrayList<TransitionTreeNode>();
+				for (TransitionTreeNode node: level)
+					if (node.getLevel()<=searchDepth)
+						nodesToExpand.add(node);
+					else
+						node.setEnabledFirings(null);
+				ArrayList<ArrayList<CandidateFiring>> candidates = computeCandidateFirings(pool, nodesToExpand);
+				ArrayList<TransitionTreeNode> nextLevel = new ArrayList<TransitionTreeNode>();
+				for (int index=0; index<nodesToExpand.size(); index++) {
+					checkForCancellation();
+					TransitionTreeNode node = nodesToExpand.get(index);
+					addChildren(node, candidates.get(index));
+					candidates.set(index, null);
+					node.setEnabledFirings(null);
+					nextLevel.addAll(node.children());
+				}
+				level = nextLevel;
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		numberOfStates = expandedMarkings.size();
+	}
+
+	// the firings of each node, in the same order as createChildren
+	private ArrayList<ArrayList<CandidateFiring>> computeCandidateFirings(ExecutorService pool, final ArrayList<TransitionTreeNode> nodes) throws CancellationException {
+		final ArrayList<ArrayList<CandidateFiring>> candidates = new ArrayList<ArrayList<CandidateFiring>>();
+		for (int index=0; index<nodes.size(); index++)
+			candidates.add(null);
+		final AtomicInteger nextNode = new AtomicInteger(0);
+		final ModelContext context = ModelContext.current();
+		ArrayList<Future<Object>> workers = new ArrayList<Future<Object>>();
+		int numberOfWorkers = Math.min(systemOptions.getNumberOfSearchThreads(), nodes.size());
+		for (int worker=0; worker<numberOfWorkers; worker++)
+			workers.add(pool.submit(new Callable<Object>() {
+				public Object call() throws CancellationException {
+					ModelContext.bind(context);
+					try {
+						int index;
+						while ((index = nextNode.getAndIncrement())<nodes.size()) {
+							ArrayList<CandidateFiring> nodeCandidates = computeCandidateFirings(nodes.get(index));
+							synchronized (candidates) {
+								candidates.set(index, nodeCandidates);
+							}
+						}
+					}
+					finally {
+						ModelContext.bind(null);
+					}
+					return null;
+				}
+			}));
+		try {
+			for (Future<Object> worker: workers)
+				worker.get();
+		}
+		catch (InterruptedException e) {
+			throw new CancellationException(e.getMessage());
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof CancellationException)
+				throw (CancellationException)e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+		finally {
+			for (Future<Object> worker: workers)
+				worker.cancel(true);
+		}
+		return candidates;
+	}
+
+	private ArrayList<CandidateFiring> computeCandidateFirings(TransitionTreeNode node) throws CancellationException {
+		ArrayList<CandidateFiring> candidates = new ArrayList<CandidateFiring>();
+		EnabledFirings enabledFirings = node.getEnabledFirings();
+		if (enabledFirings==null) {
+			enabledFirings = new EnabledFirings(mid, node.getMarking(), systemOptions.isPairwiseTesting());
+			node.setEnabledFirings(enabledFirings);
+		}
+		boolean[] stubbornSet = getStubbornSet(enabledFirings);
+		int exploredFirings = 0;
+		for (String event: mid.getEvents()){
+			checkForCancellation();
+			ArrayList<Transition> transitions = mid.getTransitionsForEvent(event);
+			if (transitions!=null)
+				for (Transition transition: transitions) {
+					if (!isInStubbornSet(transition, stubbornSet))
+						continue;
+					exploredFirings += enabledFirings.getSubstitutions(transition).size();
+		    		for (Substitution substitution: enabledFirings.getSubstitutions(transition)){
+		    			Marking newMarking = mid.fireTransition(node.getMarking(), transition, substitution);
+		    			if (expandedMarkings.get(newMarking.getKey())==null)
+		    				candidates.add(new CandidateFiring(transition, substitution, newMarking));
+		    		}
+				}
+		}
+		if (partialOrderReduction!=null)
+			partialOrderReduction.recordState(enabledFirings, exploredFirings);
+		return candidates;
+	}
+
+	private void addChildren(TransitionTreeNode node, ArrayList<CandidateFiring> candidates) {
+		EnabledFirings enabledFirings = node.getEnabledFirings();
+		for (CandidateFiring candidate: candidates) {
+			if (systemOptions.isTotalOrdering() || !isIndependentFiring(candidate.transition, candidate.substitution, node.children())){
+				MarkingKey newMarkingKey = candidate.marking.getKey();
+				if (expandedMarkings.get(newMarkingKey)==null){
+					expandedMarkings.put(newMarkingKey, candidate.marking);
+					TransitionTreeNode newNode = new TransitionTreeNode(candidate.transition, candidate.substitution, candidate.marking);
+					newNode.setEnabledFirings(enabledFirings.fire(candidate.transition, candidate.marking));
+					node.add(newNode);
+				}
+			}
+		}
+    	node.setExpanded(true);
+   		node.resetChildrenOutlineNumbers(systemOptions.getMaxIdDepth());
+	}
+
+	private static class CandidateFiring {
+		private Transition transition;
+		private Substitution substitution;
+		private Marking marking;
+
+		CandidateFiring(Transition transition, Substitution substitution, Marking marking){
+			this.transition = transition;
+			this.substitution = substitution;
+			this.marking = marking;
+		}
+	}
 }
@@ -10,17 +10,16 @@ import java.util.Stack;
 import kernel.CancellationException;
 import kernel.SystemOptions;
 
-import mid.GeneralUnifier;
+import mid.EnabledFirings;
 import mid.MID;
 import mid.Marking;
-import mid.PairwiseUnifier;
+import mid.MarkingKey;
 import mid.Substitution;
 import mid.Transition;
-import mid.Unifier;
 
 public class TransitionTreeForStateCoverageDFS extends TransitionTreeForStructureCoverage {
 	private static final long serialVersionUID = 1L;
-	private Hashtable <String, Marking> expandedMarkings = new Hashtable <String, Marking>();  
+	private Hashtable <MarkingKey, Marking> expandedMarkings = new Hashtable <MarkingKey, Marking>();  
 	
 	public TransitionTreeForStateCoverageDFS(MID mid, SystemOptions systemOptions) {
 		super(mid, systemOptions);
@@ -41,7 +40,7 @@ public class TransitionTreeForStateCoverageDFS extends TransitionTreeForStructur
 			checkForCancellation();
 			TransitionTreeNode node = stack.pop();
 			Marking marking = node.getMarking();
-			String markingKey = marking.getKeyString(mid.getPlaces());
+			MarkingKey markingKey = marking.getKey();
 			if (expandedMarkings.get(markingKey)==null){
 				if (!root.children().contains(node) || !systemOptions.searchForHomeStates()){
 					expandedMarkings.put(markingKey, marking);
@@ -61,16 +60,19 @@ public class TransitionTreeForStateCoverageDFS extends TransitionTreeForStructur
 	}
 	
 	protected void createChildren(TransitionTreeNode node) throws CancellationException {
+		EnabledFirings enabledFirings = new EnabledFirings(mid, node.getMarking(), systemOptions.isPairwiseTesting());
+		boolean[] stubbornSet = getStubbornSet(enabledFirings);
+		int exploredFirings = 0;
 		for (String event: mid.getEvents()){
 			checkForCancellation();
 			ArrayList<Transition> transitions = mid.getTransitionsForEvent(event);
 			if (transitions!=null && transitions.size()>0){
 				for (Transition transition: transitions) {
 					checkForCancellation();
-		    		GeneralUnifier unifier = systemOptions.isPairwiseTesting() && mid.isCombinatorialTestingApplicable(transition)? 
-		    				new PairwiseUnifier(transition, node.getMarking()): 
-		    				new Unifier(transition, node.getMarking());
-		    		for (Substitution substitution: unifier.getSubstitutions()){
+					if (!isInStubbornSet(transition, stubbornSet))
+						continue;
+					exploredFirings += enabledFirings.getSubstitutions(transition).size();
+		    		for (Substitution substitution: enabledFirings.getSubstitutions(transition)){
 		    			checkForCancellation();
 		    			if (systemOptions.isTotalOrdering() || !isIndependentFiring(transition, substitution, node.children())){
 		    				Marking newMarking = mid.fireTransition(node.getMarking(), transition, substitution);
@@ -81,6 +83,8 @@ public class TransitionTreeForStateCoverageDFS extends TransitionTreeForStructur
 		 		}
 			}
 		}
+		if (partialOrderReduction!=null)
+			partialOrderReduction.recordState(enabledFirings, exploredFirings);
     	node.setExpanded(true);
    		node.resetChildrenOutlineNumbers(systemOptions.getMaxIdDepth());
 	}
@@ -5,6 +5,7 @@ package testgeneration;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Stack;
 import java.util.Vector;
 
@@ -18,7 +19,7 @@ import mid.Predicate;
 import mid.Substitution;
 import mid.Transition;
 import mid.Tuple;
-import mid.Unifier;
+import mid.CompiledUnifier;
 import mid.GeneralUnifier;
 
 
@@ -117,7 +118,7 @@ for (Predicate token2: set2)
 		return true;
 	}
 	
-	public static boolean isIndependentFiring(Transition transition, Substitution substitution, Vector<TransitionTreeNode> existingChildren){
+	public static boolean isIndependentFiring(Transition transition, Substitution substitution, List<TransitionTreeNode> existingChildren){
 		ArrayList<Predicate> currentPrecondTokens = getTokenSetForCondition(transition.getPrecondition(), substitution);
 		for (TransitionTreeNode existingChild: existingChildren){
 			if (existingChild.getTransition().getDeletePrecondition()!=null){
@@ -140,7 +141,7 @@ for (Predicate token2: set2)
 		boolean needDirtyTest = true;
 		Marking currentMarking = node.getMarking();
 		for (Transition transition: transitions) {
-    		GeneralUnifier unifier = systemOptions.isPairwiseTesting() && mid.isCombinatorialTestingApplicable(transition)? new PairwiseUnifier(transition, currentMarking): new Unifier(transition, currentMarking);
+    		GeneralUnifier unifier = systemOptions.isPairwiseTesting() && mid.isCombinatorialTestingApplicable(transition)? new PairwiseUnifier(transition, currentMarking): new CompiledUnifier(transition, currentMarking);
     		ArrayList<Substitution> substitutions = unifier.getSubstitutions();
     		for (Substitution substitution: substitutions) {
     			checkForCancellation();
@@ -398,7 +399,7 @@ for (Predicate token2: set2)
 	private boolean hasEnabledTransitions(ArrayList<Transition> transitions, TransitionTreeNode node){
 		Marking currentMarking = node.getMarking();
 		for (Transition transition: transitions) {
-    		Unifier unifier = new Unifier(transition, currentMarking);
+    		CompiledUnifier unifier = new CompiledUnifier(transition, currentMarking);
     		ArrayList<Substitution> substitutions = unifier.getSubstitutions();
     		if (substitutions.size()>0)
     			return true;
@@ -14,7 +14,7 @@ import mid.MID;
 import mid.Marking;
 import mid.Substitution;
 import mid.Transition;
-import mid.Unifier;
+import mid.CompiledUnifier;
 
 // Transition tree, where each leaf node is a potential attack
 
@@ -62,7 +62,7 @@ public abstract class TransitionTreeForThreatNet extends TransitionTree {
 	private void createTestNodes(ArrayList<Transition> transitions, TransitionTreeNode node){
 		Marking currentMarking = node.getMarking();
 		for (Transition transition: transitions) {
-    		Unifier unifier = new Unifier(transition, currentMarking);
+    		CompiledUnifier unifier = new CompiledUnifier(transition, currentMarking);
     		ArrayList<Substitution> substitutions = unifier.getSubstitutions();
     		for (Substitution substitution: substitutions) {
 //System.out.println(transition.getEvent()+": "+substitution.toString(transition.getAllVariables()));
@@ -141,7 +141,7 @@ public abstract class TransitionTreeForThreatNet extends TransitionTree {
 	private boolean hasEnabledTransitions(ArrayList<Transition> transitions, TransitionTreeNode node){
 		Marking currentMarking = node.getMarking();
 		for (Transition transition: transitions) {
-    		Unifier unifier = new Unifier(transition, currentMarking);
+    		CompiledUnifier unifier = new CompiledUnifier(transition, currentMarking);
     		ArrayList<Substitution> substitutions = unifier.getSubstitutions();
     		if (substitutions.size()>0)
     			return true;
@@ -13,6 +13,7 @@ import kernel.SystemOptions;
 
 import mid.MID;
 import mid.Marking;
+import mid.MarkingKey;
 
 
 public class TransitionTreeForThreatNetBFS extends TransitionTreeForThreatNet {
@@ -24,16 +25,16 @@ public class TransitionTreeForThreatNetBFS extends TransitionTreeForThreatNet {
 
 	public void expand() throws CancellationException{
 		int searchDepth = systemOptions.getSearchDepth();
-		Hashtable <String, Marking> expandedMarkings = new Hashtable <String, Marking>();  
+		Hashtable <MarkingKey, Marking> expandedMarkings = new Hashtable <MarkingKey, Marking>();  
 		LinkedList<TransitionTreeNode> queue = new LinkedList<TransitionTreeNode>();
 		for (TransitionTreeNode initNode: root.children())
 			queue.addLast(initNode);
 		while (!queue.isEmpty()) {
 			checkForCancellation();
 			TransitionTreeNode node = queue.poll();
-			if (node.getLevel()<= searchDepth && !node.getTransition().isAttackTransition() && expandedMarkings.get(node.getMarking().getKeyString(mid.getPlaces()))==null) {
+			if (node.getLevel()<= searchDepth && !node.getTransition().isAttackTransition() && expandedMarkings.get(node.getMarking().getKey())==null) {
 				createChildren(node);
-				expandedMarkings.put(node.getMarking().getKeyString(mid.getPlaces()), node.getMarking());
+				expandedMarkings.put(node.getMarking().getKey(), node.getMarking());
 				for (TransitionTreeNode child: node.children())
 					if (!child.isNegative())
 						queue.addLast(child);
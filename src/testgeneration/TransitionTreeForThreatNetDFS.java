@@ -13,6 +13,7 @@ import kernel.SystemOptions;
 
 import mid.MID;
 import mid.Marking;
+import mid.MarkingKey;
 
 
 public class TransitionTreeForThreatNetDFS extends TransitionTreeForThreatNet {
@@ -46,15 +47,15 @@ public class TransitionTreeForThreatNetDFS extends TransitionTreeForThreatNet {
 	protected void expand() throws CancellationException {
 		int searchDepth = systemOptions.getSearchDepth();
 		Stack<TransitionTreeNode> stack = new Stack<TransitionTreeNode>();
-		Hashtable <String, Marking> expandedMarkings = new Hashtable <String, Marking>();  
+		Hashtable <MarkingKey, Marking> expandedMarkings = new Hashtable <MarkingKey, Marking>();  
 		for (int i=root.children().size()-1; i>=0; i--)
 			stack.push(root.children().get(i));
 		while (!stack.isEmpty()) {
 			checkForCancellation();
 			TransitionTreeNode node = stack.pop();
-			if (node.getLevel()<= searchDepth  && !node.getTransition().isAttackTransition() && expandedMarkings.get(node.getMarking().getKeyString(mid.getPlaces()))==null) {
+			if (node.getLevel()<= searchDepth  && !node.getTransition().isAttackTransition() && expandedMarkings.get(node.getMarking().getKey())==null) {
 				createChildren(node);
-				expandedMarkings.put(node.getMarking().getKeyString(mid.getPlaces()), node.getMarking());				
+				expandedMarkings.put(node.getMarking().getKey(), node.getMarking());				
 				for (int i=node.children().size()-1; i>=0; i--){
 					TransitionTreeNode child = node.children().get(i);
 					if (!child.isNegative())
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 
 import kernel.CancellationException;
 import kernel.SystemOptions;
+import locales.LocaleBundle;
 import mid.ThreatTreeNode;
 import mid.MID;
 import mid.Marking;
@@ -25,18 +26,101 @@ public class TransitionTreeForThreatTree extends TransitionTree{
 		root = new TransitionTreeNode(null, null, null);
 	}
 
+	// the number of attack paths merged into the tree by the latest generation, and the number of all attack paths
+	private long numberOfAttackPaths = 0;
+	private long totalAttackPaths = 0;
+
+	public long getNumberOfAttackPaths(){
+		return numberOfAttackPaths;
+	}
+
+	public long getTotalAttackPaths(){
+		return totalAttackPaths;
+	}
+
+	// Attack paths are enumerated one at a time and each is merged into the tree as soon as it is complete,
+	// in the same order as the Cartesian products of AND nodes followed by the alternatives of OR nodes.
+	// The enumeration stops when the maximum number of attack paths of the system options has been merged.
 	public void generateTransitionTree() throws CancellationException{
 		createRootNode();
 		TransitionTreeNode start = new TransitionTreeNode(new Transition(MID.ConstructorEvent), null, new Marking());
 		start.setOutlineNumber("1");
 		root.add(start);
+		numberOfAttackPaths = 0;
+		totalAttackPaths = 0;
 		ArrayList<ThreatTreeNode> threatTreeRoots = mid.getThreatTreeRoots();
+		for (ThreatTreeNode threatTreeRoot: threatTreeRoots) {
+			long count = countAttackPaths(threatTreeRoot);
+			totalAttackPaths = totalAttackPaths>Long.MAX_VALUE-count? Long.MAX_VALUE: totalAttackPaths+count;
+		}
 		for (ThreatTreeNode threatTreeRoot: threatTreeRoots)
-			for (ArrayList<String> attackPath: generateAttackPaths(threatTreeRoot))
-				mergeThreatPathIntoTree(start, attackPath);
+			if (!generateAttackPaths(start, new PendingNodes(threatTreeRoot, null), new ArrayList<String>()))
+				break;
 		start.resetChildrenOutlineNumbers(systemOptions.getMaxIdDepth());
 	}
 
+	// the number of attack paths of the threat tree, computed without enumerating them (Long.MAX_VALUE if larger)
+	public static long countAttackPaths(ThreatTreeNode threatTreeNode){
+		if (threatTreeNode.isLeaf())
+			return 1;
+		boolean isAND = threatTreeNode.getChildren().size()>1 && threatTreeNode.isRelationAND();
+		long count = isAND? 1: 0;
+		for (ThreatTreeNode child: threatTreeNode.getChildren()) {
+			long childCount = countAttackPaths(child);
+			if (isAND)
+				count = childCount!=0 && count>Long.MAX_VALUE/childCount? Long.MAX_VALUE: count*childCount;
+			else
+				count = count>Long.MAX_VALUE-childCount? Long.MAX_VALUE: count+childCount;
+		}
+		return count;
+	}
+
+	public String getStatisticsString() {
+		String statistics = super.getStatisticsString();
+		if (totalAttackPaths>0)
+			statistics += "; "+LocaleBundle.bundleString("Attack paths")+": "+numberOfAttackPaths+" "+LocaleBundle.bundleString("out of")+" "+totalAttackPaths;
+		return statistics;
+	}
+
+	// the threat tree nodes whose paths remain to be appended to the current path, shared by the alternatives of OR nodes
+	private static class PendingNodes {
+		ThreatTreeNode node;
+		PendingNodes next;
+		PendingNodes(ThreatTreeNode node, PendingNodes next){
+			this.node = node;
+			this.next = next;
+		}
+	}
+
+	// extends the path with each path of the pending nodes; returns false when the maximum number of paths is reached
+	private boolean generateAttackPaths(TransitionTreeNode start, PendingNodes pending, ArrayList<String> path) throws CancellationException{
+		if (pending==null) {
+			checkForCancellation();
+			mergeThreatPathIntoTree(start, path);
+			numberOfAttackPaths++;
+			long maxAttackPaths = systemOptions.getMaxAttackPaths();
+			return maxAttackPaths<=0 || numberOfAttackPaths<maxAttackPaths;
+		}
+		ThreatTreeNode threatTreeNode = pending.node;
+		if (threatTreeNode.isLeaf()){
+			path.add(threatTreeNode.getEvent());
+			boolean more = generateAttackPaths(start, pending.next, path);
+			path.remove(path.size()-1);
+			return more;
+		}
+		ArrayList<ThreatTreeNode> childNodes = threatTreeNode.getChildren();
+		if (childNodes.size()>1 && threatTreeNode.isRelationAND()){
+			PendingNodes andPending = pending.next;
+			for (int i=childNodes.size()-1; i>=0; i--)
+				andPending = new PendingNodes(childNodes.get(i), andPending);
+			return generateAttackPaths(start, andPending, path);
+		}
+		for (ThreatTreeNode child: childNodes)
+			if (!generateAttackPaths(start, new PendingNodes(child, pending.next), path))
+				return false;
+		return true;
+	}
+
 	private void mergeThreatPathIntoTree(TransitionTreeNode start, ArrayList<String> attackPath){
 		TransitionTreeNode currentNode = start;
 		for (String event: attackPath){
@@ -54,40 +138,5 @@ public class TransitionTreeForThreatTree extends TransitionTree{
 			if (child.getEvent().equalsIgnoreCase(event))
 				return child;
 		return null;
-	}
-	
-	private ArrayList<ArrayList<String>> generateAttackPaths(ThreatTreeNode threatTreeNode) throws CancellationException{
-		checkForCancellation();
-		ArrayList<ArrayList<String>> attackPaths = new ArrayList<ArrayList<String>>();
-		if (threatTreeNode.isLeaf()){
-			ArrayList<String> path = new ArrayList<String>();
-			path.add(threatTreeNode.getEvent());
-			attackPaths.add(path);
-			return attackPaths;
-		} 
-		ArrayList<ThreatTreeNode> childNodes = threatTreeNode.getChildren();
-		attackPaths = generateAttackPaths(childNodes.get(0));
-		if (childNodes.size()==1)
-			return attackPaths;
-		if (threatTreeNode.isRelationAND()){
-			for (int i=1; i<childNodes.size(); i++)
-				attackPaths = concatSequences(attackPaths, generateAttackPaths(childNodes.get(i)));
-		} else {
-			for (int i=1; i<childNodes.size(); i++)
-				attackPaths.addAll(generateAttackPaths(childNodes.get(i)));			
-		}
-		return attackPaths;
-	}
-	
-	private ArrayList<ArrayList<String>> concatSequences(ArrayList<ArrayList<String>> set1, ArrayList<ArrayList<String>> set2){
-		ArrayList<ArrayList<String>> set3 = new ArrayList<ArrayList<String>>();
-		for (ArrayList<String> sequenceInSet1: set1)
-			for (ArrayList<String> sequenceInSet2: set2) {
-				ArrayList<String> concatSequence = new ArrayList<String>();
-				concatSequence.addAll(sequenceInSet1);
-				concatSequence.addAll(sequenceInSet2);
-				set3.add(concatSequence);
-			}
-		return set3;
-	}
-}
+	}
+}
@@ -5,8 +5,8 @@ package testgeneration;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Stack;
-import java.util.Vector;
 
 
 import kernel.CancellationException;
@@ -154,7 +154,7 @@ public class TransitionTreeForTransitionCoverage extends TransitionTree {
 			for (TransitionTreeNode nonleaf: nonleaves){
 				checkForCancellation();
 				if (nonleaf.getTransition()==leaf.getTransition() && leaf.getParent()!=null) {
-					Vector<TransitionTreeNode> siblings = leaf.getParent().children();
+					List<TransitionTreeNode> siblings = leaf.getParent().children();
 					siblings.remove(leaf);
 					leaf.setParent(null);
 					found = true;
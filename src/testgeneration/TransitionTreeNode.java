@@ -3,59 +3,86 @@
 */
 package testgeneration;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
 import java.util.Stack;
-import java.util.Vector;
-
-import javax.swing.tree.DefaultMutableTreeNode;
 
 import kernel.TestingManager;
 
+import mid.EnabledFirings;
 import mid.Firing;
 import mid.FiringSequence;
+import mid.MID;
 import mid.Marking;
 import mid.Substitution;
 import mid.Transition;
 
 
+// Nodes are kept small because large trees have millions of them: the parameter table is created when it is first edited,
+// the children are kept in an array that is allocated when the first child is added, the outline number is computed
+// from the positions of the node and its ancestors, and the marking of an inner node can be dropped (see dropMarking).
+// The children of a node loaded from a test data file can be left in the file until they are first needed (see setPendingChildren).
 public class TransitionTreeNode implements Serializable {
 	
 	private static final long serialVersionUID = 1L;
 	public static final String RIGHTARROW = "\u2192";
 	public static final int STATESTRLENGTH = 200;
 	
+	// read-only parameter table of the nodes without user input
+	private static final ParaTableModel NoUserInput = new ParaTableModel();
+	private static final List<TransitionTreeNode> NoChildren = Collections.emptyList();
+	
 	private Transition transition;
 	private Substitution substitution;
-	private Marking	marking;
+	private Marking	marking;		// null if it has been dropped; it is then replayed from the parent
 	private boolean negative;
 	
-	private ParaTableModel paraTable;
+	private ParaTableModel paraTable;	// null until the user input is edited
 
 	private boolean traversed = false;
 	private boolean expanded = false;
 
-	private String outlineNumber = ""; // example: 1.2.3 
+	private int outlineIndex = 0; 	// position among the siblings (from 1) when the outline number was set, 0 if none 
 	private int depth = 0;
 	
-	private String testInputCode;
-	private String testOracleCode;
+	private transient EnabledFirings enabledFirings;	// used during tree expansion only
 	
 	public TransitionTreeNode(Transition transition, Substitution substitution, Marking marking, boolean negative) {
 		this.transition = transition;
 		this.substitution = substitution;
 		this.marking = marking;
 		this.negative = negative;
-		paraTable = new ParaTableModel();
 	}
 
 	public TransitionTreeNode(Transition transition, Substitution substitution, Marking marking) {
 		this(transition, substitution, marking, false);
 	}	
 
+	public EnabledFirings getEnabledFirings() {
+		return enabledFirings;
+	}
+
+	public void setEnabledFirings(EnabledFirings enabledFirings) {
+		this.enabledFirings = enabledFirings;
+	}
+
+	// the parameter table for editing; it is created if the node has none
 	public ParaTableModel getParaTable() {
+		if (paraTable==null)
+			paraTable = new ParaTableModel();
 		return paraTable;
 	}
+
+	// the parameter table for reading, which must not be modified
+	public ParaTableModel getUserInput() {
+		return paraTable!=null? paraTable: NoUserInput;
+	}
 	
 	public void setParaTable(ParaTableModel table) {
 		this.paraTable = table;
@@ -69,21 +96,45 @@ public class TransitionTreeNode implements Serializable {
 		this.negative = negative;
 	}
 
+	// example: 1.2.3 
 	public String getOutlineNumber() {
-		return outlineNumber;
+		if (outlineIndex==0)
+			return "";
+		if (parent==null || parent.isRoot())
+			return ""+outlineIndex;
+		StringBuilder number = new StringBuilder();
+		appendOutlineNumber(number);
+		return number.toString();
+	}
+
+	// the outline number of the parent (empty if it has none) followed by the position of this node
+	private void appendOutlineNumber(StringBuilder number) {
+		if (parent!=null && !parent.isRoot()) {
+			if (parent.outlineIndex>0)
+				parent.appendOutlineNumber(number);
+			number.append('.');
+		}
+		number.append(outlineIndex);
 	}
 
+	// the number is given by its last component; the others are those of the parent
 	public String setOutlineNumber(String outlineNumber) {
-		return this.outlineNumber=outlineNumber;
+		outlineIndex = outlineNumber.length()==0? 0: Integer.parseInt(outlineNumber.substring(outlineNumber.lastIndexOf('.')+1));
+		return outlineNumber;
 	}
 
 	public void resetChildrenOutlineNumbers(int maxDepth) {
-		if (children.size()<1 || getLevel()>maxDepth)
+		if (children==null || getLevel()>maxDepth)
 			return;
+		if (children instanceof PendingChildren) {
+			// the children are numbered when they are loaded
+			((PendingChildren)children).maxIdDepth = maxDepth;
+			return;
+		}
 		for (int i=0; i<children.size(); i++) {
-			TransitionTreeNode child = (TransitionTreeNode)children.get(i);
+			TransitionTreeNode child = children.get(i);
 			child.depth = depth+1;
-			child.outlineNumber = isRoot()? "" + (i+1) : outlineNumber + "." + (i+1); 		
+			child.outlineIndex = i+1; 		
 			child.resetChildrenOutlineNumbers(maxDepth);
 		}
 	}
@@ -129,11 +180,24 @@ public class TransitionTreeNode implements Serializable {
 	}
 
 	public Marking getMarking(){
+		if (marking==null && parent!=null && transition!=null)
+			return MID.nextMarking(parent.getMarking(), transition, substitution);
 		return marking;
 	}
 
+	// drops the marking of the node if it can be replayed from the parent
+	// used for inner nodes of large trees; leaves keep their markings for the test oracles
+	public boolean dropMarking() {
+		if (marking==null || negative || parent==null || parent.isRoot() || transition==null || substitution==null)
+			return false;
+		if (!marking.equals(MID.nextMarking(parent.getMarking(), transition, substitution)))
+			return false;
+		marking = null;
+		return true;
+	}
+
 	public String getTestCaseId() {
-		return outlineNumber.replace('.', '_');
+		return getOutlineNumber().replace('.', '_');
 	}
 
 	// used as the node title in the test tree
@@ -145,7 +209,7 @@ public class TransitionTreeNode implements Serializable {
 	public String nodeIdentityString(boolean includeState) {
 		if (isRoot())
 			return "ROOT";
-		StringBuffer buffer = new StringBuffer(outlineNumber);
+		StringBuffer buffer = new StringBuffer(getOutlineNumber());
 		buffer.append("  ");
 		buffer.append(transition.getEvent());
 		buffer.append(getActualParameterList());
@@ -161,7 +225,7 @@ public class TransitionTreeNode implements Serializable {
 				buffer.append(" ");
 				buffer.append(RIGHTARROW);
 				buffer.append(" ");
-				String markingString = marking.toString();
+				String markingString = getMarking().toString();
 				if (markingString.length()<STATESTRLENGTH) 
 					buffer.append(markingString);
 				else
@@ -192,7 +256,7 @@ public class TransitionTreeNode implements Serializable {
 		TransitionTreeNode currentNode = this;
 		while (!currentNode.parent.isRoot())
 			currentNode = currentNode.parent;
-		return currentNode.parent.children.indexOf(currentNode)+1;
+		return currentNode.parent.getChildNodePosition(currentNode)+1;
 //		return Integer.valueOf(outlineNumber.substring(0, outlineNumber.indexOf(".")));
 	}
 	
@@ -216,22 +280,6 @@ public class TransitionTreeNode implements Serializable {
 		return new FiringSequence(firings);
 	}
 	
-	public String getTestInputCode(){
-		return testInputCode;
-	}
-	
-	public void setTestInputCode(String code){
-		testInputCode = code;
-	}
-	
-	public String getTestOracleCode(){
-		return testOracleCode;
-	}
-	
-	public void setTestOracleCode(String code){
-		testOracleCode = code;
-	}
-
 /*	
 	public String reportFiringSequence(){
 		ArrayList<TransitionTreeNode> nodes = getFiringSequence();
@@ -245,7 +293,7 @@ public class TransitionTreeNode implements Serializable {
 */
 	// general tree node 
 	private TransitionTreeNode parent = null;
-	private Vector<TransitionTreeNode> children = new Vector<TransitionTreeNode>();
+	private Children children = null;		// null for leaves
 
 	public void setParent(TransitionTreeNode parent) {
 		if (parent!=null)
@@ -261,35 +309,153 @@ public class TransitionTreeNode implements Serializable {
 		return parent == null;
 	}
 
+	// a node with pending children has at least one child
 	public boolean isLeaf(){
-		return children.size() == 0;
+		return children==null || (children.size()==0 && !(children instanceof PendingChildren));
 	}
 
-	public Vector<TransitionTreeNode> children(){
-		return children;
+	public List<TransitionTreeNode> children(){
+		loadPendingChildren();
+		return children!=null? children: NoChildren;
 	}
 
 	public boolean hasChildren(){
-		return children.size()>0;
+		return !isLeaf();
 	}
 
 	public void add(TransitionTreeNode child){
+		loadPendingChildren();
+		if (children==null)
+			children = new Children();
 		children.add(child);
 		child.setParent(this);
 	}
 
 	public void insert(int index, TransitionTreeNode child){
+		loadPendingChildren();
+		if (children==null)
+			children = new Children();
 		children.add(index, child);
 		child.setParent(this);
 	}
 
 	public void removeNodeFromChildren(TransitionTreeNode child) {
 		child.parent = null;
-		children.remove(child);
+		loadPendingChildren();
+		if (children!=null)
+			children.remove(child);
 	}
 
 	public int getChildNodePosition(TransitionTreeNode child) {
-		return children.indexOf(child);
+		loadPendingChildren();
+		return children!=null? children.indexOf(child): -1;
+	}
+
+	// reads the children of a node that has been loaded from a test data file
+	public interface ChildrenLoader {
+		void loadChildren(TransitionTreeNode node, int nodeId);
+	}
+
+	// the children of the node are loaded by the loader when they are first needed; nodeId identifies the node for the loader 
+	public void setPendingChildren(ChildrenLoader loader, int nodeId){
+		children = new PendingChildren(loader, nodeId);
+	}
+
+	private void loadPendingChildren(){
+		if (children instanceof PendingChildren) {
+			synchronized (this) {
+				if (children instanceof PendingChildren) {
+					PendingChildren pending = (PendingChildren)children;
+					children = null;
+					pending.loader.loadChildren(this, pending.nodeId);
+					if (pending.maxIdDepth>=0)
+						resetChildrenOutlineNumbers(pending.maxIdDepth);
+				}
+			}
+		}
+	}
+
+	// loads all pending children of the subtree, e.g., before the file they are read from is overwritten 
+	public void loadSubtree(){
+		Stack<TransitionTreeNode> stack = new Stack<TransitionTreeNode>();
+		stack.push(this);
+		while (!stack.isEmpty())
+			stack.addAll(stack.pop().children());
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		loadPendingChildren();
+		out.defaultWriteObject();
+	}
+
+	// the children of a node in an array that grows as needed
+	private static class Children extends AbstractList<TransitionTreeNode> implements RandomAccess, Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private static final TransitionTreeNode[] NoNodes = new TransitionTreeNode[0];
+
+		private TransitionTreeNode[] nodes = NoNodes;
+		private int size = 0;
+
+		public TransitionTreeNode get(int index) {
+			if (index>=size)
+				throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+			return nodes[index];
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public TransitionTreeNode set(int index, TransitionTreeNode node) {
+			TransitionTreeNode old = get(index);
+			nodes[index] = node;
+			return old;
+		}
+
+		public void add(int index, TransitionTreeNode node) {
+			if (index<0 || index>size)
+				throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+			if (size==nodes.length) {
+				TransitionTreeNode[] larger = new TransitionTreeNode[Math.max(2, size*2)];
+				System.arraycopy(nodes, 0, larger, 0, size);
+				nodes = larger;
+			}
+			System.arraycopy(nodes, index, nodes, index+1, size-index);
+			nodes[index] = node;
+			size++;
+			modCount++;
+		}
+
+		public TransitionTreeNode remove(int index) {
+			TransitionTreeNode old = get(index);
+			System.arraycopy(nodes, index+1, nodes, index, size-index-1);
+			nodes[--size] = null;
+			modCount++;
+			return old;
+		}
+
+		// nodes are compared by identity
+		public int indexOf(Object node) {
+			for (int index=0; index<size; index++)
+				if (nodes[index]==node)
+					return index;
+			return -1;
+		}
+	}
+	
+	// no child has been loaded yet
+	private static class PendingChildren extends Children {
+		private static final long serialVersionUID = 1L;
+
+		private transient ChildrenLoader loader;
+		private int nodeId;
+		private int maxIdDepth = -1;	// >=0 if the outline numbers of the children are to be reset 
+
+		PendingChildren(ChildrenLoader loader, int nodeId) {
+			this.loader = loader;
+			this.nodeId = nodeId;
+		}
 	}
 	
 	// number of successors
@@ -315,14 +481,15 @@ public class TransitionTreeNode implements Serializable {
 	// therefore should call clone
 	private TransitionTreeNode cloneNode() {
 		TransitionTreeNode copy = new TransitionTreeNode(this.transition, this.substitution, this.marking);
-		copy.paraTable = this.paraTable.clone();
-		Vector<TransitionTreeNode> childrenCopy = new Vector<TransitionTreeNode>();
-		for (TransitionTreeNode child: this.children){
+		if (this.paraTable!=null)
+			copy.paraTable = this.paraTable.clone();
+		for (TransitionTreeNode child: children()){
 			TransitionTreeNode childCopy = child.cloneNode();
+			if (copy.children==null)
+				copy.children = new Children();
+			copy.children.add(childCopy);
 			childCopy.parent = copy;
-			childrenCopy.add(childCopy);
 		}
-		copy.children = childrenCopy;
 		return copy; 
 	}
 	
@@ -360,17 +527,6 @@ public class TransitionTreeNode implements Serializable {
 		return nonleaves;
 	}
 
-	public DefaultMutableTreeNode setToMutableNode() {
-		DefaultMutableTreeNode mutableTreeNode = new DefaultMutableTreeNode(this);
-		if (hasChildren()) {
-			for (Object kid : children) {
-				DefaultMutableTreeNode mutableTreechild = ((TransitionTreeNode)kid).setToMutableNode();
-				mutableTreeNode.add(mutableTreechild);
-			}
-		}
-		return mutableTreeNode;
-	}
-	
 	// could use outlineNumber.split("\\.").length for getLevel;
 	// if outlineNumber is always set properly, 
 	// However, GoalVerifierBFS/DFS have not done so
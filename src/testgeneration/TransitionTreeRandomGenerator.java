@@ -10,12 +10,11 @@ import kernel.CancellationException;
 import kernel.SystemOptions;
 import locales.LocaleBundle;
 
+import mid.EnabledFirings;
 import mid.Firing;
 import mid.MID;
 import mid.Marking;
-import mid.Substitution;
 import mid.Transition;
-import mid.Unifier;
 
 public class TransitionTreeRandomGenerator extends TransitionTreeFromSequences {
 	
@@ -41,15 +40,12 @@ public class TransitionTreeRandomGenerator extends TransitionTreeFromSequences {
 
 	private TransitionTreeNode currentNode=null;
 	private Marking currentMarking = null;
-	private ArrayList<Firing> possibleFirings = new ArrayList<Firing>();
+	private EnabledFirings currentFirings = null;
+	private EnabledFirings[] initialFirings = null;	// enabled firings under each initial marking
+	private int numberOfPossibleFirings = 0;
 	
 	private void computePossibleFirings(){
-		possibleFirings.clear();
-		for (Transition transition: mid.getTransitions()){
-			Unifier unifier = new Unifier(transition, currentMarking);
-			for (Substitution substitution: unifier.getSubstitutions())
-				possibleFirings.add(new Firing(transition, substitution));
-		}
+		numberOfPossibleFirings = currentFirings.getNumberOfFirings();
 	}
 
 	private void setRandomInitialMarking(){
@@ -60,6 +56,11 @@ public class TransitionTreeRandomGenerator extends TransitionTreeFromSequences {
 			randomInitMarkingIndex = randomIndexGenerator.nextInt(initMarkings.size());
 		}
 		currentMarking=initMarkings.get(randomInitMarkingIndex);
+		if (initialFirings==null)
+			initialFirings = new EnabledFirings[initMarkings.size()];
+		if (initialFirings[randomInitMarkingIndex]==null)
+			initialFirings[randomInitMarkingIndex] = new EnabledFirings(mid, currentMarking);
+		currentFirings = initialFirings[randomInitMarkingIndex];
 		boolean initMarkingNodeExists = false;
 		for (TransitionTreeNode initMarkingNode: root.children())
 			if (initMarkingNode.getMarking()==currentMarking){
@@ -74,16 +75,17 @@ public class TransitionTreeRandomGenerator extends TransitionTreeFromSequences {
 	}
 
 	private Firing getRandomFiring(){
-		if (possibleFirings.size()==0)
+		if (numberOfPossibleFirings==0)
 			return null;
-		else if (possibleFirings.size()==1)
-			return possibleFirings.get(0);
-		int randomFiringIndex = randomIndexGenerator.nextInt(possibleFirings.size());
-		return possibleFirings.get(randomFiringIndex);
+		else if (numberOfPossibleFirings==1)
+			return currentFirings.getFiring(0);
+		int randomFiringIndex = randomIndexGenerator.nextInt(numberOfPossibleFirings);
+		return currentFirings.getFiring(randomFiringIndex);
 	}
 	
 	private boolean generateRandomSequence(int testCount) throws CancellationException {
-		progressDialog.setMessage(LocaleBundle.bundleString("Generating random test")+": "+testCount+"/"+systemOptions.getMaxRandomTests()+"...");
+		if (progressDialog!=null)
+			progressDialog.setMessage(LocaleBundle.bundleString("Generating random test")+": "+testCount+"/"+systemOptions.getMaxRandomTests()+"...");
 		setRandomInitialMarking();
 		int depth =0;
 		Firing randomFiring = null;
@@ -93,6 +95,7 @@ public class TransitionTreeRandomGenerator extends TransitionTreeFromSequences {
 			randomFiring = getRandomFiring();
 			if (randomFiring!=null) { 
 				currentMarking = mid.fireTransition(currentMarking, randomFiring.getTransition(), randomFiring.getSubstitution());
+				currentFirings = currentFirings.fire(randomFiring.getTransition(), currentMarking);
 				currentNode = createNewPositiveNode(currentNode, randomFiring.getTransition(), randomFiring.getSubstitution(), currentMarking);
 				depth++;
 			}
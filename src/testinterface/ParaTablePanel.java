@@ -10,7 +10,6 @@ import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableColumn;
-import javax.swing.tree.TreeNode;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
@@ -18,6 +17,7 @@ import javax.swing.JTable;
 import kernel.SystemOptions;
 
 import testgeneration.ParaTableModel;
+import testgeneration.TransitionTreeNode;
 
 public class ParaTablePanel extends JPanel{
 	private static final long serialVersionUID = 1;
@@ -26,7 +26,7 @@ public class ParaTablePanel extends JPanel{
 	protected JScrollPane scroller;
 	protected ParaTableModel paraTable;
 
-	public ParaTablePanel(ParaTableModel paraTable, TreeNode[] sequence, TestTreePanel testTreeEditor) {
+	public ParaTablePanel(ParaTableModel paraTable, TransitionTreeNode[] sequence, TestTreePanel testTreeEditor) {
 		this.paraTable=paraTable;
 		paraTable.addTableModelListener(new ParaTableModelListener(sequence, testTreeEditor));
 		createTablePanel();
@@ -105,9 +105,9 @@ public class ParaTablePanel extends JPanel{
 
 
 	public class ParaTableModelListener implements TableModelListener {
-		private TreeNode[] testSequence;
+		private TransitionTreeNode[] testSequence;
 		private TestTreePanel testTreeEditor;
-		public ParaTableModelListener(TreeNode[] testSequence, TestTreePanel testTreeEditor) {
+		public ParaTableModelListener(TransitionTreeNode[] testSequence, TestTreePanel testTreeEditor) {
 			this.testSequence = testSequence;
 			this.testTreeEditor = testTreeEditor;
 		}
@@ -121,6 +121,7 @@ public class ParaTablePanel extends JPanel{
 				//System.out.println("row: " + row + " column: " + column);
 				table.setColumnSelectionInterval(column + 1, column + 1);
 				table.setRowSelectionInterval(row, row);
+				testTreeEditor.getTestTree().refreshLabels();
 				testTreeEditor.updateTestCode(testSequence);
 				testTreeEditor.setTreeSaved(false);
 			}
@@ -1,8 +1,11 @@
 package testinterface;
 
-import java.util.*;
+import java.util.ArrayList;
 
 import javax.swing.JTree;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
 import javax.swing.tree.*;
 
 import kernel.CancellationException;
@@ -10,70 +13,156 @@ import kernel.ProgressDialog;
 import locales.LocaleBundle;
 
 import testgeneration.TransitionTree;
+import testgeneration.TransitionTreeNode;
 
+// The children of a node are loaded by the JTree when the node is expanded (see TestTreeModel).
+// Rows have a fixed height so that only the visible rows are measured and rendered.
+// The nodes up to the maximum level of node expansion are expanded in chunks: the first chunk
+// while the progress dialog is shown, the others in the background on the event dispatch thread.
 public class TestJTree extends JTree {
 	private static final long serialVersionUID = 1L;
 
+	private static final int InitialExpansion = 1000;	// nodes expanded before the tree is shown
+	private static final int ExpansionChunk = 200;		// nodes expanded in the background at a time
+	private static final int RowHeight = 18;
+
 	private TransitionTree transitionTree;
 	private ProgressDialog progressDialog;
-	
+	private TestTreeRenderer renderer;
+
+	// paths waiting for expansion (used as a stack) and their levels
+	private ArrayList<TreePath> pendingPaths = new ArrayList<TreePath>();
+	private ArrayList<Integer> pendingLevels = new ArrayList<Integer>();
+	private boolean expansionScheduled = false;
+	private boolean expansionCancelled = false;
+
 	public TestJTree(TransitionTree transitionTree, ProgressDialog progressDialog) throws CancellationException {
-		super(transitionTree.setToMutableTree());
+		super(new TestTreeModel(transitionTree.getRoot()));
 		this.transitionTree = transitionTree;
 		this.progressDialog = progressDialog;
-		setCellRenderer(new TestTreeRenderer());
+		renderer = new TestTreeRenderer();
+		setCellRenderer(renderer);
+		setRowHeight(Math.max(RowHeight, getFontMetrics(renderer.getFont()).getHeight()+2));
+		setLargeModel(true);
+		getModel().addTreeModelListener(new TreeModelListener() {
+			public void treeNodesChanged(TreeModelEvent e) {
+				renderer.clearLabels();
+			}
+			public void treeNodesInserted(TreeModelEvent e) {
+				renderer.clearLabels();
+			}
+			public void treeNodesRemoved(TreeModelEvent e) {
+				renderer.clearLabels();
+			}
+			public void treeStructureChanged(TreeModelEvent e) {
+				renderer.clearLabels();
+			}
+		});
 		expandAllPaths(true);
 		this.setRootVisible(false);
 	}
 
+	public TestTreeModel getTestTreeModel() {
+		return (TestTreeModel) getModel();
+	}
+
+	// the titles of the nodes are recomputed, e.g., after the parameters have been edited
+	public void refreshLabels() {
+		renderer.clearLabels();
+		repaint();
+	}
+
 	// //////////////////////////////////////////////////////
 	// expand the entire JTree
 	// //////////////////////////////////////////////////////
 	public void expandAllPaths(boolean expand) throws CancellationException {
-		TreeNode root = (TreeNode) getModel().getRoot();
-		expandAllPathsWithCancellation(new TreePath(root), 0, expand);
-	}
-
-	public void expandAllPathsWithCancellation(TreePath parent,int level, boolean expand) throws CancellationException {
-		if (progressDialog!=null && progressDialog.isCancelled()){
-			throw new CancellationException(LocaleBundle.bundleString("TEST_VISUALIZATION_CANCELED"));
-		}
-		TreeNode node = (TreeNode) parent.getLastPathComponent();
-		if (node.getChildCount() >= 0) {
-			for (Enumeration e = node.children(); e.hasMoreElements();) {
-				if (progressDialog!=null && progressDialog.isCancelled()) {
+		TreePath root = new TreePath(getModel().getRoot());
+		if (expand) {
+			expansionCancelled = false;
+			pendingPaths.add(root);
+			pendingLevels.add(0);
+			for (int expanded=0; expanded<InitialExpansion && !pendingPaths.isEmpty(); expanded+=ExpansionChunk) {
+				if (progressDialog!=null && progressDialog.isCancelled()){
 					throw new CancellationException(LocaleBundle.bundleString("TEST_VISUALIZATION_CANCELED"));
 				}
-				TreeNode n = (TreeNode) e.nextElement();
-				TreePath path = parent.pathByAddingChild(n);
-				if (level<transitionTree.getSystemOptions().getMaxLevelOfNodeExpansion())
-					expandAllPathsWithCancellation(path, level+1, expand);
+				expandPendingPaths(ExpansionChunk);
 			}
+			scheduleExpansion();
+		}
+		else {
+			cancelExpansion();
+			collapseAllPaths(root, 0);
 		}
-		// Expansion or collapse must be done bottom-up
-		if (expand) {
-			expandPath(parent);
-		} else {
-			collapsePath(parent);
-		}	
 	}
 
 	public void expandAllPaths(TreePath parent,int level, boolean expand){
-		TreeNode node = (TreeNode) parent.getLastPathComponent();
-		if (node.getChildCount() >= 0) {
-			for (Enumeration e = node.children(); e.hasMoreElements();) {
-				TreeNode n = (TreeNode) e.nextElement();
-				TreePath path = parent.pathByAddingChild(n);
-				if (level<transitionTree.getSystemOptions().getMaxLevelOfNodeExpansion())
-					expandAllPaths(path, level+1, expand);
+		if (expand) {
+			expansionCancelled = false;
+			pendingPaths.add(parent);
+			pendingLevels.add(level);
+			expandPendingPaths(ExpansionChunk);
+			scheduleExpansion();
+		}
+		else
+			collapseAllPaths(parent, level);
+	}
+
+	// stops the background expansion, e.g., when the tree is closed
+	public void cancelExpansion() {
+		expansionCancelled = true;
+		pendingPaths.clear();
+		pendingLevels.clear();
+	}
+
+	// expands at most the given number of nodes, parents before children
+	private void expandPendingPaths(int chunk) {
+		TestTreeModel model = getTestTreeModel();
+		int maxLevel = transitionTree.getSystemOptions().getMaxLevelOfNodeExpansion();
+		int expanded = 0;
+		while (!pendingPaths.isEmpty() && expanded<chunk) {
+			TreePath path = pendingPaths.remove(pendingPaths.size()-1);
+			int level = pendingLevels.remove(pendingLevels.size()-1);
+			TransitionTreeNode node = (TransitionTreeNode) path.getLastPathComponent();
+			// the node may have been removed since it was scheduled
+			if (!node.hasChildren() || !model.isInTree(node))
+				continue;
+			expandPath(path);
+			expanded++;
+			if (level<maxLevel) {
+				for (int index=node.children().size()-1; index>=0; index--) {
+					TransitionTreeNode child = node.children().get(index);
+					if (child.hasChildren()) {
+						pendingPaths.add(path.pathByAddingChild(child));
+						pendingLevels.add(level+1);
+					}
+				}
 			}
 		}
-		// Expansion or collapse must be done bottom-up
-		if (expand) {
-			expandPath(parent);
-		} else {
-			collapsePath(parent);
-		}	
+	}
+
+	private void scheduleExpansion() {
+		if (pendingPaths.isEmpty() || expansionScheduled || expansionCancelled)
+			return;
+		expansionScheduled = true;
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				expansionScheduled = false;
+				if (expansionCancelled)
+					return;
+				expandPendingPaths(ExpansionChunk);
+				scheduleExpansion();
+			}
+		});
+	}
+
+	private void collapseAllPaths(TreePath parent, int level){
+		TransitionTreeNode node = (TransitionTreeNode) parent.getLastPathComponent();
+		if (level<transitionTree.getSystemOptions().getMaxLevelOfNodeExpansion())
+			for (TransitionTreeNode child: node.children())
+				if (child.hasChildren() && isExpanded(parent.pathByAddingChild(child)))
+					collapseAllPaths(parent.pathByAddingChild(child), level+1);
+		// Collapse must be done bottom-up
+		collapsePath(parent);
 	}
 
 	public TransitionTree getTransitionTree() {
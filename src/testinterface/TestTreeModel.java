@@ -0,0 +1,111 @@
+package testinterface;
+
+import java.util.ArrayList;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+import testgeneration.TransitionTreeNode;
+
+// The test tree as seen by the JTree: the children of a node are read from the transition tree node itself,
+// so nothing is copied when a tree is displayed and only the nodes the JTree asks for are visited.
+// For a tree loaded from a binary test data file, the children of a node are read from the file when the node is expanded
+// (see BinaryTestTreeReader.loadSubtree); isLeaf does not read them.
+// Changes to the transition tree (removing, inserting, or moving nodes) are reported with the node* methods.
+
+public class TestTreeModel implements TreeModel {
+
+	private TransitionTreeNode root;
+	private EventListenerList listeners = new EventListenerList();
+
+	public TestTreeModel(TransitionTreeNode root) {
+		this.root = root;
+	}
+
+	public Object getRoot() {
+		return root;
+	}
+
+	public Object getChild(Object parent, int index) {
+		return ((TransitionTreeNode)parent).children().get(index);
+	}
+
+	public int getChildCount(Object parent) {
+		return ((TransitionTreeNode)parent).children().size();
+	}
+
+	public boolean isLeaf(Object node) {
+		return ((TransitionTreeNode)node).isLeaf();
+	}
+
+	public int getIndexOfChild(Object parent, Object child) {
+		if (parent==null || child==null)
+			return -1;
+		return ((TransitionTreeNode)parent).getChildNodePosition((TransitionTreeNode)child);
+	}
+
+	// nodes are not edited in the tree
+	public void valueForPathChanged(TreePath path, Object newValue) {
+	}
+
+	public void addTreeModelListener(TreeModelListener listener) {
+		listeners.add(TreeModelListener.class, listener);
+	}
+
+	public void removeTreeModelListener(TreeModelListener listener) {
+		listeners.remove(TreeModelListener.class, listener);
+	}
+
+	// the nodes from the root to the given node
+	public TransitionTreeNode[] getPathToRoot(TransitionTreeNode node) {
+		ArrayList<TransitionTreeNode> nodes = new ArrayList<TransitionTreeNode>();
+		for (TransitionTreeNode current = node; current!=null; current = current.getParent())
+			nodes.add(0, current);
+		return nodes.toArray(new TransitionTreeNode[nodes.size()]);
+	}
+
+	public TreePath getTreePath(TransitionTreeNode node) {
+		return new TreePath(getPathToRoot(node));
+	}
+
+	// whether the node has not been removed from the tree
+	public boolean isInTree(TransitionTreeNode node) {
+		TransitionTreeNode current = node;
+		while (current.getParent()!=null)
+			current = current.getParent();
+		return current==root;
+	}
+
+	// the child at the index has been inserted into the parent
+	public void nodeWasInserted(TransitionTreeNode parent, int index) {
+		TreeModelEvent event = new TreeModelEvent(this, getPathToRoot(parent), new int[]{index}, new Object[]{parent.children().get(index)});
+		Object[] list = listeners.getListenerList();
+		for (int i = list.length-2; i>=0; i-=2)
+			if (list[i]==TreeModelListener.class)
+				((TreeModelListener)list[i+1]).treeNodesInserted(event);
+	}
+
+	// the child at the index has been removed from the parent
+	public void nodeWasRemoved(TransitionTreeNode parent, int index, TransitionTreeNode child) {
+		TreeModelEvent event = new TreeModelEvent(this, getPathToRoot(parent), new int[]{index}, new Object[]{child});
+		Object[] list = listeners.getListenerList();
+		for (int i = list.length-2; i>=0; i-=2)
+			if (list[i]==TreeModelListener.class)
+				((TreeModelListener)list[i+1]).treeNodesRemoved(event);
+	}
+
+	// the titles of the children have changed, e.g., their outline numbers
+	public void childrenChanged(TransitionTreeNode parent) {
+		int[] indices = new int[parent.children().size()];
+		for (int index=0; index<indices.length; index++)
+			indices[index] = index;
+		TreeModelEvent event = new TreeModelEvent(this, getPathToRoot(parent), indices, parent.children().toArray());
+		Object[] list = listeners.getListenerList();
+		for (int i = list.length-2; i>=0; i-=2)
+			if (list[i]==TreeModelListener.class)
+				((TreeModelListener)list[i+1]).treeNodesChanged(event);
+	}
+}
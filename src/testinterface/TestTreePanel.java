@@ -18,9 +18,6 @@ import javax.swing.JSplitPane;
 import javax.swing.border.TitledBorder;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
-import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.DefaultTreeModel;
-import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 
 import locales.LocaleBundle;
@@ -85,17 +82,15 @@ public class TestTreePanel extends JPanel implements TreeSelectionListener {
 		return jp;
 	}
 
-	private void reloadTablesPanel(TreeNode[] sequence) {
+	private void reloadTablesPanel(TransitionTreeNode[] sequence) {
 		if (sequence != null) {
 			for (int i = 1; i < sequence.length; i++) {
-				DefaultMutableTreeNode mutableNode = (DefaultMutableTreeNode) (sequence[i]);
-				reloadOneTable(sequence, mutableNode);
+				reloadOneTable(sequence, sequence[i]);
 			}
 		}
 	}
 
-	private void reloadOneTable(TreeNode[] sequence, DefaultMutableTreeNode mutableNode){
-		TransitionTreeNode node = (TransitionTreeNode) mutableNode.getUserObject();
+	private void reloadOneTable(TransitionTreeNode[] sequence, TransitionTreeNode node){
 		ParaTableModel paraTable = node.getParaTable();
 		String label = node.nodeIdentityString(true);
 		ParaTablePanel iTablePanel = new ParaTablePanel(paraTable, sequence, this);
@@ -108,20 +103,20 @@ public class TestTreePanel extends JPanel implements TreeSelectionListener {
 	
 	public void valueChanged(TreeSelectionEvent event) {
 		if (event.getSource() == testTree) {
-			DefaultMutableTreeNode mutableNode = (DefaultMutableTreeNode)(testTree.getLastSelectedPathComponent());
-			if (mutableNode != null) {
-				displayNodeInfo(mutableNode);
-				TreeNode[] nodes = ((DefaultTreeModel)testTree.getModel()).getPathToRoot(mutableNode);
+			TransitionTreeNode node = (TransitionTreeNode)(testTree.getLastSelectedPathComponent());
+			if (node != null) {
+				displayNodeInfo(node);
+				TransitionTreeNode[] nodes = testTree.getTestTreeModel().getPathToRoot(node);
 				interactiveTablesPanel.removeAll();
-				if (mutableNode.isLeaf()) {
+				if (node.isLeaf()) {
 					reloadTablesPanel(nodes);
 				} else {
-					if (!mutableNode.isRoot())
-						reloadOneTable(nodes, mutableNode);
+					if (!node.isRoot())
+						reloadOneTable(nodes, node);
 					else
 						interactiveTablesPanel.add(paraInputTablePrompt);
 				}
-				if (mutableNode.isLeaf())
+				if (node.isLeaf())
 					updateTestCode(nodes);
 				interactiveTablesPanel.revalidate();
 				interactiveTablesPanel.repaint();
@@ -129,8 +124,7 @@ public class TestTreePanel extends JPanel implements TreeSelectionListener {
 		}
 	}
 	
-	private void displayNodeInfo(DefaultMutableTreeNode mutableNode){
-		TransitionTreeNode node = ((TransitionTreeNode) mutableNode.getUserObject());
+	private void displayNodeInfo(TransitionTreeNode node){
 		if (!node.isRoot()) {
 			if (node.getOutlineNumber().length()>0)
 				kernel.printToConsole("\n"+LocaleBundle.bundleString("Selected node")+": "+node.getOutlineNumber());
@@ -150,12 +144,11 @@ public class TestTreePanel extends JPanel implements TreeSelectionListener {
 		}
 	}
 	
-	public void updateTestCode(TreeNode[] testSequence) {
+	public void updateTestCode(TransitionTreeNode[] testSequence) {
 		ArrayList<TransitionTreeNode> nodes = new ArrayList<TransitionTreeNode>(); 
 //			 root (not test node) when i=0			
 		for (int i=1; i<testSequence.length; i++) {
-			DefaultMutableTreeNode defaultTreeNode = (DefaultMutableTreeNode) testSequence[i]; 
-			nodes.add((TransitionTreeNode)defaultTreeNode.getUserObject());
+			nodes.add(testSequence[i]);
 		}
 //		TargetLanguage language = testTree.getTransitionTree().getSystemOptions().getLanguage();
 		TestCodeGenerator codeGenerator = TestCodeGenerator.createCodeGenerator(testTree.getTransitionTree());
@@ -180,6 +173,8 @@ public class TestTreePanel extends JPanel implements TreeSelectionListener {
 	}
 
 	public void setTestTree(TestJTree tree) {
+		if (testTree!=null)
+			testTree.cancelExpansion();
 		testTree = tree;
 		testTree.addTreeSelectionListener(this);
 		testTree.setSelectionPath(new TreePath(testTree.getModel().getRoot()));
@@ -194,6 +189,8 @@ public class TestTreePanel extends JPanel implements TreeSelectionListener {
 	}
 	
 	public void cleanUp() {
+		if (testTree!=null)
+			testTree.cancelExpansion();
 		testTree = null;
 	}
 	
@@ -3,18 +3,23 @@ package testinterface;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Font;
+import java.util.WeakHashMap;
 
 import javax.swing.JTree;
-import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeCellRenderer;
 
 import kernel.SystemOptions;
+import kernel.TestingManager;
 
 import testgeneration.TransitionTreeNode;
 
 public class TestTreeRenderer extends DefaultTreeCellRenderer {
 	private static final long serialVersionUID = 1L;
 
+	// node titles are computed once; they are cleared when the tree or the parameters are edited
+	private WeakHashMap<TransitionTreeNode, String> labels = new WeakHashMap<TransitionTreeNode, String>();
+	private boolean labelsIncludeStates = TestingManager.DisplayStatesInTestTree;
+
 	public TestTreeRenderer() {
 //		setLeafIcon(null);
 		setFont(new Font(SystemOptions.DefaultFontName, Font.PLAIN, 12));
@@ -24,13 +29,30 @@ public class TestTreeRenderer extends DefaultTreeCellRenderer {
 			boolean sel, boolean expanded, boolean leaf, int row,
 			boolean hasFocus) {
 
-		super.getTreeCellRendererComponent(tree, value, sel, expanded, leaf, row, hasFocus);
+		TransitionTreeNode node = (TransitionTreeNode) value;
+		super.getTreeCellRendererComponent(tree, getLabel(node), sel, expanded, leaf, row, hasFocus);
 		if(leaf) {
-				TransitionTreeNode node = (TransitionTreeNode) ((DefaultMutableTreeNode)value).getUserObject();
 				if (node.isNegative())
 					setForeground(new Color(0.0f, 0.2f, 0.0f));  
 		}
 		
 		return this;
 	}
+
+	private String getLabel(TransitionTreeNode node) {
+		if (labelsIncludeStates!=TestingManager.DisplayStatesInTestTree) {
+			labels.clear();
+			labelsIncludeStates = TestingManager.DisplayStatesInTestTree;
+		}
+		String label = labels.get(node);
+		if (label==null) {
+			label = node.nodeIdentityString(labelsIncludeStates);
+			labels.put(node, label);
+		}
+		return label;
+	}
+
+	public void clearLabels() {
+		labels.clear();
+	}
 }
@@ -42,6 +42,8 @@ public class FileUtil {
 
 	public static final String LOGFileExtension = "txt";
 
+	public static final String SnapshotFileExtension = "snapshot";
+
 	public static final String SeparatorInGeneratedFileName = "_";
 	
 	public static String getPrefix(String fileName) {
@@ -123,6 +125,16 @@ public class FileUtil {
 		return new File (file.getParent()+File.separator+pathFileName);
 	}
 
+	// the parsed models are cached in the user's home directory, not next to the model files
+	public static File getModelSnapshotDirectory() {
+		return new File(System.getProperty("user.home")+File.separator+".mista"+File.separator+"snapshots");
+	}
+
+	// the parsed model of a model file, e.g., Blocks_<id>.snapshot for Blocks.xmid, where id identifies the path of the model file
+	public static File getModelSnapshotFile(File file, String id) {
+		return new File(getModelSnapshotDirectory(), getPrefix(file.getName()) + SeparatorInGeneratedFileName + id + "." + SnapshotFileExtension);
+	}
+
 	public static String getDefaultSeparateModelFileName(File file) {
 		return getPrefix(file.getName()) + "." + DefaultSeparateModelFileExtension;
 	}
@@ -0,0 +1,116 @@
+package utilities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+// A first-in-first-out queue that keeps at most about 2*batchSize elements in memory. 
+// The others are written to temporary files in batches and read back in order.
+// The order of elements is: head (oldest), spilled batches, tail (newest). 
+
+public class SpillingQueue<E extends Serializable> {
+
+	private int batchSize;
+	private LinkedList<E> head = new LinkedList<E>();
+	private LinkedList<File> batches = new LinkedList<File>();
+	private ArrayList<E> tail = new ArrayList<E>();
+	private long size = 0;
+
+	public SpillingQueue(int batchSize){
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	public void add(E element) throws IOException {
+		tail.add(element);
+		size++;
+		if (tail.size()>=batchSize) {
+			if (head.isEmpty() && batches.isEmpty())
+				head.addAll(tail);
+			else
+				batches.addLast(writeBatch(tail));
+			tail = new ArrayList<E>();
+		}
+	}
+
+	// null if the queue is empty
+	public E poll() throws IOException {
+		if (head.isEmpty()) {
+			if (!batches.isEmpty())
+				head = readBatch(batches.removeFirst());
+			else {
+				head.addAll(tail);
+				tail = new ArrayList<E>();
+			}
+		}
+		if (head.isEmpty())
+			return null;
+		size--;
+		return head.removeFirst();
+	}
+
+	public boolean isEmpty(){
+		return size==0;
+	}
+
+	public long size(){
+		return size;
+	}
+
+	public int numberOfSpilledBatches(){
+		return batches.size();
+	}
+
+	private File writeBatch(ArrayList<E> elements) throws IOException {
+		File file = File.createTempFile("mista", ".frontier");
+		file.deleteOnExit();
+		ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(elements.size());
+			for (E element: elements) {
+				out.writeObject(element);
+				out.reset();	// do not keep references to the written elements
+			}
+		}
+		finally {
+			out.close();
+		}
+		return file;
+	}
+
+	@SuppressWarnings("unchecked")
+	private LinkedList<E> readBatch(File file) throws IOException {
+		LinkedList<E> elements = new LinkedList<E>();
+		ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			int count = in.readInt();
+			for (int i=0; i<count; i++)
+				elements.add((E)in.readObject());
+		}
+		catch (ClassNotFoundException e) {
+			throw new IOException(e.getMessage());
+		}
+		finally {
+			in.close();
+			file.delete();
+		}
+		return elements;
+	}
+
+	// deletes the files of the remaining batches
+	public void close(){
+		for (File file: batches)
+			file.delete();
+		batches.clear();
+		head.clear();
+		tail.clear();
+		size = 0;
+	}
+}
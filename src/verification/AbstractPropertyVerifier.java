@@ -1,20 +1,36 @@
 package verification;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import kernel.CancellationException;
 import kernel.ProgressDialog;
+import kernel.SystemOptions;
 import testgeneration.TransitionTreeNode;
 import locales.LocaleBundle;
+import mid.BitstateMarkingStore;
+import mid.EnabledFirings;
 import mid.Firing;
 import mid.FiringSequence;
 import mid.MID;
 import mid.Marking;
+import mid.MarkingStore;
+import mid.MemoryMarkingStore;
+import mid.ModelContext;
+import mid.PartialOrderReduction;
 import mid.Substitution;
 import mid.Transition;
-import mid.Unifier;
+import mid.TransitionDependencies;
+import utilities.SpillingQueue;
 
-public class AbstractPropertyVerifier {
+public abstract class AbstractPropertyVerifier {
 
 	protected MID mid;
 	protected int searchDepth; 
@@ -24,13 +40,245 @@ public class AbstractPropertyVerifier {
 	
 	protected TransitionTreeNode root;
 
+	// properties of a node are checked in parallel only if there are at least so many
+	private static final int ParallelCheckThreshold = 16;
+
+	protected SystemOptions systemOptions;		// null for a sequential search in memory
+	protected int numberOfThreads = 1;
+	private ExecutorService checkPool = null;	// for checking the properties of a node when there is a single search 
+
+	// statistics of the bitstate stores of all searches
+	private int bitstateSearches = 0;
+	private long bitstateStates = 0;
+	private double expectedOmissions = 0;
+
+	private PartialOrderReduction reduction = null;		// null if all firings are explored
+
 	public AbstractPropertyVerifier(MID mid, int searchDepth, ProgressDialog progressDialog) {
+		this(mid, searchDepth, progressDialog, null);
+	}
+
+	public AbstractPropertyVerifier(MID mid, int searchDepth, ProgressDialog progressDialog, SystemOptions systemOptions) {
 		this.mid = mid;
 		this.searchDepth = searchDepth;
 		this.progressDialog = progressDialog;
+		this.systemOptions = systemOptions;
+		if (systemOptions!=null)
+			numberOfThreads = systemOptions.getNumberOfVerificationThreads();
 		createRootNode();
 	}
 
+	// a search that does not build a tree keeps only visited states (on disk or as bits) and the frontier
+	protected boolean isSearchWithoutTree(){
+		return systemOptions!=null && (systemOptions.isDiskSearch() || systemOptions.isBitstateHashing());
+	}
+
+	protected MarkingStore createMarkingStore() throws CancellationException{
+		if (systemOptions==null)
+			return new MemoryMarkingStore();
+		if (systemOptions.isBitstateHashing())
+			return new BitstateMarkingStore(systemOptions.getBitstateMemory(), systemOptions.getBitstateHashFunctions());
+		try {
+			return systemOptions.createMarkingStore();
+		}
+		catch (IOException e) {
+			throw new CancellationException(LocaleBundle.bundleString("Cannot create the file of visited states")+": "+e.getMessage());
+		}
+	}
+
+	protected synchronized void closeMarkingStore(MarkingStore store){
+		if (store instanceof BitstateMarkingStore) {
+			bitstateSearches++;
+			bitstateStates += store.size();
+			expectedOmissions += ((BitstateMarkingStore)store).getExpectedOmissions();
+		}
+		store.close();
+	}
+
+	// the number of states and the estimated chance of missing states
+	protected String reportBitstateCoverage(){
+		if (bitstateSearches==0)
+			return "";
+		double missingProbability = -Math.expm1(-expectedOmissions);
+		return LocaleBundle.bundleString("Bitstate hashing")+": "+bitstateStates+" "+LocaleBundle.bundleString("states")
+			+ ", "+LocaleBundle.bundleString("estimated number of missed states")+": "+String.format("%.3g", expectedOmissions)
+			+ ", "+LocaleBundle.bundleString("probability of missing any state")+": "+String.format("%.3g", missingProbability)+"\n";
+	}
+
+	// the properties being verified as transitions (e.g., goals); the places they read are visible to the reduction
+	abstract protected ArrayList<Transition> getPropertyTransitions();
+
+	private HashSet<String> getVisiblePlaces(){
+		HashSet<String> places = new HashSet<String>();
+		for (Transition property: getPropertyTransitions())
+			places.addAll(TransitionDependencies.collectReadPlaces(property));
+		return places;
+	}
+
+	// the number of states whose firings were reduced and the number of successor states not created
+	protected String reportPartialOrderReduction(){
+		if (reduction==null)
+			return "";
+		return LocaleBundle.bundleString("Partial order reduction")+": "+reduction.getNumberOfReducedStates()+" "+LocaleBundle.bundleString("reduced states")
+			+ " / "+reduction.getNumberOfExaminedStates()+" "+LocaleBundle.bundleString("states")
+			+ ", "+reduction.getNumberOfPrunedFirings()+" "+LocaleBundle.bundleString("pruned firings")+"\n";
+	}
+
+	// the successors of a reduced state are kept only if none of them has been expanded (cycle proviso),
+	// so that no firing is postponed forever along a cycle of reduced states
+	private boolean closesCycle(Marking marking, Marking successor, MarkingStore expandedMarkings){
+		return successor.getKey().equals(marking.getKey()) || (expandedMarkings!=null && expandedMarkings.contains(successor.getKey()));
+	}
+
+	protected SpillingQueue<SearchState> createFrontier(){
+		return new SpillingQueue<SearchState>(systemOptions.isDiskSearch()? systemOptions.getFrontierMemoryLimit()/2: Integer.MAX_VALUE);
+	}
+
+	// the states after each firing under the marking of the state, in the same order as createChildren
+	protected ArrayList<SearchState> createSuccessors(SearchState state, MarkingStore expandedMarkings) throws CancellationException{
+		EnabledFirings enabledFirings = new EnabledFirings(mid, state.getMarking());
+		boolean[] stubbornSet = reduction!=null? reduction.getStubbornSet(enabledFirings): null;
+		ArrayList<SearchState> successors = createSuccessors(state, enabledFirings, stubbornSet);
+		if (stubbornSet!=null)
+			for (SearchState successor: successors)
+				if (closesCycle(state.getMarking(), successor.getMarking(), expandedMarkings)) {
+					successors = createSuccessors(state, enabledFirings, null);
+					break;
+				}
+		if (reduction!=null)
+			reduction.recordState(enabledFirings, successors.size());
+		return successors;
+	}
+
+	// stubbornSet is null if all firings are explored
+	private ArrayList<SearchState> createSuccessors(SearchState state, EnabledFirings enabledFirings, boolean[] stubbornSet) throws CancellationException{
+		ArrayList<SearchState> successors = new ArrayList<SearchState>();
+		Marking currentMarking = state.getMarking();
+		ArrayList<Transition> transitions = mid.getTransitions();
+		for (int index=0; index<transitions.size(); index++) {
+			if (stubbornSet!=null && !stubbornSet[index])
+				continue;
+			checkForCancellation();
+			Transition transition = transitions.get(index);
+			for (Substitution substitution: enabledFirings.getSubstitutions(transition))
+				successors.add(state.fire(index, substitution, mid.fireTransition(currentMarking, transition, substitution)));
+		}
+		return successors;
+	}
+
+	// the search from one initial marking
+	// it must only write the row of firingSequences for that initial marking
+	abstract protected void verify(TransitionTreeNode initNode) throws CancellationException;
+
+	// The searches from different initial markings do not share expanded markings,
+	// so they are run concurrently with the same results as in sequence.
+	protected void verify() throws CancellationException{
+		if (systemOptions!=null && systemOptions.isPartialOrderReduction() && reduction==null)
+			reduction = new PartialOrderReduction(mid, getVisiblePlaces());
+		ArrayList<TransitionTreeNode> initNodes = new ArrayList<TransitionTreeNode>(root.children());
+		if (numberOfThreads<=1) {
+			for (TransitionTreeNode initNode: initNodes)
+				verify(initNode);
+		} else if (initNodes.size()==1) {
+			checkPool = Executors.newFixedThreadPool(numberOfThreads);
+			try {
+				verify(initNodes.get(0));
+			}
+			finally {
+				checkPool.shutdownNow();
+				checkPool = null;
+			}
+		} else {
+			ExecutorService pool = Executors.newFixedThreadPool(Math.min(numberOfThreads, initNodes.size()));
+			ArrayList<Future<Object>> searches = new ArrayList<Future<Object>>();
+			final ModelContext context = ModelContext.current();
+			for (final TransitionTreeNode initNode: initNodes)
+				searches.add(pool.submit(new Callable<Object>() {
+					public Object call() throws CancellationException {
+						ModelContext.bind(context);
+						try {
+							verify(initNode);
+						}
+						finally {
+							ModelContext.bind(null);
+						}
+						return null;
+					}
+				}));
+			try {
+				waitFor(searches);
+			}
+			finally {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	protected interface PropertyCheck {
+		boolean isSatisfied(int propertyIndex);
+	}
+
+	// evaluates the check for each of the properties, from the last one to the first one
+	// when there is a single search, many properties are split among the threads
+	protected boolean[] checkProperties(final int numberOfProperties, final PropertyCheck check) throws CancellationException{
+		final boolean[] results = new boolean[numberOfProperties];
+		if (checkPool==null || numberOfProperties<ParallelCheckThreshold) {
+			for (int i=numberOfProperties-1; i>=0; i--) {
+				results[i] = check.isSatisfied(i);
+				checkForCancellation();
+			}
+			return results;
+		}
+		final AtomicInteger nextProperty = new AtomicInteger(numberOfProperties-1);
+		final ModelContext context = ModelContext.current();
+		ArrayList<Future<Object>> workers = new ArrayList<Future<Object>>();
+		for (int worker=0; worker<numberOfThreads; worker++)
+			workers.add(checkPool.submit(new Callable<Object>() {
+				public Object call() throws CancellationException {
+					ModelContext.bind(context);
+					try {
+						int index;
+						while ((index = nextProperty.getAndDecrement())>=0) {
+							boolean result = check.isSatisfied(index);
+							synchronized (results) {
+								results[index] = result;
+							}
+							checkForCancellation();
+						}
+					}
+					finally {
+						ModelContext.bind(null);
+					}
+					return null;
+				}
+			}));
+		waitFor(workers);
+		synchronized (results) {
+			return results;
+		}
+	}
+
+	private void waitFor(ArrayList<Future<Object>> tasks) throws CancellationException{
+		try {
+			for (Future<Object> task: tasks)
+				task.get();
+		}
+		catch (InterruptedException e) {
+			throw new CancellationException(e.getMessage());
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof CancellationException)
+				throw (CancellationException)e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+		finally {
+			for (Future<Object> task: tasks)
+				task.cancel(true);
+		}
+	}
+
 	public MID getMID() {
 		return mid;
 	}
@@ -59,24 +307,48 @@ public class AbstractPropertyVerifier {
     	root.resetChildrenOutlineNumbers(searchDepth);
 	}
 
-	protected void createChildren(TransitionTreeNode node) throws CancellationException{
+	// expandedMarkings are the markings whose children have been created (for the cycle proviso of partial order reduction)
+	// the enabled firings of a node are released once its children have been created
+	protected void createChildren(TransitionTreeNode node, MarkingStore expandedMarkings) throws CancellationException{
 		Marking currentMarking = node.getMarking();
-    	for (Transition transition: mid.getTransitions()) {
+		EnabledFirings enabledFirings = node.getEnabledFirings();
+		if (enabledFirings==null)
+			enabledFirings = new EnabledFirings(mid, currentMarking);
+		boolean[] stubbornSet = reduction!=null? reduction.getStubbornSet(enabledFirings): null;
+		ArrayList<TransitionTreeNode> children = createChildren(currentMarking, enabledFirings, stubbornSet);
+		if (stubbornSet!=null)
+			for (TransitionTreeNode child: children)
+				if (closesCycle(currentMarking, child.getMarking(), expandedMarkings)) {
+					children = createChildren(currentMarking, enabledFirings, null);
+					break;
+				}
+		if (reduction!=null)
+			reduction.recordState(enabledFirings, children.size());
+		for (TransitionTreeNode child: children)
+			node.add(child);
+    	node.setEnabledFirings(null);
+//   		node.resetChildrenOutlineNumbers(searchDepth);
+ 	}
+
+	// stubbornSet is null if all firings are explored
+	private ArrayList<TransitionTreeNode> createChildren(Marking currentMarking, EnabledFirings enabledFirings, boolean[] stubbornSet) throws CancellationException{
+		ArrayList<TransitionTreeNode> children = new ArrayList<TransitionTreeNode>();
+		ArrayList<Transition> transitions = mid.getTransitions();
+    	for (int index=0; index<transitions.size(); index++) {
+    			if (stubbornSet!=null && !stubbornSet[index])
+    				continue;
     			checkForCancellation();
-	    		Unifier unifier = new Unifier(transition, currentMarking);
-	    		ArrayList<Substitution> substitutions = unifier.getSubstitutions();
-	    		for (Substitution substitution: substitutions) {
-//	    			if (!TransitionTreeForStructureCoverage.isIndependentFiring(transition, substitution, node.children())){
+    			Transition transition = transitions.get(index);
+	    		for (Substitution substitution: enabledFirings.getSubstitutions(transition)) {
 //	    			System.out.println(transition.getEvent()+": "+substitution.toString(transition.getAllVariables()));
 	    				Marking newMarking = mid.fireTransition(currentMarking, transition, substitution);
 	    				TransitionTreeNode newNode = new TransitionTreeNode(transition, substitution, newMarking);
-	    				node.add(newNode);
-//	    			System.out.println("New marking: "+newNode.getMarking());
-//	    			}
+	    				newNode.setEnabledFirings(enabledFirings.fire(transition, newMarking));
+	    				children.add(newNode);
 	    		}
     	}
-//   		node.resetChildrenOutlineNumbers(searchDepth);
- 	}
+		return children;
+	}
 
 	public void checkForCancellation() throws CancellationException {
 		if (progressDialog!=null && progressDialog.isCancelled())
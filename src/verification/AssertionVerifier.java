@@ -4,6 +4,7 @@ import java.util.ArrayList;
 
 import kernel.CancellationException;
 import kernel.ProgressDialog;
+import kernel.SystemOptions;
 import locales.LocaleBundle;
 
 import mid.AssertionProperty;
@@ -11,16 +12,20 @@ import mid.Firing;
 import mid.FiringSequence;
 import mid.MID;
 import mid.Marking;
+import mid.Transition;
 
 import testgeneration.TransitionTreeNode;
 
 public abstract class AssertionVerifier extends AbstractPropertyVerifier {
 	
 	private ArrayList<AssertionProperty> givenAssertions = new ArrayList<AssertionProperty>();
-	protected ArrayList<AssertionProperty> workingAssertions = new ArrayList<AssertionProperty>();
 
 	public AssertionVerifier(MID mid, int searchDepth, ProgressDialog progressDialog, ArrayList<AssertionProperty> assertions) {
-		super(mid, searchDepth, progressDialog);
+		this(mid, searchDepth, progressDialog, assertions, null);
+	}
+
+	public AssertionVerifier(MID mid, int searchDepth, ProgressDialog progressDialog, ArrayList<AssertionProperty> assertions, SystemOptions systemOptions) {
+		super(mid, searchDepth, progressDialog, systemOptions);
 		firingSequences = new FiringSequence[mid.getInitialMarkings().size()][assertions.size()];
 		this.givenAssertions = assertions;
 	}
@@ -29,26 +34,56 @@ public abstract class AssertionVerifier extends AbstractPropertyVerifier {
 		this(mid, searchDepth, progressDialog, mid.getAssertionProperties());
 	}
 	
-	abstract protected void verify() throws CancellationException;
+	public AssertionVerifier(MID mid, int searchDepth, ProgressDialog progressDialog, SystemOptions systemOptions) {
+		this(mid, searchDepth, progressDialog, mid.getAssertionProperties(), systemOptions);
+	}
 	
-	protected void setWorkingAssertions(){
-		workingAssertions.clear();
+	protected ArrayList<Transition> getPropertyTransitions(){
+		ArrayList<Transition> clauses = new ArrayList<Transition>();
+		for (AssertionProperty assertion: givenAssertions) {
+			if (assertion.hasIfClause())
+				clauses.add(assertion.getIfClause());
+			clauses.add(assertion.getThenClause());
+		}
+		return clauses;
+	}
+
+	// the assertions without counterexamples yet in the search from one initial marking
+	protected ArrayList<AssertionProperty> createWorkingAssertions(){
+		ArrayList<AssertionProperty> workingAssertions = new ArrayList<AssertionProperty>();
 		for (AssertionProperty assertion: givenAssertions)
 			workingAssertions.add(assertion);		
+		return workingAssertions;
 	}
 	
-	protected void verifyAssertions(TransitionTreeNode node) throws CancellationException{
+	protected void verifyAssertions(TransitionTreeNode node, ArrayList<AssertionProperty> workingAssertions) throws CancellationException{
+		boolean[] satisfied = checkAssertions(node.getMarking(), workingAssertions);
 		for (int i=workingAssertions.size()-1; i>=0; i--) {
-			AssertionProperty assertion = workingAssertions.get(i);
-			if (!node.getMarking().isAssertionTrue(assertion)) {
-				int assertionIndex = mid.getAssertionProperties().indexOf(assertion);
+			if (!satisfied[i]) {
+				int assertionIndex = mid.getAssertionProperties().indexOf(workingAssertions.remove(i));
 				firingSequences[node.getInitMarkingIndex()-1][assertionIndex] = node.createFiringSequence();
-				workingAssertions.remove(assertion);
 			}
-			checkForCancellation();
 		}
 	} 
 	
+	protected void verifyAssertions(SearchState state, int initIndex, ArrayList<AssertionProperty> workingAssertions) throws CancellationException{
+		boolean[] satisfied = checkAssertions(state.getMarking(), workingAssertions);
+		for (int i=workingAssertions.size()-1; i>=0; i--) {
+			if (!satisfied[i]) {
+				int assertionIndex = mid.getAssertionProperties().indexOf(workingAssertions.remove(i));
+				firingSequences[initIndex][assertionIndex] = state.createFiringSequence(mid);
+			}
+		}
+	} 
+
+	private boolean[] checkAssertions(final Marking marking, final ArrayList<AssertionProperty> workingAssertions) throws CancellationException{
+		return checkProperties(workingAssertions.size(), new PropertyCheck(){
+			public boolean isSatisfied(int assertionIndex){
+				return marking.isAssertionTrue(workingAssertions.get(assertionIndex));
+			}
+		});
+	}
+	
 	boolean replayFiringSequence(FiringSequence firingSequence, Marking initialMarking, AssertionProperty assertion){
 		Marking currentMarking = initialMarking;
 		for (Firing firing: firingSequence.getSequence()){
@@ -87,6 +122,8 @@ public abstract class AssertionVerifier extends AbstractPropertyVerifier {
 			if (!isAssertionSatisfied(assertionIndex))
 				result += "Assertion "+givenAssertions.get(assertionIndex).getAssertionString()+" "+ LocaleBundle.bundleString("IS_TRUE_UNDER_THE_SEARCH_CONDITION")+"\n";
 		}
+		result += reportBitstateCoverage();
+		result += reportPartialOrderReduction();
 		return result;
 	}
 	
@@ -1,46 +1,89 @@
 package verification;
 
-import java.util.Hashtable;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedList;
 
 import kernel.CancellationException;
 import kernel.ProgressDialog;
+import kernel.SystemOptions;
 
+import mid.AssertionProperty;
 import mid.MID;
-import mid.Marking;
+import mid.MarkingStore;
+import mid.MemoryMarkingStore;
 import testgeneration.TransitionTreeNode;
+import utilities.SpillingQueue;
 
 public class AssertionVerifierBFS extends AssertionVerifier{
 
 	public AssertionVerifierBFS(MID mid, int searchDepth, ProgressDialog progressDialog) throws CancellationException {
-		super(mid, searchDepth, progressDialog);
+		this(mid, searchDepth, progressDialog, null);
+	}
+	
+	public AssertionVerifierBFS(MID mid, int searchDepth, ProgressDialog progressDialog, SystemOptions systemOptions) throws CancellationException {
+		super(mid, searchDepth, progressDialog, systemOptions);
 		verify();
 	}
 	
- 	protected void verify() throws CancellationException{
- 	   	Hashtable <String, Marking> expandedMarkings = new Hashtable <String, Marking>();  
-		for (TransitionTreeNode initNode: root.children()){
-			expandedMarkings.clear();
-			setWorkingAssertions();
-			LinkedList<TransitionTreeNode> queue = new LinkedList<TransitionTreeNode>();
-			queue.addLast(initNode);
+ 	protected void verify(TransitionTreeNode initNode) throws CancellationException{
+ 		if (isSearchWithoutTree()) {
+ 			verifyWithoutTree(initNode);
+ 			return;
+ 		}
+ 	   	MarkingStore expandedMarkings = new MemoryMarkingStore();  
+		ArrayList<AssertionProperty> workingAssertions = createWorkingAssertions();
+		LinkedList<TransitionTreeNode> queue = new LinkedList<TransitionTreeNode>();
+		queue.addLast(initNode);
+		while (!queue.isEmpty() && workingAssertions.size()!=0) {
+			checkForCancellation();
+			TransitionTreeNode node = queue.poll();
+			if (node!=initNode)
+				verifyAssertions(node, workingAssertions); // assertions are not verified against the initial markings
+			if (node.getLevel()<=searchDepth) {
+				if (!expandedMarkings.contains(node.getMarking().getKey()))
+					createChildren(node, expandedMarkings);
+//				if (node!=initNode)
+					expandedMarkings.add(node.getMarking().getKey());
+				for (TransitionTreeNode child: node.children()) {
+					if (!expandedMarkings.contains(child.getMarking().getKey()))
+						queue.addLast(child);
+				}
+			}
+		}
+	}
+
+	// the same search as above without a tree: expanded markings are kept in the store of visited states
+	// (on disk or as bits) and the queue is written to disk when it gets large
+ 	private void verifyWithoutTree(TransitionTreeNode initNode) throws CancellationException{
+		int initIndex = root.children().indexOf(initNode);
+		ArrayList<AssertionProperty> workingAssertions = createWorkingAssertions();
+		MarkingStore expandedMarkings = createMarkingStore();
+		SpillingQueue<SearchState> queue = createFrontier();
+		try {
+			queue.add(new SearchState(initNode.getMarking()));
 			while (!queue.isEmpty() && workingAssertions.size()!=0) {
 				checkForCancellation();
-				TransitionTreeNode node = queue.poll();
-				if (node!=initNode)
-					verifyAssertions(node); // assertions are not verified against the initial markings
-				if (node.getLevel()<=searchDepth) {
-					if (expandedMarkings.get(node.getMarking().getKeyString(mid.getPlaces()))==null)
-						createChildren(node);
-//					if (node!=initNode)
-						expandedMarkings.put(node.getMarking().getKeyString(mid.getPlaces()), node.getMarking());
-					for (TransitionTreeNode child: node.children()) {
-						if (expandedMarkings.get(child.getMarking().getKeyString(mid.getPlaces()))==null)
-							queue.addLast(child);
+				SearchState state = queue.poll();
+				if (!state.isInitial())
+					verifyAssertions(state, initIndex, workingAssertions);
+				if (state.getLevel()<=searchDepth && !expandedMarkings.contains(state.getMarking().getKey())) {
+					ArrayList<SearchState> successors = createSuccessors(state, expandedMarkings);
+					expandedMarkings.add(state.getMarking().getKey());
+					for (SearchState successor: successors) {
+						if (!expandedMarkings.contains(successor.getMarking().getKey()))
+							queue.add(successor);
 					}
 				}
 			}
 		}
+		catch (IOException e) {
+			throw new CancellationException(e.getMessage());
+		}
+		finally {
+			queue.close();
+			closeMarkingStore(expandedMarkings);
+		}
 	}
 
 }
\ No newline at end of file
@@ -1,46 +1,84 @@
 package verification;
 
-import java.util.Hashtable;
+import java.util.ArrayList;
 import java.util.Stack;
 
 import kernel.CancellationException;
 import kernel.ProgressDialog;
+import kernel.SystemOptions;
 
+import mid.AssertionProperty;
 import mid.MID;
-import mid.Marking;
+import mid.MarkingStore;
+import mid.MemoryMarkingStore;
 import testgeneration.TransitionTreeNode;
 
 public class AssertionVerifierDFS extends AssertionVerifier{
 
 	public AssertionVerifierDFS(MID mid, int searchDepth, ProgressDialog progressDialog)  throws CancellationException {
-		super(mid, searchDepth, progressDialog);
+		this(mid, searchDepth, progressDialog, null);
+	}
+
+	public AssertionVerifierDFS(MID mid, int searchDepth, ProgressDialog progressDialog, SystemOptions systemOptions)  throws CancellationException {
+		super(mid, searchDepth, progressDialog, systemOptions);
 		verify();
 	}
 
-	protected void verify()  throws CancellationException{
-	    Hashtable <String, Marking> expandedMarkings = new Hashtable <String, Marking>();  
-		for (TransitionTreeNode initNode: root.children()){
-			expandedMarkings.clear();
-			setWorkingAssertions();
-			Stack<TransitionTreeNode> stack = new Stack<TransitionTreeNode>();
-			stack.push(initNode);
+	protected void verify(TransitionTreeNode initNode)  throws CancellationException{
+		if (isSearchWithoutTree()) {
+			verifyWithoutTree(initNode);
+			return;
+		}
+	    MarkingStore expandedMarkings = new MemoryMarkingStore();  
+		ArrayList<AssertionProperty> workingAssertions = createWorkingAssertions();
+		Stack<TransitionTreeNode> stack = new Stack<TransitionTreeNode>();
+		stack.push(initNode);
+		while (!stack.isEmpty() && workingAssertions.size()!=0) {
+			checkForCancellation();
+			TransitionTreeNode node = stack.pop(); 
+			if (node!=initNode) // assertions are not verified against the initial markings 
+				verifyAssertions(node, workingAssertions);
+			if (node.getLevel()<=searchDepth) {
+				createChildren(node, expandedMarkings);
+//				if (node!=initNode)
+					expandedMarkings.add(node.getMarking().getKey());
+				for (int i= node.children().size()-1; i>=0; i--){
+					TransitionTreeNode child = node.children().get(i);
+					if (!expandedMarkings.contains(child.getMarking().getKey()))
+						stack.push(child);
+				}
+			} 
+		}
+	}
+
+	// the same search as above without a tree: expanded markings are kept in the store of visited states
+	// (on disk or as bits) and the stack holds the states yet to be explored
+	private void verifyWithoutTree(TransitionTreeNode initNode)  throws CancellationException{
+		int initIndex = root.children().indexOf(initNode);
+		ArrayList<AssertionProperty> workingAssertions = createWorkingAssertions();
+		MarkingStore expandedMarkings = createMarkingStore();
+		try {
+			Stack<SearchState> stack = new Stack<SearchState>();
+			stack.push(new SearchState(initNode.getMarking()));
 			while (!stack.isEmpty() && workingAssertions.size()!=0) {
 				checkForCancellation();
-				TransitionTreeNode node = stack.pop(); 
-				if (node!=initNode) // assertions are not verified against the initial markings 
-					verifyAssertions(node);
-				if (node.getLevel()<=searchDepth) {
-					createChildren(node);
-//					if (node!=initNode)
-						expandedMarkings.put(node.getMarking().getKeyString(mid.getPlaces()), node.getMarking());
-					for (int i= node.children().size()-1; i>=0; i--){
-						TransitionTreeNode child = node.children().get(i);
-						if (expandedMarkings.get(child.getMarking().getKeyString(mid.getPlaces()))==null)
-							stack.push(child);
+				SearchState state = stack.pop(); 
+				if (!state.isInitial()) // assertions are not verified against the initial markings 
+					verifyAssertions(state, initIndex, workingAssertions);
+				if (state.getLevel()<=searchDepth) {
+					ArrayList<SearchState> successors = createSuccessors(state, expandedMarkings);
+					expandedMarkings.add(state.getMarking().getKey());
+					for (int i= successors.size()-1; i>=0; i--){
+						SearchState successor = successors.get(i);
+						if (!expandedMarkings.contains(successor.getMarking().getKey()))
+							stack.push(successor);
 					}
 				} 
 			}
 		}
+		finally {
+			closeMarkingStore(expandedMarkings);
+		}
 	}
 
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 
 import kernel.CancellationException;
 import kernel.ProgressDialog;
+import kernel.SystemOptions;
 import locales.LocaleBundle;
 
 import mid.Firing;
@@ -11,39 +12,62 @@ import mid.FiringSequence;
 import mid.MID;
 import mid.Marking;
 import mid.GoalProperty;
+import mid.Transition;
 
 import testgeneration.TransitionTreeNode;
 
 public abstract class GoalVerifier extends AbstractPropertyVerifier {
-	protected ArrayList<GoalProperty> goals = new ArrayList<GoalProperty>();
-
 	protected boolean searchForHomeStates;
 	
 	public GoalVerifier(MID mid, int searchDepth, ProgressDialog progressDialog, boolean searchForHomeStates) {
-		super(mid, searchDepth, progressDialog);
+		this(mid, searchDepth, progressDialog, searchForHomeStates, null);
+	}
+
+	public GoalVerifier(MID mid, int searchDepth, ProgressDialog progressDialog, boolean searchForHomeStates, SystemOptions systemOptions) {
+		super(mid, searchDepth, progressDialog, systemOptions);
 		this.searchForHomeStates = searchForHomeStates;
 		firingSequences = new FiringSequence[mid.getInitialMarkings().size()][mid.getGoalProperties().size()];
 	}
 
-	protected void setGoals(){
-		goals.clear();
+	protected ArrayList<Transition> getPropertyTransitions(){
+		return new ArrayList<Transition>(mid.getGoalProperties());
+	}
+
+	// the goals yet to be reached in the search from one initial marking
+	protected ArrayList<GoalProperty> createGoals(){
+		ArrayList<GoalProperty> goals = new ArrayList<GoalProperty>();
 		for (GoalProperty propertyTransition: mid.getGoalProperties())
 			goals.add(propertyTransition);		
+		return goals;
 	}
 	
-	abstract protected void verify() throws CancellationException;
-	
-	protected void verifyGoals(TransitionTreeNode node) throws CancellationException{
+	protected void verifyGoals(TransitionTreeNode node, ArrayList<GoalProperty> goals) throws CancellationException{
+		boolean[] reached = reachGoals(node.getMarking(), goals);
 		for (int i=goals.size()-1; i>=0; i--) {
-			GoalProperty goalTransition = goals.get(i);
-			if (node.getMarking().isFirable(goalTransition)) {
-				int goalIndex = mid.getGoalProperties().indexOf(goalTransition);
+			if (reached[i]) {
+				int goalIndex = mid.getGoalProperties().indexOf(goals.remove(i));
 				firingSequences[node.getInitMarkingIndex()-1][goalIndex] = node.createFiringSequence();
-				goals.remove(goalTransition);
 			}
-			checkForCancellation();
 		}
 	} 
+
+	protected void verifyGoals(SearchState state, int initIndex, ArrayList<GoalProperty> goals) throws CancellationException{
+		boolean[] reached = reachGoals(state.getMarking(), goals);
+		for (int i=goals.size()-1; i>=0; i--) {
+			if (reached[i]) {
+				int goalIndex = mid.getGoalProperties().indexOf(goals.remove(i));
+				firingSequences[initIndex][goalIndex] = state.createFiringSequence(mid);
+			}
+		}
+	} 
+
+	private boolean[] reachGoals(final Marking marking, final ArrayList<GoalProperty> goals) throws CancellationException{
+		return checkProperties(goals.size(), new PropertyCheck(){
+			public boolean isSatisfied(int goalIndex){
+				return marking.isFirable(goals.get(goalIndex));
+			}
+		});
+	}
 	
 	public int removeInvalidFiringSequences(){
 		int numberOfInvalidFiringSequences = 0;
@@ -101,6 +125,8 @@ public abstract class GoalVerifier extends AbstractPropertyVerifier {
 			if (!isGoalReached(goalIndex))
 				result += LocaleBundle.bundleString("NO_PATH_IS_FOUND_TO_REACH_GOAL")+": "+ mid.getGoalProperties().get(goalIndex).getPropertyString()+ ".\n";
 		}
+		result += reportBitstateCoverage();
+		result += reportPartialOrderReduction();
 		return result;
 	}
 	
@@ -1,62 +1,109 @@
 package verification;
 
-import java.util.Hashtable;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedList;
 
 import kernel.CancellationException;
 import kernel.ProgressDialog;
+import kernel.SystemOptions;
 
 import mid.FiringSequence;
 import mid.MID;
-import mid.Marking;
+import mid.MarkingStore;
+import mid.MemoryMarkingStore;
 import mid.GoalProperty;
 import testgeneration.TransitionTreeNode;
+import utilities.SpillingQueue;
 
 public class GoalVerifierBFS extends GoalVerifier{
 
 	public GoalVerifierBFS(MID mid, int searchDepth, boolean searchForHomeStates, ProgressDialog progressDialog) throws CancellationException {
-		super(mid, searchDepth, progressDialog, searchForHomeStates);
+		this(mid, searchDepth, searchForHomeStates, progressDialog, null);
+	}
+	
+	public GoalVerifierBFS(MID mid, int searchDepth, boolean searchForHomeStates, ProgressDialog progressDialog, SystemOptions systemOptions) throws CancellationException {
+		super(mid, searchDepth, progressDialog, searchForHomeStates, systemOptions);
 		verify();
 	}
 	
 	// for combining traditional reachability analysis with another verifier (e.g., planning graph)
 	// existingFiringSequences are produced by another verifier 
 	public GoalVerifierBFS(MID mid, int searchDepth, boolean searchForHomeStates, ProgressDialog progressDialog, FiringSequence[][] existingFiringSequences, boolean repeatSearch) throws CancellationException {
-		super(mid, searchDepth, progressDialog, searchForHomeStates);
+		this(mid, searchDepth, searchForHomeStates, progressDialog, existingFiringSequences, repeatSearch, null);
+	}
+
+	public GoalVerifierBFS(MID mid, int searchDepth, boolean searchForHomeStates, ProgressDialog progressDialog, FiringSequence[][] existingFiringSequences, boolean repeatSearch, SystemOptions systemOptions) throws CancellationException {
+		super(mid, searchDepth, progressDialog, searchForHomeStates, systemOptions);
 		this.firingSequences = existingFiringSequences;
 		if (repeatSearch)
 			verify();
 	}
 	
- 	protected void verify() throws CancellationException{
- 	   	Hashtable <String, Marking> expandedMarkings = new Hashtable <String, Marking>();  
-		for (TransitionTreeNode initNode: root.children()){
-			expandedMarkings.clear();
-			setGoals();
-			removeGoalsWithExistingFiringSequences(root.children().indexOf(initNode));	 
-			LinkedList<TransitionTreeNode> queue = new LinkedList<TransitionTreeNode>();
-			queue.addLast(initNode);
+ 	protected void verify(TransitionTreeNode initNode) throws CancellationException{
+ 		if (isSearchWithoutTree()) {
+ 			verifyWithoutTree(initNode);
+ 			return;
+ 		}
+ 	   	MarkingStore expandedMarkings = new MemoryMarkingStore();  
+		ArrayList<GoalProperty> goals = createGoals();
+		removeGoalsWithExistingFiringSequences(root.children().indexOf(initNode), goals);	 
+		LinkedList<TransitionTreeNode> queue = new LinkedList<TransitionTreeNode>();
+		queue.addLast(initNode);
+		while (!queue.isEmpty() && goals.size()!=0) {
+			checkForCancellation();
+			TransitionTreeNode node = queue.poll();
+			if (node!=initNode || !searchForHomeStates)
+				verifyGoals(node, goals);
+			if (node.getLevel()<=searchDepth) {
+				if (!expandedMarkings.contains(node.getMarking().getKey()))
+					createChildren(node, expandedMarkings);
+				if (node!=initNode || !searchForHomeStates)
+					expandedMarkings.add(node.getMarking().getKey());
+				for (TransitionTreeNode child: node.children()) {
+					if (!expandedMarkings.contains(child.getMarking().getKey()))
+						queue.addLast(child);
+				}
+			}
+		}
+	}
+
+	// the same search as above without a tree: expanded markings are kept in the store of visited states
+	// (on disk or as bits) and the queue is written to disk when it gets large
+ 	private void verifyWithoutTree(TransitionTreeNode initNode) throws CancellationException{
+		int initIndex = root.children().indexOf(initNode);
+		ArrayList<GoalProperty> goals = createGoals();
+		removeGoalsWithExistingFiringSequences(initIndex, goals);	 
+		MarkingStore expandedMarkings = createMarkingStore();
+		SpillingQueue<SearchState> queue = createFrontier();
+		try {
+			queue.add(new SearchState(initNode.getMarking()));
 			while (!queue.isEmpty() && goals.size()!=0) {
 				checkForCancellation();
-				TransitionTreeNode node = queue.poll();
-				if (node!=initNode || !searchForHomeStates)
-					verifyGoals(node);
-				if (node.getLevel()<=searchDepth) {
-					if (expandedMarkings.get(node.getMarking().getKeyString(mid.getPlaces()))==null)
-						createChildren(node);
-					if (node!=initNode || !searchForHomeStates)
-						expandedMarkings.put(node.getMarking().getKeyString(mid.getPlaces()), node.getMarking());
-					for (TransitionTreeNode child: node.children()) {
-						if (expandedMarkings.get(child.getMarking().getKeyString(mid.getPlaces()))==null)
-							queue.addLast(child);
+				SearchState state = queue.poll();
+				if (!state.isInitial() || !searchForHomeStates)
+					verifyGoals(state, initIndex, goals);
+				if (state.getLevel()<=searchDepth && !expandedMarkings.contains(state.getMarking().getKey())) {
+					ArrayList<SearchState> successors = createSuccessors(state, expandedMarkings);
+					if (!state.isInitial() || !searchForHomeStates)
+						expandedMarkings.add(state.getMarking().getKey());
+					for (SearchState successor: successors) {
+						if (!expandedMarkings.contains(successor.getMarking().getKey()))
+							queue.add(successor);
 					}
 				}
 			}
 		}
+		catch (IOException e) {
+			throw new CancellationException(e.getMessage());
+		}
+		finally {
+			queue.close();
+			closeMarkingStore(expandedMarkings);
+		}
 	}
 
-
-	private void removeGoalsWithExistingFiringSequences(int initIndex){
+	private void removeGoalsWithExistingFiringSequences(int initIndex, ArrayList<GoalProperty> goals){
 		for (int goalIndex=0; goalIndex<firingSequences[initIndex].length; goalIndex++) {
 			GoalProperty goalProperty = mid.getGoalProperties().get(goalIndex);
 			FiringSequence firingSequence = firingSequences[initIndex][goalIndex];
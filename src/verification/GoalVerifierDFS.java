@@ -1,13 +1,16 @@
 package verification;
 
-import java.util.Hashtable;
+import java.util.ArrayList;
 import java.util.Stack;
 
 import kernel.CancellationException;
 import kernel.ProgressDialog;
+import kernel.SystemOptions;
 
+import mid.GoalProperty;
 import mid.MID;
-import mid.Marking;
+import mid.MarkingStore;
+import mid.MemoryMarkingStore;
 import testgeneration.TransitionTreeNode;
 
 // Bounded depth-first search is incomplete.
@@ -18,34 +21,70 @@ import testgeneration.TransitionTreeNode;
 public class GoalVerifierDFS extends GoalVerifier{
 
 	public GoalVerifierDFS(MID mid, int searchDepth, boolean searchForHomeStates, ProgressDialog progressDialog)  throws CancellationException {
-		super(mid, searchDepth, progressDialog, searchForHomeStates);
+		this(mid, searchDepth, searchForHomeStates, progressDialog, null);
+	}
+
+	public GoalVerifierDFS(MID mid, int searchDepth, boolean searchForHomeStates, ProgressDialog progressDialog, SystemOptions systemOptions)  throws CancellationException {
+		super(mid, searchDepth, progressDialog, searchForHomeStates, systemOptions);
 		verify();
 	}
 
-	protected void verify()  throws CancellationException{
-	    Hashtable <String, Marking> expandedMarkings = new Hashtable <String, Marking>();  
-		for (TransitionTreeNode initNode: root.children()){
-			expandedMarkings.clear();
-			setGoals();
-			Stack<TransitionTreeNode> stack = new Stack<TransitionTreeNode>();
-			stack.push(initNode);
+	protected void verify(TransitionTreeNode initNode)  throws CancellationException{
+		if (isSearchWithoutTree()) {
+			verifyWithoutTree(initNode);
+			return;
+		}
+	    MarkingStore expandedMarkings = new MemoryMarkingStore();  
+		ArrayList<GoalProperty> goals = createGoals();
+		Stack<TransitionTreeNode> stack = new Stack<TransitionTreeNode>();
+		stack.push(initNode);
+		while (!stack.isEmpty() && goals.size()!=0) {
+			checkForCancellation();
+			TransitionTreeNode node = stack.pop(); 
+			if (node!=initNode || !searchForHomeStates)
+				verifyGoals(node, goals);
+			if (node.getLevel()<=searchDepth) {
+				createChildren(node, expandedMarkings);
+				if (node!=initNode || !searchForHomeStates)
+					expandedMarkings.add(node.getMarking().getKey());
+				for (int i= node.children().size()-1; i>=0; i--){
+					TransitionTreeNode child = node.children().get(i);
+					if (!expandedMarkings.contains(child.getMarking().getKey()))
+						stack.push(child);
+				}
+			} 
+		}
+	}
+
+	// the same search as above without a tree: expanded markings are kept in the store of visited states
+	// (on disk or as bits) and the stack holds the states yet to be explored
+	private void verifyWithoutTree(TransitionTreeNode initNode)  throws CancellationException{
+		int initIndex = root.children().indexOf(initNode);
+		ArrayList<GoalProperty> goals = createGoals();
+		MarkingStore expandedMarkings = createMarkingStore();
+		try {
+			Stack<SearchState> stack = new Stack<SearchState>();
+			stack.push(new SearchState(initNode.getMarking()));
 			while (!stack.isEmpty() && goals.size()!=0) {
 				checkForCancellation();
-				TransitionTreeNode node = stack.pop(); 
-				if (node!=initNode || !searchForHomeStates)
-					verifyGoals(node);
-				if (node.getLevel()<=searchDepth) {
-					createChildren(node);
-					if (node!=initNode || !searchForHomeStates)
-						expandedMarkings.put(node.getMarking().getKeyString(mid.getPlaces()), node.getMarking());
-					for (int i= node.children().size()-1; i>=0; i--){
-						TransitionTreeNode child = node.children().get(i);
-						if (expandedMarkings.get(child.getMarking().getKeyString(mid.getPlaces()))==null)
-							stack.push(child);
+				SearchState state = stack.pop(); 
+				if (!state.isInitial() || !searchForHomeStates)
+					verifyGoals(state, initIndex, goals);
+				if (state.getLevel()<=searchDepth) {
+					ArrayList<SearchState> successors = createSuccessors(state, expandedMarkings);
+					if (!state.isInitial() || !searchForHomeStates)
+						expandedMarkings.add(state.getMarking().getKey());
+					for (int i= successors.size()-1; i>=0; i--){
+						SearchState successor = successors.get(i);
+						if (!expandedMarkings.contains(successor.getMarking().getKey()))
+							stack.push(successor);
 					}
 				} 
 			}
 		}
+		finally {
+			closeMarkingStore(expandedMarkings);
+		}
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package verification;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import mid.Firing;
+import mid.FiringSequence;
+import mid.MID;
+import mid.Marking;
+import mid.Substitution;
+
+// A state of a search that does not build a tree: its marking and the firings from the initial marking.
+// Transitions are kept as their indexes in the model so that a state can be written to disk.
+
+class SearchState implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private Marking marking;
+	private int[] transitionIndexes;
+	private Substitution[] substitutions;
+
+	SearchState(Marking initialMarking){
+		this(initialMarking, new int[0], new Substitution[0]);
+	}
+
+	private SearchState(Marking marking, int[] transitionIndexes, Substitution[] substitutions){
+		this.marking = marking;
+		this.transitionIndexes = transitionIndexes;
+		this.substitutions = substitutions;
+	}
+
+	SearchState fire(int transitionIndex, Substitution substitution, Marking newMarking){
+		int length = transitionIndexes.length;
+		int[] newTransitionIndexes = new int[length+1];
+		System.arraycopy(transitionIndexes, 0, newTransitionIndexes, 0, length);
+		newTransitionIndexes[length] = transitionIndex;
+		Substitution[] newSubstitutions = new Substitution[length+1];
+		System.arraycopy(substitutions, 0, newSubstitutions, 0, length);
+		newSubstitutions[length] = substitution;
+		return new SearchState(newMarking, newTransitionIndexes, newSubstitutions);
+	}
+
+	Marking getMarking(){
+		return marking;
+	}
+
+	boolean isInitial(){
+		return transitionIndexes.length==0;
+	}
+
+	// same as the level of the corresponding node in a transition tree
+	int getLevel(){
+		return transitionIndexes.length+1;
+	}
+
+	FiringSequence createFiringSequence(MID mid){
+		ArrayList<Firing> firings = new ArrayList<Firing>();
+		for (int i=0; i<transitionIndexes.length; i++)
+			firings.add(new Firing(mid.getTransitions().get(transitionIndexes[i]), substitutions[i]));
+		return new FiringSequence(firings);
+	}
+}